@@ -0,0 +1,434 @@
+package com.ruralyouth.data;
+
+import com.ruralyouth.dsa.LocationGraph;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Loads road networks shipped as files for offline district deployments
+ *
+ * Locations come from a small CSV file ("name,latitude,longitude"); the line
+ * order of that file gives the location ids used by the edge list.
+ * Edge lists are either CSV ("fromId,toId,distanceKm") or the binary format
+ * written by writeBinaryRoads. Edge files are memory-mapped and parsed in
+ * parallel chunks straight from the mapped bytes, without creating a String
+ * per line.
+ */
+public class RoadNetworkLoader {
+
+    public static final int BINARY_MAGIC = 0x524E4554; // "RNET"
+    public static final int BINARY_VERSION = 1;
+    private static final int BINARY_HEADER_SIZE = 20;
+    private static final int BINARY_RECORD_SIZE = 12;
+
+    private static final int MAX_LINE_LENGTH = 256;
+    private static final long MAX_CHUNK_SIZE = 1L << 30; // keep each mapping well under 2 GB
+
+    /**
+     * Read locations from a CSV file into the graph
+     * Blank lines, lines starting with '#' and a header as the first other
+     * line are skipped; any other line without coordinates fails the load.
+     * Each location must get the next free id, since edge lists refer to
+     * locations by line order; a name the graph already has is rejected.
+     */
+    public static int loadLocationsCsv(Path file, LocationGraph graph) throws IOException {
+        int startCount = graph.getLocationCount();
+        int loaded = 0;
+        int lineNumber = 0;
+        boolean firstRow = true;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                boolean mayBeHeader = firstRow;
+                firstRow = false;
+
+                // Split from the right so names may contain commas
+                int lonComma = line.lastIndexOf(',');
+                int latComma = lonComma > 0 ? line.lastIndexOf(',', lonComma - 1) : -1;
+                if (latComma <= 0) {
+                    throw new IOException("Malformed location at line " + lineNumber + ": " + line);
+                }
+
+                double latitude;
+                double longitude;
+                try {
+                    latitude = Double.parseDouble(line.substring(latComma + 1, lonComma).trim());
+                    longitude = Double.parseDouble(line.substring(lonComma + 1).trim());
+                } catch (NumberFormatException e) {
+                    if (mayBeHeader) {
+                        continue; // header line
+                    }
+                    throw new IOException("Malformed coordinates at line " + lineNumber + ": " + line);
+                }
+
+                String name = line.substring(0, latComma).trim();
+                int id = graph.addLocationAndGetId(name, latitude, longitude);
+                if (id != startCount + loaded) {
+                    throw new IOException("Location " + name + " at line " + lineNumber + " got id " + id
+                            + " instead of " + (startCount + loaded) + " (duplicate or already known name)");
+                }
+                loaded++;
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Load a CSV edge list ("fromId,toId,distanceKm" per line) into the graph
+     * Location ids must already exist in the graph. Blank lines, lines
+     * starting with '#' and a header on the first line are skipped; any
+     * other line that is not an edge fails the load.
+     */
+    public static LoadStats loadRoadsCsv(Path file, LocationGraph graph) throws IOException {
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long[] bounds = chunkBounds(fileSize, 1);
+
+            List<Callable<ParsedRoads>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long chunkStart = bounds[i];
+                long chunkEnd = bounds[i + 1];
+                tasks.add(() -> parseCsvChunk(channel, chunkStart, chunkEnd, fileSize, graph));
+            }
+
+            long roads = addAll(graph, runParallel(tasks));
+            return statsSince(startTime, fileSize, roads);
+        }
+    }
+
+    /**
+     * Load a binary edge list into the graph
+     * Layout: magic, version, locationCount (ints), edgeCount (long), then
+     * edgeCount records of (int fromId, int toId, float distanceKm)
+     */
+    public static LoadStats loadRoadsBinary(Path file, LocationGraph graph) throws IOException {
+        long startTime = System.nanoTime();
+        int locationCount = graph.getLocationCount();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < BINARY_HEADER_SIZE) {
+                throw new IOException("Road file too small for header: " + file);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_SIZE);
+            if (header.getInt(0) != BINARY_MAGIC) {
+                throw new IOException("Not a road network file: " + file);
+            }
+            if (header.getInt(4) != BINARY_VERSION) {
+                throw new IOException("Unsupported road file version " + header.getInt(4));
+            }
+            if (header.getInt(8) > locationCount) {
+                throw new IOException("Road file expects " + header.getInt(8)
+                        + " locations but graph has " + locationCount);
+            }
+            long edgeCount = header.getLong(12);
+            if (BINARY_HEADER_SIZE + edgeCount * BINARY_RECORD_SIZE != fileSize) {
+                throw new IOException("Road file size does not match edge count " + edgeCount);
+            }
+
+            long[] bounds = chunkBounds(edgeCount, BINARY_RECORD_SIZE);
+            List<Callable<ParsedRoads>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long firstRecord = bounds[i];
+                long lastRecord = bounds[i + 1];
+                tasks.add(() -> parseBinaryChunk(channel, firstRecord, lastRecord, graph));
+            }
+
+            long roads = addAll(graph, runParallel(tasks));
+            return statsSince(startTime, fileSize, roads);
+        }
+    }
+
+    /**
+     * Write every road of the graph in the binary edge list format
+     * Each undirected road is written once
+     */
+    public static void writeBinaryRoads(Path file, LocationGraph graph) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeInt(graph.getLocationCount());
+            out.writeLong(graph.getRoadCount());
+
+            for (int from = 0; from < graph.getLocationCount(); from++) {
+                if (!graph.isLocation(from)) {
+                    continue;
+                }
+                boolean selfLoopWritten = false;
+                for (int i = 0; i < graph.getDegree(from); i++) {
+                    int to = graph.getNeighbor(from, i);
+                    if (to == from) {
+                        // A self-loop is stored as two adjacent edges; write one of them
+                        selfLoopWritten = !selfLoopWritten;
+                    }
+                    if (to > from || (to == from && selfLoopWritten)) {
+                        out.writeInt(from);
+                        out.writeInt(to);
+                        out.writeFloat((float) graph.getEdgeDistance(from, i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Split [0, units) into roughly equal chunks, one or more per processor
+     */
+    private static long[] chunkBounds(long units, int unitSize) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxUnitsPerChunk = Math.max(1, MAX_CHUNK_SIZE / unitSize);
+        int chunks = (int) Math.max(threads, (units + maxUnitsPerChunk - 1) / maxUnitsPerChunk);
+        chunks = (int) Math.max(1, Math.min(chunks, units));
+
+        long[] bounds = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            bounds[i] = units * i / chunks;
+        }
+        return bounds;
+    }
+
+    private static List<ParsedRoads> runParallel(List<Callable<ParsedRoads>> tasks) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<ParsedRoads> results = new ArrayList<>();
+            for (Future<ParsedRoads> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Road network load interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Road network load failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long addAll(LocationGraph graph, List<ParsedRoads> chunks) {
+        long roads = 0;
+        for (ParsedRoads chunk : chunks) {
+            graph.addRoads(chunk.fromIds, chunk.toIds, chunk.distances, chunk.count);
+            roads += chunk.count;
+        }
+        return roads;
+    }
+
+    /**
+     * Parse the lines that start inside [start, end) of the file
+     */
+    private static ParsedRoads parseCsvChunk(FileChannel channel, long start, long end,
+                                             long fileSize, LocationGraph graph) throws IOException {
+        long mapStart = start == 0 ? 0 : start - 1;
+        long mapEnd = Math.min(fileSize, end + MAX_LINE_LENGTH);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = buffer.limit();
+        int stop = (int) (end - mapStart);
+        ParsedRoads roads = new ParsedRoads((int) ((end - start) / 12) + 16);
+
+        // Skip the partial line owned by the previous chunk
+        int pos = 0;
+        if (start > 0) {
+            while (pos < limit && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        while (pos < stop && pos < limit) {
+            int lineStart = pos;
+            byte first = buffer.get(pos);
+
+            boolean header = mapStart + lineStart == 0 && !isDigit(first);
+            if (first == '\n' || first == '\r' || first == '#' || header) {
+                // Blank line, comment or the header on the first line: skip it
+                while (pos < limit && buffer.get(pos) != '\n') {
+                    pos++;
+                }
+                pos++;
+                continue;
+            }
+            if (!isDigit(first)) {
+                throw malformed(mapStart + lineStart);
+            }
+
+            long from = 0;
+            while (pos < limit && isDigit(buffer.get(pos))) {
+                from = from * 10 + (buffer.get(pos++) - '0');
+            }
+            pos = expect(buffer, pos, limit, ',', mapStart + lineStart);
+
+            long to = 0;
+            int digitsStart = pos;
+            while (pos < limit && isDigit(buffer.get(pos))) {
+                to = to * 10 + (buffer.get(pos++) - '0');
+            }
+            if (pos == digitsStart) {
+                throw malformed(mapStart + lineStart);
+            }
+            pos = expect(buffer, pos, limit, ',', mapStart + lineStart);
+
+            double distance = 0;
+            digitsStart = pos;
+            while (pos < limit && isDigit(buffer.get(pos))) {
+                distance = distance * 10 + (buffer.get(pos++) - '0');
+            }
+            if (pos < limit && buffer.get(pos) == '.') {
+                pos++;
+                double scale = 0.1;
+                while (pos < limit && isDigit(buffer.get(pos))) {
+                    distance += (buffer.get(pos++) - '0') * scale;
+                    scale /= 10;
+                }
+            }
+            if (pos == digitsStart) {
+                throw malformed(mapStart + lineStart);
+            }
+
+            while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\r')) {
+                pos++;
+            }
+            if (pos < limit && buffer.get(pos) != '\n') {
+                throw malformed(mapStart + lineStart);
+            }
+            if (pos == limit && mapEnd < fileSize) {
+                throw new IOException("Line longer than " + MAX_LINE_LENGTH
+                        + " bytes at offset " + (mapStart + lineStart));
+            }
+            pos++;
+
+            roads.add(validId(from, graph, mapStart + lineStart),
+                      validId(to, graph, mapStart + lineStart), distance);
+        }
+
+        return roads;
+    }
+
+    private static ParsedRoads parseBinaryChunk(FileChannel channel, long firstRecord, long lastRecord,
+                                                LocationGraph graph) throws IOException {
+        long offset = BINARY_HEADER_SIZE + firstRecord * BINARY_RECORD_SIZE;
+        int records = (int) (lastRecord - firstRecord);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                (long) records * BINARY_RECORD_SIZE);
+        ParsedRoads roads = new ParsedRoads(records);
+
+        for (int i = 0; i < records; i++) {
+            int base = i * BINARY_RECORD_SIZE;
+            long recordOffset = offset + base;
+            float distance = buffer.getFloat(base + 8);
+            if (!(distance >= 0) || Float.isInfinite(distance)) {
+                throw new IOException("Invalid road distance " + distance + " at offset " + recordOffset);
+            }
+            roads.add(validId(buffer.getInt(base), graph, recordOffset),
+                      validId(buffer.getInt(base + 4), graph, recordOffset), distance);
+        }
+
+        return roads;
+    }
+
+    private static int expect(MappedByteBuffer buffer, int pos, int limit, char expected,
+                              long lineOffset) throws IOException {
+        if (pos >= limit || buffer.get(pos) != expected) {
+            throw malformed(lineOffset);
+        }
+        return pos + 1;
+    }
+
+    private static int validId(long id, LocationGraph graph, long offset) throws IOException {
+        if (id < 0 || id >= graph.getLocationCount() || !graph.isLocation((int) id)) {
+            throw new IOException("Unknown location id " + id + " at offset " + offset
+                    + " (graph has " + graph.getNodeCount() + " locations)");
+        }
+        return (int) id;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static IOException malformed(long offset) {
+        return new IOException("Malformed road line at offset " + offset);
+    }
+
+    private static LoadStats statsSince(long startNanos, long bytes, long roads) {
+        return new LoadStats(bytes, roads, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Roads parsed from one chunk, kept in primitive arrays
+     */
+    private static class ParsedRoads {
+        int[] fromIds;
+        int[] toIds;
+        double[] distances;
+        int count;
+
+        ParsedRoads(int capacity) {
+            capacity = Math.max(16, capacity);
+            this.fromIds = new int[capacity];
+            this.toIds = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        void add(int from, int to, double distance) {
+            if (count == fromIds.length) {
+                int newLength = count + (count >> 1);
+                fromIds = Arrays.copyOf(fromIds, newLength);
+                toIds = Arrays.copyOf(toIds, newLength);
+                distances = Arrays.copyOf(distances, newLength);
+            }
+            fromIds[count] = from;
+            toIds[count] = to;
+            distances[count++] = distance;
+        }
+    }
+
+    public static class LoadStats {
+        public final long bytes;
+        public final long roads;
+        public final long millis;
+
+        public LoadStats(long bytes, long roads, long millis) {
+            this.bytes = bytes;
+            this.roads = roads;
+            this.millis = millis;
+        }
+
+        public double getMegabytesPerSecond() {
+            return (bytes / (1024.0 * 1024.0)) / Math.max(1, millis) * 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LoadStats{roads=%d, bytes=%d, time=%d ms, throughput=%.1f MB/s}",
+                               roads, bytes, millis, getMegabytesPerSecond());
+        }
+    }
+}
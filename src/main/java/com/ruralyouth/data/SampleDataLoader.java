@@ -258,18 +258,22 @@ public class SampleDataLoader {
     }
 
     private static void loadSampleLocations(JobRecommendationEngine engine) {
-        // This would typically load location data and road connections
-        // For now, we'll create some sample road connections between locations
-        
-        // Get the location graph from the engine (this would need to be exposed)
-        // For demonstration, we'll assume the locations are already added via jobs and users
-        
-        // Sample road connections (these would be loaded from a file in real implementation)
-        // Village A <-> Town B: 15 km
-        // Town B <-> City C: 25 km
-        // Village D <-> Town E: 12 km
-        // Town E <-> City C: 20 km
-        // Village A <-> Village D: 18 km
+        // Locations are already added via jobs and users; add the road connections
+        // between them (these would be loaded with LocationGraphDAO in a real deployment)
+        LocationGraph graph = engine.getWritableLocationGraph();
+
+        graph.addRoad("Village A", "Town B", 15.0);
+        graph.addRoad("Town B", "City C", 25.0);
+        graph.addRoad("Village D", "Town E", 12.0);
+        graph.addRoad("Town E", "City C", 20.0);
+        graph.addRoad("Village A", "Village D", 18.0);
+
+        // Administrative hierarchy: village/town -> block -> district
+        engine.setLocationHierarchy("Village A", "Alipur Block", "North District");
+        engine.setLocationHierarchy("Town B", "Alipur Block", "North District");
+        engine.setLocationHierarchy("Village D", "Sohna Block", "South District");
+        engine.setLocationHierarchy("Town E", "Sohna Block", "South District");
+        engine.setLocationHierarchy("City C", "Sohna Block", "South District");
     }
 
     /**
@@ -4,6 +4,8 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -13,6 +15,8 @@ import java.sql.Statement;
  */
 public class DatabaseManager {
     
+    private static final int FETCH_SIZE = 10000; // rows per round trip for streaming reads
+    
     private static HikariDataSource dataSource;
     private static boolean initialized = false;
     
@@ -67,6 +71,27 @@ public class DatabaseManager {
         return dataSource.getConnection();
     }
     
+    /**
+     * Prepare a forward-only query that streams its rows, with the
+     * parameters bound in order
+     * PostgreSQL only streams with a cursor when auto-commit is off. The
+     * MySQL driver ignores this fetch size (it needs Integer.MIN_VALUE or
+     * useCursorFetch) and reads the whole result at once.
+     */
+    public static PreparedStatement prepareStreaming(Connection conn, String sql, Object... params) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            pstmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+        return pstmt;
+    }
+    
     /**
      * Close the database connection pool
      */
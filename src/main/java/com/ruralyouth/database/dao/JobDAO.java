@@ -12,6 +12,7 @@ import java.util.*;
  */
 public class JobDAO {
     
+    
     /**
      * Save a job to the database
      */
@@ -51,75 +52,16 @@ public class JobDAO {
      * Load a job from the database by ID
      */
     public static Job loadJob(String jobId) throws SQLException {
-        String sql = "SELECT * FROM jobs WHERE id = ?";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, jobId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                Job job = new Job(
-                    rs.getString("id"),
-                    rs.getString("title"),
-                    rs.getString("company"),
-                    rs.getString("location"),
-                    rs.getDouble("salary")
-                );
-                
-                job.setDescription(rs.getString("description"));
-                job.setJobType(rs.getString("job_type"));
-                job.setLatitude(rs.getDouble("latitude"));
-                job.setLongitude(rs.getDouble("longitude"));
-                job.setExperienceLevel(rs.getInt("experience_level"));
-                
-                // Load skills and benefits
-                loadJobSkills(job);
-                loadJobBenefits(job);
-                
-                return job;
-            }
-        }
-        
-        return null;
+        List<Job> jobs = loadJobs("SELECT * FROM jobs WHERE id = ?", false, jobId);
+        return jobs.isEmpty() ? null : jobs.get(0);
     }
     
     /**
      * Load all jobs from the database
+     * One query per table instead of two more per job, see loadJobs
      */
     public static List<Job> loadAllJobs() throws SQLException {
-        List<Job> jobs = new ArrayList<>();
-        String sql = "SELECT * FROM jobs ORDER BY title";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Job job = new Job(
-                    rs.getString("id"),
-                    rs.getString("title"),
-                    rs.getString("company"),
-                    rs.getString("location"),
-                    rs.getDouble("salary")
-                );
-                
-                job.setDescription(rs.getString("description"));
-                job.setJobType(rs.getString("job_type"));
-                job.setLatitude(rs.getDouble("latitude"));
-                job.setLongitude(rs.getDouble("longitude"));
-                job.setExperienceLevel(rs.getInt("experience_level"));
-                
-                // Load skills and benefits
-                loadJobSkills(job);
-                loadJobBenefits(job);
-                
-                jobs.add(job);
-            }
-        }
-        
-        return jobs;
+        return loadJobs("SELECT * FROM jobs ORDER BY title", true);
     }
     
     /**
@@ -140,92 +82,32 @@ public class JobDAO {
      * Search jobs by title using LIKE
      */
     public static List<Job> searchJobsByTitle(String titlePrefix) throws SQLException {
-        List<Job> jobs = new ArrayList<>();
-        String sql = "SELECT * FROM jobs WHERE title ILIKE ? ORDER BY title";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, titlePrefix + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Job job = createJobFromResultSet(rs);
-                jobs.add(job);
-            }
-        }
-        
-        return jobs;
+        return loadJobs("SELECT * FROM jobs WHERE title ILIKE ? ORDER BY title", false, titlePrefix + "%");
     }
     
     /**
      * Search jobs by skill
      */
     public static List<Job> searchJobsBySkill(String skillName) throws SQLException {
-        List<Job> jobs = new ArrayList<>();
-        String sql = "SELECT DISTINCT j.* FROM jobs j " +
-                    "JOIN job_skills js ON j.id = js.job_id " +
-                    "JOIN skills s ON js.skill_id = s.id " +
-                    "WHERE s.name ILIKE ? ORDER BY j.title";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, skillName + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Job job = createJobFromResultSet(rs);
-                jobs.add(job);
-            }
-        }
-        
-        return jobs;
+        return loadJobs("SELECT DISTINCT j.* FROM jobs j " +
+                        "JOIN job_skills js ON j.id = js.job_id " +
+                        "JOIN skills s ON js.skill_id = s.id " +
+                        "WHERE s.name ILIKE ? ORDER BY j.title", false, skillName + "%");
     }
     
     /**
      * Search jobs by location
      */
     public static List<Job> searchJobsByLocation(String location) throws SQLException {
-        List<Job> jobs = new ArrayList<>();
-        String sql = "SELECT * FROM jobs WHERE location ILIKE ? ORDER BY title";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, "%" + location + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Job job = createJobFromResultSet(rs);
-                jobs.add(job);
-            }
-        }
-        
-        return jobs;
+        return loadJobs("SELECT * FROM jobs WHERE location ILIKE ? ORDER BY title", false, "%" + location + "%");
     }
     
     /**
      * Search jobs by salary range
      */
     public static List<Job> searchJobsBySalaryRange(double minSalary, double maxSalary) throws SQLException {
-        List<Job> jobs = new ArrayList<>();
-        String sql = "SELECT * FROM jobs WHERE salary BETWEEN ? AND ? ORDER BY salary DESC";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setDouble(1, minSalary);
-            pstmt.setDouble(2, maxSalary);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Job job = createJobFromResultSet(rs);
-                jobs.add(job);
-            }
-        }
-        
-        return jobs;
+        return loadJobs("SELECT * FROM jobs WHERE salary BETWEEN ? AND ? ORDER BY salary DESC", false,
+                        minSalary, maxSalary);
     }
     
     /**
@@ -254,40 +136,29 @@ public class JobDAO {
             return new ArrayList<>();
         }
         
-        List<Job> jobs = new ArrayList<>();
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT j.*, COUNT(js.skill_id) as skill_match_count FROM jobs j ");
-        sql.append("JOIN job_skills js ON j.id = js.job_id ");
-        sql.append("JOIN skills s ON js.skill_id = s.id ");
-        sql.append("WHERE s.name IN (");
+        // Jobs requiring every one of the skills
+        StringBuilder matches = new StringBuilder();
+        matches.append("SELECT js.job_id FROM job_skills js ");
+        matches.append("JOIN skills s ON js.skill_id = s.id ");
+        matches.append("WHERE s.name IN (");
         
         // Add placeholders for skills
         for (int i = 0; i < requiredSkills.size(); i++) {
-            if (i > 0) sql.append(", ");
-            sql.append("?");
+            if (i > 0) matches.append(", ");
+            matches.append("?");
         }
-        sql.append(") ");
-        sql.append("GROUP BY j.id ");
-        sql.append("HAVING COUNT(js.skill_id) = ? ");
-        sql.append("ORDER BY j.title");
+        matches.append(") ");
+        matches.append("GROUP BY js.job_id ");
+        matches.append("HAVING COUNT(js.skill_id) = ?");
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-            
-            int paramIndex = 1;
-            for (String skill : requiredSkills) {
-                pstmt.setString(paramIndex++, skill.toLowerCase());
-            }
-            pstmt.setInt(paramIndex, requiredSkills.size());
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Job job = createJobFromResultSet(rs);
-                jobs.add(job);
-            }
+        Object[] params = new Object[requiredSkills.size() + 1];
+        int paramIndex = 0;
+        for (String skill : requiredSkills) {
+            params[paramIndex++] = skill.toLowerCase();
         }
+        params[paramIndex] = requiredSkills.size();
         
-        return jobs;
+        return loadJobs("SELECT * FROM jobs WHERE id IN (" + matches + ") ORDER BY title", false, params);
     }
     
     /**
@@ -322,27 +193,6 @@ public class JobDAO {
         }
     }
     
-    /**
-     * Load job skills from the database
-     */
-    private static void loadJobSkills(Job job) throws SQLException {
-        String sql = "SELECT s.name FROM job_skills js " +
-                    "JOIN skills s ON js.skill_id = s.id " +
-                    "WHERE js.job_id = ?";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, job.getId());
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                String skillName = rs.getString("name");
-                job.addRequiredSkill(skillName);
-            }
-        }
-    }
-    
     /**
      * Save job benefits to the database
      */
@@ -369,40 +219,92 @@ public class JobDAO {
     }
     
     /**
-     * Load job benefits from the database
+     * Ensure a skill exists in the skills table
      */
-    private static void loadJobBenefits(Job job) throws SQLException {
-        String sql = "SELECT benefit FROM job_benefits WHERE job_id = ?";
+    private static void ensureSkillExists(String skillName) throws SQLException {
+        String sql = "INSERT INTO skills (name) VALUES (?) ON CONFLICT (name) DO NOTHING";
         
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, job.getId());
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                String benefit = rs.getString("benefit");
-                job.addBenefit(benefit);
-            }
+            pstmt.setString(1, skillName.toLowerCase());
+            pstmt.executeUpdate();
         }
     }
     
     /**
-     * Ensure a skill exists in the skills table
+     * Load the jobs selected by jobSql together with their skills and
+     * benefits: one query per table on a single connection, stitched onto
+     * the jobs by id. Unless jobSql selects every job, the skill and benefit
+     * queries are limited to the loaded ids, passed as one array parameter
+     * (= ANY, PostgreSQL), so the search filter itself runs only once.
+     * Time Complexity: three queries, O(jobs + skills + benefits) rows
      */
-    private static void ensureSkillExists(String skillName) throws SQLException {
-        String sql = "INSERT INTO skills (name) VALUES (?) ON CONFLICT (name) DO NOTHING";
+    private static List<Job> loadJobs(String jobSql, boolean allJobs, Object... params) throws SQLException {
+        String skillSql = "SELECT js.job_id, s.name FROM job_skills js " +
+                         "JOIN skills s ON js.skill_id = s.id" +
+                         (allJobs ? "" : " WHERE js.job_id = ANY(?)");
+        String benefitSql = "SELECT job_id, benefit FROM job_benefits" +
+                           (allJobs ? "" : " WHERE job_id = ANY(?)");
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        List<Job> jobs = new ArrayList<>();
+        Map<String, Job> jobsById = new HashMap<>();
+        
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            // PostgreSQL only streams with a cursor when auto-commit is off
+            conn.setAutoCommit(false);
             
-            pstmt.setString(1, skillName.toLowerCase());
-            pstmt.executeUpdate();
+            try {
+                try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, jobSql, params);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Job job = createJobFromResultSet(rs);
+                        jobs.add(job);
+                        jobsById.put(job.getId(), job);
+                    }
+                }
+                
+                if (!jobs.isEmpty()) {
+                    Object[] detailParams = allJobs ? new Object[0]
+                            : new Object[] {conn.createArrayOf("varchar", jobsById.keySet().toArray())};
+                    try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, skillSql, detailParams);
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Job job = jobsById.get(rs.getString("job_id"));
+                            if (job != null) {
+                                job.addRequiredSkill(rs.getString("name"));
+                            }
+                        }
+                    }
+                    
+                    try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, benefitSql, detailParams);
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Job job = jobsById.get(rs.getString("job_id"));
+                            if (job != null) {
+                                job.addBenefit(rs.getString("benefit"));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        
+        for (Job job : jobs) {
+            job.internStrings();
         }
+        return jobs;
     }
     
     /**
-     * Create a Job object from ResultSet
+     * Create a Job object from a row of the jobs table (without skills and benefits)
      */
     private static Job createJobFromResultSet(ResultSet rs) throws SQLException {
         Job job = new Job(
@@ -419,10 +321,6 @@ public class JobDAO {
         job.setLongitude(rs.getDouble("longitude"));
         job.setExperienceLevel(rs.getInt("experience_level"));
         
-        // Load skills and benefits
-        loadJobSkills(job);
-        loadJobBenefits(job);
-        
         return job;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package com.ruralyouth.database.dao;
+
+import com.ruralyouth.database.DatabaseManager;
+import com.ruralyouth.dsa.LocationGraph;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data Access Object for the location graph
+ * Stores locations and road connections with batched inserts and loads the
+ * whole graph back with a single streaming join query
+ */
+public class LocationGraphDAO {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Save every location and road of the graph to the database
+     */
+    public static void saveGraph(LocationGraph graph) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            saveGraph(conn, graph);
+        }
+    }
+
+    /**
+     * Save every location and road of the graph over the given connection
+     * Each undirected road is stored once, from the lower to the higher
+     * database id, whatever graph ids its ends have, so saving a loaded graph
+     * updates its rows instead of adding reversed copies. Existing rows are
+     * updated first and only missing ones inserted, which PostgreSQL and H2
+     * both accept.
+     */
+    public static void saveGraph(Connection conn, LocationGraph graph) throws SQLException {
+        String updateLocationSql = "UPDATE locations SET latitude = ?, longitude = ? WHERE name = ?";
+        String insertLocationSql = "INSERT INTO locations (name, latitude, longitude) VALUES (?, ?, ?) " +
+                                  "ON CONFLICT DO NOTHING";
+        String updateRoadSql = "UPDATE location_connections SET distance = ? " +
+                              "WHERE (from_location_id, to_location_id) = " +
+                              "(SELECT LEAST(f.id, t.id), GREATEST(f.id, t.id) FROM locations f, locations t " +
+                              "WHERE f.name = ? AND t.name = ?)";
+        String insertRoadSql = "INSERT INTO location_connections (from_location_id, to_location_id, distance) " +
+                              "SELECT LEAST(f.id, t.id), GREATEST(f.id, t.id), ? FROM locations f, locations t " +
+                              "WHERE f.name = ? AND t.name = ? ON CONFLICT DO NOTHING";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try {
+            try (PreparedStatement update = conn.prepareStatement(updateLocationSql);
+                 PreparedStatement insert = conn.prepareStatement(insertLocationSql)) {
+                int pending = 0;
+                for (int id = 0; id < graph.getLocationCount(); id++) {
+                    if (!graph.isLocation(id)) {
+                        continue; // region name, not a graph node
+                    }
+                    update.setDouble(1, graph.getLatitude(id));
+                    update.setDouble(2, graph.getLongitude(id));
+                    update.setString(3, graph.getLocationName(id));
+                    update.addBatch();
+                    insert.setString(1, graph.getLocationName(id));
+                    insert.setDouble(2, graph.getLatitude(id));
+                    insert.setDouble(3, graph.getLongitude(id));
+                    insert.addBatch();
+
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                    insert.executeBatch();
+                }
+            }
+
+            try (PreparedStatement update = conn.prepareStatement(updateRoadSql);
+                 PreparedStatement insert = conn.prepareStatement(insertRoadSql)) {
+                int pending = 0;
+                for (int from = 0; from < graph.getLocationCount(); from++) {
+                    for (int i = 0; i < graph.getDegree(from); i++) {
+                        int to = graph.getNeighbor(from, i);
+                        if (to <= from) {
+                            continue; // reverse edge of a road already written
+                        }
+
+                        for (PreparedStatement pstmt : new PreparedStatement[] {update, insert}) {
+                            pstmt.setDouble(1, graph.getEdgeDistance(from, i));
+                            pstmt.setString(2, graph.getLocationName(from));
+                            pstmt.setString(3, graph.getLocationName(to));
+                            pstmt.addBatch();
+                        }
+
+                        if (++pending == BATCH_SIZE) {
+                            update.executeBatch();
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                    insert.executeBatch();
+                }
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Load the whole location graph with one streaming join query
+     */
+    public static LocationGraph loadGraph() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return loadGraph(conn);
+        }
+    }
+
+    /**
+     * Load the whole location graph over the given connection
+     * Rows are read in location order; database ids are mapped to graph ids
+     * through a map (ids may be sparse) and the roads are collected into
+     * primitive arrays,
+     * then added with one LocationGraph.addRoads call
+     * Time Complexity: O(V + E)
+     */
+    public static LocationGraph loadGraph(Connection conn) throws SQLException {
+        String sql = "SELECT f.id AS from_id, f.name AS from_name, f.latitude AS from_lat, f.longitude AS from_lon, " +
+                    "t.id AS to_id, t.name AS to_name, t.latitude AS to_lat, t.longitude AS to_lon, c.distance " +
+                    "FROM locations f " +
+                    "LEFT JOIN location_connections c ON c.from_location_id = f.id " +
+                    "LEFT JOIN locations t ON t.id = c.to_location_id " +
+                    "ORDER BY f.id";
+
+        LocationGraph graph = new LocationGraph();
+        Map<Integer, Integer> graphIds = new HashMap<>();
+        int[] fromIds = new int[1024];
+        int[] toIds = new int[1024];
+        double[] roadDistances = new double[1024];
+        int roads = 0;
+
+        boolean autoCommit = conn.getAutoCommit();
+        // PostgreSQL only streams with a cursor when auto-commit is off
+        conn.setAutoCommit(false);
+
+        try {
+            try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                int lastFromDbId = -1;
+                int fromId = -1;
+
+                while (rs.next()) {
+                    int fromDbId = rs.getInt("from_id");
+                    if (fromDbId != lastFromDbId) {
+                        fromId = ensureMapped(graph, graphIds, fromDbId, rs.getString("from_name"),
+                                rs.getDouble("from_lat"), rs.getDouble("from_lon"));
+                        lastFromDbId = fromDbId;
+                    }
+
+                    int toDbId = rs.getInt("to_id");
+                    if (rs.wasNull()) {
+                        continue; // location without roads
+                    }
+
+                    int toId = ensureMapped(graph, graphIds, toDbId, rs.getString("to_name"),
+                            rs.getDouble("to_lat"), rs.getDouble("to_lon"));
+                    if (roads == fromIds.length) {
+                        fromIds = Arrays.copyOf(fromIds, roads * 2);
+                        toIds = Arrays.copyOf(toIds, roads * 2);
+                        roadDistances = Arrays.copyOf(roadDistances, roads * 2);
+                    }
+                    fromIds[roads] = fromId;
+                    toIds[roads] = toId;
+                    roadDistances[roads++] = rs.getDouble("distance");
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        graph.addRoads(fromIds, toIds, roadDistances, roads);
+        return graph;
+    }
+
+    /**
+     * Get road count from database
+     */
+    public static int getRoadCount() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM location_connections";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Add the location to the graph the first time its database id is seen
+     * and return its graph id
+     */
+    private static int ensureMapped(LocationGraph graph, Map<Integer, Integer> graphIds, int dbId,
+                                    String name, double latitude, double longitude) {
+        Integer id = graphIds.get(dbId);
+        if (id == null) {
+            id = graph.addLocationAndGetId(name, latitude, longitude);
+            graphIds.put(dbId, id);
+        }
+        return id;
+    }
+}
@@ -12,6 +12,7 @@ import java.util.*;
  */
 public class UserDAO {
     
+    
     /**
      * Save a user to the database
      */
@@ -49,71 +50,16 @@ public class UserDAO {
      * Load a user from the database by ID
      */
     public static User loadUser(String userId) throws SQLException {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                User user = new User(
-                    rs.getString("id"),
-                    rs.getString("name"),
-                    rs.getInt("age"),
-                    rs.getString("education"),
-                    rs.getString("location")
-                );
-                
-                user.setLatitude(rs.getDouble("latitude"));
-                user.setLongitude(rs.getDouble("longitude"));
-                user.setMaxDistance(rs.getDouble("max_distance"));
-                
-                // Load skills and preferences
-                loadUserSkills(user);
-                loadUserPreferences(user);
-                
-                return user;
-            }
-        }
-        
-        return null;
+        List<User> users = loadUsers("SELECT * FROM users WHERE id = ?", false, userId);
+        return users.isEmpty() ? null : users.get(0);
     }
     
     /**
      * Load all users from the database
+     * One query per table instead of two more per user, see loadUsers
      */
     public static List<User> loadAllUsers() throws SQLException {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users ORDER BY name";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                User user = new User(
-                    rs.getString("id"),
-                    rs.getString("name"),
-                    rs.getInt("age"),
-                    rs.getString("education"),
-                    rs.getString("location")
-                );
-                
-                user.setLatitude(rs.getDouble("latitude"));
-                user.setLongitude(rs.getDouble("longitude"));
-                user.setMaxDistance(rs.getDouble("max_distance"));
-                
-                // Load skills and preferences
-                loadUserSkills(user);
-                loadUserPreferences(user);
-                
-                users.add(user);
-            }
-        }
-        
-        return users;
+        return loadUsers("SELECT * FROM users ORDER BY name", true);
     }
     
     /**
@@ -163,28 +109,6 @@ public class UserDAO {
         }
     }
     
-    /**
-     * Load user skills from the database
-     */
-    private static void loadUserSkills(User user) throws SQLException {
-        String sql = "SELECT s.name, us.proficiency FROM user_skills us " +
-                    "JOIN skills s ON us.skill_id = s.id " +
-                    "WHERE us.user_id = ?";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, user.getId());
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                String skillName = rs.getString("name");
-                int proficiency = rs.getInt("proficiency");
-                user.addSkill(skillName, proficiency);
-            }
-        }
-    }
-    
     /**
      * Save user preferences to the database
      */
@@ -210,25 +134,6 @@ public class UserDAO {
         }
     }
     
-    /**
-     * Load user preferences from the database
-     */
-    private static void loadUserPreferences(User user) throws SQLException {
-        String sql = "SELECT preference FROM user_preferences WHERE user_id = ?";
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, user.getId());
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                String preference = rs.getString("preference");
-                user.addPreference(preference);
-            }
-        }
-    }
-    
     /**
      * Ensure a skill exists in the skills table
      */
@@ -265,35 +170,93 @@ public class UserDAO {
      * Search users by location
      */
     public static List<User> searchUsersByLocation(String location) throws SQLException {
+        return loadUsers("SELECT * FROM users WHERE location ILIKE ? ORDER BY name", false, "%" + location + "%");
+    }
+    
+    /**
+     * Load the users selected by userSql together with their skills and
+     * preferences: one query per table on a single connection, stitched
+     * onto the users by id. Unless userSql selects every user, the detail
+     * queries are limited to the loaded ids as one array parameter (= ANY,
+     * PostgreSQL), so the search filter runs only once.
+     * Time Complexity: three queries, O(users + skills + preferences) rows
+     */
+    private static List<User> loadUsers(String userSql, boolean allUsers, Object... params) throws SQLException {
+        String skillSql = "SELECT us.user_id, s.name, us.proficiency FROM user_skills us " +
+                         "JOIN skills s ON us.skill_id = s.id" +
+                         (allUsers ? "" : " WHERE us.user_id = ANY(?)");
+        String preferenceSql = "SELECT user_id, preference FROM user_preferences" +
+                              (allUsers ? "" : " WHERE user_id = ANY(?)");
+        
         List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users WHERE location ILIKE ? ORDER BY name";
+        Map<String, User> usersById = new HashMap<>();
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, "%" + location + "%");
-            ResultSet rs = pstmt.executeQuery();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            // PostgreSQL only streams with a cursor when auto-commit is off
+            conn.setAutoCommit(false);
             
-            while (rs.next()) {
-                User user = new User(
-                    rs.getString("id"),
-                    rs.getString("name"),
-                    rs.getInt("age"),
-                    rs.getString("education"),
-                    rs.getString("location")
-                );
+            try {
+                try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, userSql, params);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        User user = createUserFromResultSet(rs);
+                        users.add(user);
+                        usersById.put(user.getId(), user);
+                    }
+                }
                 
-                user.setLatitude(rs.getDouble("latitude"));
-                user.setLongitude(rs.getDouble("longitude"));
-                user.setMaxDistance(rs.getDouble("max_distance"));
-                
-                loadUserSkills(user);
-                loadUserPreferences(user);
-                
-                users.add(user);
+                if (!users.isEmpty()) {
+                    Object[] detailParams = allUsers ? new Object[0]
+                            : new Object[] {conn.createArrayOf("varchar", usersById.keySet().toArray())};
+                    try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, skillSql, detailParams);
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = usersById.get(rs.getString("user_id"));
+                            if (user != null) {
+                                user.addSkill(rs.getString("name"), rs.getInt("proficiency"));
+                            }
+                        }
+                    }
+                    
+                    try (PreparedStatement pstmt = DatabaseManager.prepareStreaming(conn, preferenceSql, detailParams);
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = usersById.get(rs.getString("user_id"));
+                            if (user != null) {
+                                user.addPreference(rs.getString("preference"));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
         }
         
         return users;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Create a User object from a row of the users table (without skills and preferences)
+     */
+    private static User createUserFromResultSet(ResultSet rs) throws SQLException {
+        User user = new User(
+            rs.getString("id"),
+            rs.getString("name"),
+            rs.getInt("age"),
+            rs.getString("education"),
+            rs.getString("location")
+        );
+        
+        user.setLatitude(rs.getDouble("latitude"));
+        user.setLongitude(rs.getDouble("longitude"));
+        user.setMaxDistance(rs.getDouble("max_distance"));
+        
+        return user;
+    }
+}
@@ -0,0 +1,603 @@
+package com.ruralyouth.dsa;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed set of non-negative ints (Roaring-style)
+ *
+ * Ids are split by their high 16 bits into chunks of 65536. A sparse chunk
+ * is a sorted char array (2 bytes per id); once it holds more than 4096 ids
+ * it switches to a 1024-word bitset (8 KB, fixed). Set operations work chunk
+ * by chunk and pick the cheapest routine for each pair of container kinds,
+ * e.g. an AND of a small array with a bitset probes the bitset per id.
+ */
+public class CompressedBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITSET_WORDS = 1024;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size; // number of chunks
+
+    public CompressedBitmap() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+    }
+
+    /**
+     * Bitmap holding the given ids
+     */
+    public static CompressedBitmap of(int... ids) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Bitmap holding every id in [from, to)
+     */
+    public static CompressedBitmap range(int from, int to) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int id = from; id < to; id++) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Add an id
+     * Time Complexity: O(1) when ids arrive in increasing order, else O(log n + c)
+     */
+    public void add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ids must be non-negative: " + id);
+        }
+        char key = (char) (id >>> 16);
+        int index = size > 0 && keys[size - 1] == key ? size - 1 : findChunk(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayContainer(4));
+        }
+        containers[index] = writable(index).add((char) id);
+    }
+
+    /**
+     * Remove an id; an emptied chunk is dropped
+     * Time Complexity: O(log n + c)
+     */
+    public void remove(int id) {
+        int index = id < 0 ? -1 : findChunk((char) (id >>> 16));
+        if (index < 0) {
+            return;
+        }
+        containers[index] = writable(index).remove((char) id);
+        if (containers[index].cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        }
+    }
+
+    /**
+     * Bitmap holding the same ids that shares this one's chunks; whichever
+     * of the two changes a shared chunk first copies it
+     * Time Complexity: O(n) in the number of chunks
+     */
+    public CompressedBitmap fork() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = keys.clone();
+        copy.containers = containers.clone();
+        copy.size = size;
+        for (int i = 0; i < size; i++) {
+            containers[i].shared = true;
+        }
+        return copy;
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) return false;
+
+        int index = findChunk((char) (id >>> 16));
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Approximate heap bytes held by the containers
+     */
+    public long getSizeInBytes() {
+        long bytes = 3L * keys.length + 16;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * The ids in ascending order
+     */
+    public int[] toArray() {
+        int[] result = new int[getCardinality()];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            position = containers[i].copyTo(result, position, keys[i] << 16);
+        }
+        return result;
+    }
+
+    /**
+     * Write the chunks as they are: keys, then each container's sorted
+     * values or bitset words
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.writeChars(keys, size);
+        for (int i = 0; i < size; i++) {
+            boolean bitset = containers[i] instanceof BitsetContainer;
+            out.writeBoolean(bitset);
+            if (bitset) {
+                out.writeLongs(((BitsetContainer) containers[i]).words, BITSET_WORDS);
+            } else {
+                ArrayContainer array = (ArrayContainer) containers[i];
+                out.writeChars(array.values, array.cardinality);
+            }
+        }
+    }
+
+    public static CompressedBitmap readFrom(SnapshotFile.Reader in) {
+        char[] keys = in.readChars();
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.keys = Arrays.copyOf(keys, Math.max(4, keys.length));
+        bitmap.containers = new Container[bitmap.keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (in.readBoolean()) {
+                long[] words = in.readLongs();
+                bitmap.containers[i] = new BitsetContainer(words, BitsetContainer.countBits(words));
+            } else {
+                char[] values = in.readChars();
+                bitmap.containers[i] = new ArrayContainer(values, values.length);
+            }
+        }
+        bitmap.size = keys.length;
+        return bitmap;
+    }
+
+    /**
+     * Ids in both bitmaps
+     * Time Complexity: O(c) in the container sizes of shared chunks
+     */
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(a.keys[i], a.containers[i].and(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids in either bitmap
+     */
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendChunk(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.appendChunk(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.appendChunk(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Union of many bitmaps
+     */
+    public static CompressedBitmap orAll(List<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : bitmaps) {
+            result = or(result, bitmap);
+        }
+        return result;
+    }
+
+    /**
+     * Ids in a but not in b
+     */
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                result.appendChunk(a.keys[i], a.containers[i].andNot(b.containers[j]));
+            } else {
+                result.appendChunk(a.keys[i], a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompressedBitmap && Arrays.equals(toArray(), ((CompressedBitmap) other).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressedBitmap{ids=%d, chunks=%d, bytes=%d}",
+                           getCardinality(), size, getSizeInBytes());
+    }
+
+    private Container writable(int index) {
+        if (containers[index].shared) {
+            containers[index] = containers[index].copy();
+        }
+        return containers[index];
+    }
+
+    private int findChunk(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendChunk(char key, Container container) {
+        if (container.cardinality() > 0) {
+            insertChunk(size, key, container);
+        }
+    }
+
+    /**
+     * The ids of one 65536-wide chunk, as their low 16 bits
+     */
+    private abstract static class Container {
+        boolean shared; // also referenced by a fork, copied before changing
+
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract long sizeInBytes();
+        abstract int copyTo(int[] target, int position, int high);
+        abstract Container copy();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer(int capacity) {
+            this.values = new char[capacity];
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            // Fast path for increasing ids
+            int index = cardinality > 0 && values[cardinality - 1] < value
+                    ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitset().add(value);
+            }
+
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * values.length + 16;
+        }
+
+        @Override
+        int copyTo(int[] target, int position, int high) {
+            for (int i = 0; i < cardinality; i++) {
+                target[position++] = high | values[i];
+            }
+            return position;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int j = 0;
+                for (int i = 0; i < cardinality && j < array.cardinality; ) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitsetContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (cardinality + array.cardinality > ARRAY_LIMIT) {
+                return toBitset().or(other);
+            }
+
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        BitsetContainer toBitset() {
+            BitsetContainer bitset = new BitsetContainer(new long[BITSET_WORDS], 0);
+            for (int i = 0; i < cardinality; i++) {
+                bitset.add(values[i]);
+            }
+            return bitset;
+        }
+    }
+
+    private static final class BitsetContainer extends Container {
+        final long[] words;
+        int cardinality;
+
+        BitsetContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality > ARRAY_LIMIT ? this : shrink(words);
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * BITSET_WORDS + 16;
+        }
+
+        @Override
+        int copyTo(int[] target, int position, int high) {
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    target[position++] = high | (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return position;
+        }
+
+        @Override
+        Container copy() {
+            return new BitsetContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] result = new long[BITSET_WORDS];
+            long[] otherWords = ((BitsetContainer) other).words;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                result[w] = words[w] & otherWords[w];
+            }
+            return shrink(result);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    result[array.values[i] >>> 6] |= 1L << array.values[i];
+                }
+            } else {
+                long[] otherWords = ((BitsetContainer) other).words;
+                for (int w = 0; w < BITSET_WORDS; w++) {
+                    result[w] |= otherWords[w];
+                }
+            }
+            return new BitsetContainer(result, countBits(result));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    result[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+                }
+            } else {
+                long[] otherWords = ((BitsetContainer) other).words;
+                for (int w = 0; w < BITSET_WORDS; w++) {
+                    result[w] &= ~otherWords[w];
+                }
+            }
+            return shrink(result);
+        }
+
+        /**
+         * Back to a sorted array once a result is sparse enough
+         */
+        private static Container shrink(long[] words) {
+            int cardinality = countBits(words);
+            if (cardinality > ARRAY_LIMIT) {
+                return new BitsetContainer(words, cardinality);
+            }
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[count++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+
+        private static int countBits(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+    }
+}
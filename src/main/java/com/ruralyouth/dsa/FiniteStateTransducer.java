@@ -0,0 +1,558 @@
+package com.ruralyouth.dsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Immutable minimal finite-state transducer mapping terms to ordinal ids
+ *
+ * Compiled once from sorted terms (or a Trie) with the incremental Daciuk
+ * construction: equivalent suffix states are shared, so the automaton is
+ * minimal. Each term maps to its rank in sorted order; arcs carry the number
+ * of terms that sort before them, so the id is the sum of outputs along the
+ * path and terms sharing a prefix occupy one contiguous id range.
+ *
+ * The whole automaton lives in one byte buffer that can be written to disk
+ * and mapped back read-only. Lookups are case-insensitive, like Trie.
+ */
+public class FiniteStateTransducer {
+    private static final int MAGIC = 0x52465354; // "RFST"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int FINAL_FLAG = 1;
+
+    private final ByteBuffer data;
+    private final int termCount;
+    private final int rootAddress;
+
+    private FiniteStateTransducer(ByteBuffer data) {
+        this.data = data.order(ByteOrder.BIG_ENDIAN);
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a transducer file");
+        }
+        if (data.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported transducer version: " + data.getInt(4));
+        }
+        this.termCount = data.getInt(8);
+        this.rootAddress = data.getInt(12);
+    }
+
+    /**
+     * Compile every word of a trie (lowercased keys, case variants merged)
+     * Time Complexity: O(L) for total key length L
+     */
+    public static FiniteStateTransducer compile(Trie trie) {
+        // Trie iteration order is already sorted by lowercase key
+        List<String> keys = new ArrayList<>();
+        for (String word : trie.getAllWords()) {
+            String key = word.toLowerCase();
+            if (keys.isEmpty() || !keys.get(keys.size() - 1).equals(key)) {
+                keys.add(key);
+            }
+        }
+        return compile(keys);
+    }
+
+    /**
+     * Compile terms given in strictly increasing order (duplicates are skipped)
+     * Terms are lowercased; the order must hold for the lowercased form
+     */
+    public static FiniteStateTransducer compile(List<String> sortedTerms) {
+        Builder builder = new Builder();
+        for (String term : sortedTerms) {
+            builder.add(term.toLowerCase());
+        }
+        return new FiniteStateTransducer(ByteBuffer.wrap(builder.finish()));
+    }
+
+    /**
+     * Map a transducer file read-only; the file must stay unmodified while in use
+     */
+    public static FiniteStateTransducer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new FiniteStateTransducer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the automaton bytes to a file
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = data.duplicate();
+            source.clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Write the automaton bytes into a snapshot section
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        byte[] bytes = new byte[data.capacity()];
+        data.get(0, bytes);
+        out.writeBytes(bytes, bytes.length);
+    }
+
+    /**
+     * Read the automaton bytes; an in-place reader's automaton runs on the mapping
+     */
+    public static FiniteStateTransducer readFrom(SnapshotFile.Reader in) {
+        return new FiniteStateTransducer(in.isInPlace() ? in.readByteView() : ByteBuffer.wrap(in.readBytes()));
+    }
+
+    /**
+     * Id of a term, or -1 if absent
+     * Time Complexity: O(m * σ) with linear arc scans
+     */
+    public int getId(String term) {
+        if (term == null || term.isEmpty()) return -1;
+
+        String key = term.toLowerCase();
+        int address = rootAddress;
+        int id = 0;
+        Reader reader = new Reader();
+        for (int i = 0; i < key.length(); i++) {
+            if (!reader.findArc(address, key.charAt(i))) {
+                return -1;
+            }
+            id += reader.arcOutput;
+            address = reader.arcTarget;
+        }
+        reader.readState(address);
+        return reader.isFinal ? id : -1;
+    }
+
+    /**
+     * Term with the given id (lowercase)
+     * Time Complexity: O(m * σ)
+     */
+    public String getTerm(int id) {
+        if (id < 0 || id >= termCount) {
+            throw new IllegalArgumentException("Unknown term id: " + id);
+        }
+
+        StringBuilder term = new StringBuilder();
+        Reader reader = new Reader();
+        int address = rootAddress;
+        int remaining = id;
+        while (true) {
+            reader.readState(address);
+            if (reader.isFinal && remaining == 0) {
+                return term.toString();
+            }
+
+            // Take the last arc whose output does not pass the remaining rank
+            char label = 0;
+            int output = 0;
+            int target = -1;
+            for (int i = 0; i < reader.arcCount; i++) {
+                reader.nextArc();
+                if (reader.arcOutput > remaining) {
+                    break;
+                }
+                label = reader.arcLabel;
+                output = reader.arcOutput;
+                target = reader.arcTarget;
+            }
+            term.append(label);
+            remaining -= output;
+            address = target;
+        }
+    }
+
+    /**
+     * Ids of all terms starting with the prefix, as {from (inclusive), to (exclusive)}
+     * Time Complexity: O(m * σ)
+     */
+    public int[] getIdRange(String prefix) {
+        String key = prefix == null ? "" : prefix.toLowerCase();
+        int address = rootAddress;
+        int from = 0;
+        Reader reader = new Reader();
+        for (int i = 0; i < key.length(); i++) {
+            if (!reader.findArc(address, key.charAt(i))) {
+                return new int[] {0, 0};
+            }
+            from += reader.arcOutput;
+            address = reader.arcTarget;
+        }
+        reader.readState(address);
+        return new int[] {from, from + reader.stateTermCount};
+    }
+
+    /**
+     * Terms starting with the prefix in sorted order, at most limit of them
+     */
+    public List<String> getTermsWithPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        if (prefix == null || prefix.isEmpty() || limit <= 0) return result;
+
+        String key = prefix.toLowerCase();
+        int address = rootAddress;
+        Reader reader = new Reader();
+        for (int i = 0; i < key.length(); i++) {
+            if (!reader.findArc(address, key.charAt(i))) {
+                return result;
+            }
+            address = reader.arcTarget;
+        }
+
+        collectTerms(address, new StringBuilder(key), result, limit);
+        return result;
+    }
+
+    private void collectTerms(int address, StringBuilder term, List<String> result, int limit) {
+        Reader reader = new Reader();
+        reader.readState(address);
+        if (reader.isFinal) {
+            result.add(term.toString());
+        }
+
+        for (int i = 0; i < reader.arcCount && result.size() < limit; i++) {
+            reader.nextArc();
+            term.append(reader.arcLabel);
+            collectTerms(reader.arcTarget, term, result, limit);
+            term.setLength(term.length() - 1);
+        }
+    }
+
+    /**
+     * Terms within maxEdits of the query, closest first, then by id
+     * Same pruned Levenshtein walk as Trie.searchFuzzy, over the automaton
+     */
+    public List<Match> searchFuzzy(String query, int maxEdits) {
+        List<Match> result = new ArrayList<>();
+        if (query == null || query.isEmpty() || maxEdits < 0) return result;
+
+        String key = query.toLowerCase();
+        int[] firstRow = new int[key.length() + 1];
+        for (int i = 0; i <= key.length(); i++) {
+            firstRow[i] = i;
+        }
+
+        searchFuzzy(rootAddress, 0, new StringBuilder(), key, firstRow, maxEdits, result);
+        result.sort(null);
+        return result;
+    }
+
+    private void searchFuzzy(int address, int id, StringBuilder term, String query, int[] previousRow,
+                             int maxEdits, List<Match> result) {
+        Reader reader = new Reader();
+        reader.readState(address);
+        int columns = query.length() + 1;
+
+        for (int a = 0; a < reader.arcCount; a++) {
+            reader.nextArc();
+            char c = reader.arcLabel;
+
+            int[] row = new int[columns];
+            row[0] = previousRow[0] + 1;
+            int rowMin = row[0];
+            for (int i = 1; i < columns; i++) {
+                int replace = previousRow[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+                row[i] = Math.min(replace, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+                rowMin = Math.min(rowMin, row[i]);
+            }
+            if (rowMin > maxEdits) {
+                continue;
+            }
+
+            term.append(c);
+            int childId = id + reader.arcOutput;
+            if (row[columns - 1] <= maxEdits && isFinal(reader.arcTarget)) {
+                result.add(new Match(term.toString(), childId, row[columns - 1]));
+            }
+            searchFuzzy(reader.arcTarget, childId, term, query, row, maxEdits, result);
+            term.setLength(term.length() - 1);
+        }
+    }
+
+    private boolean isFinal(int address) {
+        return (data.get(address) & FINAL_FLAG) != 0;
+    }
+
+    public int size() {
+        return termCount;
+    }
+
+    /**
+     * Size of the compiled automaton in bytes
+     */
+    public int getByteSize() {
+        return data.capacity();
+    }
+
+    /**
+     * Sequential decoder for states and arcs
+     * State layout: flags byte, varint arc count, varint term count, then per
+     * arc a varint label, varint output and varint target address
+     */
+    private final class Reader {
+        int position;
+        boolean isFinal;
+        int arcCount;
+        int stateTermCount;
+        char arcLabel;
+        int arcOutput;
+        int arcTarget;
+
+        void readState(int address) {
+            position = address;
+            isFinal = (data.get(position++) & FINAL_FLAG) != 0;
+            arcCount = readVarInt();
+            stateTermCount = readVarInt();
+        }
+
+        void nextArc() {
+            arcLabel = (char) readVarInt();
+            arcOutput = readVarInt();
+            arcTarget = readVarInt();
+        }
+
+        /**
+         * Position on the arc with this label; arcs are sorted so the scan stops early
+         */
+        boolean findArc(int address, char label) {
+            readState(address);
+            for (int i = 0; i < arcCount; i++) {
+                nextArc();
+                if (arcLabel == label) {
+                    return true;
+                }
+                if (arcLabel > label) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Incremental construction of a minimal automaton from sorted input
+     * States on the path of the last added term stay mutable; everything
+     * left of that path is frozen, deduplicated through the register and
+     * written out children-first, so arc targets always point backwards.
+     */
+    private static class Builder {
+        private final List<MutableState> path = new ArrayList<>();
+        private final Map<StateKey, Integer> register = new HashMap<>();
+        private final ByteArrayBuilder out = new ByteArrayBuilder();
+        private String previous = "";
+        private int termCount;
+
+        Builder() {
+            path.add(new MutableState());
+            out.writeBytes(new byte[HEADER_SIZE]);
+        }
+
+        void add(String term) {
+            if (term.isEmpty() || term.equals(previous)) {
+                return;
+            }
+            if (term.compareTo(previous) < 0) {
+                throw new IllegalArgumentException("Terms must be sorted: " + term + " after " + previous);
+            }
+
+            int common = 0;
+            while (common < previous.length() && common < term.length()
+                    && previous.charAt(common) == term.charAt(common)) {
+                common++;
+            }
+            freezeSuffix(common);
+
+            for (int i = common; i < term.length(); i++) {
+                path.add(new MutableState());
+                path.get(i).addArc(term.charAt(i));
+            }
+            path.get(term.length()).isFinal = true;
+            previous = term;
+            termCount++;
+        }
+
+        byte[] finish() {
+            freezeSuffix(0);
+            int root = freeze(path.get(0));
+
+            byte[] bytes = out.toByteArray();
+            ByteBuffer header = ByteBuffer.wrap(bytes);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(termCount).putInt(root);
+            return bytes;
+        }
+
+        /**
+         * Freeze path states deeper than depth, linking each into its parent
+         */
+        private void freezeSuffix(int depth) {
+            for (int i = path.size() - 1; i > depth; i--) {
+                MutableState state = path.remove(i);
+                path.get(i - 1).setLastTarget(freeze(state), state.termCount());
+            }
+        }
+
+        private int freeze(MutableState state) {
+            ByteArrayBuilder encoded = new ByteArrayBuilder();
+            encoded.writeByte(state.isFinal ? FINAL_FLAG : 0);
+            encoded.writeVarInt(state.arcCount);
+            encoded.writeVarInt(state.termCount());
+            int output = state.isFinal ? 1 : 0;
+            for (int i = 0; i < state.arcCount; i++) {
+                encoded.writeVarInt(state.labels[i]);
+                encoded.writeVarInt(output);
+                encoded.writeVarInt(state.targets[i]);
+                output += state.targetTermCounts[i];
+            }
+
+            StateKey key = new StateKey(encoded.toByteArray());
+            Integer existing = register.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int address = out.size();
+            out.writeBytes(key.bytes);
+            register.put(key, address);
+            return address;
+        }
+    }
+
+    private static class MutableState {
+        boolean isFinal;
+        char[] labels = new char[2];
+        int[] targets = new int[2];
+        int[] targetTermCounts = new int[2];
+        int arcCount;
+
+        void addArc(char label) {
+            if (arcCount == labels.length) {
+                labels = Arrays.copyOf(labels, arcCount * 2);
+                targets = Arrays.copyOf(targets, arcCount * 2);
+                targetTermCounts = Arrays.copyOf(targetTermCounts, arcCount * 2);
+            }
+            labels[arcCount++] = label;
+        }
+
+        void setLastTarget(int address, int termCount) {
+            targets[arcCount - 1] = address;
+            targetTermCounts[arcCount - 1] = termCount;
+        }
+
+        int termCount() {
+            int count = isFinal ? 1 : 0;
+            for (int i = 0; i < arcCount; i++) {
+                count += targetTermCounts[i];
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Encoded state bytes used as the register key for equivalent states
+     */
+    private static final class StateKey {
+        final byte[] bytes;
+        final int hash;
+
+        StateKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StateKey && Arrays.equals(bytes, ((StateKey) other).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class ByteArrayBuilder {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] values) {
+            ensureCapacity(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+
+    /**
+     * A fuzzy search hit: the term, its id and edit distance
+     */
+    public static class Match implements Comparable<Match> {
+        public final String term;
+        public final int id;
+        public final int distance;
+
+        public Match(String term, int id, int distance) {
+            this.term = term;
+            this.id = id;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Match{term=%s, id=%d, distance=%d}", term, id, distance);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ruralyouth.dsa;
+
+import java.util.*;
+
+/**
+ * Hash map that can be forked in O(shards) instead of O(entries)
+ *
+ * Entries are spread over 256 HashMap shards by the high bits of a mixed
+ * key hash. fork() copies only the shard array; afterwards each map copies
+ * a shard the first time it writes to it, so neither sees the other's
+ * changes and a map with a million entries forks in 256 reference copies.
+ * Iteration goes shard by shard, so it follows no particular order, and
+ * entries are read-only (use put to change a value).
+ */
+public class ForkableMap<K, V> extends AbstractMap<K, V> {
+    private static final int SHARD_BITS = 8;
+    private static final int SHARDS = 1 << SHARD_BITS;
+
+    private HashMap<K, V>[] shards;
+    private boolean[] owned; // shards this map may change in place
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ForkableMap() {
+        this.shards = (HashMap<K, V>[]) new HashMap<?, ?>[SHARDS];
+        this.owned = new boolean[SHARDS];
+    }
+
+    /**
+     * Map with the same entries that shares every shard with this one
+     * Time Complexity: O(shards)
+     */
+    public ForkableMap<K, V> fork() {
+        ForkableMap<K, V> copy = new ForkableMap<>();
+        copy.shards = shards.clone();
+        copy.size = size;
+        Arrays.fill(owned, false);
+        return copy;
+    }
+
+    @Override
+    public V get(Object key) {
+        HashMap<K, V> shard = shards[shardOf(key)];
+        return shard != null ? shard.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        HashMap<K, V> shard = shards[shardOf(key)];
+        return shard != null && shard.containsKey(key);
+    }
+
+    /**
+     * Time Complexity: O(1), plus O(n / shards) to copy a shared shard
+     */
+    @Override
+    public V put(K key, V value) {
+        HashMap<K, V> shard = writableShard(shardOf(key));
+        int before = shard.size();
+        V old = shard.put(key, value);
+        size += shard.size() - before;
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int index = shardOf(key);
+        if (shards[index] == null || !shards[index].containsKey(key)) {
+            return null;
+        }
+        size--;
+        return writableShard(index).remove(key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(shards, null);
+        Arrays.fill(owned, false);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<Map.Entry<K, V>>() {
+                    private int shard = -1;
+                    private Iterator<Map.Entry<K, V>> entries = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!entries.hasNext() && shard + 1 < SHARDS) {
+                            HashMap<K, V> next = shards[++shard];
+                            if (next != null) {
+                                entries = Collections.unmodifiableMap(next).entrySet().iterator();
+                            }
+                        }
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return entries.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private HashMap<K, V> writableShard(int index) {
+        if (shards[index] == null) {
+            shards[index] = new HashMap<>();
+        } else if (!owned[index]) {
+            shards[index] = new HashMap<>(shards[index]);
+        }
+        owned[index] = true;
+        return shards[index];
+    }
+
+    /**
+     * Top bits of the Fibonacci-mixed hash; HashMap buckets by the low
+     * bits, so a shard's keys still spread over its whole table
+     */
+    private static int shardOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash * 0x9E3779B9) >>> (32 - SHARD_BITS);
+    }
+}
@@ -0,0 +1,166 @@
+package com.ruralyouth.dsa;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Read-only form of a Trie for read-mostly workloads
+ *
+ * Keys are compiled into a FiniteStateTransducer that maps each word to its
+ * sorted rank; display words, weights and id postings live in flat arrays
+ * indexed by that rank. Words sharing a prefix occupy one contiguous id
+ * range, so prefix queries become array scans instead of pointer walks.
+ */
+public class FrozenVocabulary implements SearchVocabulary {
+    private static final int[] NO_IDS = new int[0];
+
+    private final FiniteStateTransducer transducer;
+    private final String[] words; // first stored case variant per id
+    private final long[] weights;
+    private final int[][] postings;
+
+    private FrozenVocabulary(FiniteStateTransducer transducer, String[] words, long[] weights, int[][] postings) {
+        this.transducer = transducer;
+        this.words = words;
+        this.weights = weights;
+        this.postings = postings;
+    }
+
+    /**
+     * Compile the words, weights and postings of a trie
+     * Time Complexity: O(L * σ) for total word length L
+     */
+    public static FrozenVocabulary compile(Trie trie) {
+        FiniteStateTransducer transducer = FiniteStateTransducer.compile(trie);
+        int size = transducer.size();
+        String[] words = new String[size];
+        long[] weights = new long[size];
+        int[][] postings = new int[size][];
+
+        for (String word : trie.getAllWords()) {
+            int id = transducer.getId(word);
+            if (words[id] == null) {
+                words[id] = word;
+                weights[id] = trie.getWeight(word);
+                int[] ids = trie.getIds(word);
+                postings[id] = ids.length > 0 ? ids : NO_IDS;
+            }
+        }
+
+        return new FrozenVocabulary(transducer, words, weights, postings);
+    }
+
+    /**
+     * Write the flat arrays and the transducer bytes as they are
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        int[] postingCounts = new int[postings.length];
+        IntList flat = new IntList();
+        for (int id = 0; id < postings.length; id++) {
+            postingCounts[id] = postings[id].length;
+            for (int posting : postings[id]) {
+                flat.add(posting);
+            }
+        }
+        out.writeStrings(words, words.length);
+        out.writeLongs(weights, weights.length);
+        out.writeInts(postingCounts);
+        out.writeInts(flat.toArray());
+        transducer.writeTo(out);
+    }
+
+    public static FrozenVocabulary readFrom(SnapshotFile.Reader in) {
+        String[] words = in.readStrings();
+        long[] weights = in.readLongs();
+        int[] postingCounts = in.readInts();
+        int[] flat = in.readInts();
+
+        int[][] postings = new int[words.length][];
+        int offset = 0;
+        for (int id = 0; id < words.length; id++) {
+            postings[id] = postingCounts[id] > 0 ? Arrays.copyOfRange(flat, offset, offset + postingCounts[id]) : NO_IDS;
+            offset += postingCounts[id];
+        }
+        return new FrozenVocabulary(FiniteStateTransducer.readFrom(in), words, weights, postings);
+    }
+
+    public int[] getIds(String word) {
+        int id = transducer.getId(word);
+        return id >= 0 ? postings[id].clone() : NO_IDS;
+    }
+
+    public int[] getIdsWithPrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) return NO_IDS;
+
+        int[] range = transducer.getIdRange(prefix);
+        IntList result = new IntList();
+        for (int id = range[0]; id < range[1] && result.size() < limit; id++) {
+            for (int i = 0; i < postings[id].length && result.size() < limit; i++) {
+                result.add(postings[id][i]);
+            }
+        }
+        return result.toArray();
+    }
+
+    public List<String> getWordsWithPrefix(String prefix) {
+        List<String> result = new ArrayList<>();
+        if (prefix == null || prefix.isEmpty()) return result;
+
+        int[] range = transducer.getIdRange(prefix);
+        result.addAll(Arrays.asList(words).subList(range[0], range[1]));
+        return result;
+    }
+
+    /**
+     * Top-K by scanning the prefix's id range with a bounded heap
+     * Time Complexity: O(m + r log k) for r words under the prefix
+     */
+    public List<String> getTopKWithPrefix(String prefix, int k) {
+        List<String> result = new ArrayList<>();
+        if (prefix == null || k <= 0) return result;
+
+        int[] range = transducer.getIdRange(prefix);
+        // Worst candidate on top: lowest weight, then highest id
+        PriorityQueue<Integer> top = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(id -> weights[id]).thenComparing(Comparator.reverseOrder()));
+        for (int id = range[0]; id < range[1]; id++) {
+            if (top.size() < k) {
+                top.offer(id);
+            } else if (weights[id] > weights[top.peek()]) {
+                top.poll();
+                top.offer(id);
+            }
+        }
+
+        while (!top.isEmpty()) {
+            result.add(words[top.poll()]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public List<Trie.Match> searchFuzzy(String query, int maxEdits) {
+        List<Trie.Match> result = new ArrayList<>();
+        for (FiniteStateTransducer.Match match : transducer.searchFuzzy(query, maxEdits)) {
+            result.add(new Trie.Match(words[match.id], match.distance, weights[match.id]));
+        }
+        result.sort(null);
+        return result;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public String getWord(int id) {
+        return words[id];
+    }
+
+    public long getWeight(int id) {
+        return weights[id];
+    }
+
+    public FiniteStateTransducer getTransducer() {
+        return transducer;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ruralyouth.dsa;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints
+ * Used for id lists and postings where boxed Integer lists would waste memory
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * List backed by the given array (not copied) holding all of its values
+     */
+    public static IntList wrap(int[] values) {
+        IntList list = new IntList(1);
+        list.values = values.length > 0 ? values : list.values;
+        list.size = values.length;
+        return list;
+    }
+
+    /**
+     * Append a value
+     * Time Complexity: O(1) amortized
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Remove one occurrence of a value from a list kept in ascending order
+     * Time Complexity: O(log n) to find it plus O(n) to close the gap
+     */
+    public boolean removeSorted(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copy the values into an array of exactly size() elements
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
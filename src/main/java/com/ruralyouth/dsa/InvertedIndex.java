@@ -0,0 +1,751 @@
+package com.ruralyouth.dsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Token-level inverted index with BM25 ranking
+ *
+ * Each term keeps a compressed posting list: for every document the doc id
+ * delta, term frequency and the byte length of its positions are written as
+ * varints, followed by the delta-encoded positions. Documents must be added
+ * in increasing id order, so postings only ever grow at the end. Postings
+ * are grouped in blocks with skip data and per-block score bounds, so
+ * top-k queries over very common terms skip most of the list.
+ *
+ * Queries support AND (space-separated terms), OR (the word OR between
+ * groups) and "quoted phrases", e.g. {@code "tractor driver" OR welder}.
+ *
+ * Removed documents are only marked deleted and skipped by searches; their
+ * postings stay until the index is rebuilt, so term document frequencies
+ * (and block score bounds) may overcount until then.
+ *
+ * fork() shares the term map (a ForkableMap) and all posting bytes: the
+ * fork copies a term's small block arrays before appending to it, and
+ * appends land past the end this index reads, so it can keep serving
+ * searches unchanged.
+ */
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int FIELD_GAP = 100; // keeps phrases from spanning two fields
+    private static final int BLOCK_SIZE = 128; // documents per skip/score block
+
+    private ForkableMap<String, PostingList> postings;
+    private int[] docLengths;
+    private int lastDocId;
+    private int docCount;
+    private long totalLength;
+    private CompressedBitmap deleted; // removed doc ids still in postings, or null
+    private boolean forked; // posting bytes are shared with a fork that appends to them
+
+    public InvertedIndex() {
+        this.postings = new ForkableMap<>();
+        this.docLengths = new int[16];
+        this.lastDocId = -1;
+    }
+
+    /**
+     * Index a document made of one or more text fields (null fields are skipped)
+     * Time Complexity: O(t) for t tokens
+     */
+    public void addDocument(int docId, String... fields) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Documents must be added in increasing id order: " + docId);
+        }
+        if (forked) {
+            throw new IllegalStateException("Index was forked; add documents to the fork");
+        }
+
+        // Gather positions per term for this document
+        Map<String, IntList> termPositions = new LinkedHashMap<>();
+        int position = 0;
+        int length = 0;
+        for (String field : fields) {
+            if (field == null) continue;
+            for (String token : tokenize(field)) {
+                termPositions.computeIfAbsent(token, t -> new IntList(2)).add(position++);
+                length++;
+            }
+            position += FIELD_GAP;
+        }
+
+        for (Map.Entry<String, IntList> entry : termPositions.entrySet()) {
+            PostingList list = postings.get(entry.getKey());
+            if (list == null || list.owner != this) {
+                list = list == null ? new PostingList() : list.copy();
+                list.owner = this;
+                postings.put(entry.getKey(), list);
+            }
+            list.add(docId, entry.getValue(), length);
+        }
+
+        if (docId >= docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, Math.max(docId + 1, docLengths.length * 2));
+        }
+        docLengths[docId] = length;
+        lastDocId = docId;
+        docCount++;
+        totalLength += length;
+    }
+
+    /**
+     * Mark a document as removed; it no longer matches any query
+     * Time Complexity: O(1) amortized, postings are left in place
+     */
+    public void removeDocument(int docId) {
+        if (docId < 0 || docId > lastDocId || isDeleted(docId)) {
+            return;
+        }
+        if (deleted == null) {
+            deleted = new CompressedBitmap();
+        }
+        deleted.add(docId);
+        docCount--;
+        totalLength -= docLengths[docId];
+    }
+
+    /**
+     * Index holding the same documents that shares the postings with this one
+     * Documents can then only be added to the fork; removing documents and
+     * searching work on both. An index can be forked once, since a second
+     * fork would append into the same shared arrays; fork the fork instead.
+     * Time Complexity: O(shards) for the term map, plus the deleted bitmap
+     */
+    public InvertedIndex fork() {
+        if (forked) {
+            throw new IllegalStateException("Index was already forked; fork the fork instead");
+        }
+        InvertedIndex copy = new InvertedIndex();
+        copy.postings = postings.fork(); // lists stay owned by this index, so the copy copies before appending
+        copy.docLengths = docLengths; // only written past lastDocId
+        copy.lastDocId = lastDocId;
+        copy.docCount = docCount;
+        copy.totalLength = totalLength;
+        copy.deleted = deleted != null ? deleted.fork() : null;
+        forked = true;
+        return copy;
+    }
+
+    /**
+     * Number of removed documents whose postings are still stored
+     */
+    public int getDeletedCount() {
+        return deleted != null ? deleted.getCardinality() : 0;
+    }
+
+    private boolean isDeleted(int docId) {
+        return deleted != null && deleted.contains(docId);
+    }
+
+    /**
+     * Run a query and return the best matches, highest BM25 score first
+     * Once limit hits are held, whole posting blocks whose score upper bound
+     * cannot beat the current worst hit are skipped without being decoded
+     * Time Complexity: O(p + r log k) for p postings read and r scored documents
+     */
+    public List<Hit> search(String query, int limit) {
+        List<Hit> result = new ArrayList<>();
+        if (query == null || limit <= 0 || docCount == 0) return result;
+
+        TopHits top = new TopHits(limit);
+        for (List<String[]> clause : parseQuery(query)) {
+            evaluateClause(clause, top);
+        }
+
+        result.addAll(top.heap);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Number of documents containing the term
+     */
+    public int getDocumentFrequency(String term) {
+        PostingList list = postings.get(term.toLowerCase());
+        return list != null ? list.docFreq : 0;
+    }
+
+    public int getDocumentCount() {
+        return docCount;
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Bytes used by all compressed posting lists
+     */
+    public long getPostingBytes() {
+        long bytes = 0;
+        for (PostingList list : postings.values()) {
+            bytes += list.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Write document lengths and every posting list byte-for-byte, with
+     * its block skip data, so reading needs no re-tokenizing
+     * Throws IllegalStateException while removed documents are pending
+     * (rebuild the index without them first)
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        if (getDeletedCount() > 0) {
+            throw new IllegalStateException("Index has removed documents; rebuild it before writing");
+        }
+        out.writeInts(docLengths, 0, lastDocId + 1);
+        out.writeInt(docCount);
+        out.writeLong(totalLength);
+
+        out.writeInt(postings.size());
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            PostingList list = entry.getValue();
+            out.writeString(entry.getKey());
+            out.writeInt(list.lastDoc);
+            out.writeInt(list.docFreq);
+            out.writeBytes(list.bytes(), list.length);
+            out.writeInts(list.blockOffset, 0, list.blockCount);
+            out.writeInts(list.blockLastDoc, 0, list.blockCount);
+            out.writeInts(list.blockMaxTf, 0, list.blockCount);
+            out.writeInts(list.blockMinLength, 0, list.blockCount);
+        }
+    }
+
+    /**
+     * Read an index written by writeTo; from an in-place reader the posting
+     * bytes stay in the mapped file until a document is added to the term
+     */
+    public static InvertedIndex readFrom(SnapshotFile.Reader in) {
+        InvertedIndex index = new InvertedIndex();
+        int[] docLengths = in.readInts();
+        index.docLengths = docLengths.length > 0 ? docLengths : index.docLengths;
+        index.lastDocId = docLengths.length - 1;
+        index.docCount = in.readInt();
+        index.totalLength = in.readLong();
+
+        int terms = in.readInt();
+        for (int i = 0; i < terms; i++) {
+            String term = in.readString();
+            PostingList list = new PostingList();
+            list.owner = index;
+            list.lastDoc = in.readInt();
+            list.docFreq = in.readInt();
+            if (in.isInPlace()) {
+                list.mapped = in.readByteView();
+                list.length = list.mapped.capacity();
+            } else {
+                list.data = in.readBytes();
+                list.length = list.data.length;
+            }
+            list.blockOffset = in.readInts();
+            list.blockLastDoc = in.readInts();
+            list.blockMaxTf = in.readInts();
+            list.blockMinLength = in.readInts();
+            list.blockCount = list.blockOffset.length;
+            index.postings.put(term, list);
+        }
+        return index;
+    }
+
+    public void clear() {
+        postings.clear();
+        docLengths = new int[16];
+        lastDocId = -1;
+        docCount = 0;
+        totalLength = 0;
+        deleted = null;
+    }
+
+    /**
+     * Split text into lowercase letter/digit tokens
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Parse a query into OR-ed clauses of AND-ed terms and phrases
+     */
+    private static List<List<String[]>> parseQuery(String query) {
+        List<List<String[]>> clauses = new ArrayList<>();
+        List<String[]> clause = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1) {
+                List<String> phrase = tokenize(parts[i]);
+                if (!phrase.isEmpty()) {
+                    clause.add(phrase.toArray(new String[0]));
+                }
+                continue;
+            }
+
+            for (String word : parts[i].trim().split("\\s+")) {
+                if (word.equals("OR")) {
+                    if (!clause.isEmpty()) {
+                        clauses.add(clause);
+                        clause = new ArrayList<>();
+                    }
+                    continue;
+                }
+                for (String token : tokenize(word)) {
+                    clause.add(new String[] {token});
+                }
+            }
+        }
+
+        if (!clause.isEmpty()) {
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    /**
+     * Offer every document containing all terms and phrases of the clause
+     * Cursors leapfrog from the rarest term, so common terms are skipped through
+     */
+    private void evaluateClause(List<String[]> clause, TopHits top) {
+        Map<String, Cursor> cursorsByTerm = new LinkedHashMap<>();
+        for (String[] group : clause) {
+            for (String term : group) {
+                if (!cursorsByTerm.containsKey(term)) {
+                    PostingList list = postings.get(term);
+                    if (list == null) {
+                        return; // a required term never occurs
+                    }
+                    cursorsByTerm.put(term, new Cursor(list));
+                }
+            }
+        }
+
+        Cursor[] cursors = cursorsByTerm.values().toArray(new Cursor[0]);
+        Arrays.sort(cursors, Comparator.comparingInt(c -> c.list.docFreq));
+        double[] idf = new double[cursors.length];
+        for (int i = 0; i < cursors.length; i++) {
+            idf[i] = idf(cursors[i].list.docFreq);
+        }
+
+        double averageLength = (double) totalLength / docCount;
+        Cursor lead = cursors[0];
+        boolean more = lead.next();
+        double bound = Double.MAX_VALUE;
+        int boundEnd = -1; // bound holds for every document up to here
+
+        candidates:
+        while (more) {
+            int doc = lead.doc;
+
+            if (top.isFull()) {
+                if (doc > boundEnd) {
+                    // Upper bound over the current block of every term
+                    bound = 0;
+                    boundEnd = Integer.MAX_VALUE;
+                    for (int i = 0; i < cursors.length; i++) {
+                        int block = cursors[i].shallowAdvance(doc);
+                        if (block < 0) {
+                            return; // a term has no document at or after doc
+                        }
+                        bound += idf[i] * cursors[i].list.upperBound(block, averageLength);
+                        boundEnd = Math.min(boundEnd, cursors[i].list.blockLastDoc[block]);
+                    }
+                }
+                if (!top.beatsWorst(doc, bound)) {
+                    more = lead.advance(boundEnd + 1);
+                    continue;
+                }
+            }
+
+            for (int i = 1; i < cursors.length; i++) {
+                if (!cursors[i].advance(doc)) {
+                    return; // a cursor ran out, no further document can match
+                }
+                if (cursors[i].doc != doc) {
+                    more = lead.advance(cursors[i].doc);
+                    continue candidates;
+                }
+            }
+
+            if (isDeleted(doc)) {
+                more = lead.next();
+                continue;
+            }
+
+            double score = 0;
+            double norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+            for (int i = 0; i < cursors.length; i++) {
+                int tf = cursors[i].tf;
+                score += idf[i] * tf * (K1 + 1) / (tf + norm);
+            }
+
+            // Positions are only decoded for documents that would make the cut
+            if (top.accepts(doc, score) && phrasesMatch(clause, cursorsByTerm)) {
+                top.offer(doc, score);
+            }
+            more = lead.next();
+        }
+    }
+
+    private static boolean phrasesMatch(List<String[]> clause, Map<String, Cursor> cursorsByTerm) {
+        for (String[] group : clause) {
+            if (group.length < 2) continue;
+
+            Cursor first = cursorsByTerm.get(group[0]);
+            int[] starts = first.positions();
+
+            boolean found = false;
+            for (int s = 0; s < first.tf; s++) {
+                int i = 1;
+                while (i < group.length) {
+                    Cursor next = cursorsByTerm.get(group[i]);
+                    if (Arrays.binarySearch(next.positions(), 0, next.tf, starts[s] + i) < 0) {
+                        break;
+                    }
+                    i++;
+                }
+                if (i == group.length) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double idf(int docFreq) {
+        return Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    /**
+     * Growable byte buffer of varint-encoded postings for one term
+     * Every BLOCK_SIZE documents start a block that records its byte offset,
+     * last doc id, highest term frequency and shortest document length,
+     * used both as skip pointers and for score upper bounds
+     */
+    private static class PostingList {
+        byte[] data = new byte[8];
+        ByteBuffer mapped; // posting bytes read in place from a snapshot, or null
+        int length;
+        int lastDoc = -1;
+        int docFreq;
+
+        int blockCount;
+        int[] blockOffset = new int[1];
+        int[] blockLastDoc = new int[1];
+        int[] blockMaxTf = new int[1];
+        int[] blockMinLength = new int[1];
+        InvertedIndex owner; // index that may append in place; others copy first, see fork()
+
+        /**
+         * List over the same bytes with its own block arrays and counts
+         */
+        PostingList copy() {
+            PostingList copy = new PostingList();
+            copy.data = data;
+            copy.mapped = mapped;
+            copy.length = length;
+            copy.lastDoc = lastDoc;
+            copy.docFreq = docFreq;
+            copy.blockCount = blockCount;
+            copy.blockOffset = blockOffset.clone();
+            copy.blockLastDoc = blockLastDoc.clone();
+            copy.blockMaxTf = blockMaxTf.clone();
+            copy.blockMinLength = blockMinLength.clone();
+            return copy;
+        }
+
+        void add(int docId, IntList positions, int docLength) {
+            if (mapped != null) {
+                data = bytes(); // copy on first write
+                mapped = null;
+            }
+            if (docFreq % BLOCK_SIZE == 0) {
+                startBlock();
+            }
+
+            int positionBytes = 0;
+            int previous = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                positionBytes += varIntSize(positions.get(i) - previous);
+                previous = positions.get(i);
+            }
+
+            writeVarInt(docId - lastDoc);
+            writeVarInt(positions.size());
+            writeVarInt(positionBytes);
+            previous = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                writeVarInt(positions.get(i) - previous);
+                previous = positions.get(i);
+            }
+
+            int block = blockCount - 1;
+            blockLastDoc[block] = docId;
+            blockMaxTf[block] = Math.max(blockMaxTf[block], positions.size());
+            blockMinLength[block] = Math.min(blockMinLength[block], docLength);
+            lastDoc = docId;
+            docFreq++;
+        }
+
+        /**
+         * The posting bytes, copied out of the mapping if read in place
+         */
+        byte[] bytes() {
+            if (mapped == null) {
+                return data;
+            }
+            byte[] copy = new byte[Math.max(8, length)];
+            mapped.get(0, copy, 0, length);
+            return copy;
+        }
+
+        byte byteAt(int offset) {
+            return mapped != null ? mapped.get(offset) : data[offset];
+        }
+
+        /**
+         * Highest BM25 term score (before idf) any document of the block can reach
+         */
+        double upperBound(int block, double averageLength) {
+            int tf = blockMaxTf[block];
+            return tf * (K1 + 1) / (tf + K1 * (1 - B + B * blockMinLength[block] / averageLength));
+        }
+
+        private void startBlock() {
+            if (blockCount == blockOffset.length) {
+                int newLength = blockCount * 2;
+                blockOffset = Arrays.copyOf(blockOffset, newLength);
+                blockLastDoc = Arrays.copyOf(blockLastDoc, newLength);
+                blockMaxTf = Arrays.copyOf(blockMaxTf, newLength);
+                blockMinLength = Arrays.copyOf(blockMinLength, newLength);
+            }
+            blockOffset[blockCount] = length;
+            blockMaxTf[blockCount] = 0;
+            blockMinLength[blockCount] = Integer.MAX_VALUE;
+            blockCount++;
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + 5, data.length * 2));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private static int varIntSize(int value) {
+            int size = 1;
+            while ((value & ~0x7F) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Forward-only reader over one posting list
+     */
+    private static class Cursor {
+        final PostingList list;
+        int offset;
+        int entry; // documents decoded so far
+        int doc = -1;
+        int tf;
+        int positionsOffset;
+        int positionsDoc = -1; // document whose positions are in positionBuffer
+        int[] positionBuffer = new int[4];
+        int shallowBlock; // block used for upper bounds, never behind the decoded position
+
+        Cursor(PostingList list) {
+            this.list = list;
+        }
+
+        boolean next() {
+            if (entry == list.docFreq) {
+                return false;
+            }
+            doc += readVarInt();
+            tf = readVarInt();
+            int positionBytes = readVarInt();
+            positionsOffset = offset;
+            offset += positionBytes; // positions are decoded only for phrase checks
+            entry++;
+            return true;
+        }
+
+        /**
+         * Move to the first document >= target
+         */
+        boolean advance(int target) {
+            if (doc >= target) {
+                return true;
+            }
+
+            // Jump over whole blocks that end before the target
+            int block = entry / BLOCK_SIZE; // block of the next entry
+            if (block < list.blockCount && list.blockLastDoc[block] < target) {
+                while (block < list.blockCount && list.blockLastDoc[block] < target) {
+                    block++;
+                }
+                if (block == list.blockCount) {
+                    entry = list.docFreq;
+                    return false;
+                }
+                entry = block * BLOCK_SIZE;
+                offset = list.blockOffset[block];
+                doc = list.blockLastDoc[block - 1];
+            }
+
+            while (next()) {
+                if (doc >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Index of the block holding the first document >= target, or -1
+         * Only block metadata is read; the cursor position does not move
+         */
+        int shallowAdvance(int target) {
+            while (shallowBlock < list.blockCount && list.blockLastDoc[shallowBlock] < target) {
+                shallowBlock++;
+            }
+            return shallowBlock < list.blockCount ? shallowBlock : -1;
+        }
+
+        /**
+         * Positions of the current document, valid in the first tf entries
+         * Decoded once per document into a reused buffer
+         */
+        int[] positions() {
+            if (positionsDoc == doc) {
+                return positionBuffer;
+            }
+            if (tf > positionBuffer.length) {
+                positionBuffer = new int[Math.max(tf, positionBuffer.length * 2)];
+            }
+            int saved = offset;
+            offset = positionsOffset;
+            int position = 0;
+            for (int i = 0; i < tf; i++) {
+                position += readVarInt();
+                positionBuffer[i] = position;
+            }
+            offset = saved;
+            positionsDoc = doc;
+            return positionBuffer;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list.byteAt(offset++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Bounded set of the best hits, keyed by document so OR clauses that
+     * match the same document keep only its best score
+     */
+    private static class TopHits {
+        final int limit;
+        final PriorityQueue<Hit> heap = new PriorityQueue<>(Comparator.reverseOrder()); // worst first
+        final Map<Integer, Hit> byDoc = new HashMap<>();
+
+        TopHits(int limit) {
+            this.limit = limit;
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        /**
+         * Whether a document with this score would enter the top hits
+         */
+        boolean accepts(int doc, double score) {
+            if (!beatsWorst(doc, score)) {
+                return false;
+            }
+            Hit existing = byDoc.get(doc);
+            return existing == null || score > existing.score;
+        }
+
+        /**
+         * Whether the score would outrank the current worst hit (always true until full)
+         */
+        boolean beatsWorst(int doc, double score) {
+            if (!isFull()) {
+                return true;
+            }
+            Hit worst = heap.peek();
+            return score > worst.score || (score == worst.score && doc < worst.docId);
+        }
+
+        void offer(int doc, double score) {
+            Hit existing = byDoc.remove(doc);
+            if (existing != null) {
+                heap.remove(existing);
+            } else if (isFull()) {
+                byDoc.remove(heap.poll().docId);
+            }
+            Hit hit = new Hit(doc, score);
+            heap.offer(hit);
+            byDoc.put(doc, hit);
+        }
+    }
+
+    /**
+     * A ranked search result
+     */
+    public static class Hit implements Comparable<Hit> {
+        public final int docId;
+        public final double score;
+
+        public Hit(int docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            if (score != other.score) {
+                return Double.compare(other.score, score); // best first
+            }
+            return Integer.compare(docId, other.docId);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hit{doc=%d, score=%.3f}", docId, score);
+        }
+    }
+}
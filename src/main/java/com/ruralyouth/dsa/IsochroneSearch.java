@@ -0,0 +1,132 @@
+package com.ruralyouth.dsa;
+
+import java.util.*;
+
+/**
+ * Resumable Dijkstra search from one location
+ *
+ * Locations are settled in order of increasing road distance. The search
+ * keeps its frontier between calls, so expanding to a larger distance budget
+ * continues where the previous expansion stopped instead of restarting.
+ * A search is tied to the graph version it started on.
+ */
+public class IsochroneSearch {
+    private final LocationGraph graph;
+    private final int source;
+    private final long graphVersion;
+
+    private final double[] best;
+    private final boolean[] settled;
+    private final PriorityQueue<double[]> frontier; // {location, distance}
+    private final IntList settledOrder;
+    private double[] settledDistances;
+    private double expandedRadius;
+
+    public IsochroneSearch(LocationGraph graph, int source) {
+        this.graph = graph;
+        this.source = source;
+        this.graphVersion = graph.getVersion();
+
+        int locationCount = graph.getLocationCount();
+        this.best = new double[locationCount];
+        this.settled = new boolean[locationCount];
+        this.frontier = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[1]));
+        this.settledOrder = new IntList();
+        this.settledDistances = new double[8];
+        this.expandedRadius = -1;
+
+        Arrays.fill(best, Double.MAX_VALUE);
+        best[source] = 0.0;
+        frontier.offer(new double[] {source, 0.0});
+    }
+
+    /**
+     * Settle every location within the radius, resuming from the saved frontier
+     * Time Complexity: O((V' + E') log V') for the newly settled part only
+     */
+    public void expandTo(double radius) {
+        if (radius <= expandedRadius) {
+            return;
+        }
+
+        while (!frontier.isEmpty() && frontier.peek()[1] <= radius) {
+            double[] current = frontier.poll();
+            int location = (int) current[0];
+            if (settled[location]) {
+                continue;
+            }
+
+            settled[location] = true;
+            addSettled(location, current[1]);
+
+            for (int i = 0; i < graph.getDegree(location); i++) {
+                int neighbor = graph.getNeighbor(location, i);
+                double newDistance = current[1] + graph.getEdgeDistance(location, i);
+                if (!settled[neighbor] && newDistance < best[neighbor]) {
+                    best[neighbor] = newDistance;
+                    frontier.offer(new double[] {neighbor, newDistance});
+                }
+            }
+        }
+
+        expandedRadius = radius;
+    }
+
+    /**
+     * Sorted ids of all locations within the radius (expanding if needed)
+     */
+    public int[] getLocationsWithin(double radius) {
+        expandTo(radius);
+
+        // Settled distances are non-decreasing, so the answer is a prefix
+        int count = upperBound(radius);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = settledOrder.get(i);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Road distance to a location settled so far, or infinity if it is not
+     * within the expanded radius
+     */
+    public double getDistance(int location) {
+        return settled[location] ? best[location] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Whether the graph changed since this search started
+     */
+    public boolean isStale() {
+        return graph.getVersion() != graphVersion;
+    }
+
+    public int getSource() { return source; }
+
+    public int getSettledCount() { return settledOrder.size(); }
+
+    private void addSettled(int location, double distance) {
+        int index = settledOrder.size();
+        settledOrder.add(location);
+        if (index == settledDistances.length) {
+            settledDistances = Arrays.copyOf(settledDistances, index * 2);
+        }
+        settledDistances[index] = distance;
+    }
+
+    private int upperBound(double radius) {
+        int low = 0;
+        int high = settledOrder.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (settledDistances[mid] <= radius) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
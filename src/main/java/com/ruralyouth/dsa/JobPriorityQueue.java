@@ -190,28 +190,62 @@ public class JobPriorityQueue {
         return skillScore * 0.4 + distanceScore * 0.3 + salaryScore * 0.2 + experienceScore * 0.1;
     }
 
+    /**
+     * Same score as calculateJobScore, read from an off-heap store record
+     * userSkillMask is user.getSkillMask(); jobs sharing no mask bit with
+     * it skip the proficiency lookups
+     */
+    public static double calculateJobScore(OffHeapJobStore store, int job, User user, long userSkillMask, double distance) {
+        double skillScore;
+        int requiredSkills = store.getSkillCount(job);
+        if (requiredSkills == 0) {
+            skillScore = 50.0;
+        } else {
+            int matchedSkills = 0;
+            double totalProficiency = 0.0;
+            if ((store.getSkillMask(job) & userSkillMask) != 0) {
+                for (int k = 0; k < requiredSkills; k++) {
+                    int proficiency = user.getSkillProficiency(store.getSkillId(job, k));
+                    if (proficiency > 0) {
+                        matchedSkills++;
+                        totalProficiency += proficiency;
+                    }
+                }
+            }
+            double avgProficiency = matchedSkills > 0 ? totalProficiency / matchedSkills : 0;
+            skillScore = ((double) matchedSkills / requiredSkills * 70) + (avgProficiency * 3);
+        }
+
+        double distanceScore = calculateDistanceScore(distance, user.getMaxDistance());
+        double salaryScore = calculateSalaryScore(store.getSalary(job));
+        double experienceScore = calculateExperienceScore(store.getExperienceLevel(job), user.getAge());
+
+        return skillScore * 0.4 + distanceScore * 0.3 + salaryScore * 0.2 + experienceScore * 0.1;
+    }
+
     /**
      * Calculate skill match score (0-100)
+     * Compares skill ids, so scoring a job allocates nothing
      */
     private static double calculateSkillMatchScore(Job job, User user) {
-        Set<String> userSkills = user.getSkillSet();
-        Set<String> requiredSkills = job.getRequiredSkills();
+        int[] requiredSkills = job.getRequiredSkillIds();
         
-        if (requiredSkills.isEmpty()) {
+        if (requiredSkills.length == 0) {
             return 50.0; // Neutral score for jobs with no specific requirements
         }
 
         int matchedSkills = 0;
         double totalProficiency = 0.0;
         
-        for (String skill : requiredSkills) {
-            if (userSkills.contains(skill)) {
+        for (int skillId : requiredSkills) {
+            int proficiency = user.getSkillProficiency(skillId);
+            if (proficiency > 0) {
                 matchedSkills++;
-                totalProficiency += user.getSkillProficiency(skill);
+                totalProficiency += proficiency;
             }
         }
 
-        double matchPercentage = (double) matchedSkills / requiredSkills.size();
+        double matchPercentage = (double) matchedSkills / requiredSkills.length;
         double avgProficiency = matchedSkills > 0 ? totalProficiency / matchedSkills : 0;
         
         // Score based on both match percentage and proficiency
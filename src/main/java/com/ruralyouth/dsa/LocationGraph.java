@@ -1,43 +1,224 @@
 package com.ruralyouth.dsa;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Graph data structure for representing locations and finding nearby jobs
- * Uses adjacency list representation with BFS and Dijkstra's algorithm
+ * Uses a compact adjacency list (dense int ids with parallel primitive arrays)
+ * with BFS and Dijkstra's algorithm. Location ids come from a LocationRegistry,
+ * which may also hold regions (blocks, districts) that are not graph nodes.
+ * fork() copies the per-location arrays but shares adjacency lists until
+ * one side changes them.
  */
 public class LocationGraph {
-    private Map<String, LocationNode> locations;
-    private Map<String, List<Edge>> adjacencyList;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_DEGREE = 4;
+    private static final int MAX_CHANGE_LOG = 4096;
+
+    private LocationRegistry registry; // name <-> dense id
+    private boolean[] present; // ids that are actual graph nodes
+    private double[] latitudes;
+    private double[] longitudes;
+    private int locationCount; // ids are in [0, locationCount)
+    private int presentCount;
+
+    // Adjacency list: for node u, neighbors[u][0..degree[u]) with matching distances
+    private int[][] neighbors;
+    private double[][] distances;
+    private int[] degree;
+    private long roadCount;
+    private BitSet sharedRows; // adjacency lists also used by a fork, or null
+
+    // Version counter and log of distance-decreasing edge changes, used by
+    // ShortestPathCache to repair cached tables instead of recomputing them
+    private long version;
+    private long fullInvalidationVersion; // caches older than this must recompute
+    int[] changeFrom;
+    int[] changeTo;
+    double[] changeDistance;
+    long[] changeVersion;
+    int changeCount;
 
     public LocationGraph() {
-        this.locations = new HashMap<>();
-        this.adjacencyList = new HashMap<>();
+        this(new LocationRegistry());
+    }
+
+    public LocationGraph(LocationRegistry registry) {
+        this.registry = registry;
+        this.present = new boolean[INITIAL_CAPACITY];
+        this.latitudes = new double[INITIAL_CAPACITY];
+        this.longitudes = new double[INITIAL_CAPACITY];
+        this.neighbors = new int[INITIAL_CAPACITY][];
+        this.distances = new double[INITIAL_CAPACITY][];
+        this.degree = new int[INITIAL_CAPACITY];
+        this.changeFrom = new int[INITIAL_CAPACITY];
+        this.changeTo = new int[INITIAL_CAPACITY];
+        this.changeDistance = new double[INITIAL_CAPACITY];
+        this.changeVersion = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Copy with its own registry and per-location arrays; adjacency lists
+     * stay shared until either graph changes them
+     * Time Complexity: O(V) for V locations
+     */
+    public LocationGraph fork() {
+        LocationGraph copy = new LocationGraph(registry.copy());
+        copy.present = present.clone();
+        copy.latitudes = latitudes.clone();
+        copy.longitudes = longitudes.clone();
+        copy.locationCount = locationCount;
+        copy.presentCount = presentCount;
+        copy.neighbors = neighbors.clone();
+        copy.distances = distances.clone();
+        copy.degree = degree.clone();
+        copy.roadCount = roadCount;
+        copy.version = version;
+        copy.fullInvalidationVersion = fullInvalidationVersion;
+        copy.changeFrom = changeFrom.clone();
+        copy.changeTo = changeTo.clone();
+        copy.changeDistance = changeDistance.clone();
+        copy.changeVersion = changeVersion.clone();
+        copy.changeCount = changeCount;
+
+        sharedRows = new BitSet(locationCount);
+        sharedRows.set(0, locationCount);
+        copy.sharedRows = (BitSet) sharedRows.clone();
+        return copy;
     }
 
     /**
      * Add a location to the graph
      */
     public void addLocation(String locationName, double latitude, double longitude) {
-        LocationNode node = new LocationNode(locationName, latitude, longitude);
-        locations.put(locationName, node);
-        adjacencyList.putIfAbsent(locationName, new ArrayList<>());
+        addLocationAndGetId(locationName, latitude, longitude);
+    }
+
+    /**
+     * Add a location (or update its coordinates) and return its dense id
+     * Time Complexity: O(1) amortized
+     */
+    public int addLocationAndGetId(String locationName, double latitude, double longitude) {
+        int id = registry.intern(locationName);
+        ensureLocationCapacity(id + 1);
+        locationCount = Math.max(locationCount, id + 1);
+        latitudes[id] = latitude;
+        longitudes[id] = longitude;
+
+        if (!present[id]) {
+            present[id] = true;
+            presentCount++;
+            version++; // a new, unreachable location: cached tables only need to grow
+        }
+        return id;
     }
 
     /**
      * Add a road/connection between two locations
      */
     public void addRoad(String from, String to, double distance) {
-        if (!locations.containsKey(from) || !locations.containsKey(to)) {
+        int fromId = getLocationId(from);
+        int toId = getLocationId(to);
+        if (fromId == -1 || toId == -1) {
             throw new IllegalArgumentException("Location not found in graph");
         }
-        
-        Edge edge = new Edge(from, to, distance);
-        adjacencyList.get(from).add(edge);
-        
+
+        addRoad(fromId, toId, distance);
+    }
+
+    /**
+     * Add a road/connection between two locations by id
+     * Time Complexity: O(1) amortized
+     */
+    public void addRoad(int fromId, int toId, double distance) {
+        checkLocationId(fromId);
+        checkLocationId(toId);
+
+        addEdge(fromId, toId, distance);
         // Add reverse edge for undirected graph
-        Edge reverseEdge = new Edge(to, from, distance);
-        adjacencyList.get(to).add(reverseEdge);
+        addEdge(toId, fromId, distance);
+        roadCount++;
+        logChange(fromId, toId, distance);
+    }
+
+    /**
+     * Change the distance of an existing road (both directions)
+     * Shorter distances are repaired incrementally by ShortestPathCache;
+     * longer ones invalidate every cached table
+     */
+    public void updateRoadDistance(String from, String to, double distance) {
+        int fromId = getLocationId(from);
+        int toId = getLocationId(to);
+        if (fromId == -1 || toId == -1) {
+            throw new IllegalArgumentException("Location not found in graph");
+        }
+
+        double oldDistance = setEdgeDistance(fromId, toId, distance);
+        setEdgeDistance(toId, fromId, distance);
+
+        if (Double.isNaN(oldDistance)) {
+            throw new IllegalArgumentException("Road not found: " + from + " - " + to);
+        }
+        if (distance > oldDistance) {
+            version++;
+            invalidateAll();
+        } else {
+            logChange(fromId, toId, distance);
+        }
+    }
+
+    /**
+     * Add many roads at once from parallel arrays of location ids
+     * Adjacency arrays are grown once per location instead of once per edge
+     * Time Complexity: O(V + count)
+     */
+    public void addRoads(int[] fromIds, int[] toIds, double[] roadDistances, int count) {
+        int[] added = new int[locationCount];
+        for (int i = 0; i < count; i++) {
+            checkLocationId(fromIds[i]);
+            checkLocationId(toIds[i]);
+            added[fromIds[i]]++;
+            added[toIds[i]]++;
+        }
+
+        for (int id = 0; id < locationCount; id++) {
+            if (added[id] == 0) {
+                continue;
+            }
+            ownRow(id);
+            int required = degree[id] + added[id];
+            if (neighbors[id] == null) {
+                neighbors[id] = new int[required];
+                distances[id] = new double[required];
+            } else if (neighbors[id].length < required) {
+                neighbors[id] = Arrays.copyOf(neighbors[id], required);
+                distances[id] = Arrays.copyOf(distances[id], required);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            addEdge(fromIds[i], toIds[i], roadDistances[i]);
+            addEdge(toIds[i], fromIds[i], roadDistances[i]);
+        }
+        roadCount += count;
+
+        if (count > MAX_CHANGE_LOG - changeCount) {
+            version++;
+            invalidateAll(); // cheaper to recompute than to replay a bulk load
+        } else {
+            for (int i = 0; i < count; i++) {
+                logChange(fromIds[i], toIds[i], roadDistances[i]);
+            }
+        }
+    }
+
+    /**
+     * Pre-size internal arrays before a bulk load so that loading does not
+     * repeatedly grow them
+     */
+    public void ensureCapacity(int expectedLocations) {
+        ensureLocationCapacity(expectedLocations);
     }
 
     /**
@@ -46,31 +227,40 @@ public class LocationGraph {
      */
     public List<String> findNearbyLocationsBFS(String startLocation, double maxDistance) {
         List<String> nearbyLocations = new ArrayList<>();
-        
-        if (!locations.containsKey(startLocation)) {
+
+        int start = getLocationId(startLocation);
+        if (start == -1) {
             return nearbyLocations;
         }
 
-        Queue<BFSNode> queue = new LinkedList<>();
-        Set<String> visited = new HashSet<>();
-        
-        queue.offer(new BFSNode(startLocation, 0.0));
-        visited.add(startLocation);
+        int[] queue = new int[locationCount];
+        double[] queuedDistance = new double[locationCount];
+        boolean[] visited = new boolean[locationCount];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail] = start;
+        queuedDistance[tail++] = 0.0;
+        visited[start] = true;
 
-        while (!queue.isEmpty()) {
-            BFSNode current = queue.poll();
-            
-            if (current.distance <= maxDistance) {
-                nearbyLocations.add(current.location);
+        while (head < tail) {
+            int current = queue[head];
+            double currentDistance = queuedDistance[head++];
+
+            if (currentDistance <= maxDistance) {
+                nearbyLocations.add(registry.getName(current));
             }
 
-            for (Edge edge : adjacencyList.get(current.location)) {
-                String neighbor = edge.to;
-                double newDistance = current.distance + edge.distance;
-                
-                if (!visited.contains(neighbor) && newDistance <= maxDistance) {
-                    visited.add(neighbor);
-                    queue.offer(new BFSNode(neighbor, newDistance));
+            int[] adjacent = neighbors[current];
+            double[] adjacentDistance = distances[current];
+            for (int i = 0; i < degree[current]; i++) {
+                int neighbor = adjacent[i];
+                double newDistance = currentDistance + adjacentDistance[i];
+
+                if (!visited[neighbor] && newDistance <= maxDistance) {
+                    visited[neighbor] = true;
+                    queue[tail] = neighbor;
+                    queuedDistance[tail++] = newDistance;
                 }
             }
         }
@@ -83,110 +273,113 @@ public class LocationGraph {
      * Time Complexity: O((V + E) log V) with priority queue
      */
     public Map<String, Double> findShortestDistances(String startLocation) {
-        Map<String, Double> distances = new HashMap<>();
-        PriorityQueue<DijkstraNode> pq = new PriorityQueue<>();
-        Set<String> visited = new HashSet<>();
+        Map<String, Double> result = new HashMap<>();
+        int start = getLocationId(startLocation);
+        double[] shortest = start != -1 ? findShortestDistances(start) : null;
 
-        // Initialize distances
-        for (String location : locations.keySet()) {
-            distances.put(location, Double.MAX_VALUE);
-        }
-        distances.put(startLocation, 0.0);
-
-        pq.offer(new DijkstraNode(startLocation, 0.0));
-
-        while (!pq.isEmpty()) {
-            DijkstraNode current = pq.poll();
-            
-            if (visited.contains(current.location)) {
-                continue;
-            }
-            
-            visited.add(current.location);
-
-            for (Edge edge : adjacencyList.get(current.location)) {
-                String neighbor = edge.to;
-                double newDistance = current.distance + edge.distance;
-                
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    pq.offer(new DijkstraNode(neighbor, newDistance));
-                }
+        for (int i = 0; i < locationCount; i++) {
+            if (present[i]) {
+                result.put(registry.getName(i), shortest != null ? shortest[i] : Double.MAX_VALUE);
             }
         }
+        if (start == -1) {
+            result.put(startLocation, 0.0);
+        }
 
-        return distances;
+        return result;
+    }
+
+    /**
+     * Dijkstra's algorithm over location ids
+     * Unreachable locations get Double.MAX_VALUE
+     */
+    public double[] findShortestDistances(int startId) {
+        checkLocationId(startId);
+        return dijkstra(startId, -1, null);
     }
 
     /**
      * Find shortest path between two locations
      */
     public List<String> findShortestPath(String start, String end) {
-        if (!locations.containsKey(start) || !locations.containsKey(end)) {
+        int startId = getLocationId(start);
+        int endId = getLocationId(end);
+        if (startId == -1 || endId == -1) {
             return new ArrayList<>();
         }
 
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        PriorityQueue<DijkstraNode> pq = new PriorityQueue<>();
-        Set<String> visited = new HashSet<>();
+        int[] previous = new int[locationCount];
+        Arrays.fill(previous, -1);
+        dijkstra(startId, endId, previous);
+
+        // Reconstruct path
+        List<String> path = new ArrayList<>();
+        int current = endId;
 
-        // Initialize
-        for (String location : locations.keySet()) {
-            distances.put(location, Double.MAX_VALUE);
+        while (current != -1) {
+            path.add(0, registry.getName(current));
+            current = previous[current];
         }
-        distances.put(start, 0.0);
+
+        return path.get(0).equals(start) ? path : new ArrayList<>();
+    }
+
+    /**
+     * Shared Dijkstra implementation; stops early once target is settled
+     */
+    private double[] dijkstra(int start, int target, int[] previous) {
+        double[] shortest = new double[locationCount];
+        boolean[] visited = new boolean[locationCount];
+        Arrays.fill(shortest, Double.MAX_VALUE);
+        shortest[start] = 0.0;
+
+        PriorityQueue<DijkstraNode> pq = new PriorityQueue<>();
         pq.offer(new DijkstraNode(start, 0.0));
 
         while (!pq.isEmpty()) {
             DijkstraNode current = pq.poll();
-            
-            if (current.location.equals(end)) {
+
+            if (current.location == target) {
                 break;
             }
-            
-            if (visited.contains(current.location)) {
+
+            if (visited[current.location]) {
                 continue;
             }
-            
-            visited.add(current.location);
-
-            for (Edge edge : adjacencyList.get(current.location)) {
-                String neighbor = edge.to;
-                double newDistance = current.distance + edge.distance;
-                
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    previous.put(neighbor, current.location);
+
+            visited[current.location] = true;
+
+            int[] adjacent = neighbors[current.location];
+            double[] adjacentDistance = distances[current.location];
+            for (int i = 0; i < degree[current.location]; i++) {
+                int neighbor = adjacent[i];
+                double newDistance = current.distance + adjacentDistance[i];
+
+                if (newDistance < shortest[neighbor]) {
+                    shortest[neighbor] = newDistance;
+                    if (previous != null) {
+                        previous[neighbor] = current.location;
+                    }
                     pq.offer(new DijkstraNode(neighbor, newDistance));
                 }
             }
         }
 
-        // Reconstruct path
-        List<String> path = new ArrayList<>();
-        String current = end;
-        
-        while (current != null) {
-            path.add(0, current);
-            current = previous.get(current);
-        }
-
-        return path.get(0).equals(start) ? path : new ArrayList<>();
+        return shortest;
     }
 
     /**
      * Calculate direct distance between two locations using coordinates
      */
     public double calculateDirectDistance(String location1, String location2) {
-        LocationNode node1 = locations.get(location1);
-        LocationNode node2 = locations.get(location2);
-        
-        if (node1 == null || node2 == null) {
+        int id1 = getLocationId(location1);
+        int id2 = getLocationId(location2);
+
+        if (id1 == -1 || id2 == -1) {
             return Double.MAX_VALUE;
         }
-        
-        return node1.calculateDistance(node2.latitude, node2.longitude);
+
+        return haversine(latitudes[id1], longitudes[id1], latitudes[id2], longitudes[id2]);
     }
 
     /**
@@ -194,14 +387,14 @@ public class LocationGraph {
      */
     public List<String> getLocationsInRadius(double centerLat, double centerLon, double radius) {
         List<String> nearbyLocations = new ArrayList<>();
-        
-        for (LocationNode node : locations.values()) {
-            double distance = node.calculateDistance(centerLat, centerLon);
-            if (distance <= radius) {
-                nearbyLocations.add(node.name);
+
+        for (int i = 0; i < locationCount; i++) {
+            double distance = haversine(latitudes[i], longitudes[i], centerLat, centerLon);
+            if (present[i] && distance <= radius) {
+                nearbyLocations.add(registry.getName(i));
             }
         }
-        
+
         return nearbyLocations;
     }
 
@@ -209,21 +402,283 @@ public class LocationGraph {
      * Get all locations in the graph
      */
     public Set<String> getAllLocations() {
-        return new HashSet<>(locations.keySet());
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < locationCount; i++) {
+            if (present[i]) {
+                result.add(registry.getName(i));
+            }
+        }
+        return result;
     }
 
     /**
      * Check if a location exists in the graph
      */
     public boolean hasLocation(String location) {
-        return locations.containsKey(location);
+        return getLocationId(location) != -1;
     }
 
     /**
      * Get location coordinates
      */
     public LocationNode getLocation(String location) {
-        return locations.get(location);
+        int id = getLocationId(location);
+        if (id == -1) {
+            return null;
+        }
+        return new LocationNode(registry.getName(id), latitudes[id], longitudes[id]);
+    }
+
+    /**
+     * Write the registry, node coordinates and the adjacency lists flattened
+     * into one neighbor and one distance array
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        registry.writeTo(out);
+
+        byte[] presence = new byte[locationCount];
+        int edges = 0;
+        for (int id = 0; id < locationCount; id++) {
+            presence[id] = (byte) (present[id] ? 1 : 0);
+            edges += degree[id];
+        }
+        int[] flatNeighbors = new int[edges];
+        double[] flatDistances = new double[edges];
+        int offset = 0;
+        for (int id = 0; id < locationCount; id++) {
+            if (degree[id] > 0) {
+                System.arraycopy(neighbors[id], 0, flatNeighbors, offset, degree[id]);
+                System.arraycopy(distances[id], 0, flatDistances, offset, degree[id]);
+                offset += degree[id];
+            }
+        }
+
+        out.writeBytes(presence, locationCount);
+        out.writeDoubles(latitudes, locationCount);
+        out.writeDoubles(longitudes, locationCount);
+        out.writeInts(degree, 0, locationCount);
+        out.writeInts(flatNeighbors);
+        out.writeDoubles(flatDistances, edges);
+        out.writeLong(roadCount);
+    }
+
+    /**
+     * Read a graph written by writeTo, with a fresh version history
+     * Time Complexity: O(V + E)
+     */
+    public static LocationGraph readFrom(SnapshotFile.Reader in) {
+        LocationGraph graph = new LocationGraph(LocationRegistry.readFrom(in));
+        byte[] presence = in.readBytes();
+        double[] latitudes = in.readDoubles();
+        double[] longitudes = in.readDoubles();
+        int[] degree = in.readInts();
+        int[] flatNeighbors = in.readInts();
+        double[] flatDistances = in.readDoubles();
+
+        int count = presence.length;
+        graph.ensureLocationCapacity(count);
+        graph.locationCount = count;
+        System.arraycopy(latitudes, 0, graph.latitudes, 0, count);
+        System.arraycopy(longitudes, 0, graph.longitudes, 0, count);
+        System.arraycopy(degree, 0, graph.degree, 0, count);
+        int offset = 0;
+        for (int id = 0; id < count; id++) {
+            graph.present[id] = presence[id] != 0;
+            if (graph.present[id]) {
+                graph.presentCount++;
+            }
+            if (degree[id] > 0) {
+                graph.neighbors[id] = Arrays.copyOfRange(flatNeighbors, offset, offset + degree[id]);
+                graph.distances[id] = Arrays.copyOfRange(flatDistances, offset, offset + degree[id]);
+                offset += degree[id];
+            }
+        }
+        graph.roadCount = in.readLong();
+        return graph;
+    }
+
+    // Id-based accessors used by bulk loaders and persistence
+
+    /**
+     * Get the dense id of a location, or -1 if it is not in the graph
+     */
+    public int getLocationId(String location) {
+        int id = registry.getId(location);
+        return isLocation(id) ? id : -1;
+    }
+
+    /**
+     * Check whether an id is a node of this graph (and not just a region name)
+     */
+    public boolean isLocation(int id) {
+        return id >= 0 && id < locationCount && present[id];
+    }
+
+    /**
+     * Upper bound (exclusive) of location ids; ids of regions below it are not nodes
+     */
+    public int getLocationCount() { return locationCount; }
+
+    /**
+     * Number of actual locations in the graph
+     */
+    public int getNodeCount() { return presentCount; }
+
+    public LocationRegistry getRegistry() { return registry; }
+
+    /**
+     * Version counter, incremented on every structural change
+     */
+    public long getVersion() { return version; }
+
+    long getFullInvalidationVersion() { return fullInvalidationVersion; }
+
+    public long getRoadCount() { return roadCount; }
+
+    public String getLocationName(int id) {
+        checkLocationId(id);
+        return registry.getName(id);
+    }
+
+    public double getLatitude(int id) {
+        checkLocationId(id);
+        return latitudes[id];
+    }
+
+    public double getLongitude(int id) {
+        checkLocationId(id);
+        return longitudes[id];
+    }
+
+    /**
+     * Number of directed edges leaving a location (each road counts once per end)
+     */
+    public int getDegree(int id) {
+        if (id < 0 || id >= locationCount) {
+            throw new IllegalArgumentException("Location id out of range: " + id);
+        }
+        return degree[id];
+    }
+
+    public int getNeighbor(int id, int edgeIndex) {
+        return neighbors[id][edgeIndex];
+    }
+
+    public double getEdgeDistance(int id, int edgeIndex) {
+        return distances[id][edgeIndex];
+    }
+
+    private void addEdge(int from, int to, double distance) {
+        ownRow(from);
+        int[] adjacent = neighbors[from];
+        int size = degree[from];
+
+        if (adjacent == null) {
+            neighbors[from] = new int[INITIAL_DEGREE];
+            distances[from] = new double[INITIAL_DEGREE];
+        } else if (size == adjacent.length) {
+            int newLength = size + (size >> 1) + 1;
+            neighbors[from] = Arrays.copyOf(adjacent, newLength);
+            distances[from] = Arrays.copyOf(distances[from], newLength);
+        }
+
+        neighbors[from][size] = to;
+        distances[from][size] = distance;
+        degree[from] = size + 1;
+    }
+
+    /**
+     * Set the distance of every u -> v edge; returns the smallest old distance
+     * or NaN if there is no such edge
+     */
+    private double setEdgeDistance(int u, int v, double distance) {
+        double oldDistance = Double.NaN;
+        ownRow(u);
+        for (int i = 0; i < degree[u]; i++) {
+            if (neighbors[u][i] == v) {
+                oldDistance = Double.isNaN(oldDistance) ? distances[u][i] : Math.min(oldDistance, distances[u][i]);
+                distances[u][i] = distance;
+            }
+        }
+        return oldDistance;
+    }
+
+    /**
+     * Copy a location's adjacency list if it is shared with a fork
+     */
+    private void ownRow(int id) {
+        if (sharedRows != null && sharedRows.get(id)) {
+            if (neighbors[id] != null) {
+                neighbors[id] = neighbors[id].clone();
+                distances[id] = distances[id].clone();
+            }
+            sharedRows.clear(id);
+        }
+    }
+
+    /**
+     * Record a road whose distance can only shorten existing paths
+     */
+    private void logChange(int from, int to, double distance) {
+        version++;
+        if (changeCount == MAX_CHANGE_LOG) {
+            invalidateAll();
+            return;
+        }
+        if (changeCount == changeFrom.length) {
+            int newLength = Math.min(MAX_CHANGE_LOG, changeCount * 2);
+            changeFrom = Arrays.copyOf(changeFrom, newLength);
+            changeTo = Arrays.copyOf(changeTo, newLength);
+            changeDistance = Arrays.copyOf(changeDistance, newLength);
+            changeVersion = Arrays.copyOf(changeVersion, newLength);
+        }
+        changeFrom[changeCount] = from;
+        changeTo[changeCount] = to;
+        changeDistance[changeCount] = distance;
+        changeVersion[changeCount++] = version;
+    }
+
+    /**
+     * Drop the change log; every cached table older than now must recompute
+     */
+    private void invalidateAll() {
+        fullInvalidationVersion = version;
+        changeCount = 0;
+    }
+
+    private void ensureLocationCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+
+        int newLength = Math.max(capacity, present.length + (present.length >> 1));
+        present = Arrays.copyOf(present, newLength);
+        latitudes = Arrays.copyOf(latitudes, newLength);
+        longitudes = Arrays.copyOf(longitudes, newLength);
+        neighbors = Arrays.copyOf(neighbors, newLength);
+        distances = Arrays.copyOf(distances, newLength);
+        degree = Arrays.copyOf(degree, newLength);
+    }
+
+    private void checkLocationId(int id) {
+        if (!isLocation(id)) {
+            throw new IllegalArgumentException("Location id not in graph: " + id);
+        }
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371; // Earth's radius in kilometers
+
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return R * c;
     }
 
     // Inner classes
@@ -239,48 +694,15 @@ public class LocationGraph {
         }
 
         double calculateDistance(double lat2, double lon2) {
-            final int R = 6371; // Earth's radius in kilometers
-
-            double latDistance = Math.toRadians(lat2 - this.latitude);
-            double lonDistance = Math.toRadians(lon2 - this.longitude);
-            
-            double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                    + Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(lat2))
-                    * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-            
-            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-            
-            return R * c;
-        }
-    }
-
-    private static class Edge {
-        String from;
-        String to;
-        double distance;
-
-        Edge(String from, String to, double distance) {
-            this.from = from;
-            this.to = to;
-            this.distance = distance;
-        }
-    }
-
-    private static class BFSNode {
-        String location;
-        double distance;
-
-        BFSNode(String location, double distance) {
-            this.location = location;
-            this.distance = distance;
+            return haversine(latitude, longitude, lat2, lon2);
         }
     }
 
     private static class DijkstraNode implements Comparable<DijkstraNode> {
-        String location;
+        int location;
         double distance;
 
-        DijkstraNode(String location, double distance) {
+        DijkstraNode(int location, double distance) {
             this.location = location;
             this.distance = distance;
         }
@@ -290,4 +712,4 @@ public class LocationGraph {
             return Double.compare(this.distance, other.distance);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,425 @@
+package com.ruralyouth.dsa;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Interns location names to dense int ids and models the
+ * village -> block -> district hierarchy
+ *
+ * Each id also carries job aggregates (count and salary stats) for itself
+ * and everything below it, kept up to date as jobs are recorded, so
+ * region-level statistics and "is this place inside that region" checks
+ * are O(1) lookups instead of scans over all jobs.
+ */
+public class LocationRegistry {
+    public static final int VILLAGE = 0;
+    public static final int BLOCK = 1;
+    public static final int DISTRICT = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Map<String, Integer> ids;
+    private String[] names;
+    private int[] levels;
+    private int[] parents;
+    private IntList[] children;
+    private int size;
+
+    // Aggregates for jobs located exactly at an id
+    private int[] ownJobCount;
+    private double[] ownSalarySum;
+    private double[] ownMinSalary;
+    private double[] ownMaxSalary;
+
+    // Aggregates rolled up over the id and all of its descendants
+    private int[] jobCount;
+    private double[] salarySum;
+    private double[] minSalary;
+    private double[] maxSalary;
+
+    public LocationRegistry() {
+        this.ids = new HashMap<>();
+        this.names = new String[INITIAL_CAPACITY];
+        this.levels = new int[INITIAL_CAPACITY];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.children = new IntList[INITIAL_CAPACITY];
+        this.ownJobCount = new int[INITIAL_CAPACITY];
+        this.ownSalarySum = new double[INITIAL_CAPACITY];
+        this.ownMinSalary = new double[INITIAL_CAPACITY];
+        this.ownMaxSalary = new double[INITIAL_CAPACITY];
+        this.jobCount = new int[INITIAL_CAPACITY];
+        this.salarySum = new double[INITIAL_CAPACITY];
+        this.minSalary = new double[INITIAL_CAPACITY];
+        this.maxSalary = new double[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Independent copy of the names, hierarchy and aggregates
+     * Time Complexity: O(n) for n ids
+     */
+    public LocationRegistry copy() {
+        LocationRegistry copy = new LocationRegistry();
+        copy.ids = new HashMap<>(ids);
+        copy.names = names.clone();
+        copy.levels = levels.clone();
+        copy.parents = parents.clone();
+        copy.children = new IntList[children.length];
+        for (int id = 0; id < size; id++) {
+            if (children[id] != null) {
+                copy.children[id] = IntList.wrap(children[id].toArray());
+            }
+        }
+        copy.size = size;
+        copy.ownJobCount = ownJobCount.clone();
+        copy.ownSalarySum = ownSalarySum.clone();
+        copy.ownMinSalary = ownMinSalary.clone();
+        copy.ownMaxSalary = ownMaxSalary.clone();
+        copy.jobCount = jobCount.clone();
+        copy.salarySum = salarySum.clone();
+        copy.minSalary = minSalary.clone();
+        copy.maxSalary = maxSalary.clone();
+        return copy;
+    }
+
+    /**
+     * Get the id of a location, adding it as a village if it is new
+     * Time Complexity: O(m) for hashing a name of length m
+     */
+    public int intern(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        ensureCapacity(size + 1);
+        int id = size++;
+        names[id] = name;
+        levels[id] = VILLAGE;
+        parents[id] = -1;
+        ownMinSalary[id] = Double.MAX_VALUE;
+        ownMaxSalary[id] = 0.0;
+        minSalary[id] = Double.MAX_VALUE;
+        maxSalary[id] = 0.0;
+        ids.put(name, id);
+        return id;
+    }
+
+    /**
+     * Get the id of a location, or -1 if it was never interned
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String getName(int id) {
+        checkId(id);
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Declare a region (block or district), interning it if needed
+     * A location already placed in the hierarchy keeps a level between its
+     * parent's and its children's, so setParent's ordering stays true.
+     */
+    public int defineRegion(String name, int level) {
+        if (level < VILLAGE || level > DISTRICT) {
+            throw new IllegalArgumentException("Unknown region level: " + level);
+        }
+        int id = intern(name);
+        if (parents[id] != -1 && level >= levels[parents[id]]) {
+            throw new IllegalArgumentException(name + " must stay below its region " + names[parents[id]]);
+        }
+        IntList direct = children[id];
+        if (direct != null) {
+            for (int i = 0; i < direct.size(); i++) {
+                if (level <= levels[direct.get(i)]) {
+                    throw new IllegalArgumentException(name + " must stay above " + names[direct.get(i)]);
+                }
+            }
+        }
+        levels[id] = level;
+        return id;
+    }
+
+    /**
+     * Place a location inside a region of a higher level
+     * Existing job aggregates are moved from the old region chain to the new one
+     */
+    public void setParent(String child, String parent) {
+        int childId = intern(child);
+        int parentId = intern(parent);
+
+        if (levels[parentId] <= levels[childId]) {
+            throw new IllegalArgumentException(parent + " must be a higher-level region than " + child);
+        }
+
+        int oldParent = parents[childId];
+        if (oldParent == parentId) {
+            return;
+        }
+        if (oldParent != -1) {
+            removeChild(oldParent, childId);
+            for (int id = oldParent; id != -1; id = parents[id]) {
+                jobCount[id] -= jobCount[childId];
+                salarySum[id] -= salarySum[childId];
+                recomputeSalaryRange(id);
+            }
+        }
+
+        parents[childId] = parentId;
+        if (children[parentId] == null) {
+            children[parentId] = new IntList(4);
+        }
+        children[parentId].add(childId);
+        for (int id = parentId; id != -1; id = parents[id]) {
+            jobCount[id] += jobCount[childId];
+            salarySum[id] += salarySum[childId];
+            minSalary[id] = Math.min(minSalary[id], minSalary[childId]);
+            maxSalary[id] = Math.max(maxSalary[id], maxSalary[childId]);
+        }
+    }
+
+    public int getLevel(int id) {
+        checkId(id);
+        return levels[id];
+    }
+
+    /**
+     * Get the parent region id, or -1 for a top-level location
+     */
+    public int getParent(int id) {
+        checkId(id);
+        return parents[id];
+    }
+
+    /**
+     * Check whether a location lies inside a region (or is the region)
+     * Time Complexity: O(1), the hierarchy is at most three levels deep
+     */
+    public boolean isWithin(int locationId, int regionId) {
+        for (int id = locationId; id != -1; id = parents[id]) {
+            if (id == regionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the id and every descendant id of a region
+     */
+    public void collectDescendants(int regionId, IntList result) {
+        checkId(regionId);
+        result.add(regionId);
+        IntList direct = children[regionId];
+        if (direct != null) {
+            for (int i = 0; i < direct.size(); i++) {
+                collectDescendants(direct.get(i), result);
+            }
+        }
+    }
+
+    /**
+     * Record a job located at the given id, updating every enclosing region
+     * Time Complexity: O(1), the hierarchy is at most three levels deep
+     */
+    public void recordJob(int locationId, double salary) {
+        checkId(locationId);
+        ownJobCount[locationId]++;
+        ownSalarySum[locationId] += salary;
+        ownMinSalary[locationId] = Math.min(ownMinSalary[locationId], salary);
+        ownMaxSalary[locationId] = Math.max(ownMaxSalary[locationId], salary);
+
+        for (int id = locationId; id != -1; id = parents[id]) {
+            jobCount[id]++;
+            salarySum[id] += salary;
+            minSalary[id] = Math.min(minSalary[id], salary);
+            maxSalary[id] = Math.max(maxSalary[id], salary);
+        }
+    }
+
+    /**
+     * Undo recordJob for a removed job
+     * The registry keeps no per-job salaries, so the caller passes the salary
+     * range of the jobs still at the location (MAX_VALUE / 0 if none are left)
+     * Time Complexity: O(c) for the child regions on the path to the root
+     */
+    public void unrecordJob(int locationId, double salary, double remainingMin, double remainingMax) {
+        checkId(locationId);
+        ownJobCount[locationId]--;
+        ownSalarySum[locationId] -= salary;
+        ownMinSalary[locationId] = remainingMin;
+        ownMaxSalary[locationId] = remainingMax;
+
+        for (int id = locationId; id != -1; id = parents[id]) {
+            jobCount[id]--;
+            salarySum[id] = jobCount[id] > 0 ? salarySum[id] - salary : 0.0;
+            recomputeSalaryRange(id);
+        }
+    }
+
+    /**
+     * Reset every job aggregate, keeping names and hierarchy
+     */
+    public void clearJobStats() {
+        Arrays.fill(ownJobCount, 0, size, 0);
+        Arrays.fill(ownSalarySum, 0, size, 0.0);
+        Arrays.fill(ownMinSalary, 0, size, Double.MAX_VALUE);
+        Arrays.fill(ownMaxSalary, 0, size, 0.0);
+        Arrays.fill(jobCount, 0, size, 0);
+        Arrays.fill(salarySum, 0, size, 0.0);
+        Arrays.fill(minSalary, 0, size, Double.MAX_VALUE);
+        Arrays.fill(maxSalary, 0, size, 0.0);
+    }
+
+    /**
+     * Job count and salary statistics for a location or region
+     * Time Complexity: O(1)
+     */
+    public RegionStats getStats(int id) {
+        checkId(id);
+        return new RegionStats(names[id], levels[id], jobCount[id],
+                jobCount[id] > 0 ? salarySum[id] / jobCount[id] : 0.0,
+                jobCount[id] > 0 ? minSalary[id] : 0.0,
+                maxSalary[id]);
+    }
+
+    public int getJobCount(int id) {
+        checkId(id);
+        return jobCount[id];
+    }
+
+    /**
+     * Write names, hierarchy and job aggregates as parallel arrays
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.writeStrings(names, size);
+        out.writeInts(levels, 0, size);
+        out.writeInts(parents, 0, size);
+        out.writeInts(ownJobCount, 0, size);
+        out.writeDoubles(ownSalarySum, size);
+        out.writeDoubles(ownMinSalary, size);
+        out.writeDoubles(ownMaxSalary, size);
+        out.writeInts(jobCount, 0, size);
+        out.writeDoubles(salarySum, size);
+        out.writeDoubles(minSalary, size);
+        out.writeDoubles(maxSalary, size);
+    }
+
+    public static LocationRegistry readFrom(SnapshotFile.Reader in) {
+        String[] names = in.readStrings();
+        LocationRegistry registry = new LocationRegistry();
+        registry.ensureCapacity(names.length);
+        for (String name : names) {
+            registry.intern(name);
+        }
+
+        int count = names.length;
+        System.arraycopy(in.readInts(), 0, registry.levels, 0, count);
+        System.arraycopy(in.readInts(), 0, registry.parents, 0, count);
+        System.arraycopy(in.readInts(), 0, registry.ownJobCount, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.ownSalarySum, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.ownMinSalary, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.ownMaxSalary, 0, count);
+        System.arraycopy(in.readInts(), 0, registry.jobCount, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.salarySum, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.minSalary, 0, count);
+        System.arraycopy(in.readDoubles(), 0, registry.maxSalary, 0, count);
+
+        for (int id = 0; id < count; id++) {
+            int parent = registry.parents[id];
+            if (parent != -1) {
+                if (registry.children[parent] == null) {
+                    registry.children[parent] = new IntList(4);
+                }
+                registry.children[parent].add(id);
+            }
+        }
+        return registry;
+    }
+
+    private void recomputeSalaryRange(int id) {
+        double min = ownMinSalary[id];
+        double max = ownMaxSalary[id];
+        IntList direct = children[id];
+        if (direct != null) {
+            for (int i = 0; i < direct.size(); i++) {
+                min = Math.min(min, minSalary[direct.get(i)]);
+                max = Math.max(max, maxSalary[direct.get(i)]);
+            }
+        }
+        minSalary[id] = min;
+        maxSalary[id] = max;
+    }
+
+    private void removeChild(int parentId, int childId) {
+        IntList old = children[parentId];
+        IntList kept = new IntList(Math.max(1, old.size() - 1));
+        for (int i = 0; i < old.size(); i++) {
+            if (old.get(i) != childId) {
+                kept.add(old.get(i));
+            }
+        }
+        children[parentId] = kept;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+
+        int newLength = Math.max(capacity, names.length + (names.length >> 1));
+        names = Arrays.copyOf(names, newLength);
+        levels = Arrays.copyOf(levels, newLength);
+        parents = Arrays.copyOf(parents, newLength);
+        children = Arrays.copyOf(children, newLength);
+        ownJobCount = Arrays.copyOf(ownJobCount, newLength);
+        ownSalarySum = Arrays.copyOf(ownSalarySum, newLength);
+        ownMinSalary = Arrays.copyOf(ownMinSalary, newLength);
+        ownMaxSalary = Arrays.copyOf(ownMaxSalary, newLength);
+        jobCount = Arrays.copyOf(jobCount, newLength);
+        salarySum = Arrays.copyOf(salarySum, newLength);
+        minSalary = Arrays.copyOf(minSalary, newLength);
+        maxSalary = Arrays.copyOf(maxSalary, newLength);
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown location id: " + id);
+        }
+    }
+
+    /**
+     * Aggregates for one location or region
+     */
+    public static class RegionStats {
+        public final String name;
+        public final int level;
+        public final int jobCount;
+        public final double averageSalary;
+        public final double minSalary;
+        public final double maxSalary;
+
+        public RegionStats(String name, int level, int jobCount, double averageSalary,
+                           double minSalary, double maxSalary) {
+            this.name = name;
+            this.level = level;
+            this.jobCount = jobCount;
+            this.averageSalary = averageSalary;
+            this.minSalary = minSalary;
+            this.maxSalary = maxSalary;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RegionStats{name=%s, jobs=%d, avgSalary=%.0f, min=%.0f, max=%.0f}",
+                               name, jobCount, averageSalary, minSalary, maxSalary);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.ruralyouth.dsa;
+
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.SkillDictionary;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Off-heap columns of the attributes used to score jobs
+ *
+ * One fixed 48-byte record per job (salary, coordinates, skill mask,
+ * experience, location and skill range) lives outside the Java heap, in a
+ * direct buffer or a memory-mapped file, so a large catalog adds nothing
+ * for the garbage collector to trace. Records are indexed like the engine's
+ * job list. The file also keeps each job's id for loading the full Job
+ * lazily, and the skill and location names its ordinals refer to, so a
+ * saved store can be mapped again after a restart.
+ *
+ * File layout (big-endian):
+ * header: magic, version, jobCount, skillIdCount, skillNameCount, locationNameCount, jobIdBytes, 0
+ * records[jobCount] | skill ordinals[skillIdCount] | job id offsets[jobCount + 1] | job id bytes
+ * | skill names | location names (each a short length + UTF-8 bytes)
+ */
+public class OffHeapJobStore {
+    private static final int MAGIC = 0x524A4F42; // "RJOB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 48;
+
+    // Record field offsets
+    private static final int SALARY = 0;
+    private static final int LATITUDE = 8;
+    private static final int LONGITUDE = 16;
+    private static final int SKILL_MASK = 24;
+    private static final int EXPERIENCE = 32;
+    private static final int LOCATION = 36;
+    private static final int SKILL_START = 40;
+    private static final int SKILL_COUNT = 44;
+
+    private final ByteBuffer data;
+    private final int jobCount;
+    private final int skillsOffset;
+    private final int jobIdOffsetsOffset;
+    private final int jobIdBytesOffset;
+    private final int[] skillIds; // store ordinal -> SkillDictionary id
+    private final String[] locationNames; // store ordinal -> name
+    private int[] locationIds; // store ordinal -> location graph id, -1 if unknown
+
+    private OffHeapJobStore(ByteBuffer data) throws IOException {
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a job store file");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported job store version " + data.getInt(4));
+        }
+
+        // Offsets in long math: a damaged header must not wrap around
+        int count = data.getInt(8);
+        int skillIdCount = data.getInt(12);
+        long skills = HEADER_BYTES + (long) count * RECORD_BYTES;
+        long jobIdOffsets = skills + 4L * skillIdCount;
+        long jobIdBytes = jobIdOffsets + 4L * (count + 1);
+        if (count < 0 || skillIdCount < 0 || jobIdBytes + data.getInt(24) > data.capacity()) {
+            throw new IOException("Job store header does not match its size of " + data.capacity() + " bytes");
+        }
+
+        this.data = data;
+        this.jobCount = count;
+        this.skillsOffset = (int) skills;
+        this.jobIdOffsetsOffset = (int) jobIdOffsets;
+        this.jobIdBytesOffset = (int) jobIdBytes;
+
+        ByteBuffer names = data.duplicate();
+        names.position(jobIdBytesOffset + data.getInt(24));
+        String[] skillNames = readNames(names, data.getInt(16));
+        this.skillIds = new int[skillNames.length];
+        for (int i = 0; i < skillNames.length; i++) {
+            skillIds[i] = SkillDictionary.intern(skillNames[i]);
+        }
+        this.locationNames = readNames(names, data.getInt(20));
+        this.locationIds = new int[locationNames.length];
+        Arrays.fill(locationIds, -1);
+    }
+
+    private OffHeapJobStore(OffHeapJobStore source) {
+        this.data = source.data;
+        this.jobCount = source.jobCount;
+        this.skillsOffset = source.skillsOffset;
+        this.jobIdOffsetsOffset = source.jobIdOffsetsOffset;
+        this.jobIdBytesOffset = source.jobIdBytesOffset;
+        this.skillIds = source.skillIds;
+        this.locationNames = source.locationNames;
+        this.locationIds = source.locationIds;
+    }
+
+    /**
+     * Store over the same records whose locations can be bound again
+     * without changing this one
+     */
+    public OffHeapJobStore duplicate() {
+        return new OffHeapJobStore(this);
+    }
+
+    /**
+     * Build a store in direct (off-heap) memory
+     * Records are written straight into the direct buffer
+     */
+    public static OffHeapJobStore build(List<Job> jobs) {
+        Layout layout = new Layout(jobs);
+        ByteBuffer data = ByteBuffer.allocateDirect(layout.size);
+        write(jobs, layout, data);
+        data.flip();
+        try {
+            return new OffHeapJobStore(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a store file for the jobs through a mapping of it and map it
+     * again read-only
+     */
+    public static OffHeapJobStore build(List<Job> jobs, Path file) throws IOException {
+        Layout layout = new Layout(jobs);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+            write(jobs, layout, image);
+            image.force();
+        }
+        return open(file);
+    }
+
+    /**
+     * Write a store image for the jobs into a snapshot section
+     * The image is built in direct memory and streamed into the snapshot
+     */
+    public static void writeTo(SnapshotFile.Writer out, List<Job> jobs) throws IOException {
+        Layout layout = new Layout(jobs);
+        ByteBuffer image = ByteBuffer.allocateDirect(layout.size);
+        write(jobs, layout, image);
+        image.flip();
+        out.writeBytes(image);
+    }
+
+    /**
+     * Use a store image in place, e.g. a snapshot view from SnapshotFile.Reader.readByteView
+     */
+    public static OffHeapJobStore wrap(ByteBuffer image) throws IOException {
+        return new OffHeapJobStore(image);
+    }
+
+    /**
+     * Map an existing store file read-only
+     */
+    public static OffHeapJobStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OffHeapJobStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Name ordinals, encoded names and the exact size of a store image,
+     * worked out before any byte is written
+     */
+    private static final class Layout {
+        final Map<String, Integer> skillOrdinals = new LinkedHashMap<>();
+        final Map<String, Integer> locationOrdinals = new LinkedHashMap<>();
+        final byte[][] jobIds;
+        final int skillIdCount;
+        final int jobIdBytes;
+        final int size;
+
+        Layout(List<Job> jobs) {
+            long skillIds = 0;
+            long idBytes = 0;
+            jobIds = new byte[jobs.size()][];
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                for (String skill : job.getRequiredSkills()) {
+                    skillOrdinals.putIfAbsent(skill, skillOrdinals.size());
+                }
+                skillIds += job.getRequiredSkillIds().length;
+                locationOrdinals.putIfAbsent(job.getLocation(), locationOrdinals.size());
+                jobIds[i] = job.getId().getBytes(StandardCharsets.UTF_8);
+                idBytes += jobIds[i].length;
+            }
+
+            // Every offset in the image is an int, so the whole image must fit one
+            long total = HEADER_BYTES + (long) jobs.size() * RECORD_BYTES + 4 * skillIds
+                    + 4L * (jobs.size() + 1) + idBytes
+                    + namesSize(skillOrdinals.keySet()) + namesSize(locationOrdinals.keySet());
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many jobs for one store: " + jobs.size()
+                        + " jobs need " + total + " bytes");
+            }
+            this.skillIdCount = (int) skillIds;
+            this.jobIdBytes = (int) idBytes;
+            this.size = (int) total;
+        }
+
+        private static long namesSize(Collection<String> names) {
+            long size = 0;
+            for (String name : names) {
+                size += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+            }
+            return size;
+        }
+    }
+
+    private static void write(List<Job> jobs, Layout layout, ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(jobs.size());
+        out.putInt(layout.skillIdCount);
+        out.putInt(layout.skillOrdinals.size());
+        out.putInt(layout.locationOrdinals.size());
+        out.putInt(layout.jobIdBytes);
+        out.putInt(0);
+
+        int skillStart = 0;
+        for (Job job : jobs) {
+            long mask = 0;
+            for (int skillId : job.getRequiredSkillIds()) {
+                mask |= SkillDictionary.maskOf(skillId);
+            }
+            out.putDouble(job.getSalary());
+            out.putDouble(job.getLatitude());
+            out.putDouble(job.getLongitude());
+            out.putLong(mask);
+            out.putInt(job.getExperienceLevel());
+            out.putInt(layout.locationOrdinals.get(job.getLocation()));
+            out.putInt(skillStart);
+            out.putInt(job.getRequiredSkillIds().length);
+            skillStart += job.getRequiredSkillIds().length;
+        }
+        for (Job job : jobs) {
+            for (String skill : job.getRequiredSkills()) {
+                out.putInt(layout.skillOrdinals.get(skill));
+            }
+        }
+
+        int offset = 0;
+        for (byte[] id : layout.jobIds) {
+            out.putInt(offset);
+            offset += id.length;
+        }
+        out.putInt(offset);
+        for (byte[] id : layout.jobIds) {
+            out.put(id);
+        }
+
+        writeNames(out, layout.skillOrdinals.keySet());
+        writeNames(out, layout.locationOrdinals.keySet());
+    }
+
+    private static void writeNames(ByteBuffer out, Collection<String> names) {
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    private static String[] readNames(ByteBuffer in, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Resolve stored location names to ids, e.g. LocationGraph::getLocationId
+     * Until bound, getLocationId returns -1
+     */
+    public void bindLocations(ToIntFunction<String> locationIdOf) {
+        int[] ids = new int[locationNames.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = locationIdOf.applyAsInt(locationNames[i]);
+        }
+        this.locationIds = ids;
+    }
+
+    public int size() {
+        return jobCount;
+    }
+
+    public double getSalary(int job) {
+        return data.getDouble(record(job) + SALARY);
+    }
+
+    public double getLatitude(int job) {
+        return data.getDouble(record(job) + LATITUDE);
+    }
+
+    public double getLongitude(int job) {
+        return data.getDouble(record(job) + LONGITUDE);
+    }
+
+    /**
+     * Bit SkillDictionary.maskOf(s) is set for every required skill s
+     */
+    public long getSkillMask(int job) {
+        return data.getLong(record(job) + SKILL_MASK);
+    }
+
+    public int getExperienceLevel(int job) {
+        return data.getInt(record(job) + EXPERIENCE);
+    }
+
+    public int getLocationId(int job) {
+        return locationIds[data.getInt(record(job) + LOCATION)];
+    }
+
+    public String getLocationName(int job) {
+        return locationNames[data.getInt(record(job) + LOCATION)];
+    }
+
+    public int getSkillCount(int job) {
+        return data.getInt(record(job) + SKILL_COUNT);
+    }
+
+    /**
+     * SkillDictionary id of the job's k-th required skill
+     */
+    public int getSkillId(int job, int k) {
+        return skillIds[data.getInt(skillsOffset + (data.getInt(record(job) + SKILL_START) + k) * 4)];
+    }
+
+    /**
+     * The job's id, for loading the full Job (e.g. JobDAO.loadJob) on demand
+     */
+    public String getJobId(int job) {
+        int start = data.getInt(jobIdOffsetsOffset + job * 4);
+        int end = data.getInt(jobIdOffsetsOffset + (job + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        data.get(jobIdBytesOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes held outside the heap (or mapped)
+     */
+    public long getByteSize() {
+        return data.capacity();
+    }
+
+    private int record(int job) {
+        if (job < 0 || job >= jobCount) {
+            throw new IndexOutOfBoundsException("Job " + job + " out of bounds for size " + jobCount);
+        }
+        return HEADER_BYTES + job * RECORD_BYTES;
+    }
+}
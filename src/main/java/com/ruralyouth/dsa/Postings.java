@@ -0,0 +1,102 @@
+package com.ruralyouth.dsa;
+
+import java.util.List;
+
+/**
+ * Operations on sorted int postings lists (ascending ids, duplicates allowed)
+ */
+public final class Postings {
+    private static final int[] NO_IDS = new int[0];
+
+    private Postings() {
+    }
+
+    /**
+     * Deduplicated union of sorted lists, in ascending order
+     * A k-way merge: a min-heap holds one cursor per list, keyed by the id it
+     * points at, so each id is visited once per list containing it
+     * Time Complexity: O(n log k) for n total postings across k lists
+     */
+    public static int[] union(List<int[]> lists) {
+        int total = 0;
+        int nonEmpty = 0;
+        int[] only = NO_IDS;
+        for (int[] list : lists) {
+            if (list.length > 0) {
+                total += list.length;
+                nonEmpty++;
+                only = list;
+            }
+        }
+        if (nonEmpty <= 1) {
+            return dedupe(only);
+        }
+
+        int[][] heapLists = new int[nonEmpty][];
+        int[] heapPositions = new int[nonEmpty];
+        int heapSize = 0;
+        for (int[] list : lists) {
+            if (list.length > 0) {
+                heapLists[heapSize++] = list;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heapLists, heapPositions, heapSize, i);
+        }
+
+        IntList result = new IntList(total);
+        while (heapSize > 0) {
+            int id = heapLists[0][heapPositions[0]];
+            if (result.isEmpty() || result.get(result.size() - 1) != id) {
+                result.add(id);
+            }
+
+            // Advance the top cursor; drop its list once exhausted
+            if (++heapPositions[0] == heapLists[0].length) {
+                heapSize--;
+                heapLists[0] = heapLists[heapSize];
+                heapPositions[0] = heapPositions[heapSize];
+                heapLists[heapSize] = null;
+            }
+            siftDown(heapLists, heapPositions, heapSize, 0);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Copy of a sorted list without repeated ids
+     */
+    public static int[] dedupe(int[] sorted) {
+        IntList result = new IntList(sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                result.add(sorted[i]);
+            }
+        }
+        return result.toArray();
+    }
+
+    private static void siftDown(int[][] lists, int[] positions, int size, int index) {
+        int[] list = lists[index];
+        int position = positions[index];
+        int id = size > 0 ? list[position] : 0;
+
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && lists[child + 1][positions[child + 1]] < lists[child][positions[child]]) {
+                child++;
+            }
+            if (lists[child][positions[child]] >= id) {
+                break;
+            }
+            lists[index] = lists[child];
+            positions[index] = positions[child];
+            index = child;
+        }
+        lists[index] = list;
+        positions[index] = position;
+    }
+}
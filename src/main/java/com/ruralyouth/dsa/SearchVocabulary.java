@@ -0,0 +1,40 @@
+package com.ruralyouth.dsa;
+
+import java.util.List;
+
+/**
+ * Read operations shared by the mutable Trie and its compiled FrozenVocabulary
+ * Lookups are case-insensitive; ids are the postings attached to each word
+ */
+public interface SearchVocabulary {
+
+    /**
+     * Ids attached to exactly this word
+     */
+    int[] getIds(String word);
+
+    /**
+     * Ids attached to words starting with the prefix, at most limit of them
+     */
+    int[] getIdsWithPrefix(String prefix, int limit);
+
+    /**
+     * All words starting with the prefix
+     */
+    List<String> getWordsWithPrefix(String prefix);
+
+    /**
+     * The k highest-weighted words starting with the prefix, heaviest first
+     */
+    List<String> getTopKWithPrefix(String prefix, int k);
+
+    /**
+     * Words within maxEdits edits of the query, closest first
+     */
+    List<Trie.Match> searchFuzzy(String query, int maxEdits);
+
+    /**
+     * Number of stored words
+     */
+    int size();
+}
@@ -0,0 +1,174 @@
+package com.ruralyouth.dsa;
+
+import java.util.*;
+
+/**
+ * LRU cache of single-source shortest distance tables over a LocationGraph
+ *
+ * Each table remembers the graph version it was computed for. When roads are
+ * added or shortened, only the locations whose distance actually improves are
+ * relaxed again (a Dijkstra run seeded from the changed edges) instead of
+ * recomputing the whole table. Longer roads or a truncated change log fall
+ * back to a full recomputation.
+ * A table takes 8 bytes per location, so besides a number of sources the
+ * cache can be bounded by bytes; the number of tables kept then shrinks as
+ * the graph grows.
+ */
+public class ShortestPathCache {
+    private final LocationGraph graph;
+    private final Map<Integer, CachedTable> tables;
+    private final int maxSources;
+    private final long maxBytes;
+
+    private long hits;
+    private long incrementalUpdates;
+    private long fullRecomputations;
+
+    public ShortestPathCache(LocationGraph graph, int maxSources) {
+        this(graph, maxSources, Long.MAX_VALUE);
+    }
+
+    /**
+     * Cache at most maxSources tables and no more than fit in maxBytes,
+     * always keeping at least the most recent one
+     */
+    public ShortestPathCache(LocationGraph graph, int maxSources, long maxBytes) {
+        this.graph = graph;
+        this.tables = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxSources = maxSources;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the shortest distance between two location ids
+     * Unreachable locations get Double.MAX_VALUE
+     */
+    public double getDistance(int sourceId, int targetId) {
+        double[] distances = getDistances(sourceId);
+        return targetId < distances.length ? distances[targetId] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Get the up-to-date distance table for a source location
+     * The returned array is owned by the cache and must not be modified
+     */
+    public double[] getDistances(int sourceId) {
+        CachedTable table = tables.get(sourceId);
+        long version = graph.getVersion();
+
+        // The change log holds every change since the last full invalidation
+        if (table == null || table.version < graph.getFullInvalidationVersion()) {
+            table = new CachedTable(graph.findShortestDistances(sourceId), version);
+            tables.put(sourceId, table);
+            evictOverCapacity();
+            fullRecomputations++;
+        } else if (table.version != version) {
+            relaxChanges(table);
+            table.version = version;
+            incrementalUpdates++;
+        } else {
+            hits++;
+        }
+
+        return table.distances;
+    }
+
+    /**
+     * Number of tables the cache keeps for the graph's current size
+     * Time Complexity: O(1)
+     */
+    public int getCapacity() {
+        long tableBytes = 8L * Math.max(1, graph.getLocationCount());
+        return (int) Math.max(1, Math.min(maxSources, maxBytes / tableBytes));
+    }
+
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * Drop every cached table
+     */
+    public void clear() {
+        tables.clear();
+    }
+
+    public long getHits() { return hits; }
+
+    public long getIncrementalUpdates() { return incrementalUpdates; }
+
+    public long getFullRecomputations() { return fullRecomputations; }
+
+    /**
+     * Drop least recently used tables until the rest fit; the graph may
+     * have grown since the last eviction, so more than one can go
+     */
+    private void evictOverCapacity() {
+        int capacity = getCapacity();
+        Iterator<CachedTable> eldest = tables.values().iterator();
+        while (tables.size() > capacity) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Seed a Dijkstra run with the endpoints of every road that got shorter
+     * since the table was computed and propagate only real improvements
+     */
+    private void relaxChanges(CachedTable table) {
+        int locationCount = graph.getLocationCount();
+        double[] distances = table.distances;
+        if (distances.length < locationCount) {
+            int oldLength = distances.length;
+            distances = Arrays.copyOf(distances, locationCount);
+            Arrays.fill(distances, oldLength, locationCount, Double.MAX_VALUE);
+            table.distances = distances;
+        }
+
+        PriorityQueue<double[]> pq = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[1]));
+        for (int i = 0; i < graph.changeCount; i++) {
+            if (graph.changeVersion[i] <= table.version) {
+                continue;
+            }
+            int u = graph.changeFrom[i];
+            int v = graph.changeTo[i];
+            double w = graph.changeDistance[i];
+            relax(distances, u, v, w, pq);
+            relax(distances, v, u, w, pq);
+        }
+
+        while (!pq.isEmpty()) {
+            double[] current = pq.poll();
+            int location = (int) current[0];
+            if (current[1] > distances[location]) {
+                continue; // stale entry
+            }
+
+            for (int i = 0; i < graph.getDegree(location); i++) {
+                relax(distances, location, graph.getNeighbor(location, i), graph.getEdgeDistance(location, i), pq);
+            }
+        }
+    }
+
+    private static void relax(double[] distances, int from, int to, double weight, PriorityQueue<double[]> pq) {
+        if (distances[from] == Double.MAX_VALUE) {
+            return;
+        }
+        double candidate = distances[from] + weight;
+        if (candidate < distances[to]) {
+            distances[to] = candidate;
+            pq.offer(new double[] {to, candidate});
+        }
+    }
+
+    private static class CachedTable {
+        double[] distances;
+        long version;
+
+        CachedTable(double[] distances, long version) {
+            this.distances = distances;
+            this.version = version;
+        }
+    }
+}
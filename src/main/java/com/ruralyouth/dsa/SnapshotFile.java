@@ -0,0 +1,569 @@
+package com.ruralyouth.dsa;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary file for saving and restoring in-memory structures
+ *
+ * Layout (big-endian): magic, format version, payload, CRC32 of the payload.
+ * The payload is a sequence of tagged sections holding primitives and
+ * length-prefixed primitive arrays, which are moved in bulk through NIO
+ * buffers rather than value by value. Strings are an array of end offsets
+ * plus one block of UTF-8 bytes, so the i-th string can be found without
+ * decoding the others. A writer fills a temporary file that only replaces
+ * the target on commit(), so a crash never leaves a torn snapshot; a
+ * reader checks magic, version and (unless opened in place) the checksum
+ * before anything is parsed.
+ *
+ * Readers opened with openInPlace() also hand out views (IntBuffer,
+ * StringView, ...) that read the mapped file directly; structures use them
+ * to serve queries without copying their data onto the heap.
+ */
+public final class SnapshotFile {
+    private static final int MAGIC = 0x52595353; // "RYSS"
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Start writing a snapshot; nothing replaces the file until commit()
+     */
+    public static Writer create(Path file, int version) throws IOException {
+        return new Writer(file, version);
+    }
+
+    /**
+     * Map a snapshot and verify its header and checksum
+     * Time Complexity: O(file size) for the checksum
+     */
+    public static Reader open(Path file, int expectedVersion) throws IOException {
+        return open(file, expectedVersion, false, true);
+    }
+
+    /**
+     * Like open(), but structures should keep reading from the mapping
+     * (see Reader.isInPlace); the file must not be modified while in use
+     * Only the header is checked, so startup does not touch every page;
+     * section tags still catch a file that is not laid out as expected
+     * Time Complexity: O(1)
+     */
+    public static Reader openInPlace(Path file, int expectedVersion) throws IOException {
+        return openInPlace(file, expectedVersion, false);
+    }
+
+    /**
+     * openInPlace that optionally verifies the checksum first, e.g. after
+     * copying a snapshot to a new machine
+     * Time Complexity: O(file size) when verifying, O(1) otherwise
+     */
+    public static Reader openInPlace(Path file, int expectedVersion, boolean verifyChecksum) throws IOException {
+        return open(file, expectedVersion, true, verifyChecksum);
+    }
+
+    private static Reader open(Path file, int expectedVersion, boolean inPlace,
+                               boolean verifyChecksum) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + channel.size() + " bytes");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (data.capacity() < HEADER_BYTES + TRAILER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        int version = data.getInt(4);
+        if (version != expectedVersion) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + expectedVersion);
+        }
+
+        int payloadEnd = data.capacity() - TRAILER_BYTES;
+        ByteBuffer payload = data.duplicate();
+        payload.position(HEADER_BYTES).limit(payloadEnd);
+        if (verifyChecksum) {
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != data.getLong(payloadEnd)) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+        }
+        return new Reader(payload.slice(), inPlace);
+    }
+
+    /**
+     * Sequential snapshot writer; use with try-with-resources and call
+     * commit() once everything is written
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final CRC32 crc;
+        private boolean committed;
+
+        private Writer(Path target, int version) throws IOException {
+            Path directory = target.toAbsolutePath().getParent();
+            this.target = target;
+            this.temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            this.crc = new CRC32();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(version);
+            header.flip();
+            writeFully(header);
+        }
+
+        /**
+         * Mark the start of a section; Reader.section checks the same tag
+         */
+        public void section(int tag) throws IOException {
+            writeInt(tag);
+        }
+
+        public void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            ensure(1);
+            buffer.put((byte) (value ? 1 : 0));
+        }
+
+        /**
+         * A single string, null allowed
+         */
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            writeRawBytes(bytes, 0, bytes.length);
+        }
+
+        public void writeInts(int[] values) throws IOException {
+            writeInts(values, 0, values.length);
+        }
+
+        public void writeInts(int[] values, int from, int to) throws IOException {
+            writeInt(to - from);
+            while (from < to) {
+                ensure(4);
+                int count = Math.min(to - from, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * 4);
+                from += count;
+            }
+        }
+
+        public void writeLongs(long[] values, int count) throws IOException {
+            writeInt(count);
+            for (int from = 0; from < count; ) {
+                ensure(8);
+                int chunk = Math.min(count - from, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, from, chunk);
+                buffer.position(buffer.position() + chunk * 8);
+                from += chunk;
+            }
+        }
+
+        public void writeDoubles(double[] values, int count) throws IOException {
+            writeInt(count);
+            for (int from = 0; from < count; ) {
+                ensure(8);
+                int chunk = Math.min(count - from, buffer.remaining() / 8);
+                buffer.asDoubleBuffer().put(values, from, chunk);
+                buffer.position(buffer.position() + chunk * 8);
+                from += chunk;
+            }
+        }
+
+        public void writeChars(char[] values, int count) throws IOException {
+            writeInt(count);
+            for (int from = 0; from < count; ) {
+                ensure(2);
+                int chunk = Math.min(count - from, buffer.remaining() / 2);
+                buffer.asCharBuffer().put(values, from, chunk);
+                buffer.position(buffer.position() + chunk * 2);
+                from += chunk;
+            }
+        }
+
+        public void writeBytes(byte[] values, int count) throws IOException {
+            writeInt(count);
+            writeRawBytes(values, 0, count);
+        }
+
+        /**
+         * The remaining bytes of a buffer, e.g. a direct one, without a
+         * heap copy; read back like writeBytes
+         */
+        public void writeBytes(ByteBuffer values) throws IOException {
+            ByteBuffer source = values.duplicate();
+            writeInt(source.remaining());
+            while (source.hasRemaining()) {
+                ensure(1);
+                int count = Math.min(source.remaining(), buffer.remaining());
+                ByteBuffer chunk = source.duplicate();
+                chunk.limit(chunk.position() + count);
+                buffer.put(chunk);
+                source.position(source.position() + count);
+            }
+        }
+
+        /**
+         * Non-null strings as an array of end offsets and one block of UTF-8 bytes
+         */
+        public void writeStrings(String[] values, int count) throws IOException {
+            int[] ends = new int[count];
+            byte[][] encoded = new byte[count][];
+            int end = 0;
+            for (int i = 0; i < count; i++) {
+                encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                end += encoded[i].length;
+                ends[i] = end;
+            }
+            writeInts(ends, 0, count);
+            writeInt(end);
+            for (byte[] bytes : encoded) {
+                writeRawBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        /**
+         * Dictionary-encoded strings: the distinct values once, then one
+         * int reference per value (-1 for null)
+         */
+        public void writeStringColumn(String[] values, int count) throws IOException {
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> distinct = new ArrayList<>();
+            int[] references = new int[count];
+            for (int i = 0; i < count; i++) {
+                if (values[i] == null) {
+                    references[i] = -1;
+                    continue;
+                }
+                Integer reference = dictionary.get(values[i]);
+                if (reference == null) {
+                    reference = distinct.size();
+                    dictionary.put(values[i], reference);
+                    distinct.add(values[i]);
+                }
+                references[i] = reference;
+            }
+            writeStrings(distinct.toArray(new String[0]), distinct.size());
+            writeInts(references, 0, count);
+        }
+
+        /**
+         * Finish the file and atomically replace the target with it
+         */
+        public void commit() throws IOException {
+            flush();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putLong(crc.getValue());
+            trailer.flip();
+            writeFully(trailer);
+            channel.force(false);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Discard the temporary file unless committed
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeRawBytes(byte[] values, int from, int to) throws IOException {
+            while (from < to) {
+                ensure(1);
+                int count = Math.min(to - from, buffer.remaining());
+                buffer.put(values, from, count);
+                from += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Sequential reader over a verified snapshot payload
+     * Array reads copy straight from the mapped file with one bulk get
+     */
+    public static final class Reader {
+        private final ByteBuffer data;
+        private final boolean inPlace;
+
+        private Reader(ByteBuffer data, boolean inPlace) {
+            this.data = data;
+            this.inPlace = inPlace;
+        }
+
+        /**
+         * True when opened with openInPlace: large arrays should be read
+         * as views rather than copied
+         */
+        public boolean isInPlace() {
+            return inPlace;
+        }
+
+        /**
+         * Check that the next section carries the expected tag
+         */
+        public void section(int tag) throws IOException {
+            int found = data.remaining() >= 4 ? data.getInt() : -1;
+            if (found != tag) {
+                throw new IOException(String.format("Corrupt snapshot: expected section %08x, found %08x", tag, found));
+            }
+        }
+
+        public int readInt() {
+            return data.getInt();
+        }
+
+        public long readLong() {
+            return data.getLong();
+        }
+
+        public double readDouble() {
+            return data.getDouble();
+        }
+
+        public boolean readBoolean() {
+            return data.get() != 0;
+        }
+
+        public String readString() {
+            int length = data.getInt();
+            return length < 0 ? null : decode(length);
+        }
+
+        public int[] readInts() {
+            int[] values = new int[data.getInt()];
+            data.asIntBuffer().get(values);
+            data.position(data.position() + values.length * 4);
+            return values;
+        }
+
+        public long[] readLongs() {
+            long[] values = new long[data.getInt()];
+            data.asLongBuffer().get(values);
+            data.position(data.position() + values.length * 8);
+            return values;
+        }
+
+        public double[] readDoubles() {
+            double[] values = new double[data.getInt()];
+            data.asDoubleBuffer().get(values);
+            data.position(data.position() + values.length * 8);
+            return values;
+        }
+
+        public char[] readChars() {
+            char[] values = new char[data.getInt()];
+            data.asCharBuffer().get(values);
+            data.position(data.position() + values.length * 2);
+            return values;
+        }
+
+        public byte[] readBytes() {
+            byte[] values = new byte[data.getInt()];
+            data.get(values);
+            return values;
+        }
+
+        public String[] readStrings() {
+            int[] ends = readInts();
+            byte[] block = new byte[data.getInt()];
+            data.get(block);
+
+            String[] values = new String[ends.length];
+            int start = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new String(block, start, ends[i] - start, StandardCharsets.UTF_8);
+                start = ends[i];
+            }
+            return values;
+        }
+
+        public String[] readStringColumn() {
+            return readStringColumn(UnaryOperator.identity());
+        }
+
+        /**
+         * Read a dictionary-encoded column; equal values share one instance,
+         * after passing once through canonical (e.g. StringPool::intern)
+         */
+        public String[] readStringColumn(UnaryOperator<String> canonical) {
+            String[] distinct = readStrings();
+            for (int i = 0; i < distinct.length; i++) {
+                distinct[i] = canonical.apply(distinct[i]);
+            }
+            int[] references = readInts();
+            String[] values = new String[references.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = references[i] < 0 ? null : distinct[references[i]];
+            }
+            return values;
+        }
+
+        // Views over the mapped file; nothing is copied
+
+        public ByteBuffer readByteView() {
+            return view(data.getInt());
+        }
+
+        public IntBuffer readIntView() {
+            return view(data.getInt() * 4).asIntBuffer();
+        }
+
+        public DoubleBuffer readDoubleView() {
+            return view(data.getInt() * 8).asDoubleBuffer();
+        }
+
+        public StringView readStringView() {
+            IntBuffer ends = readIntView();
+            return new StringView(ends, readByteView());
+        }
+
+        /**
+         * Column written by writeStringColumn; with a canonical function the
+         * distinct values are decoded once up front (for low-cardinality
+         * columns), otherwise each get() decodes from the mapping
+         */
+        public StringColumn readStringColumnView(UnaryOperator<String> canonical) {
+            if (canonical == null) {
+                StringView distinct = readStringView();
+                return new StringColumn(distinct::get, readIntView());
+            }
+            String[] distinct = readStrings();
+            for (int i = 0; i < distinct.length; i++) {
+                distinct[i] = canonical.apply(distinct[i]);
+            }
+            return new StringColumn(reference -> distinct[reference], readIntView());
+        }
+
+        private ByteBuffer view(int length) {
+            ByteBuffer view = data.slice(data.position(), length);
+            data.position(data.position() + length);
+            return view;
+        }
+
+        private String decode(int length) {
+            String value;
+            if (data.hasArray()) {
+                value = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[length];
+                data.get(data.position(), bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            data.position(data.position() + length);
+            return value;
+        }
+    }
+
+    /**
+     * Strings read in place; get() decodes one string from the mapping
+     */
+    public static final class StringView {
+        private final IntBuffer ends;
+        private final ByteBuffer bytes;
+
+        private StringView(IntBuffer ends, ByteBuffer bytes) {
+            this.ends = ends;
+            this.bytes = bytes;
+        }
+
+        public int size() {
+            return ends.limit();
+        }
+
+        public String get(int index) {
+            int start = index == 0 ? 0 : ends.get(index - 1);
+            byte[] value = new byte[ends.get(index) - start];
+            bytes.get(start, value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Dictionary-encoded string column read in place
+     */
+    public static final class StringColumn {
+        private final IntFunction<String> distinct;
+        private final IntBuffer references;
+
+        private StringColumn(IntFunction<String> distinct, IntBuffer references) {
+            this.distinct = distinct;
+            this.references = references;
+        }
+
+        public int size() {
+            return references.limit();
+        }
+
+        /**
+         * Value at the index, or null
+         */
+        public String get(int index) {
+            int reference = references.get(index);
+            return reference < 0 ? null : distinct.apply(reference);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ruralyouth.dsa;
+
+/**
+ * Bounded top-k of (id, score) pairs in primitive arrays
+ * A min-heap on score holds the best k seen so far; the worst is evicted
+ * when a better one arrives. Among equal scores the smaller id wins.
+ */
+public class TopScores {
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopScores(int k) {
+        this.ids = new int[Math.max(0, k)];
+        this.scores = new double[Math.max(0, k)];
+    }
+
+    /**
+     * Time Complexity: O(log k), O(1) when the score cannot enter the top k
+     */
+    public void offer(int id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && (score > scores[0] || (score == scores[0] && id < ids[0]))) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ids from best to worst score; empties the heap
+     */
+    public int[] drainIds(double[] scoresOut) {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!worse(index, parent)) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(child + 1, child)) {
+                child++;
+            }
+            if (!worse(child, index)) {
+                break;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    /**
+     * Lower score, or equal score with a larger id
+     */
+    private boolean worse(int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -1,16 +1,47 @@
 package com.ruralyouth.dsa;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Trie data structure for efficient string searching and autocomplete
  * Used for job titles and skills search
+ * Nodes keep their children in sorted char arrays (binary searched) and only
+ * terminal nodes carry word payloads, which keeps large vocabularies compact
+ * Words can carry a popularity weight; each node tracks the maximum weight in
+ * its subtree so the top-K completions are found without a full walk
+ * Terminal nodes can also hold postings of int ids (e.g. job indexes), so a
+ * prefix search returns the matching records directly
+ * Typo-tolerant lookup walks a Levenshtein automaton (one DP row per node)
+ * against the trie and prunes branches that can no longer match
+ * fork() shares every node with a copy; each side then copies the nodes on
+ * the paths it changes, so one trie can keep serving readers unchanged.
+ * That is how searches run during ingestion: readers use a published trie
+ * without locks while the single writer changes a fork and publishes it
+ * through a volatile reference (see JobRecommendationEngine.publish)
  */
-public class Trie {
+public class Trie implements SearchVocabulary {
     private TrieNode root;
+    private int wordCount;
+    private int epoch; // nodes of other epochs are shared with a fork
 
     public Trie() {
-        this.root = new TrieNode();
+        this.root = new TrieNode(0);
+    }
+
+    /**
+     * Trie holding the same words that shares all nodes with this one
+     * Both tries then copy a shared node before changing it (path copying),
+     * so neither sees the other's changes
+     * Time Complexity: O(1), then O(m) extra per changed word of length m
+     */
+    public Trie fork() {
+        Trie copy = new Trie();
+        copy.root = root;
+        copy.wordCount = wordCount;
+        epoch += 1;
+        copy.epoch = epoch + 1;
+        return copy;
     }
 
     /**
@@ -18,17 +49,247 @@ public class Trie {
      * Time Complexity: O(m) where m is the length of the word
      */
     public void insert(String word) {
-        if (word == null || word.isEmpty()) return;
+        insertNode(word);
+    }
+
+    private TrieNode insertNode(String word) {
+        if (word == null || word.isEmpty()) return null;
         
-        TrieNode current = root;
+        TrieNode current = writableRoot();
         String lowerWord = word.toLowerCase();
         
-        for (char c : lowerWord.toCharArray()) {
-            current.children.putIfAbsent(c, new TrieNode());
-            current = current.children.get(c);
+        for (int i = 0; i < lowerWord.length(); i++) {
+            current = current.getOrAddChild(lowerWord.charAt(i), epoch);
+        }
+        if (current.addWord(word)) { // Store original word for case preservation
+            wordCount++;
+        }
+        return current;
+    }
+
+    /**
+     * Insert a word (if new) and attach an id to its postings
+     * Time Complexity: O(m) amortized
+     */
+    public void addId(String word, int id) {
+        TrieNode node = insertNode(word);
+        if (node == null) return;
+
+        if (node.postings == null) {
+            node.postings = new IntList(2);
+        }
+        node.writablePostings().add(id);
+    }
+
+    /**
+     * Detach an id from a word's postings (the word itself stays)
+     * Postings must be in ascending order, as when ids are added in order
+     * Time Complexity: O(m + p) for p postings of the word
+     */
+    public boolean removeId(String word, int id) {
+        if (word == null || word.isEmpty()) return false;
+
+        String lowerWord = word.toLowerCase();
+        TrieNode node = findNode(lowerWord);
+        if (node == null || node.postings == null) {
+            return false;
+        }
+        return findWritableNode(lowerWord).writablePostings().removeSorted(id);
+    }
+
+    /**
+     * Ids attached to exactly this word (case-insensitive)
+     */
+    public int[] getIds(String word) {
+        if (word == null || word.isEmpty()) return new int[0];
+
+        TrieNode node = findNode(word.toLowerCase());
+        return node != null && node.postings != null ? node.postings.toArray() : new int[0];
+    }
+
+    /**
+     * Ids attached to words starting with the prefix, at most limit of them
+     * Ids come in word order, then in the order they were added
+     * Time Complexity: O(m + n) where n is the number of subtree nodes visited
+     */
+    public int[] getIdsWithPrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) return new int[0];
+
+        TrieNode start = findNode(prefix.toLowerCase());
+        if (start == null) {
+            return new int[0];
+        }
+
+        IntList result = new IntList();
+        collectIds(start, result, limit);
+        return result.toArray();
+    }
+
+    private void collectIds(TrieNode node, IntList result, int limit) {
+        if (node.postings != null) {
+            for (int i = 0; i < node.postings.size() && result.size() < limit; i++) {
+                result.add(node.postings.get(i));
+            }
+        }
+
+        for (int i = 0; i < node.childCount && result.size() < limit; i++) {
+            collectIds(node.children[i], result, limit);
+        }
+    }
+
+    /**
+     * Insert a word with a popularity weight (replacing any previous weight)
+     */
+    public void insert(String word, long weight) {
+        insert(word);
+        setWeight(word, weight);
+    }
+
+    /**
+     * Set the popularity weight of a stored word (e.g. job count or search frequency)
+     * Time Complexity: O(m * σ) in the worst case, O(m) when the weight grows
+     * Returns false if the word is not in the trie
+     */
+    public boolean setWeight(String word, long weight) {
+        if (word == null || word.isEmpty()) return false;
+
+        String lowerWord = word.toLowerCase();
+        TrieNode found = findNode(lowerWord);
+        if (found == null || !found.isEndOfWord()) {
+            return false;
+        }
+
+        TrieNode[] path = new TrieNode[lowerWord.length() + 1];
+        path[0] = writableRoot();
+        for (int i = 0; i < lowerWord.length(); i++) {
+            path[i + 1] = path[i].getWritableChild(lowerWord.charAt(i), epoch);
+        }
+        path[lowerWord.length()].weight = weight;
+
+        // Refresh subtree maxima bottom-up, stopping once nothing changes
+        for (int i = lowerWord.length(); i >= 0; i--) {
+            long old = path[i].maxWeight;
+            path[i].recomputeMaxWeight();
+            if (path[i].maxWeight == old && i < lowerWord.length()) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add to the popularity weight of a stored word
+     * Returns false if the word is not in the trie
+     */
+    public boolean addWeight(String word, long delta) {
+        if (word == null || word.isEmpty()) return false;
+
+        TrieNode node = findNode(word.toLowerCase());
+        return node != null && node.isEndOfWord() && setWeight(word, node.weight + delta);
+    }
+
+    /**
+     * Get the popularity weight of a word (0 if absent)
+     */
+    public long getWeight(String word) {
+        if (word == null || word.isEmpty()) return 0;
+
+        TrieNode node = findNode(word.toLowerCase());
+        return node != null && node.isEndOfWord() ? node.weight : 0;
+    }
+
+    /**
+     * Get the k highest-weighted words starting with the prefix (heaviest first)
+     * An empty prefix returns the k heaviest words overall
+     * Best-first search ordered by subtree maximum weight, so only
+     * O(k * depth) nodes are expanded instead of the whole subtree
+     */
+    public List<String> getTopKWithPrefix(String prefix, int k) {
+        List<String> result = new ArrayList<>();
+        if (prefix == null || k <= 0) return result;
+
+        TrieNode start = findNode(prefix.toLowerCase());
+        if (start == null) {
+            return result;
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        long order = 0;
+        queue.offer(new Candidate(start, start.maxWeight, false, order++));
+
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate candidate = queue.poll();
+            TrieNode node = candidate.node;
+
+            if (candidate.terminal) {
+                for (int i = 0; i < node.words.length && result.size() < k; i++) {
+                    result.add(node.words[i]);
+                }
+                continue;
+            }
+
+            if (node.isEndOfWord()) {
+                queue.offer(new Candidate(node, node.weight, true, order++));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                queue.offer(new Candidate(node.children[i], node.children[i].maxWeight, false, order++));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find stored words within maxEdits insertions, deletions or substitutions
+     * of the query (case-insensitive), closest first, then heaviest, then alphabetical
+     * Each visited node computes one row of the edit-distance table from its
+     * parent's row; a subtree is skipped once every entry exceeds maxEdits,
+     * so only the O(σ^e * m) neighbourhood of the query is explored for e = 1-2
+     */
+    public List<Match> searchFuzzy(String query, int maxEdits) {
+        List<Match> result = new ArrayList<>();
+        if (query == null || query.isEmpty() || maxEdits < 0) return result;
+
+        String lowerQuery = query.toLowerCase();
+        int[] firstRow = new int[lowerQuery.length() + 1];
+        for (int i = 0; i <= lowerQuery.length(); i++) {
+            firstRow[i] = i;
+        }
+
+        for (int i = 0; i < root.childCount; i++) {
+            searchFuzzy(root.children[i], root.keys[i], lowerQuery, firstRow, maxEdits, result);
+        }
+
+        result.sort(null);
+        return result;
+    }
+
+    private void searchFuzzy(TrieNode node, char c, String query, int[] previousRow,
+                             int maxEdits, List<Match> result) {
+        int columns = query.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+
+        for (int i = 1; i < columns; i++) {
+            int replace = previousRow[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+            int insert = row[i - 1] + 1;
+            int delete = previousRow[i] + 1;
+            row[i] = Math.min(replace, Math.min(insert, delete));
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        if (node.isEndOfWord() && row[columns - 1] <= maxEdits) {
+            for (String word : node.words) {
+                result.add(new Match(word, row[columns - 1], node.weight));
+            }
+        }
+
+        if (rowMin <= maxEdits) {
+            for (int i = 0; i < node.childCount; i++) {
+                searchFuzzy(node.children[i], node.keys[i], query, row, maxEdits, result);
+            }
         }
-        current.isEndOfWord = true;
-        current.words.add(word); // Store original word for case preservation
     }
 
     /**
@@ -38,16 +299,8 @@ public class Trie {
     public boolean search(String word) {
         if (word == null || word.isEmpty()) return false;
         
-        TrieNode current = root;
-        String lowerWord = word.toLowerCase();
-        
-        for (char c : lowerWord.toCharArray()) {
-            if (!current.children.containsKey(c)) {
-                return false;
-            }
-            current = current.children.get(c);
-        }
-        return current.isEndOfWord;
+        TrieNode current = findNode(word.toLowerCase());
+        return current != null && current.isEndOfWord();
     }
 
     /**
@@ -57,16 +310,7 @@ public class Trie {
     public boolean startsWith(String prefix) {
         if (prefix == null || prefix.isEmpty()) return false;
         
-        TrieNode current = root;
-        String lowerPrefix = prefix.toLowerCase();
-        
-        for (char c : lowerPrefix.toCharArray()) {
-            if (!current.children.containsKey(c)) {
-                return false;
-            }
-            current = current.children.get(c);
-        }
-        return true;
+        return findNode(prefix.toLowerCase()) != null;
     }
 
     /**
@@ -77,15 +321,10 @@ public class Trie {
         List<String> result = new ArrayList<>();
         if (prefix == null || prefix.isEmpty()) return result;
         
-        TrieNode current = root;
-        String lowerPrefix = prefix.toLowerCase();
-        
         // Navigate to the node representing the prefix
-        for (char c : lowerPrefix.toCharArray()) {
-            if (!current.children.containsKey(c)) {
-                return result; // Prefix doesn't exist
-            }
-            current = current.children.get(c);
+        TrieNode current = findNode(prefix.toLowerCase());
+        if (current == null) {
+            return result; // Prefix doesn't exist
         }
         
         // Collect all words from this node and its descendants
@@ -93,17 +332,125 @@ public class Trie {
         return result;
     }
 
+    /**
+     * Walk down the trie along a lowercase key
+     * Time Complexity: O(m log σ) where σ is the branching factor
+     */
+    private TrieNode findNode(String lowerKey) {
+        TrieNode current = root;
+        for (int i = 0; i < lowerKey.length() && current != null; i++) {
+            current = current.getChild(lowerKey.charAt(i));
+        }
+        return current;
+    }
+
+    /**
+     * findNode for a change: shared nodes on the path are copied first
+     */
+    private TrieNode findWritableNode(String lowerKey) {
+        TrieNode current = writableRoot();
+        for (int i = 0; i < lowerKey.length() && current != null; i++) {
+            current = current.getWritableChild(lowerKey.charAt(i), epoch);
+        }
+        return current;
+    }
+
+    private TrieNode writableRoot() {
+        if (root.epoch != epoch) {
+            root = root.copy(epoch);
+        }
+        return root;
+    }
+
     /**
      * Collect all words from a given node and its descendants
      */
     private void collectWords(TrieNode node, List<String> result) {
-        if (node.isEndOfWord) {
-            result.addAll(node.words);
+        if (node.isEndOfWord()) {
+            Collections.addAll(result, node.words);
         }
         
-        for (TrieNode child : node.children.values()) {
-            collectWords(child, result);
+        for (int i = 0; i < node.childCount; i++) {
+            collectWords(node.children[i], result);
+        }
+    }
+
+    /**
+     * Write every word with its case variants, weight and postings, in key order
+     */
+    public void writeTo(SnapshotFile.Writer out) throws IOException {
+        List<TrieNode> terminals = new ArrayList<>();
+        collectTerminals(root, terminals);
+
+        int[] variantCounts = new int[terminals.size()];
+        long[] weights = new long[terminals.size()];
+        int[] postingCounts = new int[terminals.size()];
+        List<String> variants = new ArrayList<>();
+        IntList postings = new IntList();
+        for (int i = 0; i < terminals.size(); i++) {
+            TrieNode node = terminals.get(i);
+            variantCounts[i] = node.words.length;
+            Collections.addAll(variants, node.words);
+            weights[i] = node.weight;
+            if (node.postings != null) {
+                postingCounts[i] = node.postings.size();
+                for (int p = 0; p < node.postings.size(); p++) {
+                    postings.add(node.postings.get(p));
+                }
+            }
         }
+
+        out.writeInts(variantCounts);
+        out.writeStrings(variants.toArray(new String[0]), variants.size());
+        out.writeLongs(weights, weights.length);
+        out.writeInts(postingCounts);
+        out.writeInts(postings.toArray());
+    }
+
+    /**
+     * Rebuild a trie written by writeTo; subtree maxima are computed in one
+     * pass at the end instead of per word
+     * Time Complexity: O(L + p) for total word length L and p postings
+     */
+    public static Trie readFrom(SnapshotFile.Reader in) {
+        int[] variantCounts = in.readInts();
+        String[] variants = in.readStrings();
+        long[] weights = in.readLongs();
+        int[] postingCounts = in.readInts();
+        int[] postings = in.readInts();
+
+        Trie trie = new Trie();
+        int variant = 0;
+        int posting = 0;
+        for (int i = 0; i < variantCounts.length; i++) {
+            TrieNode node = null;
+            for (int v = 0; v < variantCounts[i]; v++) {
+                node = trie.insertNode(variants[variant++]);
+            }
+            node.weight = weights[i];
+            if (postingCounts[i] > 0) {
+                node.postings = IntList.wrap(Arrays.copyOfRange(postings, posting, posting + postingCounts[i]));
+                posting += postingCounts[i];
+            }
+        }
+        recomputeMaxWeights(trie.root);
+        return trie;
+    }
+
+    private static void collectTerminals(TrieNode node, List<TrieNode> result) {
+        if (node.isEndOfWord()) {
+            result.add(node);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collectTerminals(node.children[i], result);
+        }
+    }
+
+    private static void recomputeMaxWeights(TrieNode node) {
+        for (int i = 0; i < node.childCount; i++) {
+            recomputeMaxWeights(node.children[i]);
+        }
+        node.recomputeMaxWeight();
     }
 
     /**
@@ -122,21 +469,42 @@ public class Trie {
     public boolean remove(String word) {
         if (word == null || word.isEmpty()) return false;
         
-        return removeHelper(root, word.toLowerCase(), 0);
+        if (!search(word)) return false;
+
+        int before = wordCount;
+        String lowerWord = word.toLowerCase();
+        removeHelper(writableRoot(), lowerWord, 0);
+        refreshMaxWeights(root, lowerWord, 0);
+        return wordCount < before;
+    }
+
+    /**
+     * Recompute subtree maxima along the remaining part of a path, bottom-up
+     */
+    private void refreshMaxWeights(TrieNode node, String word, int index) {
+        if (index < word.length()) {
+            TrieNode child = node.getWritableChild(word.charAt(index), epoch);
+            if (child != null) {
+                refreshMaxWeights(child, word, index + 1);
+            }
+        }
+        node.recomputeMaxWeight();
     }
 
     private boolean removeHelper(TrieNode node, String word, int index) {
         if (index == word.length()) {
-            if (!node.isEndOfWord) {
+            if (!node.isEndOfWord()) {
                 return false; // Word doesn't exist
             }
-            node.isEndOfWord = false;
-            node.words.clear();
-            return node.children.isEmpty();
+            wordCount -= node.words.length;
+            node.words = null;
+            node.postings = null;
+            node.weight = 0;
+            return node.childCount == 0;
         }
         
         char c = word.charAt(index);
-        TrieNode child = node.children.get(c);
+        TrieNode child = node.getWritableChild(c, epoch);
         
         if (child == null) {
             return false; // Word doesn't exist
@@ -145,8 +513,8 @@ public class Trie {
         boolean shouldDeleteChild = removeHelper(child, word, index + 1);
         
         if (shouldDeleteChild) {
-            node.children.remove(c);
-            return node.children.isEmpty() && !node.isEndOfWord;
+            node.removeChild(c);
+            return node.childCount == 0 && !node.isEndOfWord();
         }
         
         return false;
@@ -156,35 +524,214 @@ public class Trie {
      * Get the size of the trie (number of words)
      */
     public int size() {
-        return getAllWords().size();
+        return wordCount;
     }
 
     /**
      * Check if the trie is empty
      */
     public boolean isEmpty() {
-        return root.children.isEmpty();
+        return root.childCount == 0;
     }
 
     /**
      * Clear all words from the trie
      */
     public void clear() {
-        root = new TrieNode();
+        root = new TrieNode(epoch);
+        wordCount = 0;
     }
 
     /**
      * TrieNode inner class
+     * Children live in a sorted char[] with a parallel node array instead of a
+     * HashMap<Character, TrieNode>; words is null unless a word ends here
+     * A node belongs to the trie epoch that created it; other epochs copy it
+     * (and its postings, lazily) before changing anything
      */
     private static class TrieNode {
-        Map<Character, TrieNode> children;
-        boolean isEndOfWord;
-        Set<String> words; // Store original words for case preservation
+        private static final char[] NO_KEYS = new char[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        char[] keys;
+        TrieNode[] children;
+        int childCount;
+        String[] words; // Store original words for case preservation
+        long weight; // popularity of the word ending here
+        long maxWeight; // highest word weight in this subtree
+        IntList postings; // ids attached to the word ending here, or null
+        boolean postingsShared; // postings still belong to the node this was copied from
+        final int epoch;
+
+        TrieNode(int epoch) {
+            this.keys = NO_KEYS;
+            this.children = NO_CHILDREN;
+            this.epoch = epoch;
+        }
+
+        TrieNode copy(int epoch) {
+            TrieNode copy = new TrieNode(epoch);
+            copy.keys = keys.clone();
+            copy.children = children.clone();
+            copy.childCount = childCount;
+            copy.words = words; // replaced, never changed in place
+            copy.weight = weight;
+            copy.maxWeight = maxWeight;
+            copy.postings = postings;
+            copy.postingsShared = postings != null;
+            return copy;
+        }
+
+        IntList writablePostings() {
+            if (postingsShared) {
+                postings = IntList.wrap(postings.toArray());
+                postingsShared = false;
+            }
+            return postings;
+        }
+
+        boolean isEndOfWord() {
+            return words != null;
+        }
+
+        void recomputeMaxWeight() {
+            long max = isEndOfWord() ? weight : 0;
+            for (int i = 0; i < childCount; i++) {
+                max = Math.max(max, children[i].maxWeight);
+            }
+            maxWeight = max;
+        }
+
+        TrieNode getChild(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Child for the char, first copied into the epoch if it is shared
+         */
+        TrieNode getWritableChild(char c, int epoch) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index < 0) {
+                return null;
+            }
+            if (children[index].epoch != epoch) {
+                children[index] = children[index].copy(epoch);
+            }
+            return children[index];
+        }
+
+        TrieNode getOrAddChild(char c, int epoch) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index >= 0) {
+                if (children[index].epoch != epoch) {
+                    children[index] = children[index].copy(epoch);
+                }
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            if (childCount == keys.length) {
+                int newLength = childCount == 0 ? 1 : childCount * 2;
+                keys = Arrays.copyOf(keys, newLength);
+                children = Arrays.copyOf(children, newLength);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+
+            TrieNode child = new TrieNode(epoch);
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        /**
+         * Add an original-case variant; returns false if it was already stored
+         */
+        boolean addWord(String word) {
+            if (words == null) {
+                words = new String[] {word};
+                return true;
+            }
+            for (String existing : words) {
+                if (existing.equals(word)) {
+                    return false;
+                }
+            }
+            words = Arrays.copyOf(words, words.length + 1);
+            words[words.length - 1] = word;
+            return true;
+        }
+    }
+
+    /**
+     * Entry in the best-first top-K search: a subtree bounded by its maximum
+     * weight, or a terminal node's own words
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final TrieNode node;
+        final long priority;
+        final boolean terminal;
+        final long order;
+
+        Candidate(TrieNode node, long priority, boolean terminal, long order) {
+            this.node = node;
+            this.priority = priority;
+            this.terminal = terminal;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (priority != other.priority) {
+                return Long.compare(other.priority, priority); // heaviest first
+            }
+            if (terminal != other.terminal) {
+                return terminal ? -1 : 1; // emit words before expanding ties
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * A fuzzy search hit: the stored word, its edit distance and weight
+     */
+    public static class Match implements Comparable<Match> {
+        public final String word;
+        public final int distance;
+        public final long weight;
+
+        public Match(String word, int distance, long weight) {
+            this.word = word;
+            this.distance = distance;
+            this.weight = weight;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            if (weight != other.weight) {
+                return Long.compare(other.weight, weight);
+            }
+            return word.compareTo(other.word);
+        }
 
-        TrieNode() {
-            this.children = new HashMap<>();
-            this.isEndOfWord = false;
-            this.words = new HashSet<>();
+        @Override
+        public String toString() {
+            return String.format("Match{word=%s, distance=%d, weight=%d}", word, distance, weight);
         }
     }
-} 
\ No newline at end of file
+}
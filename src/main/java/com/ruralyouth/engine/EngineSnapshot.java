@@ -0,0 +1,154 @@
+package com.ruralyouth.engine;
+
+import com.ruralyouth.dsa.LocationRegistry;
+import com.ruralyouth.model.Job;
+import java.util.List;
+
+/**
+ * Immutable state of a JobRecommendationEngine at one publish(), for
+ * concurrent readers
+ *
+ * Readers fetch engine.current() once per request and run all of its
+ * queries against that snapshot: queries never block, and never see a
+ * change made after the snapshot was published, because the writing thread
+ * copies whatever it changes next instead of writing to shared structures.
+ * Each reading thread keeps one view of the engine's shared structures
+ * with private distance, reachability and title prefix caches, so no query
+ * takes a lock or writes to memory another reader uses. The view outlives
+ * the snapshots: it is re-pointed when the thread reads a different
+ * version, keeping distance tables while the location graph is unchanged.
+ */
+public final class EngineSnapshot {
+    private final long version;
+    private final JobRecommendationEngine state;
+    private final ThreadLocal<ReaderView> views; // shared by all snapshots of one engine
+
+    EngineSnapshot(long version, JobRecommendationEngine state, EngineSnapshot previous) {
+        this.version = version;
+        this.state = state;
+        this.views = previous != null ? previous.views : new ThreadLocal<>();
+    }
+
+    /**
+     * Number of publish() calls up to and including this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * This thread's view, synced to this snapshot if it last read another
+     */
+    private JobRecommendationEngine view() {
+        ReaderView view = views.get();
+        if (view == null) {
+            view = new ReaderView(state.readerView(), version);
+            views.set(view);
+        } else if (view.version != version) {
+            view.engine.syncView(state);
+            view.version = version;
+        }
+        return view.engine;
+    }
+
+    public List<JobRecommendationEngine.JobRecommendation> getRecommendations(String userId, int limit) {
+        return view().getRecommendations(userId, limit);
+    }
+
+    public List<JobRecommendationEngine.JobRecommendation> getRecommendations(String userId, JobQuery query, int limit) {
+        return view().getRecommendations(userId, query, limit);
+    }
+
+    public List<JobRecommendationEngine.JobRecommendation> getPersonalizedRecommendations(String userId,
+            double minSalary, double maxDistance, List<String> preferredSkills, int limit) {
+        return view().getPersonalizedRecommendations(userId, minSalary, maxDistance, preferredSkills, limit);
+    }
+
+    public List<Job> searchJobsByTitle(String prefix) {
+        return view().searchJobsByTitle(prefix);
+    }
+
+    public List<Job> searchJobsByTitle(String prefix, int limit) {
+        return view().searchJobsByTitle(prefix, limit);
+    }
+
+    public List<Job> searchJobsBySkill(String skillPrefix) {
+        return view().searchJobsBySkill(skillPrefix);
+    }
+
+    public List<Job> searchJobsFullText(String query, int limit) {
+        return view().searchJobsFullText(query, limit);
+    }
+
+    public List<Job> searchJobsByTitleFuzzy(String title, int maxEdits) {
+        return view().searchJobsByTitleFuzzy(title, maxEdits);
+    }
+
+    public List<Job> searchJobsBySkillFuzzy(String skill, int maxEdits) {
+        return view().searchJobsBySkillFuzzy(skill, maxEdits);
+    }
+
+    public List<String> suggestJobTitles(String prefix, int limit) {
+        return view().suggestJobTitles(prefix, limit);
+    }
+
+    public List<String> suggestSkills(String prefix, int limit) {
+        return view().suggestSkills(prefix, limit);
+    }
+
+    public List<Job> findJobsNearLocation(String location, double maxDistance) {
+        return view().findJobsNearLocation(location, maxDistance);
+    }
+
+    /**
+     * Job ids in the result are only valid for getJobsByIds of this snapshot
+     */
+    public JobRecommendationEngine.ReachableSet findReachable(String location, double maxDistance) {
+        return view().findReachable(location, maxDistance);
+    }
+
+    public List<Job> getJobsByIds(int[] jobIds) {
+        return view().getJobsByIds(jobIds);
+    }
+
+    public List<Job> findJobs(JobQuery query) {
+        return view().findJobs(query);
+    }
+
+    public JobQueryEngine.FacetCounts getFacets(JobQuery query) {
+        return view().getFacets(query);
+    }
+
+    public JobQueryEngine.FacetCounts getFacets(int[] jobIds) {
+        return view().getFacets(jobIds);
+    }
+
+    public String explainQuery(JobQuery query) {
+        return view().explainQuery(query);
+    }
+
+    public List<JobRecommendationEngine.CareerPath> suggestCareerPaths(String userId, String targetJobTitle) {
+        return view().suggestCareerPaths(userId, targetJobTitle);
+    }
+
+    public LocationRegistry.RegionStats getRegionStats(String region) {
+        return view().getRegionStats(region);
+    }
+
+    public List<Job> findJobsInRegion(String region) {
+        return view().findJobsInRegion(region);
+    }
+
+    public boolean isJobInRegion(Job job, String region) {
+        return view().isJobInRegion(job, region);
+    }
+
+    public JobRecommendationEngine.SystemStats getSystemStats() {
+        return view().getSystemStats();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EngineSnapshot{version=%d, %s}", version, getSystemStats());
+    }
+}
@@ -0,0 +1,142 @@
+package com.ruralyouth.engine;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Boolean filter over jobs, built from skill, job type, location, experience,
+ * salary and distance constraints combined with and/or/not
+ *
+ * Example: "electrical OR welding, salary >= 15000, within 30 km, experience <= 2"
+ * <pre>
+ * JobQuery.and(JobQuery.or(JobQuery.skill("electrical"), JobQuery.skill("welding")),
+ *              JobQuery.salaryAtLeast(15000),
+ *              JobQuery.within("Village A", 30),
+ *              JobQuery.experienceAtMost(2))
+ * </pre>
+ * Queries are immutable; JobQueryEngine evaluates them.
+ */
+public final class JobQuery {
+
+    enum Kind { SKILL, JOB_TYPE, LOCATION, EXPERIENCE, SALARY, WITHIN, AND, OR, NOT, ALL }
+
+    final Kind kind;
+    final String text; // skill, job type or location name
+    final double min;  // inclusive bounds for EXPERIENCE and SALARY; distance for WITHIN
+    final double max;
+    final List<JobQuery> children;
+
+    private JobQuery(Kind kind, String text, double min, double max, List<JobQuery> children) {
+        this.kind = kind;
+        this.text = text;
+        this.min = min;
+        this.max = max;
+        this.children = children;
+    }
+
+    private static JobQuery leaf(Kind kind, String text, double min, double max) {
+        return new JobQuery(kind, text, min, max, Collections.emptyList());
+    }
+
+    /**
+     * Every job
+     */
+    public static JobQuery all() {
+        return leaf(Kind.ALL, null, 0, 0);
+    }
+
+    /**
+     * Jobs requiring the skill (case-insensitive)
+     */
+    public static JobQuery skill(String skill) {
+        return leaf(Kind.SKILL, skill.toLowerCase(), 0, 0);
+    }
+
+    /**
+     * Jobs of the type, e.g. "full-time" (case-insensitive)
+     */
+    public static JobQuery jobType(String jobType) {
+        return leaf(Kind.JOB_TYPE, jobType.toLowerCase(), 0, 0);
+    }
+
+    /**
+     * Jobs posted at the location (exact name, as used by the location graph)
+     */
+    public static JobQuery location(String location) {
+        return leaf(Kind.LOCATION, location, 0, 0);
+    }
+
+    public static JobQuery experienceAtMost(int level) {
+        return experienceBetween(Integer.MIN_VALUE, level);
+    }
+
+    public static JobQuery experienceAtLeast(int level) {
+        return experienceBetween(level, Integer.MAX_VALUE);
+    }
+
+    public static JobQuery experienceBetween(int minLevel, int maxLevel) {
+        return leaf(Kind.EXPERIENCE, null, minLevel, maxLevel);
+    }
+
+    public static JobQuery salaryAtLeast(double salary) {
+        return salaryBetween(salary, Double.POSITIVE_INFINITY);
+    }
+
+    public static JobQuery salaryBetween(double minSalary, double maxSalary) {
+        return leaf(Kind.SALARY, null, minSalary, maxSalary);
+    }
+
+    /**
+     * Jobs reachable by road from the location within maxDistance km
+     */
+    public static JobQuery within(String location, double maxDistance) {
+        return leaf(Kind.WITHIN, location, maxDistance, maxDistance);
+    }
+
+    public static JobQuery and(JobQuery... queries) {
+        return new JobQuery(Kind.AND, null, 0, 0, List.of(queries));
+    }
+
+    public static JobQuery or(JobQuery... queries) {
+        return new JobQuery(Kind.OR, null, 0, 0, List.of(queries));
+    }
+
+    public static JobQuery not(JobQuery query) {
+        return new JobQuery(Kind.NOT, null, 0, 0, List.of(query));
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ALL:
+                return "ALL";
+            case SKILL:
+                return "skill=" + text;
+            case JOB_TYPE:
+                return "type=" + text;
+            case LOCATION:
+                return "location=" + text;
+            case EXPERIENCE:
+                return "experience" + formatRange(min, max, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case SALARY:
+                return "salary" + formatRange(min, max, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            case WITHIN:
+                return String.format("within %.1f km of %s", min, text);
+            case NOT:
+                return "NOT " + children.get(0);
+            default:
+                return children.stream().map(JobQuery::toString)
+                        .collect(Collectors.joining(" " + kind + " ", "(", ")"));
+        }
+    }
+
+    private static String formatRange(double min, double max, double lowest, double highest) {
+        if (min == lowest) {
+            return String.format("<=%.0f", max);
+        }
+        if (max == highest) {
+            return String.format(">=%.0f", min);
+        }
+        return String.format(" in [%.0f, %.0f]", min, max);
+    }
+}
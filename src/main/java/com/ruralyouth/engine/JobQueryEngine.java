@@ -0,0 +1,711 @@
+package com.ruralyouth.engine;
+
+import com.ruralyouth.dsa.CompressedBitmap;
+import com.ruralyouth.dsa.ForkableMap;
+import com.ruralyouth.dsa.SnapshotFile;
+import com.ruralyouth.model.Job;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Evaluates JobQuery filters with compressed bitmaps of job ids
+ *
+ * One bitmap is kept per skill, job type, experience level and salary bucket.
+ * A query becomes bitmap AND / OR / ANDNOT operations; AND evaluates its
+ * most selective inputs first and stops as soon as nothing survives, and a
+ * NOT inside an AND is applied as ANDNOT instead of complementing. Only the
+ * surviving job ids reach scoring. explain() shows the plan with estimated
+ * and actual sizes.
+ *
+ * Each attribute is also kept as a dictionary-encoded column (job id ->
+ * value id), so facet counts over a candidate set take one pass over the
+ * candidates instead of one query per facet value.
+ *
+ * fork() copies the engine while sharing bitmap chunks and columns, each
+ * side copying what it changes, so a published copy keeps answering
+ * queries while the other takes updates.
+ */
+public class JobQueryEngine {
+    public static final double SALARY_BUCKET = 5000; // salary bitmaps cover [k * 5000, (k + 1) * 5000)
+
+    private final BiFunction<String, Double, int[]> reachableJobs;
+    private final ForkableMap<String, CompressedBitmap> jobsBySkill;
+    private Set<String> ownedSkills; // skills whose bitmap this engine forked since fork(), null if it owns all
+    private final Column<String> jobTypes;
+    private final Column<String> locations;
+    private final Column<Integer> experienceLevels;
+    private final Column<Long> salaryBuckets;
+    private CompressedBitmap allJobs;
+    private double[] salaries; // by job id, to trim partially covered salary buckets
+    private DoubleBuffer mappedSalaries; // salaries read in place from a snapshot, or null
+    private boolean salariesShared; // salaries also used by a fork, copied before changing
+
+    /**
+     * @param reachableJobs sorted ids of the jobs within a distance of a location
+     */
+    public JobQueryEngine(BiFunction<String, Double, int[]> reachableJobs) {
+        this(reachableJobs, new ForkableMap<>(), new Column<>(), new Column<>(), new Column<>(), new Column<>());
+        this.allJobs = new CompressedBitmap();
+        this.salaries = new double[16];
+    }
+
+    private JobQueryEngine(BiFunction<String, Double, int[]> reachableJobs, ForkableMap<String, CompressedBitmap> jobsBySkill,
+                           Column<String> jobTypes, Column<String> locations,
+                           Column<Integer> experienceLevels, Column<Long> salaryBuckets) {
+        this.reachableJobs = reachableJobs;
+        this.jobsBySkill = jobsBySkill;
+        this.jobTypes = jobTypes;
+        this.locations = locations;
+        this.experienceLevels = experienceLevels;
+        this.salaryBuckets = salaryBuckets;
+    }
+
+    /**
+     * Copy with the same jobs that shares bitmap chunks and columns with
+     * this engine; whichever of the two changes a shared part copies it first
+     * Skill bitmaps are forked lazily, the first time either side changes one.
+     * Time Complexity: O(shards) for the skills, plus O(b + v) for the b
+     * bitmap chunks and v distinct values of the columns
+     */
+    public JobQueryEngine fork() {
+        JobQueryEngine copy = new JobQueryEngine(reachableJobs, jobsBySkill.fork(), jobTypes.fork(), locations.fork(),
+                experienceLevels.fork(), salaryBuckets.fork());
+        copy.ownedSkills = new HashSet<>();
+        ownedSkills = new HashSet<>();
+        copy.allJobs = allJobs.fork();
+        copy.salaries = salaries;
+        copy.mappedSalaries = mappedSalaries;
+        copy.salariesShared = true;
+        salariesShared = true;
+        return copy;
+    }
+
+    /**
+     * This engine's bitmaps and columns as they are, with WITHIN queries
+     * answered by another reachability source; for reading only
+     */
+    public JobQueryEngine withReachability(BiFunction<String, Double, int[]> reachableJobs) {
+        JobQueryEngine view = new JobQueryEngine(reachableJobs, jobsBySkill, jobTypes, locations,
+                experienceLevels, salaryBuckets);
+        view.allJobs = allJobs;
+        view.salaries = salaries;
+        view.mappedSalaries = mappedSalaries;
+        return view;
+    }
+
+    /**
+     * Add a job's attributes to the bitmaps
+     * Time Complexity: O(s) for s skills when ids arrive in increasing order
+     */
+    public void indexJob(Job job, int jobId) {
+        allJobs.add(jobId);
+        for (String skill : job.getRequiredSkills()) {
+            writableSkill(skill.toLowerCase()).add(jobId);
+        }
+        jobTypes.add(job.getJobType() != null ? job.getJobType().toLowerCase() : null, jobId);
+        locations.add(job.getLocation(), jobId);
+        experienceLevels.add(job.getExperienceLevel(), jobId);
+        salaryBuckets.add(salaryBucket(job.getSalary()), jobId);
+
+        if (mappedSalaries != null) {
+            salaries = copyOf(mappedSalaries); // copy on first write
+            mappedSalaries = null;
+        } else if (salariesShared) {
+            salaries = salaries.clone();
+        }
+        salariesShared = false;
+        if (jobId >= salaries.length) {
+            salaries = Arrays.copyOf(salaries, Math.max(jobId + 1, salaries.length * 2));
+        }
+        salaries[jobId] = job.getSalary();
+    }
+
+    /**
+     * Drop a job from every bitmap, given the skills it was indexed with
+     * Time Complexity: O(s) bitmap updates for s skills
+     */
+    public void removeJob(Collection<String> requiredSkills, int jobId) {
+        allJobs.remove(jobId);
+        for (String skill : requiredSkills) {
+            if (jobsBySkill.containsKey(skill.toLowerCase())) {
+                CompressedBitmap bitmap = writableSkill(skill.toLowerCase());
+                bitmap.remove(jobId);
+                if (bitmap.isEmpty()) {
+                    jobsBySkill.remove(skill.toLowerCase());
+                }
+            }
+        }
+        jobTypes.remove(jobId);
+        locations.remove(jobId);
+        experienceLevels.remove(jobId);
+        salaryBuckets.remove(jobId);
+    }
+
+    /**
+     * The skill's bitmap, created or forked first unless this engine owns it
+     */
+    private CompressedBitmap writableSkill(String skill) {
+        CompressedBitmap bitmap = jobsBySkill.get(skill);
+        boolean owned = bitmap != null && (ownedSkills == null || !ownedSkills.add(skill));
+        if (!owned) {
+            bitmap = bitmap == null ? new CompressedBitmap() : bitmap.fork();
+            jobsBySkill.put(skill, bitmap);
+            if (ownedSkills != null) {
+                ownedSkills.add(skill);
+            }
+        }
+        return bitmap;
+    }
+
+    public void clear() {
+        jobsBySkill.clear();
+        ownedSkills = null;
+        jobTypes.clear();
+        locations.clear();
+        experienceLevels.clear();
+        salaryBuckets.clear();
+        allJobs = new CompressedBitmap();
+        mappedSalaries = null;
+    }
+
+    /**
+     * Write the bitmaps and columns for jobs [0, jobCount)
+     */
+    public void writeTo(SnapshotFile.Writer out, int jobCount) throws IOException {
+        allJobs.writeTo(out);
+        List<String> skills = new ArrayList<>(jobsBySkill.keySet());
+        out.writeStrings(skills.toArray(new String[0]), skills.size());
+        for (String skill : skills) {
+            jobsBySkill.get(skill).writeTo(out);
+        }
+
+        out.writeStrings(jobTypes.keys.toArray(new String[0]), jobTypes.keys.size());
+        jobTypes.writeTo(out, jobCount);
+        out.writeStrings(locations.keys.toArray(new String[0]), locations.keys.size());
+        locations.writeTo(out, jobCount);
+        out.writeInts(experienceLevels.keys.stream().mapToInt(Integer::intValue).toArray());
+        experienceLevels.writeTo(out, jobCount);
+        long[] buckets = salaryBuckets.keys.stream().mapToLong(Long::longValue).toArray();
+        out.writeLongs(buckets, buckets.length);
+        salaryBuckets.writeTo(out, jobCount);
+        out.writeDoubles(mappedSalaries != null ? copyOf(mappedSalaries) : salaries, jobCount);
+    }
+
+    /**
+     * Replace the indexed jobs with the ones written by writeTo
+     * From an in-place reader the per-job columns stay in the mapped file
+     * (bitmaps are compact and are always copied)
+     */
+    public void readFrom(SnapshotFile.Reader in) {
+        clear();
+        allJobs = CompressedBitmap.readFrom(in);
+        for (String skill : in.readStrings()) {
+            jobsBySkill.put(skill, CompressedBitmap.readFrom(in));
+        }
+
+        jobTypes.readFrom(in, Arrays.asList(in.readStrings()));
+        locations.readFrom(in, Arrays.asList(in.readStrings()));
+        List<Integer> levels = new ArrayList<>();
+        for (int level : in.readInts()) {
+            levels.add(level);
+        }
+        experienceLevels.readFrom(in, levels);
+        List<Long> buckets = new ArrayList<>();
+        for (long bucket : in.readLongs()) {
+            buckets.add(bucket);
+        }
+        salaryBuckets.readFrom(in, buckets);
+
+        if (in.isInPlace()) {
+            mappedSalaries = in.readDoubleView();
+        } else {
+            double[] stored = in.readDoubles();
+            salaries = Arrays.copyOf(stored, Math.max(16, stored.length));
+        }
+    }
+
+    private static double[] copyOf(DoubleBuffer values) {
+        double[] copy = new double[Math.max(16, values.limit())];
+        values.get(0, copy, 0, values.limit());
+        return copy;
+    }
+
+    /**
+     * Sorted ids of the jobs matching the query
+     */
+    public int[] evaluate(JobQuery query) {
+        return execute(plan(query)).toArray();
+    }
+
+    /**
+     * The query plan after running it: each step with its estimated and
+     * actual number of jobs, in the order the steps were evaluated
+     */
+    public String explain(JobQuery query) {
+        PlanNode root = plan(query);
+        long start = System.nanoTime();
+        CompressedBitmap result = execute(root);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Query: %s%n", query));
+        root.render(out, "");
+        out.append(String.format("Result: %d of %d jobs in %d us%n", result.getCardinality(), allJobs.getCardinality(), micros));
+        return out.toString();
+    }
+
+    /**
+     * Facet counts for the jobs matching the query
+     * With no effective filter the counts are the bitmap cardinalities;
+     * otherwise one pass over the matching ids
+     */
+    public FacetCounts facets(JobQuery query) {
+        CompressedBitmap candidates = execute(plan(query));
+        if (candidates.getCardinality() < allJobs.getCardinality()) {
+            return facets(candidates.toArray());
+        }
+
+        return new FacetCounts(candidates.getCardinality(),
+                jobTypes.cardinalities(), locations.cardinalities(),
+                experienceLevels.cardinalities(), salaryBuckets.cardinalities());
+    }
+
+    /**
+     * Facet counts over the given job ids, in one pass
+     * Time Complexity: O(n + v) for n ids and v distinct facet values
+     */
+    public FacetCounts facets(int[] jobIds) {
+        int[] typeCounts = new int[jobTypes.keys.size()];
+        int[] locationCounts = new int[locations.keys.size()];
+        int[] experienceCounts = new int[experienceLevels.keys.size()];
+        int[] salaryCounts = new int[salaryBuckets.keys.size()];
+
+        for (int jobId : jobIds) {
+            jobTypes.count(jobId, typeCounts);
+            locations.count(jobId, locationCounts);
+            experienceLevels.count(jobId, experienceCounts);
+            salaryBuckets.count(jobId, salaryCounts);
+        }
+
+        return new FacetCounts(jobIds.length,
+                jobTypes.toMap(typeCounts), locations.toMap(locationCounts),
+                experienceLevels.toMap(experienceCounts), salaryBuckets.toMap(salaryCounts));
+    }
+
+    /**
+     * Order each AND by estimated size; NOT children of an AND become ANDNOT steps
+     */
+    private PlanNode plan(JobQuery query) {
+        PlanNode node = new PlanNode(query);
+        int all = allJobs.getCardinality();
+
+        switch (query.kind) {
+            case ALL:
+                node.estimate = all;
+                break;
+            case SKILL:
+                node.estimate = cardinality(jobsBySkill.get(query.text));
+                break;
+            case JOB_TYPE:
+                node.estimate = cardinality(jobTypes.bitmaps.get(query.text));
+                break;
+            case LOCATION:
+                node.estimate = cardinality(locations.bitmaps.get(query.text));
+                break;
+            case EXPERIENCE:
+                for (CompressedBitmap bitmap : experienceRange(query).values()) {
+                    node.estimate += bitmap.getCardinality();
+                }
+                break;
+            case SALARY:
+                for (CompressedBitmap bitmap : salaryRange(query).values()) {
+                    node.estimate += bitmap.getCardinality();
+                }
+                break;
+            case WITHIN:
+                node.estimate = all; // unknown until the road search runs
+                break;
+            case NOT:
+                node.children.add(plan(query.children.get(0)));
+                node.estimate = all;
+                break;
+            case OR:
+                for (JobQuery child : query.children) {
+                    PlanNode planned = plan(child);
+                    node.children.add(planned);
+                    node.estimate += planned.estimate;
+                }
+                node.estimate = Math.min(node.estimate, all);
+                break;
+            case AND:
+                List<PlanNode> excluded = new ArrayList<>();
+                for (JobQuery child : query.children) {
+                    if (child.kind == JobQuery.Kind.NOT) {
+                        PlanNode planned = plan(child.children.get(0));
+                        planned.excluded = true;
+                        excluded.add(planned);
+                    } else {
+                        node.children.add(plan(child));
+                    }
+                }
+                node.children.sort(Comparator.comparingInt(child -> child.estimate));
+                node.estimate = node.children.isEmpty() ? all : node.children.get(0).estimate;
+                node.children.addAll(excluded);
+                break;
+        }
+        return node;
+    }
+
+    private CompressedBitmap execute(PlanNode node) {
+        JobQuery query = node.query;
+        CompressedBitmap result;
+
+        switch (query.kind) {
+            case ALL:
+                result = allJobs;
+                break;
+            case SKILL:
+                result = orEmpty(jobsBySkill.get(query.text));
+                break;
+            case JOB_TYPE:
+                result = orEmpty(jobTypes.bitmaps.get(query.text));
+                break;
+            case LOCATION:
+                result = orEmpty(locations.bitmaps.get(query.text));
+                break;
+            case EXPERIENCE:
+                result = CompressedBitmap.orAll(new ArrayList<>(experienceRange(query).values()));
+                break;
+            case SALARY:
+                result = salaryMatches(query);
+                break;
+            case WITHIN:
+                result = CompressedBitmap.of(reachableJobs.apply(query.text, query.min));
+                break;
+            case NOT:
+                result = CompressedBitmap.andNot(allJobs, execute(node.children.get(0)));
+                break;
+            case OR: {
+                List<CompressedBitmap> parts = new ArrayList<>();
+                for (PlanNode child : node.children) {
+                    parts.add(execute(child));
+                }
+                result = CompressedBitmap.orAll(parts);
+                break;
+            }
+            default: { // AND
+                result = null;
+                for (PlanNode child : node.children) {
+                    if (result != null && result.isEmpty()) {
+                        break; // later steps stay unevaluated
+                    }
+                    if (child.excluded) {
+                        result = CompressedBitmap.andNot(result != null ? result : allJobs, execute(child));
+                    } else {
+                        CompressedBitmap matches = execute(child);
+                        result = result == null ? matches : CompressedBitmap.and(result, matches);
+                    }
+                }
+                if (result == null) {
+                    result = allJobs;
+                }
+                break;
+            }
+        }
+
+        node.actual = result.getCardinality();
+        return result;
+    }
+
+    /**
+     * Whole buckets inside the range are used as is; the (at most two)
+     * buckets on its edges are trimmed by checking each job's salary
+     */
+    private CompressedBitmap salaryMatches(JobQuery query) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<Long, CompressedBitmap> entry : salaryRange(query).entrySet()) {
+            double bucketStart = entry.getKey() * SALARY_BUCKET;
+            if (bucketStart >= query.min && bucketStart + SALARY_BUCKET <= query.max) {
+                result = CompressedBitmap.or(result, entry.getValue());
+            } else {
+                CompressedBitmap trimmed = new CompressedBitmap();
+                for (int jobId : entry.getValue().toArray()) {
+                    double salary = mappedSalaries != null ? mappedSalaries.get(jobId) : salaries[jobId];
+                    if (salary >= query.min && salary <= query.max) {
+                        trimmed.add(jobId);
+                    }
+                }
+                result = CompressedBitmap.or(result, trimmed);
+            }
+        }
+        return result;
+    }
+
+    private NavigableMap<Long, CompressedBitmap> salaryRange(JobQuery query) {
+        TreeMap<Long, CompressedBitmap> buckets = salaryBuckets.bitmaps;
+        if (query.min > query.max || buckets.isEmpty()) {
+            return Collections.emptyNavigableMap();
+        }
+        long from = Double.isInfinite(query.min) ? buckets.firstKey() : salaryBucket(query.min);
+        long to = Double.isInfinite(query.max) ? buckets.lastKey() : salaryBucket(query.max);
+        return from > to ? Collections.emptyNavigableMap() : buckets.subMap(from, true, to, true);
+    }
+
+    private NavigableMap<Integer, CompressedBitmap> experienceRange(JobQuery query) {
+        if (query.min > query.max) {
+            return Collections.emptyNavigableMap();
+        }
+        return experienceLevels.bitmaps.subMap((int) query.min, true, (int) query.max, true);
+    }
+
+    private static long salaryBucket(double salary) {
+        return (long) Math.floor(salary / SALARY_BUCKET);
+    }
+
+    private static int cardinality(CompressedBitmap bitmap) {
+        return bitmap != null ? bitmap.getCardinality() : 0;
+    }
+
+    private static CompressedBitmap orEmpty(CompressedBitmap bitmap) {
+        return bitmap != null ? bitmap : new CompressedBitmap();
+    }
+
+    /**
+     * One step of a query plan
+     */
+    private static final class PlanNode {
+        final JobQuery query;
+        final List<PlanNode> children = new ArrayList<>();
+        boolean excluded; // applied as ANDNOT by its parent
+        int estimate;
+        int actual = -1; // -1 if the step was skipped
+
+        PlanNode(JobQuery query) {
+            this.query = query;
+        }
+
+        void render(StringBuilder out, String indent) {
+            String label;
+            if (query.kind == JobQuery.Kind.AND || query.kind == JobQuery.Kind.OR) {
+                label = query.kind.toString();
+            } else if (query.kind == JobQuery.Kind.NOT) {
+                label = "NOT";
+            } else {
+                label = query.toString();
+            }
+            out.append(indent).append(excluded ? "ANDNOT " : "").append(label)
+               .append(String.format("  est=%d actual=%s%n", estimate, actual >= 0 ? actual : "skipped"));
+            for (PlanNode child : children) {
+                child.render(out, indent + "  ");
+            }
+        }
+    }
+
+    /**
+     * Dictionary-encoded attribute: a bitmap per distinct value, plus each
+     * job's value id for one-pass counting
+     */
+    private static final class Column<K extends Comparable<K>> {
+        final TreeMap<K, CompressedBitmap> bitmaps = new TreeMap<>();
+        final Map<K, Integer> ids = new HashMap<>();
+        final List<K> keys = new ArrayList<>();
+        int[] valueOf = new int[16]; // job id -> value id + 1, 0 for no value
+        IntBuffer mappedValues; // valueOf read in place from a snapshot, or null
+        boolean valuesShared; // valueOf also used by a fork
+
+        Column<K> fork() {
+            Column<K> copy = new Column<>();
+            for (Map.Entry<K, CompressedBitmap> entry : bitmaps.entrySet()) {
+                copy.bitmaps.put(entry.getKey(), entry.getValue().fork());
+            }
+            copy.ids.putAll(ids);
+            copy.keys.addAll(keys);
+            copy.valueOf = valueOf;
+            copy.mappedValues = mappedValues;
+            copy.valuesShared = true;
+            valuesShared = true;
+            return copy;
+        }
+
+        /**
+         * Make valueOf a heap array of this column's own, before changing it
+         */
+        private void ownValues() {
+            if (mappedValues != null) {
+                valueOf = heapValues(); // copy on first write
+                mappedValues = null;
+            } else if (valuesShared) {
+                valueOf = valueOf.clone();
+            }
+            valuesShared = false;
+        }
+
+        void add(K key, int jobId) {
+            ownValues();
+            if (jobId >= valueOf.length) {
+                valueOf = Arrays.copyOf(valueOf, Math.max(jobId + 1, valueOf.length * 2));
+            }
+            if (key == null) {
+                valueOf[jobId] = 0;
+                return;
+            }
+
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = keys.size();
+                ids.put(key, id);
+                keys.add(key);
+                bitmaps.put(key, new CompressedBitmap());
+            }
+            bitmaps.get(key).add(jobId);
+            valueOf[jobId] = id + 1;
+        }
+
+        void remove(int jobId) {
+            ownValues();
+            int value = jobId < valueOf.length ? valueOf[jobId] : 0;
+            if (value > 0) {
+                bitmaps.get(keys.get(value - 1)).remove(jobId);
+                valueOf[jobId] = 0;
+            }
+        }
+
+        /**
+         * Job -> value ids, then one bitmap per key in key id order
+         */
+        void writeTo(SnapshotFile.Writer out, int jobCount) throws IOException {
+            out.writeInts(heapValues(), 0, jobCount);
+            for (K key : keys) {
+                bitmaps.get(key).writeTo(out);
+            }
+        }
+
+        void readFrom(SnapshotFile.Reader in, List<K> storedKeys) {
+            if (in.isInPlace()) {
+                mappedValues = in.readIntView();
+            } else {
+                int[] values = in.readInts();
+                valueOf = Arrays.copyOf(values, Math.max(16, values.length));
+            }
+            for (K key : storedKeys) {
+                ids.put(key, keys.size());
+                keys.add(key);
+                bitmaps.put(key, CompressedBitmap.readFrom(in));
+            }
+        }
+
+        int[] heapValues() {
+            if (mappedValues == null) {
+                return valueOf;
+            }
+            int[] values = new int[Math.max(16, mappedValues.limit())];
+            mappedValues.get(0, values, 0, mappedValues.limit());
+            return values;
+        }
+
+        void count(int jobId, int[] counts) {
+            int value = mappedValues != null ? mappedValues.get(jobId) : valueOf[jobId];
+            if (value > 0) {
+                counts[value - 1]++;
+            }
+        }
+
+        /**
+         * Non-zero counts keyed by value, in value order
+         */
+        Map<K, Integer> toMap(int[] counts) {
+            Map<K, Integer> result = new TreeMap<>();
+            for (int id = 0; id < counts.length; id++) {
+                if (counts[id] > 0) {
+                    result.put(keys.get(id), counts[id]);
+                }
+            }
+            return result;
+        }
+
+        Map<K, Integer> cardinalities() {
+            Map<K, Integer> result = new TreeMap<>();
+            for (Map.Entry<K, CompressedBitmap> entry : bitmaps.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    result.put(entry.getKey(), entry.getValue().getCardinality());
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            bitmaps.clear();
+            ids.clear();
+            keys.clear();
+            valueOf = new int[16];
+            mappedValues = null;
+            valuesShared = false;
+        }
+    }
+
+    /**
+     * Job counts per facet value over a set of jobs
+     * Job types and locations list the most common first; experience levels
+     * and salary bands ascend. Salary bands are labelled like "15000-19999".
+     */
+    public static class FacetCounts {
+        public final int totalJobs;
+        public final Map<String, Integer> byJobType;
+        public final Map<String, Integer> byLocation;
+        public final Map<Integer, Integer> byExperienceLevel;
+        public final Map<String, Integer> bySalaryBand;
+        private final Map<Long, Integer> bySalaryBucket;
+
+        FacetCounts(int totalJobs, Map<String, Integer> byJobType, Map<String, Integer> byLocation,
+                    Map<Integer, Integer> byExperienceLevel, Map<Long, Integer> bySalaryBucket) {
+            this.totalJobs = totalJobs;
+            this.bySalaryBucket = bySalaryBucket;
+            this.byJobType = mostCommonFirst(byJobType);
+            this.byLocation = mostCommonFirst(byLocation);
+            this.byExperienceLevel = Collections.unmodifiableMap(byExperienceLevel);
+
+            Map<String, Integer> bands = new LinkedHashMap<>();
+            for (Map.Entry<Long, Integer> entry : bySalaryBucket.entrySet()) {
+                long from = entry.getKey() * (long) SALARY_BUCKET;
+                bands.put(from + "-" + (from + (long) SALARY_BUCKET - 1), entry.getValue());
+            }
+            this.bySalaryBand = Collections.unmodifiableMap(bands);
+        }
+
+        /**
+         * Counts over the union of disjoint job sets, e.g. one per stripe
+         */
+        static FacetCounts merge(List<FacetCounts> parts) {
+            int totalJobs = 0;
+            Map<String, Integer> byJobType = new TreeMap<>();
+            Map<String, Integer> byLocation = new TreeMap<>();
+            Map<Integer, Integer> byExperienceLevel = new TreeMap<>();
+            Map<Long, Integer> bySalaryBucket = new TreeMap<>();
+            for (FacetCounts part : parts) {
+                totalJobs += part.totalJobs;
+                part.byJobType.forEach((key, count) -> byJobType.merge(key, count, Integer::sum));
+                part.byLocation.forEach((key, count) -> byLocation.merge(key, count, Integer::sum));
+                part.byExperienceLevel.forEach((key, count) -> byExperienceLevel.merge(key, count, Integer::sum));
+                part.bySalaryBucket.forEach((key, count) -> bySalaryBucket.merge(key, count, Integer::sum));
+            }
+            return new FacetCounts(totalJobs, byJobType, byLocation, byExperienceLevel, bySalaryBucket);
+        }
+
+        private static Map<String, Integer> mostCommonFirst(Map<String, Integer> counts) {
+            Map<String, Integer> sorted = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                  .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                  .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+            return Collections.unmodifiableMap(sorted);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("FacetCounts{jobs=%d, types=%s, locations=%s, experience=%s, salary=%s}",
+                               totalJobs, byJobType, byLocation, byExperienceLevel, bySalaryBand);
+        }
+    }
+}
@@ -2,66 +2,512 @@ package com.ruralyouth.engine;
 
 import com.ruralyouth.dsa.*;
 import com.ruralyouth.model.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Main job recommendation engine that integrates all data structures and algorithms
  * Implements skill matching, location-based search, and intelligent ranking
+ *
+ * The engine itself is used from one thread at a time. For concurrent
+ * readers, the thread making changes calls publish() and readers query the
+ * immutable EngineSnapshot returned by current(). For continuous writes
+ * from several threads, see StripedJobEngine.
  */
 public class JobRecommendationEngine {
-    private List<Job> jobs;
-    private List<User> users;
-    private Trie jobTitleTrie;
+    private static final int DISTANCE_CACHE_SIZE = 256; // source locations with cached tables
+    private static final long DISTANCE_CACHE_BYTES = 64L << 20; // 8 bytes per location per table
+    private static final double REACHABILITY_BUCKET_KM = 5.0;
+    private static final int REACHABILITY_SEARCH_CACHE_SIZE = 64;
+    private static final int REACHABILITY_RESULT_CACHE_SIZE = 512;
+    private static final int TITLE_PREFIX_CACHE_SIZE = 128;
+    private static final int MAX_CACHED_PREFIX_RESULTS = 50_000; // broader prefixes always go to the trie
+    private static final int MAX_FUZZY_EDITS = 2; // beyond this almost everything matches short words
+    private static final double MAX_REMOVED_FRACTION = 0.25; // job slots left empty before compacting
+
+    // Snapshot format version and section tags
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SECTION_SKILLS = 0x534B4C53; // "SKLS"
+    private static final int SECTION_JOBS = 0x4A4F4253; // "JOBS"
+    private static final int SECTION_USERS = 0x55535253; // "USRS"
+    private static final int SECTION_STORE = 0x53544F52; // "STOR"
+    private static final int SECTION_LOCATIONS = 0x4C4F4353; // "LOCS"
+    private static final int SECTION_VOCABULARY = 0x564F4342; // "VOCB"
+    private static final int SECTION_FILTERS = 0x46494C54; // "FILT"
+    private static final int SECTION_TEXT = 0x54455854; // "TEXT"
+
+    private List<Job> jobs; // index = job id; null where a job was removed
+    private int removedJobs; // null slots in jobs
+    private Trie jobTitleTrie; // null while the vocabularies are frozen
     private Trie skillTrie;
+    private SearchVocabulary titleSearch; // the trie, or its frozen compiled form
+    private SearchVocabulary skillSearch;
+    private InvertedIndex jobTextIndex; // full-text search over job indexes
+    private JobQueryEngine jobQueries; // bitmap filters over skills, type, experience, salary
+    private OffHeapJobStore jobStore; // optional off-heap scoring columns for jobs[0, jobStore.size())
     private LocationGraph locationGraph;
-    private Map<String, Job> jobMap; // HashMap for O(1) job lookup
-    private Map<String, User> userMap; // HashMap for O(1) user lookup
+    private ShortestPathCache distanceCache; // road distances, repaired incrementally on graph changes
+    private Map<String, IndexedJob> jobMap; // job id -> stored job and the keys it is indexed under
+    private Map<String, User> userMap; // O(1) user lookup, ForkableMap unless mapped
+    private List<IntList> jobsByLocation; // location id -> indexes into jobs
+    private BitSet sharedJobLists; // jobsByLocation entries still used by the published snapshot
+    private Map<Integer, IsochroneSearch> reachabilitySearches; // resumable searches per source
+    private Map<Long, ReachableSet> reachabilityResults; // (location, bucket) -> result
+    private long reachabilityGraphVersion;
+    private Map<String, int[]> titlePrefixCache; // lowercase prefix -> all matching job ids, title order
+    private boolean readOnly; // serving a mapped snapshot or an EngineSnapshot
+
+    // The latest snapshot for concurrent readers and which of the structures
+    // it shares with this engine; a change copies what it touches first
+    private volatile EngineSnapshot published;
+    private long publishedVersion;
+    private boolean jobsShared;
+    private boolean usersShared;
+    private boolean locationsShared;
 
     public JobRecommendationEngine() {
         this.jobs = new ArrayList<>();
-        this.users = new ArrayList<>();
         this.jobTitleTrie = new Trie();
         this.skillTrie = new Trie();
+        this.titleSearch = jobTitleTrie;
+        this.skillSearch = skillTrie;
+        this.jobTextIndex = new InvertedIndex();
+        this.jobQueries = new JobQueryEngine((location, maxDistance) -> findReachable(location, maxDistance).jobIds);
         this.locationGraph = new LocationGraph();
-        this.jobMap = new HashMap<>();
-        this.userMap = new HashMap<>();
+        this.distanceCache = new ShortestPathCache(locationGraph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+        this.jobMap = new ForkableMap<>();
+        this.userMap = new ForkableMap<>();
+        this.jobsByLocation = new ArrayList<>();
+        this.sharedJobLists = new BitSet();
+        this.reachabilitySearches = lruMap(REACHABILITY_SEARCH_CACHE_SIZE);
+        this.reachabilityResults = lruMap(REACHABILITY_RESULT_CACHE_SIZE);
+        this.titlePrefixCache = lruMap(TITLE_PREFIX_CACHE_SIZE);
+    }
+
+    /**
+     * Read-only engine over the same structures with caches of its own,
+     * see readerView
+     */
+    private JobRecommendationEngine(JobRecommendationEngine source) {
+        this.sharedJobLists = new BitSet();
+        this.reachabilitySearches = lruMap(REACHABILITY_SEARCH_CACHE_SIZE);
+        this.reachabilityResults = lruMap(REACHABILITY_RESULT_CACHE_SIZE);
+        this.titlePrefixCache = lruMap(TITLE_PREFIX_CACHE_SIZE);
+        this.readOnly = true;
+        syncView(source);
+    }
+
+    /**
+     * Point a reader view at the source's current structures after the
+     * source changed in place. Cached job results are dropped; distance
+     * tables and searches are kept while the location graph is the same.
+     */
+    void syncView(JobRecommendationEngine source) {
+        this.jobs = source.jobs;
+        this.removedJobs = source.removedJobs;
+        this.jobTitleTrie = source.jobTitleTrie;
+        this.skillTrie = source.skillTrie;
+        this.titleSearch = source.titleSearch;
+        this.skillSearch = source.skillSearch;
+        this.jobTextIndex = source.jobTextIndex;
+        this.jobQueries = source.jobQueries.withReachability(
+                (location, maxDistance) -> findReachable(location, maxDistance).jobIds);
+        this.jobStore = source.jobStore;
+        if (locationGraph != source.locationGraph) {
+            this.locationGraph = source.locationGraph;
+            this.distanceCache = new ShortestPathCache(locationGraph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+            reachabilitySearches.clear();
+        }
+        this.jobMap = source.jobMap;
+        this.userMap = source.userMap;
+        this.jobsByLocation = source.jobsByLocation;
+        reachabilityResults.clear();
+        titlePrefixCache.clear();
+    }
+
+    /**
+     * Make the current state visible to concurrent readers through current()
+     * The snapshot shares every structure with this engine, so publishing
+     * is O(1). The first job change after it copies what it touches:
+     * the tries, the job and user maps, the full-text term map and the skill
+     * bitmaps fork in O(shards) or per changed path, chunk or entry, but the
+     * job list and the per-location job lists are copied whole (O(n)) and the
+     * other filter columns fork per distinct value. The first location change
+     * forks the graph. Publishing after every single change therefore costs
+     * O(n) per change; publish after each batch of changes instead. The
+     * engine is still changed from one thread at a time.
+     */
+    public EngineSnapshot publish() {
+        EngineSnapshot snapshot = new EngineSnapshot(++publishedVersion, new JobRecommendationEngine(this), published);
+        jobsShared = true;
+        usersShared = true;
+        locationsShared = true;
+        published = snapshot; // volatile write: readers see the complete state
+        return snapshot;
+    }
+
+    /**
+     * The most recently published snapshot, or null before the first publish()
+     * Safe to call from any thread; never blocks
+     */
+    public EngineSnapshot current() {
+        return published;
+    }
+
+    /**
+     * Engine for one reading thread of a published snapshot: it shares the
+     * snapshot's structures and keeps its own distance, reachability and
+     * prefix caches, so reads need no locks
+     */
+    JobRecommendationEngine readerView() {
+        return new JobRecommendationEngine(this);
+    }
+
+    /**
+     * Fork the job list, maps and indexes if the published snapshot uses them
+     */
+    private void ownJobs() {
+        if (!jobsShared) {
+            return;
+        }
+        jobs = new ArrayList<>(jobs);
+        jobMap = ((ForkableMap<String, IndexedJob>) jobMap).fork();
+        if (jobTitleTrie != null) {
+            jobTitleTrie = jobTitleTrie.fork();
+            skillTrie = skillTrie.fork();
+            titleSearch = jobTitleTrie;
+            skillSearch = skillTrie;
+        }
+        jobTextIndex = jobTextIndex.fork();
+        jobQueries = jobQueries.fork();
+        jobsByLocation = new ArrayList<>(jobsByLocation);
+        sharedJobLists.set(0, jobsByLocation.size());
+        jobsShared = false;
+    }
+
+    private void ownUsers() {
+        if (usersShared) {
+            userMap = ((ForkableMap<String, User>) userMap).fork();
+            usersShared = false;
+        }
+    }
+
+    /**
+     * Fork the location graph and its registry if the published snapshot uses them
+     */
+    private void ownLocations() {
+        if (!locationsShared) {
+            return;
+        }
+        locationGraph = locationGraph.fork();
+        distanceCache = new ShortestPathCache(locationGraph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+        reachabilitySearches.clear(); // they walk the old graph
+        reachabilityResults.clear();
+        locationsShared = false;
+    }
+
+    /**
+     * The jobs at a location, copied first if the published snapshot uses them
+     */
+    private IntList writableJobsAt(int location) {
+        IntList atLocation = jobsByLocation.get(location);
+        if (sharedJobLists.get(location)) {
+            sharedJobLists.clear(location);
+            if (atLocation != null) {
+                atLocation = IntList.wrap(atLocation.toArray());
+                jobsByLocation.set(location, atLocation);
+            }
+        }
+        return atLocation;
     }
 
     /**
      * Add a job to the system and update all data structures
+     * A job with the id of an existing one replaces it (see updateJob)
      * Time Complexity: O(m + s) where m is job title length, s is number of skills
      */
     public void addJob(Job job) {
+        checkWritable();
+        IndexedJob stored = jobMap.get(job.getId());
+        if (stored != null && stored.job == job) {
+            throw new IllegalArgumentException("Job " + job.getId() + " is already stored; pass a new Job object to update it");
+        }
+        ownJobs();
+        ownLocations();
+        if (isSearchVocabularyFrozen()) {
+            thawSearchVocabularies();
+        }
+        if (stored != null) {
+            unindexJob(job.getId());
+        }
+
+        job.internStrings(); // one shared copy of repeated company, location, ... strings
         jobs.add(job);
-        jobMap.put(job.getId(), job);
+        indexJobVocabulary(job.getTitle(), job.getRequiredSkillIds(), jobs.size() - 1);
+        invalidateTitlePrefixes(job.getTitle());
+        indexJobText(job, jobs.size() - 1);
+        jobQueries.indexJob(job, jobs.size() - 1);
         
-        // Add to Trie for search
-        jobTitleTrie.insert(job.getTitle());
-        
-        // Add skills to Trie
-        for (String skill : job.getRequiredSkills()) {
-            skillTrie.insert(skill);
+        // Add location to graph if not exists, and keep its interned id on the job
+        job.setLocationId(locateInGraph(job.getLocation(), job.getLatitude(), job.getLongitude()));
+        locationGraph.getRegistry().recordJob(job.getLocationId(), job.getSalary());
+
+        indexJobLocation(job.getLocationId(), jobs.size() - 1);
+        jobMap.put(job.getId(), new IndexedJob(job, jobs.size() - 1));
+        reachabilityResults.clear();
+        compactIfSparse();
+    }
+
+    /**
+     * Replace the job with the same id, re-indexing it everywhere
+     * Pass a new Job object: passing the stored one back (e.g. after
+     * editing it in place) throws IllegalArgumentException, since published
+     * snapshots share it. Old index entries are removed by the keys recorded
+     * when the job was indexed, not by the stored object's current values.
+     * The job gets a new job id (see ReachableSet.getJobIds).
+     * Returns false, changing nothing, if no job has the id
+     * Time Complexity: O(size of the old and new job), as removeJob plus addJob
+     */
+    public boolean updateJob(Job job) {
+        checkWritable();
+        if (!jobMap.containsKey(job.getId())) {
+            return false;
         }
+        addJob(job);
+        return true;
+    }
+
+    /**
+     * Take a job down, e.g. once the position is filled
+     * Title and skill words stay searchable while other jobs still use them.
+     * Returns false if no job has the id
+     * Time Complexity: O(m + s + p) for p postings of its title and skills
+     * and the jobs at its location; a frozen vocabulary is thawed first
+     */
+    public boolean removeJob(String jobId) {
+        checkWritable();
+        if (!jobMap.containsKey(jobId)) {
+            return false;
+        }
+        ownJobs();
+        ownLocations();
+        if (isSearchVocabularyFrozen()) {
+            thawSearchVocabularies();
+        }
+        unindexJob(jobId);
+        reachabilityResults.clear();
+        compactIfSparse();
+        return true;
+    }
+
+    /**
+     * Remove a job from every structure, leaving an empty slot at its job id
+     * Uses the keys recorded when the job was indexed, so a stored Job that
+     * was edited in place still leaves no stale postings behind
+     */
+    private void unindexJob(String jobId) {
+        IndexedJob stored = jobMap.remove(jobId);
+        int index = stored.index;
+        jobs.set(index, null);
+        removedJobs++;
+
+        // Words are reference counted by their weight (jobs using them)
+        Set<String> skills = SkillDictionary.namesOf(stored.skillIds);
+        unindexWord(jobTitleTrie, stored.title, index);
+        for (String skill : skills) {
+            unindexWord(skillTrie, skill, index);
+        }
+        invalidateTitlePrefixes(stored.title);
+        jobTextIndex.removeDocument(index);
+        jobQueries.removeJob(skills, index);
+
+        // The registry counted the salaries recorded at indexing, not the live ones
+        IntList atLocation = writableJobsAt(stored.locationId);
+        atLocation.removeSorted(index);
+        double min = Double.MAX_VALUE;
+        double max = 0.0;
+        for (int i = 0; i < atLocation.size(); i++) {
+            double salary = jobMap.get(jobs.get(atLocation.get(i)).getId()).salary;
+            min = Math.min(min, salary);
+            max = Math.max(max, salary);
+        }
+        locationGraph.getRegistry().unrecordJob(stored.locationId, stored.salary, min, max);
+    }
+
+    private static void unindexWord(Trie trie, String word, int index) {
+        trie.removeId(word, index);
+        trie.addWeight(word, -1);
+        if (trie.getWeight(word) <= 0) {
+            trie.remove(word);
+        }
+    }
+
+    private void indexJobText(Job job, int index) {
+        jobTextIndex.addDocument(index, job.getTitle(), job.getCompany(),
+                job.getDescription(), String.join(" ", job.getBenefits()));
+    }
+
+    private void compactIfSparse() {
+        if (removedJobs > jobs.size() * MAX_REMOVED_FRACTION) {
+            compactJobs();
+        }
+    }
+
+    /**
+     * Close the slots of removed jobs: renumber the remaining jobs and
+     * rebuild the indexes keyed by job id. Amortized over the removals that
+     * made the slots, so updates stay proportional to their own size.
+     * Time Complexity: O(total size of the remaining jobs)
+     */
+    private void compactJobs() {
+        if (removedJobs == 0) {
+            return;
+        }
+        ownJobs();
+        IndexedJob[] stored = storedByJobId();
+        List<Job> remaining = new ArrayList<>(jobs.size() - removedJobs);
+        for (IndexedJob record : stored) {
+            if (record != null) {
+                remaining.add(record.job);
+            }
+        }
+        jobs = remaining;
+        removedJobs = 0;
+
+        // The indexes are rebuilt from the jobs' current values, and so are
+        // their records; location and salary stay as the registry counted them
+        boolean frozen = isSearchVocabularyFrozen();
+        jobTextIndex = new InvertedIndex();
+        jobQueries.clear();
+        jobsByLocation = new ArrayList<>();
+        sharedJobLists.clear();
+        int next = 0;
+        for (IndexedJob record : stored) {
+            if (record == null) {
+                continue;
+            }
+            Job job = record.job;
+            indexJobText(job, next);
+            jobQueries.indexJob(job, next);
+            indexJobLocation(record.locationId, next);
+            jobMap.put(record.job.getId(), new IndexedJob(job, next, record.locationId, record.salary));
+            next++;
+        }
+        thawSearchVocabularies();
+        if (frozen) {
+            freezeSearchVocabularies();
+        }
+
+        titlePrefixCache.clear();
+        reachabilityResults.clear();
+        if (jobStore != null) {
+            jobStore = OffHeapJobStore.build(jobs);
+            jobStore.bindLocations(locationGraph::getLocationId);
+        }
+    }
+
+    private void indexJobVocabulary(String title, int[] skillIds, int index) {
+        // Add to Trie for search with the job's index as a posting,
+        // weighted by how many jobs use the title
+        jobTitleTrie.addId(title, index);
+        jobTitleTrie.addWeight(title, 1);
         
-        // Add location to graph if not exists
-        if (!locationGraph.hasLocation(job.getLocation())) {
-            locationGraph.addLocation(job.getLocation(), job.getLatitude(), job.getLongitude());
+        // Add skills to Trie, weighted by how many jobs require the skill;
+        // jobs are indexed in order, so each skill's postings stay sorted
+        for (String skill : SkillDictionary.namesOf(skillIds)) {
+            skillTrie.addId(skill, index);
+            skillTrie.addWeight(skill, 1);
+        }
+    }
+
+    /**
+     * Compile the title and skill tries into compact read-only vocabularies
+     * (minimal FSTs plus flat arrays) once the catalog is loaded
+     * Searches keep working; the next addJob rebuilds the tries in O(total jobs)
+     */
+    public void freezeSearchVocabularies() {
+        if (isSearchVocabularyFrozen()) {
+            return;
+        }
+        titleSearch = FrozenVocabulary.compile(jobTitleTrie);
+        skillSearch = FrozenVocabulary.compile(skillTrie);
+        jobTitleTrie = null;
+        skillTrie = null;
+    }
+
+    public boolean isSearchVocabularyFrozen() {
+        return jobTitleTrie == null;
+    }
+
+    /**
+     * Rebuild the tries from the recorded titles and skills, in job id order
+     */
+    private void thawSearchVocabularies() {
+        jobTitleTrie = new Trie();
+        skillTrie = new Trie();
+        for (IndexedJob record : storedByJobId()) {
+            if (record != null) {
+                indexJobVocabulary(record.title, record.skillIds, record.index);
+            }
+        }
+        titleSearch = jobTitleTrie;
+        skillSearch = skillTrie;
+    }
+
+    /**
+     * Stored jobs indexed by job id, null at removed slots
+     */
+    private IndexedJob[] storedByJobId() {
+        IndexedJob[] stored = new IndexedJob[jobs.size()];
+        for (IndexedJob record : jobMap.values()) {
+            stored[record.index] = record;
         }
+        return stored;
     }
 
     /**
-     * Add a user to the system
+     * Add a user to the system; a user with an existing id replaces it
+     * Pass a new User object to update one: the stored one is shared with
+     * published snapshots, so passing it back throws IllegalArgumentException
      */
     public void addUser(User user) {
-        users.add(user);
+        checkWritable();
+        if (userMap.get(user.getId()) == user) {
+            throw new IllegalArgumentException("User " + user.getId() + " is already stored; pass a new User object to update it");
+        }
+        ownUsers();
         userMap.put(user.getId(), user);
         
-        // Add user location to graph if not exists
-        if (!locationGraph.hasLocation(user.getLocation())) {
-            // Use default coordinates if not provided
-            locationGraph.addLocation(user.getLocation(), 0.0, 0.0);
+        // Add user location to graph if not exists (default coordinates if not provided)
+        user.setLocationId(locateInGraph(user.getLocation(), 0.0, 0.0));
+    }
+
+    /**
+     * Replace the user with the same id (e.g. new skills or location)
+     * Returns false, changing nothing, if no user has the id
+     * Time Complexity: O(1)
+     */
+    public boolean updateUser(User user) {
+        checkWritable();
+        if (!userMap.containsKey(user.getId())) {
+            return false;
         }
+        addUser(user);
+        return true;
+    }
+
+    /**
+     * Remove a user; returns false if no user has the id
+     * Time Complexity: O(1)
+     */
+    public boolean removeUser(String userId) {
+        checkWritable();
+        ownUsers();
+        return userMap.remove(userId) != null;
     }
 
     /**
@@ -73,11 +519,17 @@ public class JobRecommendationEngine {
         if (user == null) {
             return new ArrayList<>();
         }
+        if (jobStore != null) {
+            return recommendFromStore(user, limit);
+        }
 
         JobPriorityQueue priorityQueue = new JobPriorityQueue();
         
         // Score and add all jobs to priority queue
         for (Job job : jobs) {
+            if (job == null) {
+                continue;
+            }
             double distance = calculateDistance(user, job);
             double score = JobPriorityQueue.calculateJobScore(job, user, distance);
             priorityQueue.addJob(job, score);
@@ -96,53 +548,331 @@ public class JobRecommendationEngine {
      * Time Complexity: O(m + k) where m is prefix length, k is number of matching jobs
      */
     public List<Job> searchJobsByTitle(String prefix) {
-        List<String> matchingTitles = jobTitleTrie.getWordsWithPrefix(prefix);
-        List<Job> matchingJobs = new ArrayList<>();
-        
-        for (Job job : jobs) {
-            if (matchingTitles.contains(job.getTitle())) {
-                matchingJobs.add(job);
+        return searchJobsByTitle(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search jobs by title, returning at most limit jobs
+     * Jobs come straight from the title postings, ordered by title; results
+     * are cached per prefix so type-ahead keystrokes narrow the previous one
+     */
+    public List<Job> searchJobsByTitle(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        int[] jobIds = findTitleMatches(prefix.toLowerCase());
+        if (jobIds == null) {
+            return getJobsByIds(titleSearch.getIdsWithPrefix(prefix, limit));
+        }
+        return getJobsByIds(jobIds.length <= limit ? jobIds : Arrays.copyOf(jobIds, limit));
+    }
+
+    /**
+     * All job ids whose title starts with the prefix, or null if there are
+     * too many to cache (the caller then asks the trie for just its limit)
+     * Ids are in title order, so the matches for a longer prefix are one
+     * contiguous run inside the longest cached shorter prefix ("ja" -> "jav")
+     * Time Complexity: O(log c) for c cached candidates, else O(m + subtree)
+     */
+    private int[] findTitleMatches(String prefix) {
+        int[] cached = titlePrefixCache.get(prefix);
+        if (cached != null) {
+            return cached;
+        }
+
+        int[] jobIds = null;
+        for (int length = prefix.length() - 1; length > 0 && jobIds == null; length--) {
+            int[] shorter = titlePrefixCache.get(prefix.substring(0, length));
+            if (shorter != null) {
+                int from = firstTitleAtOrAfter(shorter, prefix, false);
+                int to = firstTitleAtOrAfter(shorter, prefix, true);
+                jobIds = Arrays.copyOfRange(shorter, from, to);
             }
         }
-        
-        return matchingJobs;
+        if (jobIds == null) {
+            jobIds = titleSearch.getIdsWithPrefix(prefix, MAX_CACHED_PREFIX_RESULTS + 1);
+            if (jobIds.length > MAX_CACHED_PREFIX_RESULTS) {
+                return null;
+            }
+        }
+
+        titlePrefixCache.put(prefix, jobIds);
+        return jobIds;
+    }
+
+    /**
+     * Binary search a title-ordered id array for the first title whose
+     * lowercase key sorts at or after the prefix (after every title that
+     * starts with it when pastMatches is set)
+     */
+    private int firstTitleAtOrAfter(int[] jobIds, String prefix, boolean pastMatches) {
+        int low = 0;
+        int high = jobIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(jobs.get(jobIds[mid]).getTitle().toLowerCase(), prefix);
+            if (cmp < 0 || (cmp == 0 && pastMatches)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare a key's first prefix.length() chars with the prefix, in trie order
+     */
+    private static int comparePrefix(String key, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (i == key.length()) {
+                return -1;
+            }
+            int diff = key.charAt(i) - prefix.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Drop cached prefixes a new title would extend
+     */
+    private void invalidateTitlePrefixes(String title) {
+        if (titlePrefixCache.isEmpty()) {
+            return;
+        }
+        String key = title.toLowerCase();
+        for (int length = 1; length <= key.length(); length++) {
+            titlePrefixCache.remove(key.substring(0, length));
+        }
+    }
+
+    /**
+     * Drop cached search results (they are rebuilt on demand)
+     */
+    public void clearSearchCaches() {
+        titlePrefixCache.clear();
     }
 
     /**
      * Search jobs by skill using Trie
-     * Time Complexity: O(m + k) where m is skill prefix length, k is number of matching jobs
+     * The prefix expands to matching skills whose job postings are merged
+     * Time Complexity: O(m + s + k log s) for prefix length m, s matching skills, k postings
      */
     public List<Job> searchJobsBySkill(String skillPrefix) {
-        List<String> matchingSkills = skillTrie.getWordsWithPrefix(skillPrefix);
-        List<Job> matchingJobs = new ArrayList<>();
-        
-        for (Job job : jobs) {
-            for (String skill : matchingSkills) {
-                if (job.requiresSkill(skill)) {
-                    matchingJobs.add(job);
-                    break; // Add job only once even if it matches multiple skills
+        return findJobsRequiringAny(skillSearch.getWordsWithPrefix(skillPrefix));
+    }
+
+    /**
+     * Full-text search over title, company, description and benefits
+     * Supports AND (space), OR and "quoted phrases"; best BM25 matches first
+     */
+    public List<Job> searchJobsFullText(String query, int limit) {
+        List<Job> result = new ArrayList<>();
+        for (InvertedIndex.Hit hit : jobTextIndex.search(query, limit)) {
+            result.add(jobs.get(hit.docId));
+        }
+        return result;
+    }
+
+    /**
+     * Typo-tolerant title search ("weldor" finds "Welder")
+     * Jobs with the closest titles come first; maxEdits is capped at 2
+     */
+    public List<Job> searchJobsByTitleFuzzy(String title, int maxEdits) {
+        Set<String> seenTitles = new HashSet<>();
+        IntList jobIds = new IntList();
+
+        for (Trie.Match match : titleSearch.searchFuzzy(title, Math.min(maxEdits, MAX_FUZZY_EDITS))) {
+            // Case variants of a title share one posting list
+            if (seenTitles.add(match.word.toLowerCase())) {
+                for (int id : titleSearch.getIds(match.word)) {
+                    jobIds.add(id);
                 }
             }
         }
-        
-        return matchingJobs;
+
+        return getJobsByIds(jobIds.toArray());
+    }
+
+    /**
+     * Typo-tolerant skill search ("electrition" finds "electrician")
+     * maxEdits is capped at 2
+     */
+    public List<Job> searchJobsBySkillFuzzy(String skill, int maxEdits) {
+        List<String> matchingSkills = new ArrayList<>();
+        for (Trie.Match match : skillSearch.searchFuzzy(skill, Math.min(maxEdits, MAX_FUZZY_EDITS))) {
+            matchingSkills.add(match.word);
+        }
+        return findJobsRequiringAny(matchingSkills);
+    }
+
+    /**
+     * Jobs requiring any of the skills, in the order they were added
+     * Union of the skills' sorted postings, so each job appears once
+     */
+    private List<Job> findJobsRequiringAny(List<String> matchingSkills) {
+        Set<String> seenSkills = new HashSet<>();
+        List<int[]> postings = new ArrayList<>();
+        for (String skill : matchingSkills) {
+            // Case variants of a skill share one posting list
+            if (seenSkills.add(skill.toLowerCase())) {
+                postings.add(skillSearch.getIds(skill));
+            }
+        }
+        return getJobsByIds(Postings.union(postings));
+    }
+
+    /**
+     * Autocomplete job titles, most common titles first
+     * Time Complexity: O(m + k * d log k) for prefix length m, k suggestions of depth d
+     */
+    public List<String> suggestJobTitles(String prefix, int limit) {
+        return titleSearch.getTopKWithPrefix(prefix, limit);
+    }
+
+    /**
+     * Autocomplete skills, most demanded skills first
+     */
+    public List<String> suggestSkills(String prefix, int limit) {
+        return skillSearch.getTopKWithPrefix(prefix, limit);
     }
 
     /**
      * Find jobs near a specific location using graph algorithms
-     * Time Complexity: O(V + E) for BFS
+     * Time Complexity: O(k) for k reachable jobs when the search is cached
      */
     public List<Job> findJobsNearLocation(String location, double maxDistance) {
-        List<String> nearbyLocations = locationGraph.findNearbyLocationsBFS(location, maxDistance);
-        List<Job> nearbyJobs = new ArrayList<>();
-        
-        for (Job job : jobs) {
-            if (nearbyLocations.contains(job.getLocation())) {
-                nearbyJobs.add(job);
+        return getJobsByIds(findReachable(location, maxDistance).jobIds);
+    }
+
+    /**
+     * Find the locations and jobs reachable by road within a distance budget
+     * Results are cached per (location, 5 km bucket); a budget inside a bucket
+     * filters the bucket's cached result by distance. Budgets beyond what was
+     * searched so far resume the cached search from its saved frontier
+     * instead of restarting it.
+     * Time Complexity: O(k) for k reachable jobs when the bucket is cached
+     */
+    public ReachableSet findReachable(String location, double maxDistance) {
+        int source = locationGraph.getLocationId(location);
+        if (source == -1 || maxDistance < 0) {
+            return new ReachableSet(new int[0], new double[0], new int[0], new double[0], maxDistance);
+        }
+
+        if (reachabilityGraphVersion != locationGraph.getVersion()) {
+            reachabilitySearches.clear();
+            reachabilityResults.clear();
+            reachabilityGraphVersion = locationGraph.getVersion();
+        }
+
+        long bucket = (long) Math.ceil(maxDistance / REACHABILITY_BUCKET_KM);
+        long key = ((long) source << 32) | (bucket & 0xFFFFFFFFL);
+
+        ReachableSet enclosing = reachabilityResults.get(key);
+        if (enclosing == null) {
+            IsochroneSearch search = reachabilitySearches.get(source);
+            if (search == null) {
+                search = new IsochroneSearch(locationGraph, source);
+                reachabilitySearches.put(source, search);
             }
+            enclosing = collectReachable(search, bucket * REACHABILITY_BUCKET_KM);
+            reachabilityResults.put(key, enclosing);
         }
-        
-        return nearbyJobs;
+        return enclosing.within(maxDistance);
+    }
+
+    /**
+     * Resolve job ids (as returned in ReachableSet) to jobs
+     */
+    public List<Job> getJobsByIds(int[] jobIds) {
+        List<Job> result = new ArrayList<>(jobIds.length);
+        for (int id : jobIds) {
+            result.add(jobs.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Score from the off-heap columns and only touch Job objects for the top
+     * results; jobs added after the store was built are scored on-heap
+     */
+    private List<JobRecommendation> recommendFromStore(User user, int limit) {
+        TopScores top = new TopScores(limit);
+        long skillMask = user.getSkillMask();
+        int stored = jobStore.size();
+        for (int i = 0; i < stored; i++) {
+            if (removedJobs > 0 && jobs.get(i) == null) {
+                continue; // removed since the store was built
+            }
+            top.offer(i, JobPriorityQueue.calculateJobScore(jobStore, i, user, skillMask, calculateDistance(user, i)));
+        }
+        for (int i = stored; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            if (job == null) {
+                continue;
+            }
+            top.offer(i, JobPriorityQueue.calculateJobScore(job, user, calculateDistance(user, job)));
+        }
+
+        double[] scores = new double[top.size()];
+        int[] best = top.drainIds(scores);
+        List<JobRecommendation> result = new ArrayList<>(best.length);
+        for (int i = 0; i < best.length; i++) {
+            Job job = jobs.get(best[i]);
+            result.add(new JobRecommendation(job, scores[i], calculateDistance(user, job)));
+        }
+        return result;
+    }
+
+    /**
+     * Keep the scoring attributes of all current jobs off the heap
+     * With a file, an existing store for the same jobs is mapped instead of
+     * rebuilt (e.g. after a restart); otherwise the file is (re)written.
+     * Without a file the store lives in direct memory.
+     */
+    public void enableOffHeapStore(Path file) throws IOException {
+        compactJobs(); // records are indexed by job id, without gaps
+        OffHeapJobStore store = null;
+        if (file != null && Files.exists(file)) {
+            try {
+                store = OffHeapJobStore.open(file);
+                if (!describesCurrentJobs(store)) {
+                    store = null;
+                }
+            } catch (IOException e) {
+                store = null; // stale or foreign file: rebuild it
+            }
+        }
+        if (store == null) {
+            store = file != null ? OffHeapJobStore.build(jobs, file) : OffHeapJobStore.build(jobs);
+        }
+
+        store.bindLocations(locationGraph::getLocationId);
+        jobStore = store;
+    }
+
+    public void disableOffHeapStore() {
+        jobStore = null;
+    }
+
+    public boolean isOffHeapStoreEnabled() {
+        return jobStore != null;
+    }
+
+    private boolean describesCurrentJobs(OffHeapJobStore store) {
+        if (store.size() != jobs.size()) {
+            return false;
+        }
+        for (int i = 0; i < jobs.size(); i++) {
+            if (!jobs.get(i).getId().equals(store.getJobId(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -158,14 +888,13 @@ public class JobRecommendationEngine {
             return new ArrayList<>();
         }
 
-        // Filter jobs based on criteria
-        List<Job> filteredJobs = jobs.stream()
-                .filter(job -> job.getSalary() >= minSalary)
+        // Filter jobs based on criteria; the salary bitmap narrows the candidates first
+        List<Job> filteredJobs = getJobsByIds(jobQueries.evaluate(JobQuery.salaryAtLeast(minSalary))).stream()
                 .filter(job -> calculateDistance(user, job) <= maxDistance)
                 .collect(Collectors.toList());
 
         // If preferred skills are specified, prioritize jobs with those skills
-        if (!preferredSkills.isEmpty()) {
+        if (preferredSkills != null && !preferredSkills.isEmpty()) {
             filteredJobs.sort((j1, j2) -> {
                 int score1 = calculatePreferredSkillScore(j1, preferredSkills);
                 int score2 = calculatePreferredSkillScore(j2, preferredSkills);
@@ -188,6 +917,58 @@ public class JobRecommendationEngine {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Jobs matching a boolean filter, in the order they were added
+     * e.g. and(or(skill("electrical"), skill("welding")), salaryAtLeast(15000))
+     */
+    public List<Job> findJobs(JobQuery query) {
+        return getJobsByIds(jobQueries.evaluate(query));
+    }
+
+    /**
+     * Rank only the jobs matching a boolean filter for a user
+     */
+    public List<JobRecommendation> getRecommendations(String userId, JobQuery query, int limit) {
+        User user = userMap.get(userId);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+
+        JobPriorityQueue priorityQueue = new JobPriorityQueue();
+        for (int jobId : jobQueries.evaluate(query)) {
+            Job job = jobs.get(jobId);
+            priorityQueue.addJob(job, JobPriorityQueue.calculateJobScore(job, user, calculateDistance(user, job)));
+        }
+
+        return priorityQueue.getTopKJobs(limit).stream()
+                .map(js -> new JobRecommendation(js.job, js.score, calculateDistance(user, js.job)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Counts per job type, location, experience level and salary band
+     * for the jobs matching a filter, e.g. "Full-time (120), Town B (33)"
+     * Time Complexity: O(k) for k matching jobs
+     */
+    public JobQueryEngine.FacetCounts getFacets(JobQuery query) {
+        return jobQueries.facets(query);
+    }
+
+    /**
+     * Facet counts over job ids such as ReachableSet.getJobIds
+     */
+    public JobQueryEngine.FacetCounts getFacets(int[] jobIds) {
+        return jobQueries.facets(jobIds);
+    }
+
+    /**
+     * Human-readable plan of a filter: evaluation order with estimated
+     * and actual job counts per step
+     */
+    public String explainQuery(JobQuery query) {
+        return jobQueries.explain(query);
+    }
+
     /**
      * Find career path suggestions using graph traversal
      * This suggests training paths to reach desired jobs
@@ -202,7 +983,7 @@ public class JobRecommendationEngine {
         
         // Find target job
         Job targetJob = jobs.stream()
-                .filter(job -> job.getTitle().equalsIgnoreCase(targetJobTitle))
+                .filter(job -> job != null && job.getTitle().equalsIgnoreCase(targetJobTitle))
                 .findFirst()
                 .orElse(null);
 
@@ -243,16 +1024,125 @@ public class JobRecommendationEngine {
         }
         
         // Otherwise, use graph distance if available
-        if (locationGraph.hasLocation(user.getLocation()) && 
-            locationGraph.hasLocation(job.getLocation())) {
-            Map<String, Double> distances = locationGraph.findShortestDistances(user.getLocation());
-            return distances.getOrDefault(job.getLocation(), Double.MAX_VALUE);
+        int userLocation = locationIdOf(user.getLocationId(), user.getLocation());
+        int jobLocation = locationIdOf(job.getLocationId(), job.getLocation());
+        if (userLocation != -1 && jobLocation != -1) {
+            return distanceCache.getDistance(userLocation, jobLocation);
         }
         
         // Default: assume same location if locations match
         return user.getLocation().equals(job.getLocation()) ? 0.0 : 50.0;
     }
 
+    /**
+     * calculateDistance for a job in the off-heap store
+     */
+    private double calculateDistance(User user, int storedJob) {
+        double latitude = jobStore.getLatitude(storedJob);
+        double longitude = jobStore.getLongitude(storedJob);
+        if (latitude != 0.0 && longitude != 0.0) {
+            return Job.distanceBetween(latitude, longitude, user.getLatitude(), user.getLongitude());
+        }
+
+        int userLocation = locationIdOf(user.getLocationId(), user.getLocation());
+        int jobLocation = jobStore.getLocationId(storedJob);
+        if (userLocation != -1 && jobLocation != -1) {
+            return distanceCache.getDistance(userLocation, jobLocation);
+        }
+        return user.getLocation().equals(jobStore.getLocationName(storedJob)) ? 0.0 : 50.0;
+    }
+
+    /**
+     * Locations and jobs within a radius, each with its road distance
+     * Jobs are packed as (job id, location index) pairs so one sort orders
+     * the ids and keeps their distances alongside.
+     */
+    private ReachableSet collectReachable(IsochroneSearch search, double radius) {
+        int[] locationIds = search.getLocationsWithin(radius);
+        double[] locationDistances = new double[locationIds.length];
+        int jobCount = 0;
+        for (int i = 0; i < locationIds.length; i++) {
+            locationDistances[i] = search.getDistance(locationIds[i]);
+            IntList atLocation = locationIds[i] < jobsByLocation.size() ? jobsByLocation.get(locationIds[i]) : null;
+            jobCount += atLocation == null ? 0 : atLocation.size();
+        }
+
+        long[] sorted = new long[jobCount];
+        for (int i = 0, n = 0; n < jobCount; i++) {
+            IntList atLocation = locationIds[i] < jobsByLocation.size() ? jobsByLocation.get(locationIds[i]) : null;
+            for (int j = 0; atLocation != null && j < atLocation.size(); j++) {
+                sorted[n++] = ((long) atLocation.get(j) << 32) | i;
+            }
+        }
+        Arrays.sort(sorted);
+        int[] jobIds = new int[sorted.length];
+        double[] jobDistances = new double[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            jobIds[i] = (int) (sorted[i] >>> 32);
+            jobDistances[i] = locationDistances[(int) sorted[i]];
+        }
+        return new ReachableSet(locationIds, locationDistances, jobIds, jobDistances, radius);
+    }
+
+    /**
+     * Sorted ids of all jobs at the given locations
+     */
+    private int[] collectJobIds(int[] locationIds) {
+        IntList jobIds = new IntList();
+        for (int location : locationIds) {
+            if (location < jobsByLocation.size() && jobsByLocation.get(location) != null) {
+                IntList atLocation = jobsByLocation.get(location);
+                for (int i = 0; i < atLocation.size(); i++) {
+                    jobIds.add(atLocation.get(i));
+                }
+            }
+        }
+
+        int[] result = jobIds.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void indexJobLocation(int location, int jobId) {
+        while (jobsByLocation.size() <= location) {
+            jobsByLocation.add(null);
+        }
+        IntList atLocation = writableJobsAt(location);
+        if (atLocation == null) {
+            atLocation = new IntList(4);
+            jobsByLocation.set(location, atLocation);
+        }
+        atLocation.add(jobId);
+    }
+
+    /**
+     * Interned id of a location in the graph, adding the location if needed
+     */
+    private int locateInGraph(String location, double latitude, double longitude) {
+        int id = locationGraph.getLocationId(location);
+        if (id != -1) {
+            return id;
+        }
+        ownLocations();
+        return locationGraph.addLocationAndGetId(location, latitude, longitude);
+    }
+
+    /**
+     * Use the id cached on the model, falling back to a lookup by name
+     */
+    private int locationIdOf(int cachedId, String location) {
+        return cachedId != -1 ? cachedId : locationGraph.getLocationId(location);
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     /**
      * Calculate score based on preferred skills
      */
@@ -271,37 +1161,352 @@ public class JobRecommendationEngine {
      */
     private List<Job> findTrainingJobs(String skill) {
         return jobs.stream()
-                .filter(job -> job.requiresSkill(skill) && job.getExperienceLevel() <= 2)
+                .filter(job -> job != null && job.requiresSkill(skill) && job.getExperienceLevel() <= 2)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get the location graph for reading (e.g. to persist it); it may be
+     * shared with the published snapshot, so change it only through
+     * getWritableLocationGraph()
+     */
+    public LocationGraph getLocationGraph() {
+        return locationGraph;
+    }
+
+    /**
+     * Get the location graph to change it (e.g. to add roads)
+     * After publish() this first forks the graph the snapshot keeps using
+     */
+    public LocationGraph getWritableLocationGraph() {
+        checkWritable();
+        ownLocations();
+        return locationGraph;
+    }
+
+    /**
+     * Replace the location graph, e.g. with one bulk-loaded by LocationGraphDAO
+     * Locations of already loaded jobs and users are added if missing
+     */
+    public void setLocationGraph(LocationGraph graph) {
+        checkWritable();
+        ownJobs();
+        ownUsers();
+        this.locationGraph = graph;
+        this.distanceCache = new ShortestPathCache(graph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+        this.locationsShared = false;
+
+        // Location ids belong to the graph's registry, so re-intern and
+        // rebuild everything keyed by them. Jobs and users a published
+        // snapshot can still see are copied instead of changed.
+        graph.getRegistry().clearJobStats();
+        jobsByLocation = new ArrayList<>();
+        sharedJobLists.clear();
+        for (IndexedJob record : storedByJobId()) {
+            if (record == null) {
+                continue;
+            }
+            Job job = record.job;
+            int location = locateInGraph(job.getLocation(), job.getLatitude(), job.getLongitude());
+            if (published != null && location != job.getLocationId()) {
+                job = job.copy();
+                jobs.set(record.index, job);
+            }
+            job.setLocationId(location);
+            graph.getRegistry().recordJob(location, record.salary);
+            indexJobLocation(location, record.index);
+            jobMap.put(record.job.getId(), new IndexedJob(job, record.index, location, record.salary));
+        }
+        for (User user : new ArrayList<>(userMap.values())) {
+            int location = locateInGraph(user.getLocation(), 0.0, 0.0);
+            if (published != null && location != user.getLocationId()) {
+                user = user.copy();
+                userMap.put(user.getId(), user);
+            }
+            user.setLocationId(location);
+        }
+        reachabilitySearches.clear();
+        reachabilityResults.clear();
+        if (jobStore != null) {
+            jobStore = jobStore.duplicate();
+            jobStore.bindLocations(graph::getLocationId);
+        }
+    }
+
+    /**
+     * Get the registry that interns location names and holds the region
+     * hierarchy, for reading; see getWritableLocationRegistry()
+     */
+    public LocationRegistry getLocationRegistry() {
+        return locationGraph.getRegistry();
+    }
+
+    /**
+     * Get the location registry to change it
+     * After publish() this first forks the graph the snapshot keeps using
+     */
+    public LocationRegistry getWritableLocationRegistry() {
+        return getWritableLocationGraph().getRegistry();
+    }
+
+    /**
+     * Place a village (or town) in its block and the block in its district
+     */
+    public void setLocationHierarchy(String village, String block, String district) {
+        checkWritable();
+        ownLocations();
+        LocationRegistry registry = locationGraph.getRegistry();
+        registry.defineRegion(block, LocationRegistry.BLOCK);
+        registry.defineRegion(district, LocationRegistry.DISTRICT);
+        registry.setParent(village, block);
+        registry.setParent(block, district);
+    }
+
+    /**
+     * Job count and salary statistics for a village, block or district
+     * Time Complexity: O(1), aggregates are maintained as jobs are added
+     */
+    public LocationRegistry.RegionStats getRegionStats(String region) {
+        int id = locationGraph.getRegistry().getId(region);
+        return id != -1 ? locationGraph.getRegistry().getStats(id) : null;
+    }
+
+    /**
+     * Find all jobs located anywhere inside a village, block or district
+     * Time Complexity: O(r + k) for r places in the region and k matching jobs
+     */
+    public List<Job> findJobsInRegion(String region) {
+        int regionId = locationGraph.getRegistry().getId(region);
+        if (regionId == -1) {
+            return new ArrayList<>();
+        }
+
+        IntList places = new IntList();
+        locationGraph.getRegistry().collectDescendants(regionId, places);
+        return getJobsByIds(collectJobIds(places.toArray()));
+    }
+
+    /**
+     * Check whether a job lies inside a village, block or district
+     * Time Complexity: O(1)
+     */
+    public boolean isJobInRegion(Job job, String region) {
+        LocationRegistry registry = locationGraph.getRegistry();
+        int regionId = registry.getId(region);
+        int locationId = locationIdOf(job.getLocationId(), job.getLocation());
+        return regionId != -1 && locationId != -1 && registry.isWithin(locationId, regionId);
+    }
+
     /**
      * Get statistics about the system
      */
     public SystemStats getSystemStats() {
         return new SystemStats(
-            jobs.size(),
-            users.size(),
-            jobTitleTrie.size(),
-            skillTrie.size(),
-            locationGraph.getAllLocations().size()
+            jobs.size() - removedJobs,
+            userMap.size(),
+            titleSearch.size(),
+            skillSearch.size(),
+            locationGraph.getNodeCount()
         );
     }
 
+    /**
+     * Write the complete engine state to a binary snapshot file
+     * Jobs, users, the location graph, search vocabularies with their
+     * postings, filter bitmaps and the full-text index are stored as they
+     * are, so loadSnapshot restores them with bulk reads instead of
+     * re-indexing every job, and openSnapshot can serve from the file
+     * directly. The file is replaced atomically.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        compactJobs();
+        try (SnapshotFile.Writer out = SnapshotFile.create(file, SNAPSHOT_VERSION)) {
+            out.section(SECTION_SKILLS);
+            SnapshotTables.writeSkillNames(out);
+            out.section(SECTION_JOBS);
+            SnapshotTables.writeJobs(out, jobs);
+            out.section(SECTION_USERS);
+            SnapshotTables.writeUsers(out, new ArrayList<>(userMap.values()));
+            out.section(SECTION_STORE);
+            OffHeapJobStore.writeTo(out, jobs);
+            out.section(SECTION_LOCATIONS);
+            locationGraph.writeTo(out);
+
+            out.section(SECTION_VOCABULARY);
+            boolean frozen = isSearchVocabularyFrozen();
+            out.writeBoolean(frozen);
+            if (frozen) {
+                ((FrozenVocabulary) titleSearch).writeTo(out);
+                ((FrozenVocabulary) skillSearch).writeTo(out);
+            } else {
+                jobTitleTrie.writeTo(out);
+                skillTrie.writeTo(out);
+            }
+
+            out.section(SECTION_FILTERS);
+            jobQueries.writeTo(out, jobs.size());
+            out.section(SECTION_TEXT);
+            jobTextIndex.writeTo(out);
+            out.commit();
+        }
+    }
+
+    /**
+     * Restore an engine written by saveSnapshot
+     * Throws IOException if the file is not a snapshot, has another format
+     * version or fails its checksum
+     * Time Complexity: O(file size), no tokenizing or index building
+     */
+    public static JobRecommendationEngine loadSnapshot(Path file) throws IOException {
+        return restore(SnapshotFile.open(file, SNAPSHOT_VERSION));
+    }
+
+    /**
+     * Serve a snapshot written by saveSnapshot straight from the mapped file
+     * Jobs and users stay in the file and become objects only when a query
+     * returns them; recommendations score from the off-heap store image and
+     * text search and filters read their postings and columns in place.
+     * Startup does no per-job work besides grouping job indexes by location.
+     * The engine is read-only (adding jobs or users throws
+     * IllegalStateException until clearAll) and the file must not change
+     * while it is in use. The checksum is not verified, so startup does not
+     * read the whole file; see openSnapshot(Path, boolean).
+     */
+    public static JobRecommendationEngine openSnapshot(Path file) throws IOException {
+        return openSnapshot(file, false);
+    }
+
+    /**
+     * openSnapshot that first verifies the file's checksum when asked to
+     * Time Complexity: O(file size) when verifying
+     */
+    public static JobRecommendationEngine openSnapshot(Path file, boolean verifyChecksum) throws IOException {
+        return restore(SnapshotFile.openInPlace(file, SNAPSHOT_VERSION, verifyChecksum));
+    }
+
+    private static JobRecommendationEngine restore(SnapshotFile.Reader in) throws IOException {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+
+        in.section(SECTION_SKILLS);
+        int[] skillRemap = SnapshotTables.readSkillRemap(in);
+        in.section(SECTION_JOBS);
+        SnapshotTables.JobTable jobTable = new SnapshotTables.JobTable(in, skillRemap);
+        in.section(SECTION_USERS);
+        SnapshotTables.UserTable userTable = new SnapshotTables.UserTable(in, skillRemap);
+        in.section(SECTION_STORE);
+        ByteBuffer storeImage = in.readByteView();
+        in.section(SECTION_LOCATIONS);
+        engine.locationGraph = LocationGraph.readFrom(in);
+        engine.distanceCache = new ShortestPathCache(engine.locationGraph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+
+        in.section(SECTION_VOCABULARY);
+        if (in.readBoolean()) {
+            engine.titleSearch = FrozenVocabulary.readFrom(in);
+            engine.skillSearch = FrozenVocabulary.readFrom(in);
+            engine.jobTitleTrie = null;
+            engine.skillTrie = null;
+        } else {
+            engine.jobTitleTrie = Trie.readFrom(in);
+            engine.skillTrie = Trie.readFrom(in);
+            engine.titleSearch = engine.jobTitleTrie;
+            engine.skillSearch = engine.skillTrie;
+        }
+
+        in.section(SECTION_FILTERS);
+        engine.jobQueries.readFrom(in);
+        in.section(SECTION_TEXT);
+        engine.jobTextIndex = InvertedIndex.readFrom(in);
+
+        if (in.isInPlace()) {
+            engine.jobs = jobTable;
+            engine.jobMap = Collections.emptyMap(); // only changes use it
+            engine.userMap = userTable.byId();
+            for (int i = 0; i < jobTable.size(); i++) {
+                engine.indexJobLocation(jobTable.getLocationId(i), i);
+            }
+            engine.jobStore = OffHeapJobStore.wrap(storeImage);
+            engine.jobStore.bindLocations(engine.locationGraph::getLocationId);
+            engine.readOnly = true;
+            return engine;
+        }
+
+        engine.jobs = new ArrayList<>(jobTable);
+        for (int i = 0; i < engine.jobs.size(); i++) {
+            Job job = engine.jobs.get(i);
+            engine.jobMap.put(job.getId(), new IndexedJob(job, i));
+            engine.indexJobLocation(job.getLocationId(), i);
+        }
+        for (User user : userTable) {
+            engine.userMap.put(user.getId(), user);
+        }
+        return engine;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Engine is serving a read-only snapshot");
+        }
+    }
+
     /**
      * Clear all data from the system
      */
     public void clearAll() {
-        jobs.clear();
-        users.clear();
-        jobMap.clear();
-        userMap.clear();
-        jobTitleTrie.clear();
-        skillTrie.clear();
+        jobs = new ArrayList<>();
+        removedJobs = 0;
+        jobMap = new ForkableMap<>();
+        userMap = new ForkableMap<>();
+        jobTitleTrie = new Trie();
+        skillTrie = new Trie();
+        titleSearch = jobTitleTrie;
+        skillSearch = skillTrie;
+        jobTextIndex = new InvertedIndex();
+        jobQueries = new JobQueryEngine((location, maxDistance) -> findReachable(location, maxDistance).jobIds);
         locationGraph = new LocationGraph();
+        distanceCache = new ShortestPathCache(locationGraph, DISTANCE_CACHE_SIZE, DISTANCE_CACHE_BYTES);
+        jobsByLocation = new ArrayList<>();
+        sharedJobLists.clear();
+        jobsShared = false;
+        usersShared = false;
+        locationsShared = false;
+        reachabilitySearches.clear();
+        reachabilityResults.clear();
+        titlePrefixCache.clear();
+        jobStore = null;
+        readOnly = false;
     }
 
     // Inner classes for return types
+    /**
+     * A stored job with the keys it was indexed under, so removing it does
+     * not depend on the Job object still holding the same values
+     */
+    private static final class IndexedJob {
+        final Job job;
+        final int index; // job id: slot in jobs
+        final String title;
+        final int[] skillIds; // replaced, never changed in place, by Job
+        final int locationId;
+        final double salary;
+
+        IndexedJob(Job job, int index) {
+            this(job, index, job.getLocationId(), job.getSalary());
+        }
+
+        IndexedJob(Job job, int index, int locationId, double salary) {
+            this.job = job;
+            this.index = index;
+            this.title = job.getTitle();
+            this.skillIds = job.getRequiredSkillIds();
+            this.locationId = locationId;
+            this.salary = salary;
+        }
+    }
+
     public static class JobRecommendation {
         public final Job job;
         public final double score;
@@ -320,6 +1525,90 @@ public class JobRecommendationEngine {
         }
     }
 
+    /**
+     * Locations and jobs reachable within a distance budget, as sorted ids
+     * Location ids come from the LocationGraph; job ids from getJobsByIds
+     */
+    public static class ReachableSet {
+        private final int[] locationIds; // sorted
+        private final double[] locationDistances;
+        private final int[] jobIds; // sorted
+        private final double[] jobDistances;
+        public final double maxDistance;
+
+        ReachableSet(int[] locationIds, double[] locationDistances, int[] jobIds, double[] jobDistances,
+                     double maxDistance) {
+            this.locationIds = locationIds;
+            this.locationDistances = locationDistances;
+            this.jobIds = jobIds;
+            this.jobDistances = jobDistances;
+            this.maxDistance = maxDistance;
+        }
+
+        /**
+         * Sorted ids of the reachable locations (a copy)
+         */
+        public int[] getLocationIds() {
+            return locationIds.clone();
+        }
+
+        /**
+         * Sorted ids of the jobs at reachable locations (a copy)
+         */
+        public int[] getJobIds() {
+            return jobIds.clone();
+        }
+
+        public int getLocationCount() { return locationIds.length; }
+
+        public int getJobCount() { return jobIds.length; }
+
+        /**
+         * The part of this set within a smaller distance, or this set itself
+         * Time Complexity: O(l + k) for l locations and k jobs
+         */
+        ReachableSet within(double distance) {
+            if (distance >= maxDistance) {
+                return this;
+            }
+            int locations = countWithin(locationDistances, distance);
+            int[] nearLocations = new int[locations];
+            double[] nearLocationDistances = new double[locations];
+            for (int i = 0, n = 0; n < locations; i++) {
+                if (locationDistances[i] <= distance) {
+                    nearLocations[n] = locationIds[i];
+                    nearLocationDistances[n++] = locationDistances[i];
+                }
+            }
+            int jobs = countWithin(jobDistances, distance);
+            int[] nearJobs = new int[jobs];
+            double[] nearJobDistances = new double[jobs];
+            for (int i = 0, n = 0; n < jobs; i++) {
+                if (jobDistances[i] <= distance) {
+                    nearJobs[n] = jobIds[i];
+                    nearJobDistances[n++] = jobDistances[i];
+                }
+            }
+            return new ReachableSet(nearLocations, nearLocationDistances, nearJobs, nearJobDistances, distance);
+        }
+
+        private static int countWithin(double[] distances, double distance) {
+            int count = 0;
+            for (double d : distances) {
+                if (d <= distance) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ReachableSet{within=%.1f km, locations=%d, jobs=%d}", 
+                               maxDistance, locationIds.length, jobIds.length);
+        }
+    }
+
     public static class CareerPath {
         public final Job targetJob;
         public final int trainingSteps;
@@ -0,0 +1,15 @@
+package com.ruralyouth.engine;
+
+/**
+ * A reading thread's engine over shared structures and the version of the
+ * source it was last synced to (see JobRecommendationEngine.syncView)
+ */
+final class ReaderView {
+    final JobRecommendationEngine engine;
+    long version;
+
+    ReaderView(JobRecommendationEngine engine, long version) {
+        this.engine = engine;
+        this.version = version;
+    }
+}
@@ -0,0 +1,429 @@
+package com.ruralyouth.engine;
+
+import com.ruralyouth.dsa.IntList;
+import com.ruralyouth.dsa.SnapshotFile;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.SkillDictionary;
+import com.ruralyouth.model.StringPool;
+import com.ruralyouth.model.User;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Job and user tables of an engine snapshot, stored column by column
+ *
+ * Repeated strings (titles, companies, locations, ...) are dictionary
+ * encoded, numbers are primitive arrays, and variable-length skills,
+ * benefits and preferences are a start-offset column plus one flat value
+ * column. Each table also stores its rows sorted by id, for lookups by id
+ * without a hash map. Skill ids are written as they are with the
+ * dictionary's names; readers remap them when this process assigned
+ * different ids.
+ *
+ * Tables are read as views over the snapshot: a row becomes a Job or User
+ * object only when get() is called. A full restore simply copies every row.
+ */
+final class SnapshotTables {
+
+    private SnapshotTables() {
+    }
+
+    static void writeSkillNames(SnapshotFile.Writer out) throws IOException {
+        String[] names = new String[SkillDictionary.size()];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = SkillDictionary.nameOf(id);
+        }
+        out.writeStrings(names, names.length);
+    }
+
+    /**
+     * Snapshot skill id -> skill id in this process, or null if they agree
+     */
+    static int[] readSkillRemap(SnapshotFile.Reader in) {
+        String[] names = in.readStrings();
+        int[] remap = new int[names.length];
+        boolean identity = true;
+        for (int id = 0; id < names.length; id++) {
+            remap[id] = SkillDictionary.intern(names[id]);
+            identity &= remap[id] == id;
+        }
+        return identity ? null : remap;
+    }
+
+    static void writeJobs(SnapshotFile.Writer out, List<Job> jobs) throws IOException {
+        int count = jobs.size();
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] companies = new String[count];
+        String[] locations = new String[count];
+        String[] descriptions = new String[count];
+        String[] jobTypes = new String[count];
+        int[] locationIds = new int[count];
+        int[] experienceLevels = new int[count];
+        double[] salaries = new double[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int[] skillStarts = new int[count + 1];
+        int[] benefitStarts = new int[count + 1];
+        IntList skillIds = new IntList();
+        List<String> benefits = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            Job job = jobs.get(i);
+            ids[i] = job.getId();
+            titles[i] = job.getTitle();
+            companies[i] = job.getCompany();
+            locations[i] = job.getLocation();
+            descriptions[i] = job.getDescription();
+            jobTypes[i] = job.getJobType();
+            locationIds[i] = job.getLocationId();
+            experienceLevels[i] = job.getExperienceLevel();
+            salaries[i] = job.getSalary();
+            latitudes[i] = job.getLatitude();
+            longitudes[i] = job.getLongitude();
+            for (int skillId : job.getRequiredSkillIds()) {
+                skillIds.add(skillId);
+            }
+            skillStarts[i + 1] = skillIds.size();
+            benefits.addAll(job.getBenefits());
+            benefitStarts[i + 1] = benefits.size();
+        }
+
+        out.writeStringColumn(ids, count);
+        out.writeInts(sortedOrder(ids));
+        out.writeStringColumn(titles, count);
+        out.writeStringColumn(companies, count);
+        out.writeStringColumn(locations, count);
+        out.writeStringColumn(descriptions, count);
+        out.writeStringColumn(jobTypes, count);
+        out.writeInts(locationIds);
+        out.writeInts(experienceLevels);
+        out.writeDoubles(salaries, count);
+        out.writeDoubles(latitudes, count);
+        out.writeDoubles(longitudes, count);
+        out.writeInts(skillStarts);
+        out.writeInts(skillIds.toArray());
+        out.writeInts(benefitStarts);
+        out.writeStringColumn(benefits.toArray(new String[0]), benefits.size());
+    }
+
+    static void writeUsers(SnapshotFile.Writer out, List<User> users) throws IOException {
+        int count = users.size();
+        String[] ids = new String[count];
+        String[] names = new String[count];
+        String[] educations = new String[count];
+        String[] locations = new String[count];
+        int[] ages = new int[count];
+        int[] locationIds = new int[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        double[] maxDistances = new double[count];
+        int[] skillStarts = new int[count + 1];
+        int[] preferenceStarts = new int[count + 1];
+        IntList skillIds = new IntList();
+        List<String> preferences = new ArrayList<>();
+        byte[] levels = new byte[16];
+
+        for (int i = 0; i < count; i++) {
+            User user = users.get(i);
+            ids[i] = user.getId();
+            names[i] = user.getName();
+            educations[i] = user.getEducation();
+            locations[i] = user.getLocation();
+            ages[i] = user.getAge();
+            locationIds[i] = user.getLocationId();
+            latitudes[i] = user.getLatitude();
+            longitudes[i] = user.getLongitude();
+            maxDistances[i] = user.getMaxDistance();
+
+            int[] userSkills = user.getSkillIds();
+            if (skillIds.size() + userSkills.length > levels.length) {
+                levels = Arrays.copyOf(levels, Math.max(skillIds.size() + userSkills.length, levels.length * 2));
+            }
+            for (int skillId : userSkills) {
+                levels[skillIds.size()] = (byte) user.getSkillProficiency(skillId);
+                skillIds.add(skillId);
+            }
+            skillStarts[i + 1] = skillIds.size();
+            preferences.addAll(user.getPreferences());
+            preferenceStarts[i + 1] = preferences.size();
+        }
+
+        out.writeStringColumn(ids, count);
+        out.writeInts(sortedOrder(ids));
+        out.writeStringColumn(names, count);
+        out.writeStringColumn(educations, count);
+        out.writeStringColumn(locations, count);
+        out.writeInts(ages);
+        out.writeInts(locationIds);
+        out.writeDoubles(latitudes, count);
+        out.writeDoubles(longitudes, count);
+        out.writeDoubles(maxDistances, count);
+        out.writeInts(skillStarts);
+        out.writeInts(skillIds.toArray());
+        out.writeBytes(levels, skillIds.size());
+        out.writeInts(preferenceStarts);
+        out.writeStringColumn(preferences.toArray(new String[0]), preferences.size());
+    }
+
+    /**
+     * Jobs copied onto the heap, in their original order
+     */
+    static List<Job> readJobs(SnapshotFile.Reader in, int[] skillRemap) {
+        return new ArrayList<>(new JobTable(in, skillRemap));
+    }
+
+    static List<User> readUsers(SnapshotFile.Reader in, int[] skillRemap) {
+        return new ArrayList<>(new UserTable(in, skillRemap));
+    }
+
+    /**
+     * Row indexes ordered by id
+     */
+    private static int[] sortedOrder(String[] ids) {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> ids[i]));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Read-only list of rows over snapshot columns, with lookup by id
+     */
+    abstract static class Table<T> extends AbstractList<T> {
+        final SnapshotFile.StringColumn ids;
+        final IntBuffer idOrder;
+
+        Table(SnapshotFile.Reader in) {
+            this.ids = in.readStringColumnView(null);
+            this.idOrder = in.readIntView();
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        /**
+         * Row index of the id, or -1
+         * Time Complexity: O(log n) id decodes
+         */
+        int indexOf(String id) {
+            int low = 0;
+            int high = idOrder.limit() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = ids.get(idOrder.get(mid)).compareTo(id);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return idOrder.get(mid);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Read-only id -> row map that materializes the row on get()
+         */
+        Map<String, T> byId() {
+            return new AbstractMap<String, T>() {
+                @Override
+                public T get(Object key) {
+                    int index = key instanceof String ? indexOf((String) key) : -1;
+                    return index >= 0 ? Table.this.get(index) : null;
+                }
+
+                @Override
+                public boolean containsKey(Object key) {
+                    return key instanceof String && indexOf((String) key) >= 0;
+                }
+
+                @Override
+                public int size() {
+                    return Table.this.size();
+                }
+
+                @Override
+                public Set<Map.Entry<String, T>> entrySet() {
+                    return new AbstractSet<Map.Entry<String, T>>() {
+                        @Override
+                        public Iterator<Map.Entry<String, T>> iterator() {
+                            Iterator<T> rows = Table.this.iterator();
+                            return new Iterator<Map.Entry<String, T>>() {
+                                private int index;
+
+                                @Override
+                                public boolean hasNext() {
+                                    return rows.hasNext();
+                                }
+
+                                @Override
+                                public Map.Entry<String, T> next() {
+                                    T row = rows.next();
+                                    return new AbstractMap.SimpleImmutableEntry<>(ids.get(index++), row);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public int size() {
+                            return Table.this.size();
+                        }
+                    };
+                }
+            };
+        }
+
+        static int[] remapSkills(IntBuffer skillIds, int from, int to, int[] skillRemap) {
+            int[] result = new int[to - from];
+            skillIds.get(from, result);
+            if (skillRemap != null) {
+                for (int k = 0; k < result.length; k++) {
+                    result[k] = skillRemap[result[k]];
+                }
+                Arrays.sort(result);
+            }
+            return result;
+        }
+    }
+
+    static final class JobTable extends Table<Job> {
+        private final SnapshotFile.StringColumn titles;
+        private final SnapshotFile.StringColumn companies;
+        private final SnapshotFile.StringColumn locations;
+        private final SnapshotFile.StringColumn descriptions;
+        private final SnapshotFile.StringColumn jobTypes;
+        private final IntBuffer locationIds;
+        private final IntBuffer experienceLevels;
+        private final DoubleBuffer salaries;
+        private final DoubleBuffer latitudes;
+        private final DoubleBuffer longitudes;
+        private final IntBuffer skillStarts;
+        private final IntBuffer skillIds;
+        private final IntBuffer benefitStarts;
+        private final SnapshotFile.StringColumn benefits;
+        private final int[] skillRemap;
+
+        /**
+         * Dictionary columns are decoded once, and the low-cardinality ones
+         * pooled; ids and descriptions are decoded per row
+         */
+        JobTable(SnapshotFile.Reader in, int[] skillRemap) {
+            super(in);
+            this.titles = in.readStringColumnView(UnaryOperator.identity());
+            this.companies = in.readStringColumnView(StringPool::intern);
+            this.locations = in.readStringColumnView(StringPool::intern);
+            this.descriptions = in.readStringColumnView(null);
+            this.jobTypes = in.readStringColumnView(StringPool::intern);
+            this.locationIds = in.readIntView();
+            this.experienceLevels = in.readIntView();
+            this.salaries = in.readDoubleView();
+            this.latitudes = in.readDoubleView();
+            this.longitudes = in.readDoubleView();
+            this.skillStarts = in.readIntView();
+            this.skillIds = in.readIntView();
+            this.benefitStarts = in.readIntView();
+            this.benefits = in.readStringColumnView(UnaryOperator.identity());
+            this.skillRemap = skillRemap;
+        }
+
+        int getLocationId(int index) {
+            return locationIds.get(index);
+        }
+
+        @Override
+        public Job get(int index) {
+            Job job = new Job(ids.get(index), titles.get(index), companies.get(index), locations.get(index),
+                    salaries.get(index));
+            job.setLocationId(locationIds.get(index));
+            job.setDescription(descriptions.get(index));
+            job.setJobType(jobTypes.get(index));
+            job.setLatitude(latitudes.get(index));
+            job.setLongitude(longitudes.get(index));
+            job.setExperienceLevel(experienceLevels.get(index));
+            job.setRequiredSkillIds(remapSkills(skillIds, skillStarts.get(index), skillStarts.get(index + 1), skillRemap));
+
+            int from = benefitStarts.get(index);
+            int to = benefitStarts.get(index + 1);
+            if (to > from) {
+                List<String> jobBenefits = new ArrayList<>(to - from);
+                for (int b = from; b < to; b++) {
+                    jobBenefits.add(benefits.get(b));
+                }
+                job.setBenefits(jobBenefits);
+            }
+            return job;
+        }
+    }
+
+    static final class UserTable extends Table<User> {
+        private final SnapshotFile.StringColumn names;
+        private final SnapshotFile.StringColumn educations;
+        private final SnapshotFile.StringColumn locations;
+        private final IntBuffer ages;
+        private final IntBuffer locationIds;
+        private final DoubleBuffer latitudes;
+        private final DoubleBuffer longitudes;
+        private final DoubleBuffer maxDistances;
+        private final IntBuffer skillStarts;
+        private final IntBuffer skillIds;
+        private final ByteBuffer levels;
+        private final IntBuffer preferenceStarts;
+        private final SnapshotFile.StringColumn preferences;
+        private final int[] skillRemap;
+
+        UserTable(SnapshotFile.Reader in, int[] skillRemap) {
+            super(in);
+            this.names = in.readStringColumnView(null);
+            this.educations = in.readStringColumnView(StringPool::intern);
+            this.locations = in.readStringColumnView(StringPool::intern);
+            this.ages = in.readIntView();
+            this.locationIds = in.readIntView();
+            this.latitudes = in.readDoubleView();
+            this.longitudes = in.readDoubleView();
+            this.maxDistances = in.readDoubleView();
+            this.skillStarts = in.readIntView();
+            this.skillIds = in.readIntView();
+            this.levels = in.readByteView();
+            this.preferenceStarts = in.readIntView();
+            this.preferences = in.readStringColumnView(UnaryOperator.identity());
+            this.skillRemap = skillRemap;
+        }
+
+        @Override
+        public User get(int index) {
+            User user = new User(ids.get(index), names.get(index), ages.get(index), educations.get(index),
+                    locations.get(index));
+            user.setLocationId(locationIds.get(index));
+            user.setLatitude(latitudes.get(index));
+            user.setLongitude(longitudes.get(index));
+            user.setMaxDistance(maxDistances.get(index));
+
+            int from = skillStarts.get(index);
+            int to = skillStarts.get(index + 1);
+            if (skillRemap == null) {
+                byte[] userLevels = new byte[to - from];
+                levels.get(from, userLevels);
+                user.setSkillLevels(remapSkills(skillIds, from, to, null), userLevels);
+            } else {
+                for (int k = from; k < to; k++) {
+                    user.addSkill(SkillDictionary.nameOf(skillRemap[skillIds.get(k)]), levels.get(k));
+                }
+            }
+
+            for (int p = preferenceStarts.get(index); p < preferenceStarts.get(index + 1); p++) {
+                user.addPreference(preferences.get(p));
+            }
+            return user;
+        }
+    }
+}
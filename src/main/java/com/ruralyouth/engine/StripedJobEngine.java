@@ -0,0 +1,344 @@
+package com.ruralyouth.engine;
+
+import com.ruralyouth.dsa.JobPriorityQueue;
+import com.ruralyouth.dsa.LocationGraph;
+import com.ruralyouth.dsa.TopScores;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Job engine for continuous writes from many threads, as an alternative to
+ * publishing snapshots
+ *
+ * Jobs are partitioned by a hash of their id over independent stripes, each
+ * an engine of its own behind a StampedLock, so addJob, updateJob and
+ * removeJob only lock one stripe and queries keep running on the others.
+ * Queries visit the stripes one at a time and merge the results:
+ * every stripe is read consistently, but a query may see one stripe before
+ * and another after a concurrent change. Queries take the stripe's read
+ * lock, since a stripe's engine is changed in place and a query racing a
+ * write could fail or never finish rather than just read stale values.
+ * Only the job count, a field copied under the write lock, is read
+ * optimistically.
+ *
+ * Users and roads are copied into every stripe, so their changes lock the
+ * stripes one after another and are meant to be rare.
+ *
+ * This is a wrapper over JobRecommendationEngine rather than a mode of it,
+ * so the single engine keeps its lock-free snapshot path unchanged.
+ */
+public class StripedJobEngine {
+    private final Stripe[] stripes;
+    private final Map<String, User> users; // as added, for merging recommendations
+    private final Object sharedWrites; // orders changes that touch every stripe
+    private final ThreadLocal<ReaderView[]> views;
+    private final LongAdder optimisticReads;
+    private final LongAdder lockedReads;
+
+    /**
+     * One stripe per processor: more stripes let more writers run at once,
+     * but every query visits each stripe
+     */
+    public StripedJobEngine() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public StripedJobEngine(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Need at least one stripe");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.users = new ConcurrentHashMap<>();
+        this.sharedWrites = new Object();
+        this.views = ThreadLocal.withInitial(() -> new ReaderView[stripeCount]);
+        this.optimisticReads = new LongAdder();
+        this.lockedReads = new LongAdder();
+    }
+
+    /**
+     * Add a job, replacing one with the same id
+     * Time Complexity: as JobRecommendationEngine.addJob, locking one stripe
+     */
+    public void addJob(Job job) {
+        write(stripeOf(job.getId()), engine -> {
+            engine.addJob(job);
+            return null;
+        });
+    }
+
+    public boolean updateJob(Job job) {
+        return write(stripeOf(job.getId()), engine -> engine.updateJob(job));
+    }
+
+    public boolean removeJob(String jobId) {
+        return write(stripeOf(jobId), engine -> engine.removeJob(jobId));
+    }
+
+    /**
+     * Add a user to every stripe; a user with an existing id replaces it
+     * Time Complexity: O(stripes)
+     */
+    public void addUser(User user) {
+        synchronized (sharedWrites) {
+            users.put(user.getId(), user);
+            for (int i = 0; i < stripes.length; i++) {
+                User copy = user.copy(); // location ids differ per stripe
+                write(i, engine -> {
+                    engine.addUser(copy);
+                    return null;
+                });
+            }
+        }
+    }
+
+    public boolean updateUser(User user) {
+        synchronized (sharedWrites) {
+            if (!users.containsKey(user.getId())) {
+                return false;
+            }
+            addUser(user);
+            return true;
+        }
+    }
+
+    public boolean removeUser(String userId) {
+        synchronized (sharedWrites) {
+            if (users.remove(userId) == null) {
+                return false;
+            }
+            for (int i = 0; i < stripes.length; i++) {
+                write(i, engine -> engine.removeUser(userId));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Add a road to every stripe's location graph, adding missing endpoints
+     * Time Complexity: O(stripes)
+     */
+    public void addRoad(String from, String to, double distance) {
+        synchronized (sharedWrites) {
+            for (int i = 0; i < stripes.length; i++) {
+                write(i, engine -> {
+                    LocationGraph graph = engine.getWritableLocationGraph();
+                    for (String location : new String[] {from, to}) {
+                        if (!graph.hasLocation(location)) {
+                            graph.addLocation(location, 0.0, 0.0);
+                        }
+                    }
+                    graph.addRoad(from, to, distance);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Best jobs for a user over all stripes
+     * Stripes are merged on the score each recommendation was ranked by.
+     * Time Complexity: O(n log k) for n jobs, plus O(stripes * k log k) to merge
+     */
+    public List<JobRecommendationEngine.JobRecommendation> getRecommendations(String userId, int limit) {
+        return mergeRecommendations(userId, limit, engine -> engine.getRecommendations(userId, limit));
+    }
+
+    public List<JobRecommendationEngine.JobRecommendation> getRecommendations(String userId, JobQuery query, int limit) {
+        return mergeRecommendations(userId, limit, engine -> engine.getRecommendations(userId, query, limit));
+    }
+
+    /**
+     * Jobs whose title starts with the prefix, ordered by title
+     * Time Complexity: O(stripes * (m + k)) for prefix length m and limit k
+     */
+    public List<Job> searchJobsByTitle(String prefix, int limit) {
+        List<Job> result = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            result.addAll(read(i, engine -> engine.searchJobsByTitle(prefix, limit)));
+        }
+        result.sort(Comparator.comparing(job -> job.getTitle().toLowerCase()));
+        return result.size() <= limit ? result : new ArrayList<>(result.subList(0, limit));
+    }
+
+    /**
+     * Jobs requiring a skill with the prefix, grouped by stripe
+     */
+    public List<Job> searchJobsBySkill(String skillPrefix) {
+        return concat(engine -> engine.searchJobsBySkill(skillPrefix));
+    }
+
+    /**
+     * Jobs matching a boolean filter, grouped by stripe
+     */
+    public List<Job> findJobs(JobQuery query) {
+        return concat(engine -> engine.findJobs(query));
+    }
+
+    public JobQueryEngine.FacetCounts getFacets(JobQuery query) {
+        List<JobQueryEngine.FacetCounts> parts = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            parts.add(read(i, engine -> engine.getFacets(query)));
+        }
+        return JobQueryEngine.FacetCounts.merge(parts);
+    }
+
+    /**
+     * Jobs within a road distance, grouped by stripe
+     */
+    public List<Job> findJobsNearLocation(String location, double maxDistance) {
+        return concat(engine -> engine.findJobsNearLocation(location, maxDistance));
+    }
+
+    /**
+     * Time Complexity: O(stripes), without locking unless a write gets in the way
+     */
+    public int getJobCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.tryOptimisticRead();
+            int stripeCount = stripe.jobCount;
+            if (stripe.lock.validate(stamp)) {
+                optimisticReads.increment();
+            } else {
+                stamp = stripe.lock.readLock();
+                try {
+                    lockedReads.increment();
+                    stripeCount = stripe.jobCount;
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+            count += stripeCount;
+        }
+        return count;
+    }
+
+    public int getUserCount() {
+        return users.size();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Stripe job counts read optimistically, without taking a lock
+     */
+    public long getOptimisticReads() {
+        return optimisticReads.sum();
+    }
+
+    /**
+     * Stripe reads that took the read lock: every query, and job counts a
+     * write got in the way of
+     */
+    public long getLockedReads() {
+        return lockedReads.sum();
+    }
+
+    private List<JobRecommendationEngine.JobRecommendation> mergeRecommendations(String userId, int limit,
+            Function<JobRecommendationEngine, List<JobRecommendationEngine.JobRecommendation>> query) {
+        User user = users.get(userId);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+
+        // The reported scores are not the ranking order (see JobPriorityQueue),
+        // so rank the candidates of all stripes again
+        List<JobRecommendationEngine.JobRecommendation> candidates = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            candidates.addAll(read(i, query));
+        }
+        TopScores top = new TopScores(limit);
+        for (int i = 0; i < candidates.size(); i++) {
+            JobRecommendationEngine.JobRecommendation candidate = candidates.get(i);
+            top.offer(i, JobPriorityQueue.calculateJobScore(candidate.job, user, candidate.distance));
+        }
+
+        int[] best = top.drainIds(new double[top.size()]);
+        List<JobRecommendationEngine.JobRecommendation> result = new ArrayList<>(best.length);
+        for (int index : best) {
+            result.add(candidates.get(index));
+        }
+        return result;
+    }
+
+    private List<Job> concat(Function<JobRecommendationEngine, List<Job>> query) {
+        List<Job> result = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            result.addAll(read(i, query));
+        }
+        return result;
+    }
+
+    /**
+     * Run a query against one stripe through this thread's view of it
+     */
+    private <T> T read(int index, Function<JobRecommendationEngine, T> query) {
+        Stripe stripe = stripes[index];
+        long stamp = stripe.lock.readLock();
+        try {
+            lockedReads.increment();
+            return query.apply(viewOf(index));
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * This thread's view of a stripe, synced if the stripe changed since
+     */
+    private JobRecommendationEngine viewOf(int index) {
+        Stripe stripe = stripes[index];
+        ReaderView[] threadViews = views.get();
+        ReaderView view = threadViews[index];
+        if (view == null) {
+            view = new ReaderView(stripe.engine.readerView(), stripe.version);
+            threadViews[index] = view;
+        } else if (view.version != stripe.version) {
+            view.engine.syncView(stripe.engine);
+            view.version = stripe.version;
+        }
+        return view.engine;
+    }
+
+    private <T> T write(int index, Function<JobRecommendationEngine, T> change) {
+        Stripe stripe = stripes[index];
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.version++;
+            return change.apply(stripe.engine);
+        } finally {
+            stripe.jobCount = stripe.engine.getSystemStats().totalJobs;
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    private int stripeOf(String jobId) {
+        return Math.floorMod(jobId.hashCode() * 0x9E3779B9, stripes.length);
+    }
+
+    /**
+     * One partition of the jobs; version counts the writes it has taken
+     */
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        final JobRecommendationEngine engine = new JobRecommendationEngine();
+        long version; // guarded by lock
+        int jobCount; // written under the write lock, read optimistically
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StripedJobEngine{stripes=%d, jobs=%d, users=%d}",
+                           stripes.length, getJobCount(), getUserCount());
+    }
+}
@@ -4,30 +4,37 @@ import java.util.*;
 
 /**
  * Job class representing available job opportunities
- * Uses HashSet for required skills for efficient matching
+ * Required skills are a sorted array of SkillDictionary ids and benefits a
+ * plain array; jobs without any share one empty array. internStrings()
+ * swaps repeated values (company, location, ...) for shared instances.
  */
 public class Job {
+    private static final int[] NO_SKILLS = new int[0];
+    private static final String[] NO_BENEFITS = new String[0];
+
     private String id;
     private String title;
     private String company;
     private String location;
+    private int locationId; // interned id from the engine's LocationRegistry, -1 if not assigned
     private double salary;
-    private Set<String> requiredSkills; // Using HashSet for O(1) lookup
+    private int[] requiredSkillIds; // SkillDictionary ids, sorted
     private String description;
     private String jobType; // full-time, part-time, contract
     private double latitude;
     private double longitude;
     private int experienceLevel; // 1-5 (entry to senior)
-    private List<String> benefits;
+    private String[] benefits;
 
     public Job(String id, String title, String company, String location, double salary) {
         this.id = id;
         this.title = title;
         this.company = company;
         this.location = location;
+        this.locationId = -1;
         this.salary = salary;
-        this.requiredSkills = new HashSet<>();
-        this.benefits = new ArrayList<>();
+        this.requiredSkillIds = NO_SKILLS;
+        this.benefits = NO_BENEFITS;
         this.experienceLevel = 1; // default entry level
     }
 
@@ -42,13 +49,42 @@ public class Job {
     public void setCompany(String company) { this.company = company; }
 
     public String getLocation() { return location; }
-    public void setLocation(String location) { this.location = location; }
+    public void setLocation(String location) {
+        this.location = location;
+        this.locationId = -1; // re-interned when the engine next sees this job
+    }
+
+    public int getLocationId() { return locationId; }
+    public void setLocationId(int locationId) { this.locationId = locationId; }
 
     public double getSalary() { return salary; }
     public void setSalary(double salary) { this.salary = salary; }
 
-    public Set<String> getRequiredSkills() { return requiredSkills; }
-    public void setRequiredSkills(Set<String> requiredSkills) { this.requiredSkills = requiredSkills; }
+    /**
+     * Read-only view of the lowercase skill names; use addRequiredSkill to change
+     */
+    public Set<String> getRequiredSkills() { return SkillDictionary.namesOf(requiredSkillIds); }
+
+    public void setRequiredSkills(Set<String> requiredSkills) {
+        this.requiredSkillIds = NO_SKILLS;
+        if (requiredSkills != null) {
+            for (String skill : requiredSkills) {
+                addRequiredSkill(skill);
+            }
+        }
+    }
+
+    /**
+     * Sorted SkillDictionary ids of the required skills (shared, do not modify)
+     */
+    public int[] getRequiredSkillIds() { return requiredSkillIds; }
+
+    /**
+     * Replace the required skills with sorted SkillDictionary ids (kept, not copied)
+     */
+    public void setRequiredSkillIds(int[] sortedSkillIds) {
+        this.requiredSkillIds = sortedSkillIds.length > 0 ? sortedSkillIds : NO_SKILLS;
+    }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
@@ -65,33 +101,95 @@ public class Job {
     public int getExperienceLevel() { return experienceLevel; }
     public void setExperienceLevel(int experienceLevel) { this.experienceLevel = experienceLevel; }
 
-    public List<String> getBenefits() { return benefits; }
-    public void setBenefits(List<String> benefits) { this.benefits = benefits; }
+    /**
+     * Read-only view of the benefits; use addBenefit to change
+     */
+    public List<String> getBenefits() { return Collections.unmodifiableList(Arrays.asList(benefits)); }
+
+    public void setBenefits(List<String> benefits) {
+        this.benefits = benefits == null || benefits.isEmpty() ? NO_BENEFITS : benefits.toArray(new String[0]);
+    }
 
     // Skill management methods
     public void addRequiredSkill(String skill) {
-        requiredSkills.add(skill.toLowerCase());
+        int skillId = SkillDictionary.intern(skill);
+        int insertAt = -Arrays.binarySearch(requiredSkillIds, skillId) - 1;
+        if (insertAt < 0) {
+            return; // already required
+        }
+
+        int[] ids = new int[requiredSkillIds.length + 1];
+        System.arraycopy(requiredSkillIds, 0, ids, 0, insertAt);
+        ids[insertAt] = skillId;
+        System.arraycopy(requiredSkillIds, insertAt, ids, insertAt + 1, requiredSkillIds.length - insertAt);
+        requiredSkillIds = ids;
     }
 
     public boolean requiresSkill(String skill) {
-        return requiredSkills.contains(skill.toLowerCase());
+        int skillId = SkillDictionary.lookup(skill);
+        return skillId >= 0 && requiresSkill(skillId);
+    }
+
+    public boolean requiresSkill(int skillId) {
+        return Arrays.binarySearch(requiredSkillIds, skillId) >= 0;
     }
 
     public void addBenefit(String benefit) {
-        if (!benefits.contains(benefit)) {
-            benefits.add(benefit);
+        for (String existing : benefits) {
+            if (existing.equals(benefit)) {
+                return;
+            }
         }
+        String[] grown = Arrays.copyOf(benefits, benefits.length + 1);
+        grown[benefits.length] = benefit;
+        benefits = grown;
+    }
+
+    /**
+     * Replace repeated values with their StringPool instances, so a large
+     * catalog keeps one copy of each company, location and job type. Titles
+     * and benefits are left alone: there are too many of them to pool for
+     * good. Called where jobs are ingested.
+     */
+    public void internStrings() {
+        company = StringPool.intern(company);
+        location = StringPool.intern(location); // same value, so locationId stays valid
+        jobType = StringPool.intern(jobType);
+    }
+
+    /**
+     * Copy of this job, e.g. to change it while the original stays visible
+     * to readers of a published engine snapshot
+     */
+    public Job copy() {
+        Job copy = new Job(id, title, company, location, salary);
+        copy.locationId = locationId;
+        copy.requiredSkillIds = requiredSkillIds; // replaced, never changed in place
+        copy.description = description;
+        copy.jobType = jobType;
+        copy.latitude = latitude;
+        copy.longitude = longitude;
+        copy.experienceLevel = experienceLevel;
+        copy.benefits = benefits.length > 0 ? benefits.clone() : NO_BENEFITS;
+        return copy;
     }
 
     // Calculate distance to another location using Haversine formula
     public double calculateDistance(double lat2, double lon2) {
+        return distanceBetween(latitude, longitude, lat2, lon2);
+    }
+
+    /**
+     * Haversine distance in km between two coordinates
+     */
+    public static double distanceBetween(double lat1, double lon1, double lat2, double lon2) {
         final int R = 6371; // Earth's radius in kilometers
 
-        double latDistance = Math.toRadians(lat2 - this.latitude);
-        double lonDistance = Math.toRadians(lon2 - this.longitude);
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
         
         double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(lat2))
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
                 * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
@@ -102,7 +200,7 @@ public class Job {
     @Override
     public String toString() {
         return String.format("Job{id='%s', title='%s', company='%s', location='%s', salary=%.2f, skills=%s}", 
-                           id, title, company, location, salary, requiredSkills);
+                           id, title, company, location, salary, getRequiredSkills());
     }
 
     @Override
@@ -0,0 +1,121 @@
+package com.ruralyouth.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of normalized (lowercase) skill names to dense int ids
+ *
+ * Jobs and users store skill ids next to their names, so scoring compares
+ * ints instead of hashing and lowercasing strings. Ids are never reused.
+ */
+public final class SkillDictionary {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size;
+
+    private SkillDictionary() {
+    }
+
+    /**
+     * Lowercase form of a skill; returns the same string when it is already
+     * lowercase ASCII, so normalized input costs no allocation
+     */
+    public static String normalize(String skill) {
+        for (int i = 0; i < skill.length(); i++) {
+            char c = skill.charAt(i);
+            if (c >= 128 || (c >= 'A' && c <= 'Z')) {
+                return skill.toLowerCase();
+            }
+        }
+        return skill;
+    }
+
+    /**
+     * Id of the skill, assigning the next id to a new skill
+     */
+    public static int intern(String skill) {
+        String key = normalize(skill);
+        Integer id = ids.get(key);
+        return id != null ? id : register(key);
+    }
+
+    /**
+     * Id of the skill, or -1 if no job or user has used it
+     */
+    public static int lookup(String skill) {
+        Integer id = ids.get(normalize(skill));
+        return id != null ? id : -1;
+    }
+
+    public static String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * One of 64 bits chosen by the skill's name, stable across restarts
+     * Two skill sets can share a skill only if their OR-ed masks intersect
+     */
+    public static long maskOf(int id) {
+        return 1L << (names[id].hashCode() & 63);
+    }
+
+    /**
+     * Read-only set view of skill names over sorted ids, in id order
+     */
+    public static Set<String> namesOf(int[] sortedIds) {
+        if (sortedIds.length == 0) {
+            return Collections.emptySet();
+        }
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < sortedIds.length;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (index >= sortedIds.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return nameOf(sortedIds[index++]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return sortedIds.length;
+            }
+
+            @Override
+            public boolean contains(Object skill) {
+                int id = skill instanceof String ? lookup((String) skill) : -1;
+                return id >= 0 && Arrays.binarySearch(sortedIds, id) >= 0;
+            }
+        };
+    }
+
+    public static synchronized int size() {
+        return size;
+    }
+
+    private static synchronized int register(String key) {
+        Integer existing = ids.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = key;
+        ids.put(key, size); // published after its name
+        return size++;
+    }
+}
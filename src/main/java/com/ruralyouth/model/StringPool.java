@@ -0,0 +1,34 @@
+package com.ruralyouth.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared pool of canonical string instances (flyweights)
+ *
+ * Only meant for low-cardinality values that repeat across many records,
+ * such as company, location and job type. Pooled strings stay for the life
+ * of the process, so per-record values (titles, benefits, preferences)
+ * must not go through it.
+ */
+public final class StringPool {
+    private static final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    private StringPool() {
+    }
+
+    /**
+     * The pooled instance equal to value (value itself the first time); null stays null
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    public static int size() {
+        return pool.size();
+    }
+}
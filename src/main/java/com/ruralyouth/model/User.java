@@ -4,7 +4,8 @@ import java.util.*;
 
 /**
  * User class representing a rural youth seeking job opportunities
- * Uses HashMap for skills storage and efficient lookup
+ * Skills are kept as sorted SkillDictionary ids with a byte proficiency each,
+ * so scoring looks them up without boxing, hashing or lowercasing
  */
 public class User {
     private String id;
@@ -12,9 +13,13 @@ public class User {
     private int age;
     private String education;
     private String location;
+    private int locationId; // interned id from the engine's LocationRegistry, -1 if not assigned
     private double latitude;
     private double longitude;
-    private Map<String, Integer> skills; // skill -> proficiency level (1-10)
+    private int[] skillIds; // sorted SkillDictionary ids
+    private byte[] proficiencies; // proficiency level (1-10) per entry of skillIds
+    private int skillCount;
+    private final Map<String, Integer> skillsView; // read-only skill -> proficiency view
     private List<String> preferences;
     private double maxDistance; // maximum distance willing to travel
 
@@ -24,9 +29,12 @@ public class User {
         this.age = age;
         this.education = education;
         this.location = location;
+        this.locationId = -1;
         this.latitude = 0.0;
         this.longitude = 0.0;
-        this.skills = new HashMap<>();
+        this.skillIds = new int[4];
+        this.proficiencies = new byte[4];
+        this.skillsView = new SkillMap();
         this.preferences = new ArrayList<>();
         this.maxDistance = 50.0; // default 50 km
     }
@@ -45,10 +53,26 @@ public class User {
     public void setEducation(String education) { this.education = education; }
 
     public String getLocation() { return location; }
-    public void setLocation(String location) { this.location = location; }
+    public void setLocation(String location) {
+        this.location = location;
+        this.locationId = -1; // re-interned when the engine next sees this user
+    }
+
+    public int getLocationId() { return locationId; }
+    public void setLocationId(int locationId) { this.locationId = locationId; }
+
+    /**
+     * Read-only view of skill -> proficiency; use addSkill to change
+     */
+    public Map<String, Integer> getSkills() { return skillsView; }
 
-    public Map<String, Integer> getSkills() { return skills; }
-    public void setSkills(Map<String, Integer> skills) { this.skills = skills; }
+    public void setSkills(Map<String, Integer> skills) {
+        Map<String, Integer> replacement = new HashMap<>(skills); // skills may be this user's own view
+        skillCount = 0;
+        for (Map.Entry<String, Integer> skill : replacement.entrySet()) {
+            addSkill(skill.getKey(), skill.getValue());
+        }
+    }
 
     public List<String> getPreferences() { return preferences; }
     public void setPreferences(List<String> preferences) { this.preferences = preferences; }
@@ -64,15 +88,73 @@ public class User {
 
     // Skill management methods
     public void addSkill(String skill, int proficiency) {
-        skills.put(skill.toLowerCase(), Math.min(10, Math.max(1, proficiency)));
+        int skillId = SkillDictionary.intern(skill);
+        byte level = (byte) Math.min(10, Math.max(1, proficiency));
+
+        int index = Arrays.binarySearch(skillIds, 0, skillCount, skillId);
+        if (index >= 0) {
+            proficiencies[index] = level;
+            return;
+        }
+
+        index = -index - 1;
+        if (skillCount == skillIds.length) {
+            skillIds = Arrays.copyOf(skillIds, skillCount * 2);
+            proficiencies = Arrays.copyOf(proficiencies, skillCount * 2);
+        }
+        System.arraycopy(skillIds, index, skillIds, index + 1, skillCount - index);
+        System.arraycopy(proficiencies, index, proficiencies, index + 1, skillCount - index);
+        skillIds[index] = skillId;
+        proficiencies[index] = level;
+        skillCount++;
     }
 
     public int getSkillProficiency(String skill) {
-        return skills.getOrDefault(skill.toLowerCase(), 0);
+        int skillId = SkillDictionary.lookup(skill);
+        return skillId >= 0 ? getSkillProficiency(skillId) : 0;
+    }
+
+    /**
+     * Proficiency for a SkillDictionary id, 0 if the user lacks the skill
+     * Time Complexity: O(log s) for s skills, no allocation
+     */
+    public int getSkillProficiency(int skillId) {
+        int index = Arrays.binarySearch(skillIds, 0, skillCount, skillId);
+        return index >= 0 ? proficiencies[index] : 0;
+    }
+
+    /**
+     * Sorted SkillDictionary ids of the user's skills (a copy)
+     */
+    public int[] getSkillIds() {
+        return Arrays.copyOf(skillIds, skillCount);
+    }
+
+    /**
+     * Replace all skills with sorted SkillDictionary ids and their proficiencies
+     */
+    public void setSkillLevels(int[] sortedSkillIds, byte[] levels) {
+        skillIds = Arrays.copyOf(sortedSkillIds, Math.max(4, sortedSkillIds.length));
+        proficiencies = Arrays.copyOf(levels, skillIds.length);
+        skillCount = sortedSkillIds.length;
+    }
+
+    /**
+     * OR of SkillDictionary.maskOf over the user's skills
+     */
+    public long getSkillMask() {
+        long mask = 0;
+        for (int i = 0; i < skillCount; i++) {
+            mask |= SkillDictionary.maskOf(skillIds[i]);
+        }
+        return mask;
     }
 
+    /**
+     * Read-only view of the lowercase skill names
+     */
     public Set<String> getSkillSet() {
-        return new HashSet<>(skills.keySet());
+        return skillsView.keySet();
     }
 
     public void addPreference(String preference) {
@@ -81,10 +163,24 @@ public class User {
         }
     }
 
+    /**
+     * Copy of this user with its own skill arrays and preferences
+     */
+    public User copy() {
+        User copy = new User(id, name, age, education, location);
+        copy.locationId = locationId;
+        copy.latitude = latitude;
+        copy.longitude = longitude;
+        copy.setSkillLevels(getSkillIds(), Arrays.copyOf(proficiencies, skillCount));
+        copy.preferences = new ArrayList<>(preferences);
+        copy.maxDistance = maxDistance;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return String.format("User{id='%s', name='%s', age=%d, location='%s', skills=%s}", 
-                           id, name, age, location, skills);
+                           id, name, age, location, skillsView);
     }
 
     @Override
@@ -99,4 +195,60 @@ public class User {
     public int hashCode() {
         return Objects.hash(id);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Map view over the skill arrays, in skill id order
+     */
+    private final class SkillMap extends AbstractMap<String, Integer> {
+        private final Set<Map.Entry<String, Integer>> entries = new AbstractSet<Map.Entry<String, Integer>>() {
+            @Override
+            public Iterator<Map.Entry<String, Integer>> iterator() {
+                return new Iterator<Map.Entry<String, Integer>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < skillCount;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Integer> next() {
+                        if (index >= skillCount) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Integer> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                SkillDictionary.nameOf(skillIds[index]), (int) proficiencies[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return skillCount;
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public int size() {
+            return skillCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && getSkillProficiency((String) key) > 0;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int proficiency = key instanceof String ? getSkillProficiency((String) key) : 0;
+            return proficiency > 0 ? proficiency : null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.CompressedBitmap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+/**
+ * Tests for the compressed bitmap and its set operations
+ */
+public class CompressedBitmapTest {
+
+    @Test
+    public void testAddAndContains() {
+        CompressedBitmap bitmap = CompressedBitmap.of(5, 70_000, 3, 5, 200_000);
+
+        assertEquals(4, bitmap.getCardinality());
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+        assertArrayEquals(new int[] {3, 5, 70_000, 200_000}, bitmap.toArray());
+        assertTrue(new CompressedBitmap().isEmpty());
+    }
+
+    @Test
+    public void testRemoveShrinksAndDropsChunks() {
+        CompressedBitmap bitmap = CompressedBitmap.range(0, 5000); // one bitset chunk
+        bitmap.add(70_000);
+        for (int id = 0; id < 5000; id += 2) {
+            bitmap.remove(id);
+        }
+        bitmap.remove(70_000);
+        bitmap.remove(123_456); // absent ids are ignored
+
+        assertEquals(2500, bitmap.getCardinality());
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(4999));
+        assertArrayEquals(CompressedBitmap.of(1, 3, 5).toArray(), Arrays.copyOf(bitmap.toArray(), 3));
+        for (int id = 1; id < 5000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void testOperationsMatchSortedSets() {
+        Random random = new Random(21);
+        for (int round = 0; round < 60; round++) {
+            // Mix sparse and dense chunks so both container kinds meet
+            TreeSet<Integer> a = randomSet(random);
+            TreeSet<Integer> b = randomSet(random);
+            CompressedBitmap bitmapA = toBitmap(a);
+            CompressedBitmap bitmapB = toBitmap(b);
+
+            TreeSet<Integer> and = new TreeSet<>(a);
+            and.retainAll(b);
+            TreeSet<Integer> or = new TreeSet<>(a);
+            or.addAll(b);
+            TreeSet<Integer> andNot = new TreeSet<>(a);
+            andNot.removeAll(b);
+
+            assertArrayEquals(toArray(and), CompressedBitmap.and(bitmapA, bitmapB).toArray());
+            assertArrayEquals(toArray(or), CompressedBitmap.or(bitmapA, bitmapB).toArray());
+            assertArrayEquals(toArray(andNot), CompressedBitmap.andNot(bitmapA, bitmapB).toArray());
+            assertEquals(a.size(), bitmapA.getCardinality());
+        }
+    }
+
+    @Test
+    public void testDenseRangesStayCompact() {
+        CompressedBitmap range = CompressedBitmap.range(0, 1_000_000);
+        assertEquals(1_000_000, range.getCardinality());
+        // Bitset chunks: about one bit per id instead of four bytes
+        assertTrue(range.getSizeInBytes() < 140_000);
+
+        CompressedBitmap evens = new CompressedBitmap();
+        for (int id = 0; id < 1_000_000; id += 2) {
+            evens.add(id);
+        }
+        CompressedBitmap odds = CompressedBitmap.andNot(range, evens);
+        assertEquals(500_000, odds.getCardinality());
+        assertTrue(odds.contains(999_999));
+        assertTrue(CompressedBitmap.and(odds, evens).isEmpty());
+    }
+
+    @Test
+    public void testForkCopiesChunksOnWrite() {
+        CompressedBitmap original = CompressedBitmap.range(0, 10_000); // one bitset chunk
+        original.add(70_000); // and an array chunk
+        CompressedBitmap fork = original.fork();
+
+        fork.remove(5);
+        fork.add(70_001);
+        fork.add(200_000);
+        original.remove(70_000);
+
+        assertEquals(10_000, original.getCardinality());
+        assertTrue(original.contains(5));
+        assertFalse(original.contains(70_001));
+        assertEquals(10_002, fork.getCardinality());
+        assertFalse(fork.contains(5));
+        assertTrue(fork.contains(70_000));
+        assertTrue(fork.contains(200_000));
+    }
+
+    private static TreeSet<Integer> randomSet(Random random) {
+        TreeSet<Integer> set = new TreeSet<>();
+        int chunks = 1 + random.nextInt(4);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int base = random.nextInt(8) << 16;
+            int count = random.nextBoolean() ? random.nextInt(200) : 3000 + random.nextInt(20_000);
+            for (int i = 0; i < count; i++) {
+                set.add(base + random.nextInt(1 << 16));
+            }
+        }
+        return set;
+    }
+
+    private static CompressedBitmap toBitmap(Set<Integer> set) {
+        List<Integer> shuffled = new ArrayList<>(set);
+        Collections.shuffle(shuffled, new Random(set.size()));
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int id : shuffled) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static int[] toArray(Set<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
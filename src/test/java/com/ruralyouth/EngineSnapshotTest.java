@@ -0,0 +1,255 @@
+package com.ruralyouth;
+
+import com.ruralyouth.data.SampleDataLoader;
+import com.ruralyouth.dsa.LocationGraph;
+import com.ruralyouth.engine.EngineSnapshot;
+import com.ruralyouth.engine.JobQuery;
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.ruralyouth.JobFixtures.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for publishing immutable engine snapshots to concurrent readers
+ */
+public class EngineSnapshotTest {
+
+    @Test
+    public void testSnapshotIsUnaffectedByLaterChanges() {
+        JobRecommendationEngine engine = sampleEngine();
+        assertNull(engine.current());
+        EngineSnapshot snapshot = engine.publish();
+        assertSame(snapshot, engine.current());
+        String before = describe(snapshot);
+
+        applyChanges(engine);
+        assertEquals(before, describe(snapshot));
+
+        EngineSnapshot next = engine.publish();
+        assertEquals(2, next.getVersion());
+        assertEquals(engine.getSystemStats().toString(), next.getSystemStats().toString());
+        assertTrue(next.findJobs(JobQuery.all()).stream().noneMatch(job -> job.getId().equals("J001")));
+
+        // Same answers as an engine that made the changes without publishing
+        JobRecommendationEngine reference = sampleEngine();
+        applyChanges(reference);
+        assertEquals(describe(reference.publish()), describe(next));
+
+        // A new location graph re-ids jobs and users the old snapshots still use
+        engine.setLocationGraph(new LocationGraph());
+        assertEquals(before, describe(snapshot));
+        assertTrue(engine.publish().findJobsNearLocation("Village A", 30).stream()
+                .allMatch(job -> job.getLocation().equals("Village A")));
+    }
+
+    @Test
+    public void testConcurrentReadersSeeWholeVersions() throws Exception {
+        Random random = new Random(48);
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            engine.addJob(createJob("J" + i, random));
+            live.add("J" + i);
+        }
+        Map<Long, Integer> jobCounts = new ConcurrentHashMap<>();
+        jobCounts.put(1L, live.size());
+        engine.publish();
+
+        int readers = 3;
+        int rounds = 200;
+        AtomicLong reads = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writerDone = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+
+        long start = System.nanoTime();
+        pool.submit(() -> {
+            try {
+                for (int round = 0; round < rounds; round++) {
+                    for (int op = 0; op < 20; op++) {
+                        String id = live.get(random.nextInt(live.size()));
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                engine.removeJob(id);
+                                live.remove(id);
+                                break;
+                            case 1:
+                                engine.updateJob(createJob(id, random));
+                                break;
+                            default:
+                                String added = "N" + round + "-" + op;
+                                engine.addJob(createJob(added, random));
+                                live.add(added);
+                        }
+                    }
+                    jobCounts.put(round + 2L, live.size());
+                    engine.publish();
+                }
+            } catch (RuntimeException e) {
+                failure.set("Writer failed: " + e);
+            } finally {
+                writerDone.countDown();
+            }
+        });
+
+        for (int r = 0; r < readers; r++) {
+            pool.submit(() -> {
+                long lastVersion = 0;
+                while (writerDone.getCount() > 0 && failure.get() == null) {
+                    EngineSnapshot snapshot = engine.current();
+                    String problem = checkConsistent(snapshot, jobCounts.get(snapshot.getVersion()));
+                    if (snapshot.getVersion() < lastVersion) {
+                        problem = "Version went backwards: " + lastVersion + " -> " + snapshot.getVersion();
+                    }
+                    if (problem != null) {
+                        failure.compareAndSet(null, problem);
+                    }
+                    lastVersion = snapshot.getVersion();
+                    reads.incrementAndGet();
+                }
+            });
+        }
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(rounds + 1, engine.current().getVersion());
+        assertNull(checkConsistent(engine.current(), live.size()));
+        System.out.printf("EngineSnapshot: %d publishes and %d consistent reads in %d ms (%d reads/s)%n",
+                rounds, reads.get(), millis, reads.get() * 1000 / millis);
+    }
+
+    @Test
+    public void testReadThroughputByThreadCount() throws Exception {
+        Random random = new Random(49);
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        for (int i = 0; i < 5000; i++) {
+            engine.addJob(createJob("J" + i, random));
+        }
+        for (int i = 0; i < 100; i++) {
+            User user = new User("U" + i, "User " + i, 20, "ITI", "Town " + random.nextInt(10));
+            user.addSkill("skill " + random.nextInt(20), 5);
+            engine.addUser(user);
+        }
+        EngineSnapshot snapshot = engine.publish();
+        int queriesPerThread = 300;
+        for (int q = 0; q < queriesPerThread; q++) {
+            snapshot.getRecommendations("U" + q % 100, 10); // warm up
+        }
+
+        StringBuilder report = new StringBuilder("EngineSnapshot reads/s by thread count:");
+        for (int threads = 1; threads <= Math.max(2, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Integer>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                results.add(pool.submit(() -> {
+                    Random queries = new Random(seed);
+                    int found = 0;
+                    for (int q = 0; q < queriesPerThread; q++) {
+                        found += snapshot.getRecommendations("U" + queries.nextInt(100), 10).size();
+                        found += snapshot.searchJobsByTitle("role " + queries.nextInt(40), 20).size();
+                        found += snapshot.findJobs(JobQuery.and(JobQuery.skill("skill " + queries.nextInt(20)),
+                                JobQuery.salaryAtLeast(20000))).size();
+                    }
+                    return found;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertTrue(result.get() > 0);
+            }
+            long nanos = System.nanoTime() - start;
+            pool.shutdown();
+            report.append(String.format(" %d: %d", threads, threads * queriesPerThread * 1_000_000_000L / nanos));
+        }
+        System.out.println(report);
+    }
+
+    /**
+     * Null if every index of the snapshot agrees on the job count
+     */
+    private static String checkConsistent(EngineSnapshot snapshot, Integer expectedJobs) {
+        int jobs = snapshot.getSystemStats().totalJobs;
+        int[] counts = {
+            expectedJobs != null ? expectedJobs : -1,
+            snapshot.findJobs(JobQuery.all()).size(),
+            snapshot.getFacets(JobQuery.all()).totalJobs,
+            snapshot.searchJobsByTitle("role").size(),
+            snapshot.searchJobsFullText("company", 100_000).size(),
+            (int) snapshot.findJobs(JobQuery.all()).stream().filter(Objects::nonNull).count(),
+            regionTotal(snapshot)
+        };
+        for (int count : counts) {
+            if (count != jobs) {
+                return "Version " + snapshot.getVersion() + " has " + jobs + " jobs but counts " + Arrays.toString(counts);
+            }
+        }
+        return null;
+    }
+
+    private static int regionTotal(EngineSnapshot snapshot) {
+        int total = 0;
+        for (int town = 0; town < 10; town++) {
+            total += snapshot.getRegionStats("Town " + town).jobCount;
+        }
+        return total;
+    }
+
+    private static JobRecommendationEngine sampleEngine() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(engine);
+        engine.setLocationHierarchy("Village A", "Alipur Block", "North District");
+        return engine;
+    }
+
+    /**
+     * Touch every structure: jobs, vocabularies, text and filter indexes,
+     * users, the location graph and the region hierarchy
+     */
+    private static void applyChanges(JobRecommendationEngine engine) {
+        engine.removeJob("J001");
+        Job changed = new Job("J003", "Master Tailor", "Fashion Stitch", "Town B", 31000);
+        changed.addRequiredSkill("sewing");
+        engine.updateJob(changed);
+        Job added = new Job("J100", "Farm Manager", "Green Fields", "Village Z", 40000);
+        added.addRequiredSkill("farming");
+        engine.addJob(added);
+
+        engine.removeUser("U002");
+        User moved = new User("U001", "Rahul Kumar", 22, "High School", "City C");
+        moved.addSkill("Java", 8);
+        engine.updateUser(moved);
+
+        engine.setLocationHierarchy("Town B", "Alipur Block", "North District");
+        engine.getWritableLocationGraph().addRoad("Village A", "City C", 5.0);
+        engine.freezeSearchVocabularies();
+        engine.addJob(new Job("J101", "Tractor Mechanic", "Agro Works", "Village A", 22000));
+    }
+
+    private static String describe(EngineSnapshot snapshot) {
+        StringBuilder out = new StringBuilder();
+        out.append(snapshot.getSystemStats()).append('\n');
+        out.append(ids(snapshot.findJobs(JobQuery.all()))).append('\n');
+        out.append(snapshot.getFacets(JobQuery.all())).append('\n');
+        out.append(snapshot.suggestJobTitles("", 10)).append(snapshot.suggestSkills("", 10)).append('\n');
+        out.append(ids(snapshot.searchJobsByTitle("t"))).append(ids(snapshot.searchJobsBySkill("farm"))).append('\n');
+        out.append(ids(snapshot.searchJobsFullText("farm OR driver OR tailor", 20))).append('\n');
+        out.append(ids(snapshot.searchJobsByTitleFuzzy("taylor", 1))).append('\n');
+        out.append(ids(snapshot.findJobsNearLocation("Village A", 30))).append('\n');
+        out.append(snapshot.getRegionStats("North District")).append(ids(snapshot.findJobsInRegion("Alipur Block"))).append('\n');
+        for (String user : new String[] {"U001", "U002", "U003"}) {
+            out.append(snapshot.getRecommendations(user, 5)).append(snapshot.suggestCareerPaths(user, "Tractor Driver")).append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.FiniteStateTransducer;
+import com.ruralyouth.dsa.FrozenVocabulary;
+import com.ruralyouth.dsa.Trie;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Tests for the compiled term transducer and the frozen vocabulary built on it
+ */
+public class FiniteStateTransducerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<String> TERMS = List.of(
+            "cook", "data entry operator", "electrician", "farm worker", "garment worker",
+            "tailor", "tractor driver", "truck driver", "welder", "welding assistant");
+
+    @Test
+    public void testIdsFollowSortedOrder() {
+        FiniteStateTransducer fst = FiniteStateTransducer.compile(TERMS);
+
+        assertEquals(TERMS.size(), fst.size());
+        for (int id = 0; id < TERMS.size(); id++) {
+            assertEquals(id, fst.getId(TERMS.get(id)));
+            assertEquals(TERMS.get(id), fst.getTerm(id));
+        }
+        assertEquals(6, fst.getId("Tractor Driver"));
+        assertEquals(-1, fst.getId("tractor"));
+        assertEquals(-1, fst.getId("plumber"));
+
+        assertArrayEquals(new int[] {5, 8}, fst.getIdRange("t"));
+        assertArrayEquals(new int[] {8, 10}, fst.getIdRange("weld"));
+        assertEquals(List.of("tractor driver", "truck driver"), fst.getTermsWithPrefix("tr", 10));
+    }
+
+    @Test
+    public void testSharedSuffixesAreStoredOnce() {
+        List<String> terms = new ArrayList<>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            terms.add(c + "-block agricultural worker");
+        }
+        FiniteStateTransducer fst = FiniteStateTransducer.compile(terms);
+
+        // 26 distinct first letters, one shared suffix chain
+        assertTrue("Minimal automaton should be tiny, was " + fst.getByteSize(), fst.getByteSize() < 600);
+        assertEquals(25, fst.getId("z-block agricultural worker"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnsortedInput() {
+        FiniteStateTransducer.compile(List.of("welder", "cook"));
+    }
+
+    @Test
+    public void testSaveAndMapBack() throws IOException {
+        Path file = folder.newFile("titles.fst").toPath();
+        FiniteStateTransducer.compile(TERMS).save(file);
+
+        FiniteStateTransducer mapped = FiniteStateTransducer.load(file);
+        assertEquals(TERMS.size(), mapped.size());
+        assertEquals(9, mapped.getId("welding assistant"));
+        assertEquals("welder", mapped.getTerm(8));
+        assertEquals("welder", mapped.searchFuzzy("weldor", 1).get(0).term);
+    }
+
+    @Test
+    public void testFrozenVocabularyMatchesTrie() {
+        Trie trie = new Trie();
+        String[] titles = {"Welder", "Tractor Driver", "welder", "Truck Driver", "Welding Assistant", "Cook"};
+        for (int i = 0; i < titles.length; i++) {
+            trie.addId(titles[i], i);
+            trie.addWeight(titles[i], 1);
+        }
+        trie.addWeight("Truck Driver", 5);
+
+        FrozenVocabulary frozen = FrozenVocabulary.compile(trie);
+        assertEquals(5, frozen.size());
+        assertArrayEquals(trie.getIdsWithPrefix("wel", 10), frozen.getIdsWithPrefix("wel", 10));
+        assertArrayEquals(trie.getIds("WELDER"), frozen.getIds("WELDER"));
+        assertEquals(List.of("Tractor Driver", "Truck Driver"), frozen.getWordsWithPrefix("t"));
+        assertEquals(List.of("Truck Driver", "Welder"), frozen.getTopKWithPrefix("", 2));
+        assertEquals("Welder", frozen.searchFuzzy("weldr", 1).get(0).word);
+    }
+
+    @Test
+    public void testCompactComparedToTrie() {
+        Random random = new Random(9);
+        String[] roles = {"worker", "driver", "helper", "operator", "assistant", "technician"};
+        Trie trie = new Trie();
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0; j < 4 + random.nextInt(6); j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            trie.insert(word + " " + roles[random.nextInt(roles.length)]);
+        }
+
+        FiniteStateTransducer fst = FiniteStateTransducer.compile(trie);
+        assertEquals(trie.size(), fst.size());
+        System.out.printf("FST: %d terms in %d bytes (%.1f bytes/term)%n",
+                fst.size(), fst.getByteSize(), (double) fst.getByteSize() / fst.size());
+        // The pointer-based trie needs on the order of 1 KB per word for the same input
+        assertTrue(fst.getByteSize() < 20L * fst.size());
+
+        for (String word : trie.getWordsWithPrefix("ab")) {
+            assertEquals(word, fst.getTerm(fst.getId(word)));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.InvertedIndex;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+/**
+ * Unit tests for the full-text inverted index
+ */
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.addDocument(0, "Java Developer", "Tech Solutions", "Build backend services in Java");
+        index.addDocument(1, "Tractor Driver", "Modern Agriculture", "Drive and maintain the tractor");
+        index.addDocument(2, "Truck Driver", "Logistics Corp", "Long haul routes", "Health insurance");
+        index.addDocument(5, "Web Developer", "Digital Creations", null, "Free meals");
+    }
+
+    @Test
+    public void testTermAndBooleanQueries() {
+        assertEquals(Set.of(0, 5), docs(index.search("developer", 10)));
+        assertEquals(Set.of(1, 2), docs(index.search("DRIVER", 10)));
+        assertEquals(Set.of(1), docs(index.search("tractor driver", 10)));
+        assertEquals(Set.of(0, 1), docs(index.search("java OR tractor", 10)));
+        assertTrue(index.search("plumber", 10).isEmpty());
+        assertTrue(index.search("java plumber", 10).isEmpty());
+        assertEquals(Set.of(2), docs(index.search("insurance", 10)));
+    }
+
+    @Test
+    public void testPhraseQueries() {
+        assertEquals(Set.of(1), docs(index.search("\"tractor driver\"", 10)));
+        assertTrue(index.search("\"driver tractor\"", 10).isEmpty());
+        // Phrases do not run across field boundaries
+        assertTrue(index.search("\"corp long\"", 10).isEmpty());
+        assertEquals(Set.of(2, 5), docs(index.search("\"free meals\" OR \"truck driver\"", 10)));
+    }
+
+    @Test
+    public void testBm25PrefersFocusedDocuments() {
+        // "java" appears twice in doc 0, so it outranks a longer single mention
+        index.addDocument(6, "Support Engineer", "Helpdesk Inc",
+                "Answer tickets about printers networks email accounts and sometimes java");
+        List<InvertedIndex.Hit> hits = index.search("java", 10);
+        assertEquals(0, hits.get(0).docId);
+        assertEquals(6, hits.get(1).docId);
+        assertEquals(1, index.search("java", 1).size());
+    }
+
+    @Test
+    public void testRemovedDocumentsNoLongerMatch() {
+        int documents = index.getDocumentCount();
+        index.removeDocument(1);
+        index.removeDocument(1);
+
+        assertEquals(documents - 1, index.getDocumentCount());
+        assertEquals(1, index.getDeletedCount());
+        assertEquals(Set.of(2), docs(index.search("DRIVER", 10)));
+        assertTrue(index.search("\"tractor driver\"", 10).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOutOfOrderDocuments() {
+        index.addDocument(3, "Cook");
+    }
+
+    @Test
+    public void testForkTakesNewDocumentsAndForksOnlyOnce() {
+        InvertedIndex fork = index.fork();
+        fork.addDocument(6, "Tractor Mechanic", "Farm Works", "Repair tractors");
+        assertEquals(Set.of(1, 6), docs(fork.search("tractor", 10)));
+        assertEquals(Set.of(1), docs(index.search("tractor", 10)));
+
+        try {
+            index.fork();
+            fail("A second fork would append into the postings the first one shares");
+        } catch (IllegalStateException expected) {
+        }
+
+        InvertedIndex next = fork.fork();
+        next.addDocument(7, "Tractor Driver", "Farm Works");
+        assertEquals(Set.of(1, 6, 7), docs(next.search("tractor", 10)));
+        assertEquals(Set.of(1, 6), docs(fork.search("tractor", 10)));
+    }
+
+    @Test
+    public void testMatchesBruteForceAtScale() {
+        int docCount = Integer.getInteger("index.benchmark.docs", 200_000);
+        String[] common = {"driver", "tractor", "farm", "worker", "welder", "helper", "cook", "tailor",
+                "electrician", "plumber", "java", "developer", "data", "entry", "operator", "night",
+                "shift", "senior", "junior", "assistant", "village", "district", "block", "factory"};
+        // Skewed vocabulary: a few hundred frequent words and a long tail of rare ones
+        String[] words = new String[5_000];
+        Random random = new Random(5);
+        for (int i = 0; i < words.length; i++) {
+            words[i] = i < common.length ? common[i] : "w" + Integer.toString(i, 36);
+        }
+        List<String[]> texts = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        InvertedIndex large = new InvertedIndex();
+        for (int doc = 0; doc < docCount; doc++) {
+            StringBuilder title = new StringBuilder();
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < 2; i++) {
+                title.append(words[skewed(random, words.length)]).append(' ');
+            }
+            for (int i = 0; i < 8; i++) {
+                description.append(words[skewed(random, words.length)]).append(' ');
+            }
+            String[] fields = {title.toString(), description.toString()};
+            if (doc < 20_000) {
+                texts.add(fields);
+            }
+            large.addDocument(doc, fields);
+        }
+        System.out.printf("Indexed %d docs in %d ms, %d KB of postings%n",
+                docCount, System.currentTimeMillis() - start, large.getPostingBytes() / 1024);
+
+        String[] queries = {"welder", "driver", "night shift welder", "\"tractor driver\"", "cook OR tailor"};
+        for (String query : queries) {
+            for (int i = 0; i < 20; i++) {
+                large.search(query, 10); // warm up
+            }
+            long begin = System.nanoTime();
+            List<InvertedIndex.Hit> hits = large.search(query, 10);
+            long micros = (System.nanoTime() - begin) / 1000;
+            System.out.printf("Query %-22s %d hits in %d us%n", query, hits.size(), micros);
+
+            // Block skipping must not change the answer: compare with an unpruned ranking
+            List<InvertedIndex.Hit> all = large.search(query, Integer.MAX_VALUE);
+            assertEquals(10, hits.size());
+            assertEquals(ids(all.subList(0, 10)), ids(hits));
+        }
+
+        // Exact check of the matching set against a brute-force scan of the first docs
+        InvertedIndex small = new InvertedIndex();
+        for (int doc = 0; doc < texts.size(); doc++) {
+            small.addDocument(doc, texts.get(doc));
+        }
+        Set<Integer> expected = new HashSet<>();
+        for (int doc = 0; doc < texts.size(); doc++) {
+            String title = " " + texts.get(doc)[0];
+            String description = " " + texts.get(doc)[1];
+            boolean phrase = title.contains(" tractor driver ") || description.contains(" tractor driver ");
+            boolean night = (title + description).contains(" night ");
+            if (phrase && night) {
+                expected.add(doc);
+            }
+        }
+        assertEquals(expected, docs(small.search("\"tractor driver\" night", texts.size())));
+    }
+
+    /**
+     * Zipf-like pick: low indexes (the common words) come up far more often
+     */
+    private static int skewed(Random random, int size) {
+        return (int) Math.min(size - 1, Math.floor(Math.pow(size, random.nextDouble())) - 1);
+    }
+
+    private static List<Integer> ids(List<InvertedIndex.Hit> hits) {
+        List<Integer> result = new ArrayList<>();
+        for (InvertedIndex.Hit hit : hits) {
+            result.add(hit.docId);
+        }
+        return result;
+    }
+
+    private static Set<Integer> docs(List<InvertedIndex.Hit> hits) {
+        Set<Integer> result = new HashSet<>();
+        for (InvertedIndex.Hit hit : hits) {
+            result.add(hit.docId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ruralyouth;
+
+import com.ruralyouth.model.Job;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Random jobs and job id helpers shared by the engine tests
+ */
+final class JobFixtures {
+    private static final String[] JOB_TYPES = {"full-time", "part-time", "contract"};
+
+    private JobFixtures() {
+    }
+
+    /**
+     * A job with one of 40 titles ("Role n"), 30 companies and 10 towns
+     * ("Town n") and up to three of 20 skills ("skill n")
+     */
+    static Job createJob(String id, Random random) {
+        Job job = new Job(id, "Role " + random.nextInt(40), "Company " + random.nextInt(30),
+                "Town " + random.nextInt(10), 8000 + random.nextInt(30000));
+        job.setJobType(JOB_TYPES[random.nextInt(JOB_TYPES.length)]);
+        job.setExperienceLevel(1 + random.nextInt(5));
+        for (int s = random.nextInt(4); s > 0; s--) {
+            job.addRequiredSkill("skill " + random.nextInt(20));
+        }
+        return job;
+    }
+
+    static List<String> ids(List<Job> jobs) {
+        return jobs.stream().map(Job::getId).collect(Collectors.toList());
+    }
+
+    static List<String> sortedIds(List<Job> jobs) {
+        return jobs.stream().map(Job::getId).sorted().collect(Collectors.toList());
+    }
+}
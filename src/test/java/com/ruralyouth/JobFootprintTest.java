@@ -0,0 +1,117 @@
+package com.ruralyouth;
+
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.StringPool;
+import com.ruralyouth.model.User;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap footprint of large job catalogs
+ *
+ * The default run measures 100000 jobs. For the full benchmark run with e.g.
+ * -Dfootprint.jobs=1000000,10000000 -Xmx6g
+ */
+public class JobFootprintTest {
+
+    @Test
+    public void testIngestionSharesRepeatedStrings() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        Job first = new Job("J1", "Farm Worker", new String("Green Farms Ltd"), new String("Village A"), 15000);
+        Job second = new Job("J2", "Farm Helper", new String("Green Farms Ltd"), new String("Village A"), 14000);
+        first.addBenefit(new String("Free meals"));
+        second.addBenefit(new String("Free meals"));
+        engine.addJob(first);
+        engine.addJob(second);
+
+        assertSame(first.getCompany(), second.getCompany());
+        assertSame(first.getLocation(), second.getLocation());
+
+        // Titles and benefits are not pooled, so ingesting new ones keeps the pool as it is
+        int pooled = StringPool.size();
+        Job unique = new Job("J4", "Orchard Keeper " + System.nanoTime(), new String("Green Farms Ltd"),
+                new String("Village A"), 15500);
+        unique.addBenefit("Housing " + System.nanoTime());
+        engine.addJob(unique);
+        assertEquals(pooled, StringPool.size());
+
+        // Jobs without skills or benefits hold no collections of their own
+        Job bare = new Job("J3", "Helper", "Co", "Town B", 9000);
+        assertTrue(bare.getRequiredSkills().isEmpty());
+        assertTrue(bare.getBenefits().isEmpty());
+        try {
+            first.getBenefits().add("Bonus");
+            fail("Benefits should be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testUserSkillsCanBeSetFromTheirOwnView() {
+        User user = new User("U1", "Asha", 21, "ITI", "Town A");
+        user.addSkill("welding", 7);
+        user.addSkill("driving", 4);
+
+        user.setSkills(user.getSkills());
+        assertEquals(Map.of("welding", 7, "driving", 4), user.getSkills());
+
+        User other = new User("U2", "Ravi", 24, "ITI", "Town B");
+        other.setSkills(user.copy().getSkills());
+        assertEquals(user.getSkills(), other.getSkills());
+    }
+
+    @Test
+    public void testCatalogFootprint() {
+        for (String size : System.getProperty("footprint.jobs", "100000").split(",")) {
+            int jobs = Integer.parseInt(size.trim());
+            long raw = measure(jobs, false);
+            long interned = measure(jobs, true);
+
+            System.out.printf("%d jobs: %d bytes/job as loaded, %d bytes/job interned (%d MB)%n",
+                    jobs, raw / jobs, interned / jobs, interned >> 20);
+            assertTrue(interned < raw);
+        }
+    }
+
+    /**
+     * Retained heap of a catalog with realistic repetition: few companies,
+     * locations, titles and benefits; 0-3 skills per job
+     */
+    private static long measure(int count, boolean intern) {
+        String[] types = {"full-time", "part-time", "contract"};
+        long before = usedHeap();
+        List<Job> catalog = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Concatenation gives each job its own copy, like rows read from a database
+            Job job = new Job("J" + i, "Role " + (i % 300), "Company " + (i % 2000), "Town " + (i % 500), 10000 + i % 40000);
+            job.setJobType(types[i % 3] + "");
+            job.setExperienceLevel(1 + i % 5);
+            for (int s = 0; s < i % 4; s++) {
+                job.addRequiredSkill("skill " + ((i + s * 7) % 200));
+            }
+            for (int b = 0; b < i % 3; b++) {
+                job.addBenefit("Benefit " + ((i + b) % 10));
+            }
+            if (intern) {
+                job.internStrings();
+            }
+            catalog.add(job);
+        }
+        long used = usedHeap() - before;
+        assertEquals(count, catalog.size()); // keeps the catalog reachable until measured
+        return used;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,5 +1,9 @@
 package com.ruralyouth;
 
+import com.ruralyouth.dsa.JobPriorityQueue;
+import com.ruralyouth.dsa.LocationRegistry;
+import com.ruralyouth.engine.JobQuery;
+import com.ruralyouth.engine.JobQueryEngine;
 import com.ruralyouth.engine.JobRecommendationEngine;
 import com.ruralyouth.model.Job;
 import com.ruralyouth.model.User;
@@ -7,8 +11,12 @@ import com.ruralyouth.data.SampleDataLoader;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Unit tests for the Job Recommendation Engine
@@ -84,6 +92,17 @@ public class JobRecommendationEngineTest {
         }
     }
     
+    @Test
+    public void testSearchJobsByTitleLimit() {
+        List<Job> developers = engine.searchJobsByTitle("developer");
+        assertTrue("Titles start with Java/Python/Web, not developer", developers.isEmpty());
+        
+        List<Job> limited = engine.searchJobsByTitle("t", 1);
+        assertEquals(1, limited.size());
+        assertTrue(limited.get(0).getTitle().toLowerCase().startsWith("t"));
+        assertTrue(engine.searchJobsByTitle("t", 10).size() >= 2);
+    }
+    
     @Test
     public void testSearchJobsBySkill() {
         List<Job> jobs = engine.searchJobsBySkill("farming");
@@ -192,6 +211,89 @@ public class JobRecommendationEngineTest {
         }
     }
     
+    @Test
+    public void testReachabilityWithinDistanceBudget() {
+        JobRecommendationEngine.ReachableSet within10 = engine.findReachable("Village A", 10.0);
+        JobRecommendationEngine.ReachableSet within20 = engine.findReachable("Village A", 20.0);
+        
+        // Village A -> Town B is 15 km and Village A -> Village D is 18 km
+        assertEquals(1, within10.getLocationCount());
+        assertEquals(3, within20.getLocationCount());
+        int[] jobIds = within20.getJobIds();
+        for (int i = 1; i < jobIds.length; i++) {
+            assertTrue("Job ids should be sorted", jobIds[i - 1] < jobIds[i]);
+        }
+        for (Job job : engine.getJobsByIds(jobIds)) {
+            assertTrue("Job should be within 20 km by road", 
+                List.of("Village A", "Town B", "Village D").contains(job.getLocation()));
+        }
+        
+        assertSame("Bucket results should be cached", within20, engine.findReachable("Village A", 20.0));
+        assertEquals(jobIds.length, engine.findJobsNearLocation("Village A", 20.0).size());
+
+        // Budgets inside a bucket are cut from the bucket's cached result
+        JobRecommendationEngine.ReachableSet within16 = engine.findReachable("Village A", 16.0);
+        assertEquals(2, within16.getLocationCount());
+        for (Job job : engine.getJobsByIds(within16.getJobIds())) {
+            assertTrue(List.of("Village A", "Town B").contains(job.getLocation()));
+        }
+        assertEquals(within16.getJobCount(), engine.findJobsNearLocation("Village A", 16.0).size());
+        assertArrayEquals(within16.getJobIds(), engine.findReachable("Village A", 16.0).getJobIds());
+
+        // Callers get copies, so they cannot corrupt the cache
+        jobIds[0] = -1;
+        assertArrayEquals(within20.getJobIds(), engine.findReachable("Village A", 20.0).getJobIds());
+        assertTrue(within20.getJobIds()[0] >= 0);
+        
+        System.out.println("Reachable from Village A: " + within10 + ", " + within20);
+    }
+    
+    @Test
+    public void testRegionStatsAndFilters() {
+        List<Job> northJobs = engine.findJobsInRegion("North District");
+        LocationRegistry.RegionStats north = engine.getRegionStats("North District");
+        
+        assertNotNull("District should have stats", north);
+        assertTrue("Should find jobs in North District", northJobs.size() > 0);
+        assertEquals(northJobs.size(), north.jobCount);
+        
+        double salaryTotal = 0;
+        for (Job job : northJobs) {
+            assertTrue("Job should be in Alipur Block", engine.isJobInRegion(job, "Alipur Block"));
+            assertFalse("Job should not be in South District", engine.isJobInRegion(job, "South District"));
+            salaryTotal += job.getSalary();
+        }
+        assertEquals(salaryTotal / northJobs.size(), north.averageSalary, 1e-6);
+        
+        int allJobs = engine.getSystemStats().totalJobs;
+        assertEquals(allJobs, north.jobCount + engine.getRegionStats("South District").jobCount);
+        
+        System.out.println("Region stats: " + north + ", " + engine.getRegionStats("Sohna Block"));
+    }
+
+    @Test
+    public void testRegionLevelsStayOrderedWithinTheHierarchy() {
+        LocationRegistry registry = engine.getWritableLocationRegistry();
+        
+        // Re-declaring a region at its own level is allowed
+        registry.defineRegion("Alipur Block", LocationRegistry.BLOCK);
+        
+        for (String[] change : new String[][] {{"Village A", "2"}, {"Alipur Block", "0"}, {"North District", "1"}}) {
+            int before = registry.getLevel(registry.getId(change[0]));
+            try {
+                registry.defineRegion(change[0], Integer.parseInt(change[1]));
+                fail("Level change should break the hierarchy: " + change[0]);
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(before, registry.getLevel(registry.getId(change[0])));
+        }
+        
+        // A location outside the hierarchy may still become a region
+        registry.intern("New Block");
+        assertEquals(LocationRegistry.BLOCK,
+            registry.getLevel(registry.defineRegion("New Block", LocationRegistry.BLOCK)));
+    }
+    
     @Test
     public void testDataStructureEfficiency() {
         // Test Trie search efficiency
@@ -255,4 +357,238 @@ public class JobRecommendationEngineTest {
         
         System.out.println("Edge case tests passed");
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testFullTextSearch() {
+        List<Job> developers = engine.searchJobsFullText("developer", 10);
+        assertEquals("Java, Python and Web developers", 3, developers.size());
+        
+        List<Job> machinery = engine.searchJobsFullText("\"farm machinery\"", 10);
+        assertEquals(1, machinery.size());
+        assertEquals("Tractor Driver", machinery.get(0).getTitle());
+        
+        assertEquals(4, engine.searchJobsFullText("developer OR tailor", 10).size());
+        assertTrue(engine.searchJobsFullText("developer tailor", 10).isEmpty());
+    }
+    
+    @Test
+    public void testFuzzySearchToleratesTypos() {
+        List<Job> welders = engine.searchJobsByTitleFuzzy("weldor", 2);
+        assertEquals(1, welders.size());
+        assertEquals("Welder", welders.get(0).getTitle());
+        assertTrue(engine.searchJobsByTitle("weldor").isEmpty());
+        
+        List<Job> electricians = engine.searchJobsBySkillFuzzy("electricl", 2);
+        assertFalse("Should find jobs despite the misspelled skill", electricians.isEmpty());
+        for (Job job : electricians) {
+            assertTrue(job.requiresSkill("electrical"));
+        }
+    }
+    
+    @Test
+    public void testFrozenVocabulariesServeSearches() {
+        List<Job> drivers = engine.searchJobsByTitle("t");
+        List<Job> farming = engine.searchJobsBySkill("farm");
+        List<String> suggestions = engine.suggestJobTitles("", 3);
+        
+        engine.freezeSearchVocabularies();
+        assertTrue(engine.isSearchVocabularyFrozen());
+        assertEquals(drivers, engine.searchJobsByTitle("t"));
+        assertEquals(farming, engine.searchJobsBySkill("farm"));
+        assertEquals(suggestions.size(), engine.suggestJobTitles("", 3).size());
+        assertEquals("Welder", engine.searchJobsByTitleFuzzy("weldor", 1).get(0).getTitle());
+        
+        // Adding a job switches back to the mutable tries
+        engine.addJob(new Job("J102", "Tractor Mechanic", "Farm Equipment Co", "Village A", 21000));
+        assertFalse(engine.isSearchVocabularyFrozen());
+        assertEquals(drivers.size() + 1, engine.searchJobsByTitle("t").size());
+    }
+    
+    @Test
+    public void testTitleSuggestionsRankedByJobCount() {
+        engine.addJob(new Job("J101", "Welder", "Steel Fabricators", "Town E", 27000));
+        
+        List<String> suggestions = engine.suggestJobTitles("we", 2);
+        assertEquals("Welder has the most openings", "Welder", suggestions.get(0));
+        assertEquals("Web Developer", suggestions.get(1));
+        assertTrue("Unknown prefix has no suggestions", engine.suggestSkills("zz", 5).isEmpty());
+    }
+    
+    @Test
+    public void testTypeAheadNarrowsCachedPrefix() {
+        String title = "Tractor Driver";
+        for (int length = 1; length <= title.length(); length++) {
+            String prefix = title.substring(0, length);
+            List<Job> typed = engine.searchJobsByTitle(prefix);
+            engine.clearSearchCaches();
+            // The fresh search also re-caches the prefix for the next keystroke
+            assertEquals("Keystroke " + prefix, engine.searchJobsByTitle(prefix), typed);
+        }
+        
+        // A new title must invalidate every cached prefix it extends
+        int before = engine.searchJobsByTitle("tra").size();
+        engine.addJob(new Job("J103", "Trainer", "Skill Centre", "Town F", 19000));
+        assertEquals(before + 1, engine.searchJobsByTitle("tra").size());
+        assertEquals(before + 1, engine.searchJobsByTitle("trai").size() + engine.searchJobsByTitle("trac").size());
+        
+        JobRecommendationEngine large = new JobRecommendationEngine();
+        java.util.Random random = new java.util.Random(3);
+        String[] roles = {"Driver", "Worker", "Helper", "Operator", "Assistant"};
+        for (int i = 0; i < 20_000; i++) {
+            String word = "" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(26))
+                    + (char) ('a' + random.nextInt(26)) + (char) ('a' + random.nextInt(26));
+            large.addJob(new Job("L" + i, word + " " + roles[random.nextInt(roles.length)], "Co", "Town", 15000));
+        }
+        String query = "abcd driver";
+        long uncached = 0, narrowed = 0;
+        for (int round = 0; round < 50; round++) {
+            // The first keystroke walks the trie either way; time the ones after it
+            for (int length = 2; length <= query.length(); length++) {
+                large.clearSearchCaches();
+                long start = System.nanoTime();
+                large.searchJobsByTitle(query.substring(0, length));
+                uncached += System.nanoTime() - start;
+            }
+            large.clearSearchCaches();
+            large.searchJobsByTitle(query.substring(0, 1));
+            for (int length = 2; length <= query.length(); length++) {
+                long start = System.nanoTime();
+                List<Job> typed = large.searchJobsByTitle(query.substring(0, length));
+                narrowed += System.nanoTime() - start;
+                assertTrue(typed.isEmpty() || typed.get(0).getTitle().toLowerCase().startsWith(query.substring(0, length)));
+            }
+        }
+        int keystrokes = 50 * (query.length() - 1);
+        System.out.printf("Type-ahead over 20000 jobs: %.1f us/keystroke uncached, %.1f us/keystroke narrowed%n",
+                uncached / 1000.0 / keystrokes, narrowed / 1000.0 / keystrokes);
+    }
+    
+    @Test
+    public void testSkillPrefixSearchMatchesScan() {
+        Job job = new Job("J104", "Farm Supervisor", "Agro Co", "Village B", 22000);
+        job.addRequiredSkill("Farming");
+        job.addRequiredSkill("farm management");
+        engine.addJob(job);
+        
+        for (String prefix : new String[] {"f", "farm", "c", "comm", "zz"}) {
+            List<Job> expected = new java.util.ArrayList<>();
+            int[] allIds = IntStream.range(0, engine.getSystemStats().totalJobs).toArray();
+            for (Job candidate : engine.getJobsByIds(allIds)) {
+                if (candidate.getRequiredSkills().stream().anyMatch(skill -> skill.startsWith(prefix))) {
+                    expected.add(candidate);
+                }
+            }
+            assertEquals("Prefix " + prefix, expected, engine.searchJobsBySkill(prefix));
+        }
+        assertEquals(1, engine.searchJobsBySkill("farm m").size());
+    }
+    
+    @Test
+    public void testBooleanJobQueries() {
+        JobQuery query = JobQuery.and(
+                JobQuery.or(JobQuery.skill("Farming"), JobQuery.skill("sewing")),
+                JobQuery.salaryAtLeast(15000),
+                JobQuery.experienceAtMost(2),
+                JobQuery.not(JobQuery.jobType("part-time")));
+        
+        int[] allIds = IntStream.range(0, engine.getSystemStats().totalJobs).toArray();
+        List<Job> expected = new java.util.ArrayList<>();
+        for (Job job : engine.getJobsByIds(allIds)) {
+            boolean skilled = job.requiresSkill("farming") || job.requiresSkill("sewing");
+            if (skilled && job.getSalary() >= 15000 && job.getExperienceLevel() <= 2
+                    && !"part-time".equalsIgnoreCase(job.getJobType())) {
+                expected.add(job);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, engine.findJobs(query));
+        
+        // Distance filters use the road graph like findJobsNearLocation
+        Job anyJob = expected.get(0);
+        JobQuery nearby = JobQuery.and(JobQuery.within(anyJob.getLocation(), 30), JobQuery.skill("farming"));
+        for (Job job : engine.findJobs(nearby)) {
+            assertTrue(engine.findJobsNearLocation(anyJob.getLocation(), 30).contains(job));
+        }
+        
+        String plan = engine.explainQuery(JobQuery.and(JobQuery.skill("no such skill"), query));
+        assertTrue(plan, plan.contains("skipped"));
+        assertTrue(plan, plan.contains("Result: 0 of"));
+        System.out.print(engine.explainQuery(query));
+        
+        String userId = SampleDataLoader.getSampleUserIds().get(0);
+        for (JobRecommendationEngine.JobRecommendation rec : engine.getRecommendations(userId, query, 10)) {
+            assertTrue(expected.contains(rec.job));
+        }
+    }
+    
+    @Test
+    public void testFacetCountsMatchFilteredQueries() {
+        JobQuery farmOrSewing = JobQuery.or(JobQuery.skill("farming"), JobQuery.skill("sewing"));
+        for (JobQuery query : new JobQuery[] {JobQuery.all(), farmOrSewing}) {
+            JobQueryEngine.FacetCounts facets = engine.getFacets(query);
+            assertEquals(engine.findJobs(query).size(), facets.totalJobs);
+            
+            // Each count equals running the query again with that value as a filter
+            for (java.util.Map.Entry<String, Integer> type : facets.byJobType.entrySet()) {
+                int filtered = engine.findJobs(JobQuery.and(query, JobQuery.jobType(type.getKey()))).size();
+                assertEquals(type.getKey(), filtered, (int) type.getValue());
+            }
+            for (java.util.Map.Entry<String, Integer> location : facets.byLocation.entrySet()) {
+                int filtered = engine.findJobs(JobQuery.and(query, JobQuery.location(location.getKey()))).size();
+                assertEquals(location.getKey(), filtered, (int) location.getValue());
+            }
+            for (java.util.Map.Entry<Integer, Integer> level : facets.byExperienceLevel.entrySet()) {
+                int filtered = engine.findJobs(JobQuery.and(query,
+                        JobQuery.experienceBetween(level.getKey(), level.getKey()))).size();
+                assertEquals(filtered, (int) level.getValue());
+            }
+            int banded = facets.bySalaryBand.values().stream().mapToInt(Integer::intValue).sum();
+            assertEquals(facets.totalJobs, banded);
+            System.out.println(query + " -> " + facets);
+        }
+        
+        JobQueryEngine.FacetCounts none = engine.getFacets(JobQuery.skill("no such skill"));
+        assertEquals(0, none.totalJobs);
+        assertTrue(none.byLocation.isEmpty());
+    }
+    
+    @Test
+    public void testScoringAllocatesNothingPerJob() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        User user = new User("U900", "Scorer", 24, "12th", "Village A");
+        user.addSkill("Farming", 8);
+        user.addSkill("driving", 5);
+        user.addSkill("sewing", 3);
+        int[] allIds = IntStream.range(0, engine.getSystemStats().totalJobs).toArray();
+        Job[] jobs = engine.getJobsByIds(allIds).toArray(new Job[0]);
+        
+        // The same loop warms up and is measured, so it is already compiled;
+        // the best of a few rounds leaves out one-off JIT work in the window
+        double checksum = scoreAll(jobs, user, 200_000);
+        int scored = 200_000;
+        long thread = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            checksum += scoreAll(jobs, user, scored);
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        
+        assertTrue(checksum > 0);
+        // Only a fixed slack for the measurement itself, not bytes per job
+        assertTrue("Allocated " + allocated + " bytes scoring " + scored + " jobs", allocated < 1024);
+        assertEquals(8, user.getSkillProficiency("FARMING"));
+        assertTrue(user.getSkillSet().contains("farming"));
+    }
+    
+    private static double scoreAll(Job[] jobs, User user, int count) {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += JobPriorityQueue.calculateJobScore(jobs[i % jobs.length], user, 5.0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ruralyouth;
+
+import com.ruralyouth.data.SampleDataLoader;
+import com.ruralyouth.dsa.LocationRegistry;
+import com.ruralyouth.engine.JobQuery;
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.ruralyouth.JobFixtures.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test cases for removing and updating jobs and users in place
+ */
+public class JobUpdateTest {
+
+    @Test
+    public void testRemovedJobDisappearsFromEveryIndex() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(engine);
+        engine.setLocationHierarchy("Village A", "Alipur Block", "North District");
+        int jobCount = engine.getSystemStats().totalJobs;
+        int villageJobs = engine.getRegionStats("North District").jobCount;
+
+        assertTrue(engine.removeJob("J001")); // the only Farm Worker
+        assertFalse(engine.removeJob("J001"));
+
+        assertEquals(jobCount - 1, engine.getSystemStats().totalJobs);
+        assertEquals(villageJobs - 1, engine.getRegionStats("North District").jobCount);
+        assertFalse(ids(engine.searchJobsByTitle("farm")).contains("J001"));
+        assertFalse(engine.suggestJobTitles("farm", 5).contains("Farm Worker"));
+        assertFalse(ids(engine.searchJobsFullText("farm", 10)).contains("J001"));
+        assertFalse(ids(engine.findJobs(JobQuery.all())).contains("J001"));
+        assertFalse(ids(engine.findJobsNearLocation("Village A", 30)).contains("J001"));
+        assertFalse(engine.getRecommendations("U001", 20).stream().anyMatch(r -> r.job.getId().equals("J001")));
+        assertEquals(jobCount - 1, engine.getFacets(JobQuery.all()).totalJobs);
+
+        // Farming is still required by the tractor driver, so it survives
+        assertEquals(Collections.singletonList("J002"), ids(engine.searchJobsBySkill("farming")));
+        assertEquals(Collections.singletonList("J002"), ids(engine.findJobs(JobQuery.skill("farming"))));
+    }
+
+    @Test
+    public void testUpdateReplacesJobsAndUsers() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(engine);
+        int jobCount = engine.getSystemStats().totalJobs;
+
+        Job changed = new Job("J003", "Master Tailor", "Fashion Stitch", "Town B", 31000);
+        changed.addRequiredSkill("sewing");
+        assertTrue(engine.updateJob(changed));
+        assertFalse(engine.updateJob(new Job("J999", "Nobody", "None", "Town B", 1)));
+
+        assertEquals(jobCount, engine.getSystemStats().totalJobs);
+        assertEquals(Collections.singletonList("J003"), ids(engine.searchJobsByTitle("master")));
+        assertTrue(engine.searchJobsByTitle("tailor").isEmpty());
+        assertTrue(ids(engine.findJobs(JobQuery.salaryAtLeast(30000))).contains("J003"));
+
+        // Re-adding an existing id no longer duplicates the job
+        engine.addJob(copy(changed));
+        assertEquals(jobCount, engine.getSystemStats().totalJobs);
+        assertEquals(1, engine.searchJobsByTitle("master").size());
+
+        int userCount = engine.getSystemStats().totalUsers;
+        User moved = new User("U001", "Rahul Kumar", 22, "High School", "City C");
+        moved.addSkill("Java", 8);
+        assertTrue(engine.updateUser(moved));
+        assertEquals(userCount, engine.getSystemStats().totalUsers);
+        assertEquals("J005", engine.getRecommendations("U001", 1).get(0).job.getId());
+
+        assertTrue(engine.removeUser("U001"));
+        assertFalse(engine.removeUser("U001"));
+        assertFalse(engine.updateUser(moved));
+        assertEquals(userCount - 1, engine.getSystemStats().totalUsers);
+        assertTrue(engine.getRecommendations("U001", 5).isEmpty());
+    }
+
+    @Test
+    public void testJobsEditedInPlaceAreRemovedByTheirIndexedKeys() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        Job job = new Job("J1", "Welder", "Steel Works", "Town A", 20000);
+        job.addRequiredSkill("welding");
+        engine.addJob(job);
+        User user = new User("U1", "Asha", 21, "ITI", "Town A");
+        engine.addUser(user);
+
+        // The stored objects must not come back as their own update
+        job.setTitle("Fitter");
+        job.setSalary(40000);
+        job.addRequiredSkill("fitting");
+        try {
+            engine.updateJob(job);
+            fail("Updating a job with the stored object itself should fail");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            engine.updateUser(user);
+            fail("Updating a user with the stored object itself should fail");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // Removal still finds the entries made for the original values
+        assertTrue(engine.removeJob("J1"));
+        assertTrue(engine.searchJobsByTitle("welder").isEmpty());
+        assertTrue(engine.searchJobsBySkill("welding").isEmpty());
+        assertTrue(engine.findJobs(JobQuery.skill("welding")).isEmpty());
+        assertTrue(engine.suggestJobTitles("w", 5).isEmpty());
+        assertEquals(0, engine.getRegionStats("Town A").jobCount);
+
+        Job replacement = new Job("J1", "Welder", "Steel Works", "Town A", 21000);
+        replacement.addRequiredSkill("welding");
+        engine.addJob(replacement);
+        assertEquals(Collections.singletonList("J1"), ids(engine.searchJobsBySkill("welding")));
+    }
+
+    @Test
+    public void testRegionSalaryRangeUsesTheRecordedSalaries() {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        Job low = new Job("J1", "Welder", "Steel Works", "Town A", 10000);
+        Job high = new Job("J2", "Fitter", "Steel Works", "Town A", 30000);
+        engine.addJob(low);
+        engine.addJob(high);
+
+        // Edited in place: the registry still counts 10000 for J1
+        low.setSalary(50000);
+        assertTrue(engine.removeJob("J2"));
+
+        LocationRegistry.RegionStats town = engine.getRegionStats("Town A");
+        assertEquals(1, town.jobCount);
+        assertEquals(10000, town.averageSalary, 1e-9);
+        assertEquals(10000, town.minSalary, 1e-9);
+        assertEquals(10000, town.maxSalary, 1e-9);
+    }
+
+    @Test
+    public void testRandomUpdatesMatchAFreshBuild() throws IOException {
+        Random random = new Random(47);
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        Map<String, Job> live = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Job job = createJob("J" + i, random);
+            engine.addJob(job);
+            live.put(job.getId(), copy(job));
+        }
+        engine.freezeSearchVocabularies();
+
+        for (int step = 0; step < 1500; step++) {
+            List<String> ids = new ArrayList<>(live.keySet());
+            String id = ids.get(random.nextInt(ids.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertTrue(engine.removeJob(id));
+                    live.remove(id);
+                    break;
+                case 1:
+                    Job job = createJob(id, random);
+                    assertTrue(engine.updateJob(job));
+                    live.put(id, copy(job));
+                    break;
+                default:
+                    Job added = createJob("N" + step, random);
+                    engine.addJob(added);
+                    live.put(added.getId(), copy(added));
+            }
+        }
+
+        JobRecommendationEngine fresh = new JobRecommendationEngine();
+        for (Job job : live.values()) {
+            fresh.addJob(copy(job));
+        }
+        assertSameAnswers(fresh, engine);
+
+        // Saving compacts the removed slots first
+        Path file = Files.createTempFile("updated", ".snapshot");
+        try {
+            engine.saveSnapshot(file);
+            assertSameAnswers(fresh, JobRecommendationEngine.loadSnapshot(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertSameAnswers(JobRecommendationEngine expected, JobRecommendationEngine actual) {
+        assertEquals(expected.getSystemStats().toString(), actual.getSystemStats().toString());
+        for (String prefix : new String[] {"r", "role 1", "role 17"}) {
+            assertEquals(sortedIds(expected.searchJobsByTitle(prefix)), sortedIds(actual.searchJobsByTitle(prefix)));
+        }
+        assertEquals(expected.suggestJobTitles("role", 10), actual.suggestJobTitles("role", 10));
+        assertEquals(expected.suggestSkills("", 10), actual.suggestSkills("", 10));
+        assertEquals(sortedIds(expected.searchJobsBySkill("skill 3")), sortedIds(actual.searchJobsBySkill("skill 3")));
+        assertEquals(sortedIds(expected.searchJobsFullText("company 7", 5000)), sortedIds(actual.searchJobsFullText("company 7", 5000)));
+
+        JobQuery query = JobQuery.and(JobQuery.skill("skill 5"), JobQuery.salaryAtLeast(20000),
+                JobQuery.not(JobQuery.jobType("contract")));
+        assertEquals(sortedIds(expected.findJobs(query)), sortedIds(actual.findJobs(query)));
+        assertEquals(expected.getFacets(JobQuery.all()).toString(), actual.getFacets(JobQuery.all()).toString());
+        assertEquals(sortedIds(expected.findJobsNearLocation("Town 3", 0)), sortedIds(actual.findJobsNearLocation("Town 3", 0)));
+        for (int town = 0; town < 10; town++) {
+            assertEquals(expected.getRegionStats("Town " + town).toString(), actual.getRegionStats("Town " + town).toString());
+        }
+    }
+
+    private static Job copy(Job job) {
+        Job copy = new Job(job.getId(), job.getTitle(), job.getCompany(), job.getLocation(), job.getSalary());
+        copy.setJobType(job.getJobType());
+        copy.setExperienceLevel(job.getExperienceLevel());
+        copy.setDescription(job.getDescription());
+        for (String skill : job.getRequiredSkills()) {
+            copy.addRequiredSkill(skill);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,265 @@
+package com.ruralyouth;
+
+import com.ruralyouth.database.dao.LocationGraphDAO;
+import com.ruralyouth.dsa.LocationGraph;
+import com.ruralyouth.dsa.ShortestPathCache;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the compact adjacency LocationGraph
+ */
+public class LocationGraphTest {
+
+    private LocationGraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new LocationGraph();
+        graph.addLocation("Village A", 28.6139, 77.2090);
+        graph.addLocation("Town B", 28.7041, 77.1025);
+        graph.addLocation("City C", 28.5355, 77.3910);
+        graph.addLocation("Village D", 28.4595, 77.0266);
+        graph.addRoad("Village A", "Town B", 15.0);
+        graph.addRoad("Town B", "City C", 25.0);
+        graph.addRoad("Village A", "Village D", 18.0);
+    }
+
+    @Test
+    public void testShortestDistancesAndPath() {
+        Map<String, Double> distances = graph.findShortestDistances("Village D");
+
+        assertEquals(0.0, distances.get("Village D"), 1e-9);
+        assertEquals(18.0, distances.get("Village A"), 1e-9);
+        assertEquals(58.0, distances.get("City C"), 1e-9);
+
+        List<String> path = graph.findShortestPath("Village D", "City C");
+        assertEquals(List.of("Village D", "Village A", "Town B", "City C"), path);
+    }
+
+    @Test
+    public void testIdAccessorsSeeBothRoadDirections() {
+        int townB = graph.getLocationId("Town B");
+
+        assertEquals(3, graph.getRoadCount());
+        assertEquals(2, graph.getDegree(townB));
+        assertEquals(-1, graph.getLocationId("Nowhere"));
+        assertEquals("Town B", graph.getLocationName(townB));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRoadToUnknownLocationIsRejected() {
+        graph.addRoad("Village A", "Nowhere", 5.0);
+    }
+
+    @Test
+    public void testDistanceCacheIsBoundedByBytes() {
+        LocationGraph large = new LocationGraph();
+        for (int i = 0; i < 1000; i++) {
+            large.addLocationAndGetId("L" + i, 0.0, 0.0);
+        }
+        ShortestPathCache cache = new ShortestPathCache(large, 256, 8 * 1000 * 3);
+        assertEquals(3, cache.getCapacity());
+        for (int source = 0; source < 10; source++) {
+            cache.getDistances(source);
+        }
+        assertEquals(3, cache.size());
+
+        // A larger graph leaves room for fewer tables
+        for (int i = 1000; i < 1500; i++) {
+            large.addLocationAndGetId("L" + i, 0.0, 0.0);
+        }
+        cache.getDistances(42);
+        assertEquals(2, cache.size());
+        assertEquals(1, new ShortestPathCache(large, 256, 1).getCapacity());
+    }
+
+    @Test
+    public void testCachedDistancesAreRepairedIncrementally() {
+        ShortestPathCache cache = new ShortestPathCache(graph, 16);
+        int villageD = graph.getLocationId("Village D");
+        int cityC = graph.getLocationId("City C");
+        long version = graph.getVersion();
+
+        assertEquals(58.0, cache.getDistance(villageD, cityC), 1e-9);
+
+        // A new shortcut only relaxes the affected part of the cached table
+        graph.addRoad("Village D", "City C", 30.0);
+        assertTrue(graph.getVersion() > version);
+        assertEquals(30.0, cache.getDistance(villageD, cityC), 1e-9);
+        graph.updateRoadDistance("Village A", "Town B", 5.0);
+        assertEquals(23.0, cache.getDistance(villageD, graph.getLocationId("Town B")), 1e-9);
+        assertEquals(1, cache.getFullRecomputations());
+        assertEquals(2, cache.getIncrementalUpdates());
+
+        // A longer road cannot be repaired incrementally
+        graph.updateRoadDistance("Village D", "City C", 100.0);
+        assertEquals(48.0, cache.getDistance(villageD, cityC), 1e-9);
+        assertEquals(2, cache.getFullRecomputations());
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchFullRecomputation() {
+        Random random = new Random(11);
+        LocationGraph large = new LocationGraph();
+        for (int i = 0; i < 2_000; i++) {
+            large.addLocationAndGetId("L" + i, 0.0, 0.0);
+        }
+        for (int i = 0; i < 4_000; i++) {
+            large.addRoad(random.nextInt(2_000), random.nextInt(2_000), 1 + random.nextInt(100));
+        }
+
+        ShortestPathCache cache = new ShortestPathCache(large, 4);
+        cache.getDistances(0);
+        for (int round = 0; round < 50; round++) {
+            if (round % 10 == 0) {
+                large.addLocationAndGetId("New" + round, 0.0, 0.0);
+            }
+            int count = large.getLocationCount();
+            large.addRoad(random.nextInt(count), random.nextInt(count), 1 + random.nextInt(20));
+            assertArrayEquals(large.findShortestDistances(0), cache.getDistances(0), 1e-9);
+        }
+        assertEquals(1, cache.getFullRecomputations());
+    }
+
+    @Test
+    public void testInMemoryBuildOf500kRoads() {
+        int locationCount = 100_000;
+        int roadCount = 500_000;
+        Random random = new Random(42);
+
+        long startTime = System.currentTimeMillis();
+        LocationGraph large = new LocationGraph();
+        large.ensureCapacity(locationCount);
+        for (int i = 0; i < locationCount; i++) {
+            large.addLocationAndGetId("L" + i, 0.0, 0.0);
+        }
+        for (int i = 0; i < roadCount; i++) {
+            large.addRoad(random.nextInt(locationCount), random.nextInt(locationCount), 1 + random.nextInt(50));
+        }
+        long buildTime = System.currentTimeMillis() - startTime;
+
+        assertEquals(roadCount, large.getRoadCount());
+        System.out.println("Built in-memory graph with " + roadCount + " roads in " + buildTime + "ms");
+    }
+
+    @Test
+    public void testLoadGraphFromDatabase() throws SQLException {
+        int locationCount = 20_000;
+        int roadCount = 100_000;
+        Random random = new Random(26);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:graph;MODE=PostgreSQL")) {
+            createTables(conn);
+
+            // Stored as saveGraph does: each road once, from the lower id
+            LocationGraph expected = new LocationGraph();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO locations (id, name, latitude, longitude) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < locationCount; i++) {
+                    expected.addLocationAndGetId("L" + i, i, -i);
+                    pstmt.setInt(1, i + 1);
+                    pstmt.setString(2, "L" + i);
+                    pstmt.setDouble(3, i);
+                    pstmt.setDouble(4, -i);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            Set<Long> stored = new HashSet<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO location_connections (from_location_id, to_location_id, distance) VALUES (?, ?, ?)")) {
+                while (stored.size() < roadCount) {
+                    int a = random.nextInt(locationCount);
+                    int b = random.nextInt(locationCount);
+                    if (a == b || !stored.add((long) Math.min(a, b) * locationCount + Math.max(a, b))) {
+                        continue;
+                    }
+                    double distance = 1 + random.nextInt(50);
+                    expected.addRoad(a, b, distance);
+                    pstmt.setInt(1, Math.min(a, b) + 1);
+                    pstmt.setInt(2, Math.max(a, b) + 1);
+                    pstmt.setDouble(3, distance);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            long startTime = System.currentTimeMillis();
+            LocationGraph loaded = LocationGraphDAO.loadGraph(conn);
+            long loadTime = System.currentTimeMillis() - startTime;
+
+            assertEquals(locationCount, loaded.getNodeCount());
+            assertEquals(roadCount, loaded.getRoadCount());
+            assertEquals(28.0, loaded.getLatitude(loaded.getLocationId("L28")), 0.0);
+            for (String source : new String[] {"L0", "L777", "L19999"}) {
+                assertEquals(expected.findShortestDistances(source), loaded.findShortestDistances(source));
+            }
+            System.out.println("Loaded graph with " + roadCount + " roads from the database in " + loadTime + "ms");
+        }
+    }
+
+    @Test
+    public void testSaveLoadRoundTripKeepsOneRowPerRoad() throws SQLException {
+        Random random = new Random(126);
+        LocationGraph original = new LocationGraph();
+        for (int i = 0; i < 200; i++) {
+            original.addLocationAndGetId("L" + i, i, -i);
+        }
+        Set<Long> roads = new HashSet<>();
+        while (roads.size() < 600) {
+            int a = random.nextInt(200);
+            int b = random.nextInt(200);
+            if (a != b && roads.add((long) Math.min(a, b) * 200 + Math.max(a, b))) {
+                original.addRoad(a, b, 1 + random.nextInt(50));
+            }
+        }
+
+        // Ids sparse and far apart, and graph ids after a load follow the
+        // order rows are read in, not the database ids
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:roundtrip;MODE=PostgreSQL")) {
+            createTables(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE locations ALTER COLUMN id RESTART WITH 1000000000");
+            }
+
+            LocationGraphDAO.saveGraph(conn, original);
+            LocationGraph loaded = LocationGraphDAO.loadGraph(conn);
+            LocationGraphDAO.saveGraph(conn, loaded);
+            LocationGraph reloaded = LocationGraphDAO.loadGraph(conn);
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM location_connections")) {
+                rs.next();
+                assertEquals(original.getRoadCount(), rs.getInt(1));
+            }
+            assertEquals(original.getRoadCount(), reloaded.getRoadCount());
+            for (String source : new String[] {"L0", "L57", "L199"}) {
+                assertEquals(original.findShortestDistances(source), reloaded.findShortestDistances(source));
+            }
+        }
+    }
+
+    private static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE locations (id SERIAL PRIMARY KEY, name VARCHAR(100) UNIQUE NOT NULL, "
+                    + "latitude DOUBLE PRECISION NOT NULL, longitude DOUBLE PRECISION NOT NULL)");
+            stmt.execute("CREATE TABLE location_connections (id SERIAL PRIMARY KEY, "
+                    + "from_location_id INTEGER REFERENCES locations(id), to_location_id INTEGER REFERENCES locations(id), "
+                    + "distance DOUBLE PRECISION NOT NULL, UNIQUE(from_location_id, to_location_id))");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.JobPriorityQueue;
+import com.ruralyouth.dsa.OffHeapJobStore;
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Test cases for the off-heap job attribute store
+ */
+public class OffHeapJobStoreTest {
+
+    @Test
+    public void testStoreMirrorsJobAttributes() throws Exception {
+        List<Job> jobs = createJobs(500);
+        Path file = Files.createTempFile("jobs", ".store");
+        file.toFile().deleteOnExit();
+
+        OffHeapJobStore direct = OffHeapJobStore.build(jobs);
+        OffHeapJobStore.build(jobs, file);
+        OffHeapJobStore mapped = OffHeapJobStore.open(file);
+
+        for (OffHeapJobStore store : Arrays.asList(direct, mapped)) {
+            assertEquals(jobs.size(), store.size());
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                assertEquals(job.getId(), store.getJobId(i));
+                assertEquals(job.getSalary(), store.getSalary(i), 0.0);
+                assertEquals(job.getLatitude(), store.getLatitude(i), 0.0);
+                assertEquals(job.getLongitude(), store.getLongitude(i), 0.0);
+                assertEquals(job.getExperienceLevel(), store.getExperienceLevel(i));
+                assertEquals(job.getLocation(), store.getLocationName(i));
+
+                int[] skillIds = new int[store.getSkillCount(i)];
+                for (int k = 0; k < skillIds.length; k++) {
+                    skillIds[k] = store.getSkillId(i, k);
+                }
+                Arrays.sort(skillIds);
+                assertArrayEquals(job.getRequiredSkillIds(), skillIds);
+            }
+        }
+
+        // Location ids are only known once bound to a graph
+        assertEquals(-1, mapped.getLocationId(0));
+        mapped.bindLocations(name -> name.equals("Town 0") ? 7 : -1);
+        assertEquals(7, mapped.getLocationId(0));
+
+        // Anything else is rejected rather than misread
+        Path junk = Files.createTempFile("junk", ".store");
+        junk.toFile().deleteOnExit();
+        Files.write(junk, new byte[64]);
+        try {
+            OffHeapJobStore.open(junk);
+            fail("Should reject a file without the store header");
+        } catch (java.io.IOException expected) {
+        }
+    }
+
+    @Test
+    public void testHeaderLargerThanTheImageIsRejected() throws IOException {
+        Path file = Files.createTempFile("jobs", ".store");
+        ByteBuffer image;
+        try {
+            OffHeapJobStore.build(createJobs(10), file);
+            image = ByteBuffer.wrap(Files.readAllBytes(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        image.putInt(8, 50_000_000); // 50M records would overflow int offsets
+        try {
+            OffHeapJobStore.wrap(image);
+            fail("A job count the image cannot hold should be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("does not match"));
+        }
+    }
+
+    @Test
+    public void testOffHeapRecommendationsMatchOnHeapScores() throws Exception {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        for (Job job : createJobs(5000)) {
+            engine.addJob(job);
+        }
+        User user = new User("U1", "Tester", 22, "12th", "Town 3");
+        user.setLatitude(26.9);
+        user.setLongitude(75.8);
+        user.addSkill("skill 3", 7);
+        user.addSkill("skill 10", 5);
+        engine.addUser(user);
+
+        File file = File.createTempFile("jobs", ".store");
+        file.deleteOnExit();
+        engine.enableOffHeapStore(file.toPath());
+
+        // Jobs added after the store was built are scored on-heap
+        Job late = new Job("LATE", "Role 1", "Company 1", "Town 3", 49000);
+        late.setLatitude(26.9);
+        late.setLongitude(75.8);
+        late.addRequiredSkill("skill 3");
+        late.addRequiredSkill("skill 10");
+        engine.addJob(late);
+
+        List<JobRecommendationEngine.JobRecommendation> recommendations = engine.getRecommendations("U1", 10);
+        assertEquals(10, recommendations.size());
+        assertEquals("LATE", recommendations.get(0).job.getId());
+
+        double[] expected = new double[engine.getSystemStats().totalJobs];
+        List<Job> all = engine.getJobsByIds(IntStream.range(0, expected.length).toArray());
+        for (int i = 0; i < expected.length; i++) {
+            Job job = all.get(i);
+            expected[i] = -JobPriorityQueue.calculateJobScore(job, user,
+                    job.calculateDistance(user.getLatitude(), user.getLongitude()));
+        }
+        Arrays.sort(expected);
+        for (int i = 0; i < recommendations.size(); i++) {
+            JobRecommendationEngine.JobRecommendation recommendation = recommendations.get(i);
+            assertEquals(-expected[i], recommendation.score, 1e-9);
+            assertEquals(recommendation.job.calculateDistance(user.getLatitude(), user.getLongitude()),
+                    recommendation.distance, 1e-9);
+        }
+
+        // A restart maps the saved store for the same jobs instead of rebuilding it
+        JobRecommendationEngine restarted = new JobRecommendationEngine();
+        for (Job job : createJobs(5000)) {
+            restarted.addJob(job);
+        }
+        restarted.addUser(user);
+        long written = file.lastModified();
+        Thread.sleep(20);
+        restarted.enableOffHeapStore(file.toPath());
+        assertEquals(written, file.lastModified());
+        assertEquals(recommendations.get(1).job.getId(), restarted.getRecommendations("U1", 10).get(0).job.getId());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            restarted.getRecommendations("U1", 10);
+        }
+        System.out.printf("Off-heap scoring: %.2f ms per query over %d jobs (%d KB mapped)%n",
+                (System.nanoTime() - start) / 20 / 1e6, 5000, file.length() >> 10);
+    }
+
+    /**
+     * Jobs with coordinates around one town, 0-3 skills each
+     */
+    private static List<Job> createJobs(int count) {
+        List<Job> jobs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Job job = new Job("J" + i, "Role " + (i % 30), "Company " + (i % 50), "Town " + (i % 20), 10000 + (i * 37) % 30000);
+            job.setLatitude(26.0 + (i % 100) * 0.02);
+            job.setLongitude(75.0 + (i % 70) * 0.02);
+            job.setExperienceLevel(1 + i % 5);
+            for (int s = 0; s < i % 4; s++) {
+                job.addRequiredSkill("skill " + ((i + s * 7) % 40));
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+}
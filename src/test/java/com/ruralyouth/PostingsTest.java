@@ -0,0 +1,44 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.Postings;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+/**
+ * Tests for sorted postings operations
+ */
+public class PostingsTest {
+
+    @Test
+    public void testUnionMergesAndDeduplicates() {
+        assertArrayEquals(new int[] {1, 2, 3, 5, 8, 9},
+                Postings.union(List.of(new int[] {2, 5, 9}, new int[] {1, 2, 8}, new int[0], new int[] {3, 3, 9})));
+        assertArrayEquals(new int[] {4, 7}, Postings.union(List.of(new int[] {4, 4, 7})));
+        assertEquals(0, Postings.union(new ArrayList<>()).length);
+    }
+
+    @Test
+    public void testUnionMatchesSortedSet() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<int[]> lists = new ArrayList<>();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int k = random.nextInt(12); k > 0; k--) {
+                int[] list = new int[random.nextInt(40)];
+                for (int i = 0; i < list.length; i++) {
+                    list[i] = random.nextInt(300);
+                }
+                Arrays.sort(list);
+                for (int id : list) {
+                    expected.add(id);
+                }
+                lists.add(list);
+            }
+
+            int[] union = Postings.union(lists);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), union);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ruralyouth;
+
+import com.ruralyouth.data.RoadNetworkLoader;
+import com.ruralyouth.dsa.LocationGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests for loading road networks from memory-mapped files
+ */
+public class RoadNetworkLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCsvLocationsAndRoads() throws IOException {
+        Path locations = folder.newFile("locations.csv").toPath();
+        Files.writeString(locations, "name,latitude,longitude\n"
+                + "Village A,28.6139,77.2090\nTown B,28.7041,77.1025\nCity C,28.5355,77.3910\n");
+        Path roads = folder.newFile("roads.csv").toPath();
+        Files.writeString(roads, "from,to,distance\n0,1,15\r\n1,2,25.5\n# closed for repairs\n0,2,50");
+
+        LocationGraph graph = new LocationGraph();
+        assertEquals(3, RoadNetworkLoader.loadLocationsCsv(locations, graph));
+        RoadNetworkLoader.LoadStats stats = RoadNetworkLoader.loadRoadsCsv(roads, graph);
+
+        assertEquals(3, stats.roads);
+        Map<String, Double> distances = graph.findShortestDistances("Village A");
+        assertEquals(40.5, distances.get("City C"), 1e-9);
+    }
+
+    @Test
+    public void testDuplicateLocationNameIsRejected() throws IOException {
+        Path locations = folder.newFile("duplicates.csv").toPath();
+        Files.writeString(locations, "Village A,28.6,77.2\nTown B,28.7,77.1\nVillage A,28.6,77.2\n");
+
+        try {
+            RoadNetworkLoader.loadLocationsCsv(locations, new LocationGraph());
+            fail("Expected a repeated name to be rejected, as it would shift the edge list ids");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("line 3"));
+        }
+    }
+
+    @Test
+    public void testMalformedLocationAfterTheHeaderIsRejected() throws IOException {
+        Path locations = folder.newFile("bad-first-row.csv").toPath();
+        Files.writeString(locations, "# places\nname,latitude,longitude\nVillage A,north,77.2\nTown B,28.7,77.1\n");
+
+        try {
+            RoadNetworkLoader.loadLocationsCsv(locations, new LocationGraph());
+            fail("Expected a bad first data row to be rejected, as it would shift the edge list ids");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("line 3"));
+        }
+    }
+
+    @Test
+    public void testMalformedLinesAfterTheHeaderAreRejected() throws IOException {
+        LocationGraph graph = new LocationGraph();
+        graph.addLocation("Village A", 0, 0);
+        graph.addLocation("Town B", 0, 0);
+
+        for (String line : new String[] {"-1,0,5", "A,1,5", " 0,1,5", "from,to,distance"}) {
+            Path roads = folder.newFile().toPath();
+            Files.writeString(roads, "from,to,distance\n0,1,10\n\n" + line + "\n1,0,3\n");
+            try {
+                RoadNetworkLoader.loadRoadsCsv(roads, graph);
+                fail("Expected line to be rejected: " + line);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("Malformed road line at offset 25"));
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownLocationIdIsRejected() throws IOException {
+        Path roads = folder.newFile("bad.csv").toPath();
+        Files.writeString(roads, "0,1,10\n0,7,10\n");
+
+        LocationGraph graph = new LocationGraph();
+        graph.addLocation("Village A", 0, 0);
+        graph.addLocation("Town B", 0, 0);
+
+        try {
+            RoadNetworkLoader.loadRoadsCsv(roads, graph);
+            fail("Expected unknown location id to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Unknown location id 7"));
+        }
+    }
+
+    @Test
+    public void testLargeCsvAndBinaryThroughput() throws IOException {
+        int locationCount = 200_000;
+        int roadCount = 2_000_000;
+        Path csv = folder.newFile("large.csv").toPath();
+        Random random = new Random(7);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            for (int i = 0; i < roadCount; i++) {
+                writer.write(random.nextInt(locationCount) + "," + random.nextInt(locationCount)
+                        + "," + (1 + random.nextInt(400)) / 4.0 + "\n");
+            }
+        }
+
+        LocationGraph fromCsv = newGraph(locationCount);
+        RoadNetworkLoader.LoadStats csvStats = RoadNetworkLoader.loadRoadsCsv(csv, fromCsv);
+        assertEquals(roadCount, csvStats.roads);
+
+        Path binary = folder.newFile("large.rnet").toPath();
+        RoadNetworkLoader.writeBinaryRoads(binary, fromCsv);
+        LocationGraph fromBinary = newGraph(locationCount);
+        RoadNetworkLoader.LoadStats binaryStats = RoadNetworkLoader.loadRoadsBinary(binary, fromBinary);
+        assertEquals(roadCount, binaryStats.roads);
+
+        assertArrayEquals(fromCsv.findShortestDistances(0), fromBinary.findShortestDistances(0), 1e-4);
+        System.out.println("CSV: " + csvStats + ", binary: " + binaryStats);
+    }
+
+    private static LocationGraph newGraph(int locationCount) {
+        LocationGraph graph = new LocationGraph();
+        graph.ensureCapacity(locationCount);
+        for (int i = 0; i < locationCount; i++) {
+            graph.addLocationAndGetId("L" + i, 0.0, 0.0);
+        }
+        return graph;
+    }
+}
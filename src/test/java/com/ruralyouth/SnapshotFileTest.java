@@ -0,0 +1,245 @@
+package com.ruralyouth;
+
+import com.ruralyouth.data.SampleDataLoader;
+import com.ruralyouth.engine.JobQuery;
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.ruralyouth.JobFixtures.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test cases for saving and restoring the engine through binary snapshots
+ *
+ * The default run restores 100000 jobs. For the full benchmark run with e.g.
+ * -Dsnapshot.jobs=1000000 -Xmx4g
+ */
+public class SnapshotFileTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("engine", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRestoredEngineAnswersLikeTheOriginal() throws IOException {
+        JobRecommendationEngine original = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(original);
+        original.setLocationHierarchy("Village A", "Alipur Block", "North District");
+        original.saveSnapshot(file);
+        JobRecommendationEngine restored = JobRecommendationEngine.loadSnapshot(file);
+
+        assertEquals(original.getSystemStats().toString(), restored.getSystemStats().toString());
+        for (String userId : new String[] {"U001", "U002", "U003", "U004", "U005"}) {
+            assertEquals(describe(original.getRecommendations(userId, 10)), describe(restored.getRecommendations(userId, 10)));
+        }
+        assertEquals(ids(original.searchJobsByTitle("farm")), ids(restored.searchJobsByTitle("farm")));
+        assertEquals(ids(original.searchJobsBySkill("c")), ids(restored.searchJobsBySkill("c")));
+        assertEquals(original.suggestSkills("", 5), restored.suggestSkills("", 5));
+        assertEquals(ids(original.searchJobsFullText("driver OR farm", 10)), ids(restored.searchJobsFullText("driver OR farm", 10)));
+        assertEquals(ids(original.findJobsNearLocation("Village A", 30)), ids(restored.findJobsNearLocation("Village A", 30)));
+
+        JobQuery query = JobQuery.and(JobQuery.salaryAtLeast(12000), JobQuery.not(JobQuery.jobType("contract")));
+        assertEquals(ids(original.findJobs(query)), ids(restored.findJobs(query)));
+        assertEquals(original.getFacets(JobQuery.all()).toString(), restored.getFacets(JobQuery.all()).toString());
+        assertEquals(original.getRegionStats("North District").toString(), restored.getRegionStats("North District").toString());
+
+        // The restored engine keeps accepting changes
+        Job job = new Job("J900", "Farm Supervisor", "Green Farms Ltd", "Village A", 21000);
+        job.addRequiredSkill("Farming");
+        restored.addJob(job);
+        restored.addUser(new User("U900", "New User", 20, "10th", "Village A"));
+        assertTrue(ids(restored.searchJobsByTitle("farm s")).contains("J900"));
+        assertTrue(ids(restored.findJobs(JobQuery.skill("farming"))).contains("J900"));
+        assertFalse(restored.getRecommendations("U900", 5).isEmpty());
+    }
+
+    @Test
+    public void testFrozenVocabulariesSurviveRoundTrip() throws IOException {
+        JobRecommendationEngine original = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(original);
+        original.freezeSearchVocabularies();
+        original.saveSnapshot(file);
+        JobRecommendationEngine restored = JobRecommendationEngine.loadSnapshot(file);
+
+        assertTrue(restored.isSearchVocabularyFrozen());
+        assertEquals(ids(original.searchJobsByTitle("t")), ids(restored.searchJobsByTitle("t")));
+        assertEquals(ids(original.searchJobsByTitleFuzzy("framer", 2)), ids(restored.searchJobsByTitleFuzzy("framer", 2)));
+        assertEquals(original.suggestJobTitles("", 5), restored.suggestJobTitles("", 5));
+    }
+
+    @Test
+    public void testDamagedOrForeignFilesAreRejected() throws IOException {
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(engine);
+        engine.saveSnapshot(file);
+
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() / 2);
+            int value = raw.read();
+            raw.seek(raw.length() / 2);
+            raw.write(value ^ 0xFF);
+        }
+        assertRejected("checksum");
+        try {
+            JobRecommendationEngine.openSnapshot(file, true);
+            fail("Damaged snapshot should be rejected when verified");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("checksum"));
+        }
+
+        engine.saveSnapshot(file);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(4);
+            raw.writeInt(99);
+        }
+        assertRejected("version");
+
+        Files.write(file, "not a snapshot".getBytes());
+        assertRejected("Not a snapshot");
+    }
+
+    @Test
+    public void testRestoreIsFasterThanReindexing() throws IOException {
+        int count = Integer.getInteger("snapshot.jobs", 100000);
+        String[] types = {"full-time", "part-time", "contract"};
+        List<Job> catalog = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Job job = new Job("J" + i, "Role " + (i % 300), "Company " + (i % 2000), "Town " + (i % 500), 10000 + i % 40000);
+            job.setJobType(types[i % 3]);
+            job.setExperienceLevel(1 + i % 5);
+            job.setDescription("Work as role " + (i % 300) + " for company " + (i % 2000) + " in town " + (i % 500));
+            for (int s = 0; s < i % 4; s++) {
+                job.addRequiredSkill("skill " + ((i + s * 7) % 200));
+            }
+            catalog.add(job);
+        }
+
+        long start = System.nanoTime();
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        for (Job job : catalog) {
+            engine.addJob(job);
+        }
+        long indexed = System.nanoTime() - start;
+        catalog = null;
+
+        engine.saveSnapshot(file);
+        start = System.nanoTime();
+        JobRecommendationEngine restored = JobRecommendationEngine.loadSnapshot(file);
+        long loaded = System.nanoTime() - start;
+
+        assertEquals(count, restored.getSystemStats().totalJobs);
+        assertEquals(ids(engine.findJobs(JobQuery.skill("skill 7"))), ids(restored.findJobs(JobQuery.skill("skill 7"))));
+        System.out.printf("%d jobs: addJob %d ms, snapshot restore %d ms (%d MB file)%n",
+                count, indexed / 1_000_000, loaded / 1_000_000, Files.size(file) >> 20);
+    }
+
+    @Test
+    public void testMappedSnapshotServesTheSameAnswers() throws IOException {
+        JobRecommendationEngine original = new JobRecommendationEngine();
+        SampleDataLoader.loadSampleData(original);
+        original.setLocationHierarchy("Village A", "Alipur Block", "North District");
+        original.saveSnapshot(file);
+        JobRecommendationEngine mapped = JobRecommendationEngine.openSnapshot(file);
+
+        // A mapped engine always scores from its store image
+        original.enableOffHeapStore(null);
+        assertTrue(mapped.isReadOnly());
+        assertEquals(original.getSystemStats().toString(), mapped.getSystemStats().toString());
+        for (String userId : new String[] {"U001", "U002", "U003", "U004", "U005", "U404"}) {
+            assertEquals(describe(original.getRecommendations(userId, 10)), describe(mapped.getRecommendations(userId, 10)));
+        }
+        assertEquals(ids(original.searchJobsByTitle("farm")), ids(mapped.searchJobsByTitle("farm")));
+        assertEquals(ids(original.searchJobsFullText("driver OR farm", 10)), ids(mapped.searchJobsFullText("driver OR farm", 10)));
+        assertEquals(ids(original.findJobsNearLocation("Village A", 30)), ids(mapped.findJobsNearLocation("Village A", 30)));
+        JobQuery query = JobQuery.and(JobQuery.salaryAtLeast(12000), JobQuery.not(JobQuery.jobType("contract")));
+        assertEquals(ids(original.findJobs(query)), ids(mapped.findJobs(query)));
+        assertEquals(original.getFacets(JobQuery.all()).toString(), mapped.getFacets(JobQuery.all()).toString());
+        assertEquals(original.getRegionStats("North District").toString(), mapped.getRegionStats("North District").toString());
+
+        try {
+            mapped.addJob(new Job("J900", "Farm Supervisor", "Green Farms Ltd", "Village A", 21000));
+            fail("A mapped snapshot is read-only");
+        } catch (IllegalStateException expected) {
+        }
+
+        // clearAll detaches from the file and makes the engine writable again
+        mapped.clearAll();
+        mapped.addJob(new Job("J900", "Farm Supervisor", "Green Farms Ltd", "Village A", 21000));
+        assertEquals(1, mapped.getSystemStats().totalJobs);
+    }
+
+    @Test
+    public void testMappedSnapshotStartsWithoutMaterializingJobs() throws IOException {
+        int count = Integer.getInteger("snapshot.jobs", 100000);
+        JobRecommendationEngine engine = new JobRecommendationEngine();
+        for (int i = 0; i < count; i++) {
+            Job job = new Job("J" + i, "Role " + (i % 300), "Company " + (i % 2000), "Town " + (i % 500), 10000 + i % 40000);
+            job.setExperienceLevel(1 + i % 5);
+            job.addRequiredSkill("skill " + (i % 200));
+            engine.addJob(job);
+        }
+        User user = new User("U1", "Tester", 22, "12th", "Town 7");
+        user.addSkill("skill 7", 6);
+        engine.addUser(user);
+        engine.saveSnapshot(file);
+        engine.enableOffHeapStore(null);
+        List<String> expected = describe(engine.getRecommendations("U1", 10));
+        engine = null;
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        JobRecommendationEngine loaded = JobRecommendationEngine.loadSnapshot(file);
+        long loadedNanos = System.nanoTime() - start;
+        System.gc();
+        long loadedHeap = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+        assertEquals(count, loaded.getSystemStats().totalJobs);
+        loaded = null;
+
+        System.gc();
+        heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        start = System.nanoTime();
+        JobRecommendationEngine mapped = JobRecommendationEngine.openSnapshot(file);
+        long mappedNanos = System.nanoTime() - start;
+        System.gc();
+        long mappedHeap = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        assertEquals(count, mapped.getSystemStats().totalJobs);
+        assertEquals(expected, describe(mapped.getRecommendations("U1", 10)));
+        System.out.printf("%d jobs: loadSnapshot %d ms / %d MB heap, openSnapshot %d ms / %d MB heap%n",
+                count, loadedNanos / 1_000_000, loadedHeap >> 20, mappedNanos / 1_000_000, mappedHeap >> 20);
+    }
+
+    private void assertRejected(String message) {
+        try {
+            JobRecommendationEngine.loadSnapshot(file);
+            fail("Damaged snapshot should be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains(message));
+        }
+    }
+
+    private static List<String> describe(List<JobRecommendationEngine.JobRecommendation> recommendations) {
+        return recommendations.stream().map(JobRecommendationEngine.JobRecommendation::toString).collect(Collectors.toList());
+    }
+}
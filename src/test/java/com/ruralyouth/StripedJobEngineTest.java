@@ -0,0 +1,284 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.JobPriorityQueue;
+import com.ruralyouth.engine.JobQuery;
+import com.ruralyouth.engine.JobRecommendationEngine;
+import com.ruralyouth.engine.StripedJobEngine;
+import com.ruralyouth.model.Job;
+import com.ruralyouth.model.User;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.ruralyouth.JobFixtures.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for the lock-striped engine under concurrent writes
+ */
+public class StripedJobEngineTest {
+
+    @Test
+    public void testAnswersMatchASingleEngine() {
+        Random random = new Random(49);
+        JobRecommendationEngine single = new JobRecommendationEngine();
+        StripedJobEngine striped = new StripedJobEngine(8);
+        for (int i = 0; i < 3000; i++) {
+            Job job = createJob("J" + i, random);
+            single.addJob(job);
+            striped.addJob(job.copy());
+        }
+        for (int town = 1; town < 10; town++) {
+            single.getWritableLocationGraph().addRoad("Town " + (town - 1), "Town " + town, 4.0);
+            striped.addRoad("Town " + (town - 1), "Town " + town, 4.0);
+        }
+        Map<String, User> users = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            User user = createUser("U" + i, random);
+            users.put(user.getId(), user.copy());
+            single.addUser(user);
+            striped.addUser(user.copy());
+        }
+        for (int step = 0; step < 500; step++) {
+            String id = "J" + random.nextInt(3000);
+            if (random.nextBoolean()) {
+                assertEquals(single.removeJob(id), striped.removeJob(id));
+            } else {
+                Job job = createJob(id, random);
+                assertEquals(single.updateJob(job), striped.updateJob(job.copy()));
+            }
+        }
+        assertTrue(striped.removeUser("U0"));
+        assertTrue(single.removeUser("U0"));
+
+        assertEquals(single.getSystemStats().totalJobs, striped.getJobCount());
+        assertEquals(single.getSystemStats().totalUsers, striped.getUserCount());
+        for (int i = 0; i < 20; i++) {
+            String userId = "U" + i;
+            User user = users.get(userId);
+            assertEquals(rankingScores(user, single.getRecommendations(userId, 10)),
+                         rankingScores(user, striped.getRecommendations(userId, 10)));
+            JobQuery query = JobQuery.salaryAtLeast(25000);
+            assertEquals(rankingScores(user, single.getRecommendations(userId, query, 5)),
+                         rankingScores(user, striped.getRecommendations(userId, query, 5)));
+        }
+        for (String prefix : new String[] {"r", "role 1", "role 23", "x"}) {
+            assertEquals(titles(single.searchJobsByTitle(prefix, 50)), titles(striped.searchJobsByTitle(prefix, 50)));
+        }
+        assertEquals(sortedIds(single.searchJobsBySkill("skill 1")), sortedIds(striped.searchJobsBySkill("skill 1")));
+        JobQuery query = JobQuery.and(JobQuery.skill("skill 5"), JobQuery.not(JobQuery.jobType("contract")));
+        assertEquals(sortedIds(single.findJobs(query)), sortedIds(striped.findJobs(query)));
+        assertEquals(single.getFacets(JobQuery.all()).toString(), striped.getFacets(JobQuery.all()).toString());
+        assertEquals(sortedIds(single.findJobsNearLocation("Town 3", 8.0)),
+                     sortedIds(striped.findJobsNearLocation("Town 3", 8.0)));
+    }
+
+    @Test
+    public void testQueriesRunDuringWrites() throws Exception {
+        StripedJobEngine engine = new StripedJobEngine();
+        Random setup = new Random(50);
+        for (int i = 0; i < 2000; i++) {
+            engine.addJob(createJob("J" + i, setup));
+        }
+        engine.addUser(createUser("U0", setup));
+
+        int writers = 2;
+        int readers = 2;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            pool.submit(() -> {
+                Random random = new Random(writer);
+                try {
+                    // Each writer owns the ids with its parity, so the final count is known
+                    for (int op = 0; op < 1500; op++) {
+                        int id = 2 * random.nextInt(1000) + writer;
+                        if (op % 3 == 0) {
+                            engine.removeJob("J" + id);
+                        } else {
+                            engine.addJob(createJob("J" + id, random));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            pool.submit(() -> {
+                Random random = new Random();
+                try {
+                    while (writersDone.getCount() > 0) {
+                        assertFalse(engine.searchJobsByTitle("role " + random.nextInt(40), 20).contains(null));
+                        assertFalse(engine.findJobs(JobQuery.skill("skill 2")).contains(null));
+                        assertTrue(engine.getRecommendations("U0", 5).size() <= 5);
+                        assertTrue(engine.getJobCount() <= 2000);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        // Rebuild the expected catalog by replaying the writes
+        Set<String> live = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            live.add("J" + i);
+        }
+        for (int writer = 0; writer < writers; writer++) {
+            Random random = new Random(writer);
+            for (int op = 0; op < 1500; op++) {
+                String id = "J" + (2 * random.nextInt(1000) + writer);
+                if (op % 3 == 0) {
+                    live.remove(id);
+                } else {
+                    createJob(id, random);
+                    live.add(id);
+                }
+            }
+        }
+        assertEquals(live.size(), engine.getJobCount());
+        assertEquals(live, new HashSet<>(ids(engine.findJobs(JobQuery.all()))));
+    }
+
+    @Test
+    public void testContentionByReadWriteRatio() throws Exception {
+        int threads = 4;
+        int opsPerThread = 400;
+        StringBuilder report = new StringBuilder("Ops/s by read share (striped vs one lock):");
+        for (int readPercent : new int[] {100, 95, 80, 50}) {
+            StripedJobEngine striped = new StripedJobEngine();
+            JobRecommendationEngine single = new JobRecommendationEngine();
+            Random setup = new Random(51);
+            Set<String> expectedIds = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < 4000; i++) {
+                Job job = createJob("J" + i, setup);
+                striped.addJob(job.copy());
+                single.addJob(job);
+                expectedIds.add(job.getId());
+            }
+            User user = createUser("U0", setup);
+            striped.addUser(user.copy());
+            single.addUser(user);
+
+            LongAdder stripedQueries = new LongAdder();
+            long stripedRate = run(threads, opsPerThread, readPercent, new Workload() {
+                public void read(Random random) {
+                    striped.searchJobsByTitle("role " + random.nextInt(40), 10);
+                    striped.findJobs(JobQuery.and(JobQuery.skill("skill " + random.nextInt(20)),
+                            JobQuery.salaryAtLeast(20000)));
+                    striped.getRecommendations("U0", 5);
+                    striped.getJobCount();
+                    stripedQueries.add(4);
+                }
+
+                public void write(Random random) {
+                    Job job = createJob("J" + random.nextInt(5000), random);
+                    striped.addJob(job);
+                    expectedIds.add(job.getId());
+                }
+            });
+            long singleRate = run(threads, opsPerThread, readPercent, new Workload() {
+                public void read(Random random) {
+                    synchronized (single) {
+                        single.searchJobsByTitle("role " + random.nextInt(40), 10);
+                        single.findJobs(JobQuery.and(JobQuery.skill("skill " + random.nextInt(20)),
+                                JobQuery.salaryAtLeast(20000)));
+                        single.getRecommendations("U0", 5);
+                        single.getSystemStats();
+                    }
+                }
+
+                public void write(Random random) {
+                    Job job = createJob("J" + random.nextInt(5000), random);
+                    synchronized (single) {
+                        single.addJob(job);
+                    }
+                }
+            });
+
+            // Every query visits each stripe once, optimistically or under the lock
+            long optimisticReads = striped.getOptimisticReads();
+            long stripeReads = optimisticReads + striped.getLockedReads();
+            assertEquals(stripedQueries.sum() * striped.getStripeCount(), stripeReads);
+
+            // No write got lost: both engines saw the same ids, as did the workload
+            List<String> expected = new ArrayList<>(expectedIds);
+            Collections.sort(expected);
+            assertEquals(expected, sortedIds(striped.findJobs(JobQuery.all())));
+            assertEquals(expected, sortedIds(single.findJobs(JobQuery.all())));
+            assertEquals(expected.size(), striped.getJobCount());
+            report.append(String.format(" %d%%: %d vs %d (%d optimistic, %d locked stripe reads);",
+                    readPercent, stripedRate, singleRate, optimisticReads, stripeReads - optimisticReads));
+        }
+        System.out.println(report);
+    }
+
+    private interface Workload {
+        void read(Random random);
+
+        void write(Random random);
+    }
+
+    private static long run(int threads, int opsPerThread, int readPercent, Workload workload) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong done = new AtomicLong();
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            results.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int op = 0; op < opsPerThread; op++) {
+                    if (random.nextInt(100) < readPercent) {
+                        workload.read(random);
+                    } else {
+                        workload.write(random);
+                    }
+                    done.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+        return done.get() * 1_000_000_000L / Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * Scores the recommendations were ranked by (ties may order differently)
+     */
+    private static List<Double> rankingScores(User user, List<JobRecommendationEngine.JobRecommendation> recommendations) {
+        List<Double> scores = new ArrayList<>();
+        for (JobRecommendationEngine.JobRecommendation recommendation : recommendations) {
+            scores.add(JobPriorityQueue.calculateJobScore(recommendation.job, user, recommendation.distance));
+        }
+        return scores;
+    }
+
+    private static User createUser(String id, Random random) {
+        User user = new User(id, "User " + id, 18 + random.nextInt(20), "ITI", "Town " + random.nextInt(10));
+        for (int s = 1 + random.nextInt(3); s > 0; s--) {
+            user.addSkill("skill " + random.nextInt(20), 1 + random.nextInt(10));
+        }
+        return user;
+    }
+
+    private static List<String> titles(List<Job> jobs) {
+        return jobs.stream().map(Job::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,332 @@
+package com.ruralyouth;
+
+import com.ruralyouth.dsa.Trie;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for the compact Trie, including a memory comparison against
+ * the previous HashMap-per-node layout
+ */
+public class TrieTest {
+
+    private Trie trie;
+
+    @Before
+    public void setUp() {
+        trie = new Trie();
+        trie.insert("Java Developer");
+        trie.insert("Junior Accountant");
+        trie.insert("java developer");
+        trie.insert("Welder");
+        trie.insert("Welding Assistant");
+    }
+
+    @Test
+    public void testSearchAndPrefix() {
+        assertTrue(trie.search("JAVA DEVELOPER"));
+        assertFalse(trie.search("Java"));
+        assertTrue(trie.startsWith("wel"));
+        assertFalse(trie.startsWith("plumb"));
+
+        List<String> weld = trie.getWordsWithPrefix("weld");
+        assertEquals(List.of("Welder", "Welding Assistant"), weld);
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    public void testRemoveKeepsSiblings() {
+        assertTrue(trie.remove("Welder"));
+        assertFalse(trie.search("Welder"));
+        assertTrue(trie.search("Welding Assistant"));
+        assertFalse(trie.remove("Welder"));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    public void testIdPostingsByPrefix() {
+        Trie titles = new Trie();
+        titles.addId("Welder", 0);
+        titles.addId("Electrician", 1);
+        titles.addId("welder", 2);
+        titles.addId("Welding Assistant", 3);
+
+        assertArrayEquals(new int[] {0, 2}, titles.getIds("WELDER"));
+        assertArrayEquals(new int[] {0, 2, 3}, titles.getIdsWithPrefix("wel", 10));
+        assertArrayEquals(new int[] {0, 2}, titles.getIdsWithPrefix("wel", 2));
+        assertEquals(0, titles.getIdsWithPrefix("plumb", 10).length);
+
+        titles.remove("welder");
+        assertArrayEquals(new int[] {3}, titles.getIdsWithPrefix("wel", 10));
+    }
+
+    @Test
+    public void testForkLeavesTheOriginalUnchanged() {
+        Trie titles = new Trie();
+        titles.addId("Welder", 0);
+        titles.addId("Welding Assistant", 1);
+        titles.addWeight("Welder", 2);
+
+        Trie fork = titles.fork();
+        fork.addId("Welder", 2);
+        fork.addWeight("Welder", 1);
+        fork.addId("Weaver", 3);
+        fork.removeId("Welding Assistant", 1);
+        fork.remove("Welding Assistant");
+
+        assertArrayEquals(new int[] {0, 1}, titles.getIdsWithPrefix("wel", 10));
+        assertEquals(2, titles.getWeight("Welder"));
+        assertEquals(List.of("Welder", "Welding Assistant"), titles.getWordsWithPrefix("we"));
+        assertEquals(2, titles.size());
+
+        assertArrayEquals(new int[] {3, 0, 2}, fork.getIdsWithPrefix("we", 10));
+        assertEquals(3, fork.getWeight("Welder"));
+        assertEquals(List.of("Weaver", "Welder"), fork.getWordsWithPrefix("we"));
+
+        // The original can still change without affecting the fork
+        titles.addId("Welder", 9);
+        assertArrayEquals(new int[] {0, 2}, fork.getIds("welder"));
+    }
+
+    @Test
+    public void testReadersOfPublishedForksDuringIngestion() throws Exception {
+        int words = 40_000;
+        int readers = 3;
+        AtomicReference<Trie> published = new AtomicReference<>(new Trie());
+        AtomicInteger publishedWords = new AtomicInteger();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writerDone = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(1 + readers);
+
+        pool.submit(() -> {
+            Trie working = published.get().fork();
+            for (int i = 0; i < words; i++) {
+                working.addId("worker " + i, i);
+                if (i % 500 == 499) {
+                    published.set(working);
+                    publishedWords.set(i + 1);
+                    working = working.fork();
+                }
+            }
+            writerDone.countDown();
+        });
+        for (int r = 0; r < readers; r++) {
+            final Random random = new Random(r);
+            pool.submit(() -> {
+                while (writerDone.getCount() > 0 && failure.get() == null) {
+                    // Anything published before we looked must be found, whole
+                    int visible = publishedWords.get();
+                    Trie snapshot = published.get();
+                    if (snapshot.size() < visible) {
+                        failure.set("Saw " + snapshot.size() + " words after " + visible + " were published");
+                    } else if (visible > 0) {
+                        int i = random.nextInt(visible);
+                        int[] ids = snapshot.getIds("worker " + i);
+                        if (ids.length != 1 || ids[0] != i) {
+                            failure.set("Missing or wrong postings for worker " + i);
+                        }
+                    }
+                    snapshot.getWordsWithPrefix("worker " + random.nextInt(100));
+                }
+            });
+        }
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        assertNull(failure.get(), failure.get());
+        assertEquals(words, published.get().size());
+    }
+
+    @Test
+    public void testTopKWithPrefixOrdersByWeight() {
+        trie.setWeight("Welder", 5);
+        trie.setWeight("Welding Assistant", 9);
+        trie.insert("Warehouse Helper", 7);
+
+        assertEquals(List.of("Welding Assistant", "Welder"), trie.getTopKWithPrefix("wel", 5));
+        assertEquals(List.of("Welding Assistant", "Warehouse Helper"), trie.getTopKWithPrefix("w", 2));
+        assertTrue(trie.getTopKWithPrefix("plumb", 3).isEmpty());
+
+        // Lowering the heaviest word must pull the subtree maximum down with it
+        trie.setWeight("Welding Assistant", 1);
+        assertEquals(List.of("Warehouse Helper", "Welder"), trie.getTopKWithPrefix("w", 2));
+
+        trie.addWeight("Welder", 10);
+        assertEquals(15, trie.getWeight("welder"));
+        trie.remove("Welder");
+        assertEquals(List.of("Warehouse Helper"), trie.getTopKWithPrefix("w", 1));
+        assertFalse(trie.setWeight("Welder", 3));
+    }
+
+    @Test
+    public void testTopKMatchesFullSort() {
+        List<String> vocabulary = buildVocabulary(5_000);
+        Random random = new Random(11);
+        Trie weighted = new Trie();
+        Map<String, Long> weights = new HashMap<>();
+        for (String word : vocabulary) {
+            long weight = random.nextInt(1000);
+            weighted.insert(word, weight);
+            weights.put(word, weight);
+        }
+
+        for (String prefix : List.of("a", "b", "qu", "")) {
+            List<String> top = weighted.getTopKWithPrefix(prefix, 10);
+            List<Long> expected = weights.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .map(Map.Entry::getValue)
+                    .sorted(Comparator.reverseOrder())
+                    .limit(10)
+                    .collect(java.util.stream.Collectors.toList());
+
+            List<Long> actual = new ArrayList<>();
+            for (String word : top) {
+                assertTrue(word.startsWith(prefix));
+                actual.add(weights.get(word));
+            }
+            assertEquals("prefix '" + prefix + "'", expected, actual);
+        }
+    }
+
+    @Test
+    public void testFuzzySearchFindsTypos() {
+        trie.insert("Electrician");
+
+        List<Trie.Match> matches = trie.searchFuzzy("weldor", 1);
+        assertEquals(1, matches.size());
+        assertEquals("Welder", matches.get(0).word);
+        assertEquals(1, matches.get(0).distance);
+
+        assertTrue(trie.searchFuzzy("electrition", 1).isEmpty());
+        assertEquals("Electrician", trie.searchFuzzy("electrition", 2).get(0).word);
+
+        // Exact hits rank ahead of near misses
+        trie.insert("Welter");
+        List<Trie.Match> ranked = trie.searchFuzzy("welder", 1);
+        assertEquals("Welder", ranked.get(0).word);
+        assertEquals(0, ranked.get(0).distance);
+        assertEquals("Welter", ranked.get(1).word);
+    }
+
+    @Test
+    public void testFuzzySearchMatchesBruteForce() {
+        List<String> vocabulary = buildVocabulary(20_000);
+        Trie large = new Trie();
+        for (String word : vocabulary) {
+            large.insert(word);
+        }
+
+        for (String query : List.of("abcd worker", "qwerty helper", vocabulary.get(7).substring(1))) {
+            long start = System.nanoTime();
+            List<Trie.Match> matches = large.searchFuzzy(query, 2);
+            long micros = (System.nanoTime() - start) / 1000;
+
+            Set<String> expected = new TreeSet<>();
+            for (String word : vocabulary) {
+                if (levenshtein(word.toLowerCase(), query) <= 2) {
+                    expected.add(word);
+                }
+            }
+            Set<String> actual = new TreeSet<>();
+            for (Trie.Match match : matches) {
+                actual.add(match.word);
+            }
+            assertEquals(expected, actual);
+            System.out.printf("Fuzzy '%s': %d matches in %d us%n", query, matches.size(), micros);
+        }
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    @Test
+    public void testMemoryPerStoredWord() {
+        List<String> vocabulary = buildVocabulary(50_000);
+
+        long before = usedMemory();
+        LegacyTrie legacy = new LegacyTrie();
+        for (String word : vocabulary) {
+            legacy.insert(word);
+        }
+        long legacyBytes = usedMemory() - before;
+
+        before = usedMemory();
+        Trie compact = new Trie();
+        for (String word : vocabulary) {
+            compact.insert(word);
+        }
+        long compactBytes = usedMemory() - before;
+
+        assertEquals(vocabulary.size(), compact.size());
+        System.out.printf("Trie memory: legacy %d bytes/word, compact %d bytes/word%n",
+                legacyBytes / vocabulary.size(), compactBytes / vocabulary.size());
+        assertTrue("Compact trie should use less memory", compactBytes < legacyBytes);
+
+        // Keep both alive until measured
+        assertTrue(legacy.root.children.size() > 0 && !compact.isEmpty());
+    }
+
+    private static List<String> buildVocabulary(int count) {
+        String[] roles = {"Developer", "Operator", "Assistant", "Technician", "Worker", "Driver", "Helper"};
+        Random random = new Random(3);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word + " " + roles[random.nextInt(roles.length)]);
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The node layout Trie used before: a HashMap and HashSet in every node
+     */
+    private static class LegacyTrie {
+        final LegacyNode root = new LegacyNode();
+
+        void insert(String word) {
+            LegacyNode current = root;
+            for (char c : word.toLowerCase().toCharArray()) {
+                current = current.children.computeIfAbsent(c, k -> new LegacyNode());
+            }
+            current.isEndOfWord = true;
+            current.words.add(word);
+        }
+    }
+
+    private static class LegacyNode {
+        Map<Character, LegacyNode> children = new HashMap<>();
+        boolean isEndOfWord;
+        Set<String> words = new HashSet<>();
+    }
+}